@@ -0,0 +1,119 @@
+/**
+ * Copyright 2016 vip.com.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * </p>
+ */   
+package com.vip.saturn.job.console.domain;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 废弃数据扫描的进度，以及从请求的偏移量开始新发现的废弃数据
+ */
+public class SaturnJunkDataScanResult implements Serializable {
+
+	private static final long serialVersionUID = 6453260286517316172L;
+
+	private String scanId;
+
+	private int totalNamespaces;
+
+	private int scannedNamespaces;
+
+	private int failedNamespaces;
+
+	private boolean finished;
+
+	private boolean cancelled;
+
+	/**
+	 * 下次查询的偏移量
+	 */
+	private int next;
+
+	private List<SaturnJunkData> junkData;
+
+	public String getScanId() {
+		return scanId;
+	}
+
+	public void setScanId(String scanId) {
+		this.scanId = scanId;
+	}
+
+	public int getTotalNamespaces() {
+		return totalNamespaces;
+	}
+
+	public void setTotalNamespaces(int totalNamespaces) {
+		this.totalNamespaces = totalNamespaces;
+	}
+
+	public int getScannedNamespaces() {
+		return scannedNamespaces;
+	}
+
+	public void setScannedNamespaces(int scannedNamespaces) {
+		this.scannedNamespaces = scannedNamespaces;
+	}
+
+	public int getFailedNamespaces() {
+		return failedNamespaces;
+	}
+
+	public void setFailedNamespaces(int failedNamespaces) {
+		this.failedNamespaces = failedNamespaces;
+	}
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+	public void setFinished(boolean finished) {
+		this.finished = finished;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public void setCancelled(boolean cancelled) {
+		this.cancelled = cancelled;
+	}
+
+	public int getNext() {
+		return next;
+	}
+
+	public void setNext(int next) {
+		this.next = next;
+	}
+
+	public List<SaturnJunkData> getJunkData() {
+		return junkData;
+	}
+
+	public void setJunkData(List<SaturnJunkData> junkData) {
+		this.junkData = junkData;
+	}
+
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+	}
+
+}
@@ -35,6 +35,8 @@ import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository;
 public interface JobDimensionService {
 	
 	JobStatus getJobStatus(final String jobName);
+
+	JobStatus getJobStatus(final String jobName, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp);
 	
     Collection<JobBriefInfo> getAllJobsBriefInfo(String sessionBsKey, String namespace);
     
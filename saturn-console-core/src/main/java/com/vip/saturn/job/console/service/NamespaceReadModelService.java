@@ -0,0 +1,46 @@
+/**
+ * Copyright 2016 vip.com.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * </p>
+ */
+
+package com.vip.saturn.job.console.service;
+
+import java.util.Map;
+
+import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository;
+
+/**
+ * 域的内存读模型：由TreeCache的watch事件保持更新，作业列表、作业设置、作业服务器和执行状态页面从内存读取，不再逐个节点读取zk.
+ */
+public interface NamespaceReadModelService {
+
+	/**
+	 * 当前会话的域的只读CuratorFrameworkOp：$Jobs和executors节点从读模型读取，读模型未初始化完成或者连接中断时读取zk。
+	 * 只用于读取，写操作仍然直接写zk
+	 */
+	CuratorRepository.CuratorFrameworkOp inSessionReadClient();
+
+	/**
+	 * 当前会话的域的executor -> (按作业名排序的作业名 -> 非空分片)索引，由watch事件增量更新；读模型不可用时返回null。
+	 * 返回的Map只读
+	 */
+	Map<String, Map<String, String>> getExecutorShardings();
+
+	/**
+	 * 每个域的读模型估算占用的内存字节数，key为zk地址/域名
+	 */
+	Map<String, Long> getMemoryUsage();
+
+}
@@ -17,6 +17,8 @@
 
 package com.vip.saturn.job.console.service;
 
+import java.util.Map;
+
 import com.vip.saturn.job.console.domain.RegistryCenterClient;
 import com.vip.saturn.job.console.domain.RegistryCenterConfiguration;
 import com.vip.saturn.job.console.domain.RequestResult;
@@ -38,4 +40,9 @@ public interface RegistryCenterService {
     
     NamespaceShardingManager findShardingManagerByNamespace(String namespace);
 
+    /**
+     * 共享线程池中每个域等待执行的分片任务数，key为zk集群名/域名
+     */
+    Map<String, Integer> getShardingQueueDepths();
+
 }
@@ -19,6 +19,7 @@ package com.vip.saturn.job.console.service;
 import java.util.Collection;
 
 import com.vip.saturn.job.console.domain.SaturnJunkData;
+import com.vip.saturn.job.console.domain.SaturnJunkDataScanResult;
 
 /** 
  * @author yangjuanying  
@@ -32,6 +33,24 @@ public interface SaturnJunkDataService {
 	 */
 	Collection<SaturnJunkData> getJunkData(String bootstrapKey);
 
+	/**
+	 * 在后台并发扫描zk集群下全部域的废弃数据
+	 * @param zkAddr zk集群
+	 * @return 扫描id，集群不存在或者进行中的扫描数已达上限时返回null
+	 */
+	String startJunkDataScan(String zkAddr);
+
+	/**
+	 * 获取扫描进度，以及从from开始新发现的废弃数据
+	 * @return 扫描不存在或者已过期时返回null
+	 */
+	SaturnJunkDataScanResult getJunkDataScanResult(String scanId, int from);
+
+	/**
+	 * 取消扫描，已发现的废弃数据仍然可以获取
+	 */
+	void cancelJunkDataScan(String scanId);
+
 	/**
 	 * 
 	 * 
@@ -30,6 +30,33 @@ public final class SaturnEnvProperties {
      */
     public static String REG_CENTER_JSON_FILE;
 
+    /**
+     * 全部域共享的分片线程数，TreeCache事件线程数相同
+     */
+    public static int SHARDING_WORKER_THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * 是否启用域的内存读模型
+     */
+    public static boolean READ_MODEL_ENABLED = true;
+
+    /**
+     * 读模型超过该秒数没有被访问则关闭
+     */
+    public static long READ_MODEL_IDLE_SECONDS = 600L;
+
+    /**
+     * 全部读模型估算占用内存的上限(MB)，超过则关闭最久没有被访问的读模型
+     */
+    public static long READ_MODEL_MAX_MB = 512L;
+
+    /**
+     * 读模型缓存$Jobs的层数(1-4)，默认4：执行状态页面的$Jobs/jobName/execution/item/running等节点、executor分片索引使用的$Jobs/jobName/servers/executorName/sharding都在第4层.
+     * 第4层包括每个分片的execution节点，作业每次执行都会修改，TreeCache随之收到watch事件并重新读取；作业多、执行频繁的域可以设为3，
+     * 只缓存作业配置和各级列表，更深的节点以及executor分片索引读取zk
+     */
+    public static int READ_MODEL_JOBS_DEPTH = 4;
+
     static {
         REG_CENTER_JSON_FILE = System.getProperty("REG_CENTER_JSON_PATH", System.getenv("REG_CENTER_JSON_PATH"));
         if (null != REG_CENTER_JSON_FILE) {
@@ -39,5 +66,41 @@ public final class SaturnEnvProperties {
             REG_CENTER_VALUE = new String(REG_CENTER_VALUE.getBytes(), Charset.forName("UTF-8"));
         }
         VIP_SATURN_ZK_CONNECTION = System.getProperty("VIP_SATURN_ZK_CONNECTION", System.getenv("VIP_SATURN_ZK_CONNECTION"));
+        String shardingWorkerThreads = System.getProperty("VIP_SATURN_SHARDING_WORKER_THREADS", System.getenv("VIP_SATURN_SHARDING_WORKER_THREADS"));
+        if (shardingWorkerThreads != null) {
+            try {
+                SHARDING_WORKER_THREADS = Integer.parseInt(shardingWorkerThreads.trim());
+            } catch (NumberFormatException e) {
+                log.error("the VIP_SATURN_SHARDING_WORKER_THREADS is not valid", e);
+            }
+        }
+        String readModelEnabled = System.getProperty("VIP_SATURN_CONSOLE_READ_MODEL_ENABLED", System.getenv("VIP_SATURN_CONSOLE_READ_MODEL_ENABLED"));
+        if (readModelEnabled != null) {
+            READ_MODEL_ENABLED = Boolean.parseBoolean(readModelEnabled.trim());
+        }
+        String readModelIdleSeconds = System.getProperty("VIP_SATURN_CONSOLE_READ_MODEL_IDLE_SECONDS", System.getenv("VIP_SATURN_CONSOLE_READ_MODEL_IDLE_SECONDS"));
+        if (readModelIdleSeconds != null) {
+            try {
+                READ_MODEL_IDLE_SECONDS = Long.parseLong(readModelIdleSeconds.trim());
+            } catch (NumberFormatException e) {
+                log.error("the VIP_SATURN_CONSOLE_READ_MODEL_IDLE_SECONDS is not valid", e);
+            }
+        }
+        String readModelMaxMb = System.getProperty("VIP_SATURN_CONSOLE_READ_MODEL_MAX_MB", System.getenv("VIP_SATURN_CONSOLE_READ_MODEL_MAX_MB"));
+        if (readModelMaxMb != null) {
+            try {
+                READ_MODEL_MAX_MB = Long.parseLong(readModelMaxMb.trim());
+            } catch (NumberFormatException e) {
+                log.error("the VIP_SATURN_CONSOLE_READ_MODEL_MAX_MB is not valid", e);
+            }
+        }
+        String readModelJobsDepth = System.getProperty("VIP_SATURN_CONSOLE_READ_MODEL_JOBS_DEPTH", System.getenv("VIP_SATURN_CONSOLE_READ_MODEL_JOBS_DEPTH"));
+        if (readModelJobsDepth != null) {
+            try {
+                READ_MODEL_JOBS_DEPTH = Math.max(1, Math.min(4, Integer.parseInt(readModelJobsDepth.trim())));
+            } catch (NumberFormatException e) {
+                log.error("the VIP_SATURN_CONSOLE_READ_MODEL_JOBS_DEPTH is not valid", e);
+            }
+        }
     }
 }
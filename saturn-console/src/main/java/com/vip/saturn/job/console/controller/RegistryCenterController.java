@@ -39,6 +39,7 @@ import com.vip.saturn.job.console.domain.RequestResult;
 import com.vip.saturn.job.console.domain.TreeNode;
 import com.vip.saturn.job.console.service.InitRegistryCenterService;
 import com.vip.saturn.job.console.service.JobDimensionService;
+import com.vip.saturn.job.console.service.NamespaceReadModelService;
 import com.vip.saturn.job.console.service.RegistryCenterService;
 import com.vip.saturn.job.console.service.impl.RegistryCenterServiceImpl;
 import com.vip.saturn.job.console.utils.ThreadLocalCuratorClient;
@@ -63,6 +64,9 @@ public class RegistryCenterController extends AbstractController {
 	@Resource
 	private RegistryCenterService registryCenterService;
 
+	@Resource
+	private NamespaceReadModelService namespaceReadModelService;
+
 	@RequestMapping(method = RequestMethod.GET)
 	public Map<?, ?> load(final HttpSession session) {
 		Map<String, Object> model = new HashMap<String, Object>();
@@ -77,6 +81,16 @@ public class RegistryCenterController extends AbstractController {
 		return registryCenterService.refreshRegCenter();
 	}
 
+	@RequestMapping(value = "shardingQueueDepths", method = RequestMethod.GET)
+	public Map<String, Integer> shardingQueueDepths() {
+		return registryCenterService.getShardingQueueDepths();
+	}
+
+	@RequestMapping(value = "readModelMemory", method = RequestMethod.GET)
+	public Map<String, Long> readModelMemory() {
+		return namespaceReadModelService.getMemoryUsage();
+	}
+
 	@RequestMapping(value = "connect", method = RequestMethod.POST)
 	public Map<String, Object> connect(final String nameAndNamespace, final HttpSession session) {
 		RegistryCenterClient client = registryCenterService.connect(nameAndNamespace);
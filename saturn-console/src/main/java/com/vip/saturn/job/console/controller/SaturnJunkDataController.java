@@ -31,7 +31,9 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.google.common.base.Strings;
+import com.vip.saturn.job.console.constants.SaturnConstants;
 import com.vip.saturn.job.console.domain.SaturnJunkData;
+import com.vip.saturn.job.console.domain.SaturnJunkDataScanResult;
 import com.vip.saturn.job.console.service.SaturnJunkDataService;
 
 /** 
@@ -56,6 +58,25 @@ public class SaturnJunkDataController extends AbstractController {
 	public Collection<SaturnJunkData> getJunkData(HttpServletRequest request,HttpSession session,ModelMap model,String zkAddr) {
 		return saturnJunkDataService.getJunkData(zkAddr);
     }
+
+    @ResponseBody
+    @RequestMapping(value = "startJunkDataScan",method = RequestMethod.POST)
+	public String startJunkDataScan(HttpServletRequest request,HttpSession session,String zkAddr) {
+		return saturnJunkDataService.startJunkDataScan(zkAddr);
+    }
+
+    @ResponseBody
+    @RequestMapping(value = "getJunkDataScanResult",method = RequestMethod.GET)
+	public SaturnJunkDataScanResult getJunkDataScanResult(HttpServletRequest request,HttpSession session,String scanId,Integer from) {
+		return saturnJunkDataService.getJunkDataScanResult(scanId, from == null ? 0 : from);
+    }
+
+    @ResponseBody
+    @RequestMapping(value = "cancelJunkDataScan",method = RequestMethod.POST)
+	public String cancelJunkDataScan(HttpServletRequest request,HttpSession session,String scanId) {
+		saturnJunkDataService.cancelJunkDataScan(scanId);
+		return SaturnConstants.DEAL_SUCCESS;
+    }
     
     @ResponseBody
     @RequestMapping(value = "removeJunkData",method = RequestMethod.POST)
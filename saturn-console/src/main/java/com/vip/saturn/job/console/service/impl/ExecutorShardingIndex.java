@@ -0,0 +1,106 @@
+/**
+ * Copyright 2016 vip.com.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * </p>
+ */
+
+
+package com.vip.saturn.job.console.service.impl;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.framework.recipes.cache.TreeCacheListener;
+
+import com.vip.saturn.job.console.utils.JobNodePath;
+
+/**
+ * executor -> (作业名 -> 分片)的倒排索引，由$Jobs的TreeCache事件增量更新，只记录非空的$Jobs/jobName/servers/executorName/sharding节点.
+ * 同一个域的事件串行处理，读取时可以并发
+ */
+class ExecutorShardingIndex implements TreeCacheListener {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final String JOBS_PREFIX = JobNodePath.get$JobsNodePath() + "/";
+
+	private final ConcurrentHashMap<String, Map<String, String>> executorShardings = new ConcurrentHashMap<>();
+
+	// 与executorShardings同步维护的只读视图，调用方不能修改内层的作业分片
+	private final ConcurrentHashMap<String, Map<String, String>> readOnlyShardings = new ConcurrentHashMap<>();
+
+	private final Map<String, Map<String, String>> readOnlyView = Collections.unmodifiableMap(readOnlyShardings);
+
+	@Override
+	public void childEvent(CuratorFramework client, TreeCacheEvent event) throws Exception {
+		TreeCacheEvent.Type type = event.getType();
+		ChildData childData = event.getData();
+		if (childData == null || (type != TreeCacheEvent.Type.NODE_ADDED && type != TreeCacheEvent.Type.NODE_UPDATED
+				&& type != TreeCacheEvent.Type.NODE_REMOVED)) {
+			return;
+		}
+		String path = childData.getPath();
+		if (!path.startsWith(JOBS_PREFIX) || !path.endsWith("/sharding")) {
+			return;
+		}
+		// jobName/servers/executorName/sharding
+		String[] names = path.substring(JOBS_PREFIX.length()).split("/");
+		if (names.length != 4 || !"servers".equals(names[1])) {
+			return;
+		}
+		String jobName = names[0];
+		String executorName = names[2];
+		byte[] data = childData.getData();
+		if (type == TreeCacheEvent.Type.NODE_REMOVED || data == null || data.length == 0) {
+			remove(executorName, jobName);
+		} else {
+			put(executorName, jobName, new String(data, UTF8));
+		}
+	}
+
+	private void put(String executorName, String jobName, String sharding) {
+		Map<String, String> shardings = executorShardings.get(executorName);
+		if (shardings == null) {
+			shardings = new ConcurrentSkipListMap<>();
+			executorShardings.put(executorName, shardings);
+			readOnlyShardings.put(executorName, Collections.unmodifiableMap(shardings));
+		}
+		shardings.put(jobName, sharding);
+	}
+
+	private void remove(String executorName, String jobName) {
+		Map<String, String> shardings = executorShardings.get(executorName);
+		if (shardings != null) {
+			shardings.remove(jobName);
+			if (shardings.isEmpty()) {
+				executorShardings.remove(executorName);
+				readOnlyShardings.remove(executorName);
+			}
+		}
+	}
+
+	/**
+	 * executor -> (按作业名排序的作业名 -> 分片)
+	 */
+	Map<String, Map<String, String>> getExecutorShardings() {
+		return readOnlyView;
+	}
+
+}
@@ -56,6 +56,7 @@ import com.vip.saturn.job.console.domain.ServerStatus;
 import com.vip.saturn.job.console.exception.SaturnJobConsoleException;
 import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository;
 import com.vip.saturn.job.console.service.JobDimensionService;
+import com.vip.saturn.job.console.service.NamespaceReadModelService;
 import com.vip.saturn.job.console.service.RegistryCenterService;
 import com.vip.saturn.job.console.utils.BooleanWrapper;
 import com.vip.saturn.job.console.utils.CronExpression;
@@ -77,6 +78,9 @@ public class JobDimensionServiceImpl implements JobDimensionService {
 
     @Resource
     private RegistryCenterService registryCenterService;
+
+    @Resource
+    private NamespaceReadModelService namespaceReadModelService;
     
     private JobBriefInfo genJobBriefInfo4tree(String jobName, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp) {
     	JobBriefInfo jobBriefInfo = new JobBriefInfo();
@@ -217,7 +221,7 @@ public class JobDimensionServiceImpl implements JobDimensionService {
 
 	@Override
     public Collection<JobBriefInfo> getAllJobsBriefInfo(String sessionZkKey, String namespace) {
-		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = curatorRepository.inSessionClient();
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = namespaceReadModelService.inSessionReadClient();
 		List<String> jobNames = new ArrayList<>();
 		try {
 			jobNames = getAllUnSystemJobs(curatorFrameworkOp);
@@ -231,8 +235,8 @@ public class JobDimensionServiceImpl implements JobDimensionService {
         			continue;
         		}
         		JobBriefInfo jobBriefInfo = genJobBriefInfo4tree(jobName, curatorFrameworkOp);
-	            jobBriefInfo.setIsJobEnabled(isJobEnabled(jobName));
-	            jobBriefInfo.setStatus(getJobStatus(jobName));
+	            jobBriefInfo.setIsJobEnabled(isJobEnabled(jobName, curatorFrameworkOp));
+	            jobBriefInfo.setStatus(getJobStatus(jobName, curatorFrameworkOp));
 	            jobBriefInfo.setJobParameter(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "jobParameter")));
 	            jobBriefInfo.setShardingItemParameters(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "shardingItemParameters")));
 	            jobBriefInfo.setQueueName(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "queueName")));
@@ -252,7 +256,7 @@ public class JobDimensionServiceImpl implements JobDimensionService {
 	            jobBriefInfo.setUseSerial(Boolean.valueOf(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "useSerial"))));
 	            jobBriefInfo.setUseDispreferList((Boolean.valueOf(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "useDispreferList")))));
 	            jobBriefInfo.setProcessCountIntervalSeconds(Integer.parseInt(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "processCountIntervalSeconds"))));
-	            jobBriefInfo.setJobRate(geJobRunningInfo(jobName));
+	            jobBriefInfo.setJobRate(geJobRunningInfo(jobName, curatorFrameworkOp));
 	            jobBriefInfo.setGroups(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "groups")));
 	            String preferList = curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "preferList"));
 	    		StringBuilder allPreferExecutorsBuilder = new StringBuilder();
@@ -317,8 +321,11 @@ public class JobDimensionServiceImpl implements JobDimensionService {
     }
 
 	public String geJobRunningInfo(final String jobName) {
+		return geJobRunningInfo(jobName, curatorRepository.inSessionClient());
+	}
+
+	private String geJobRunningInfo(final String jobName, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp) {
 		String serverNodePath = JobNodePath.getServerNodePath(jobName);
-		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = curatorRepository.inSessionClient();
     	if(!curatorFrameworkOp.checkExists(serverNodePath)) {
     		return "";
     	}
@@ -358,7 +365,11 @@ public class JobDimensionServiceImpl implements JobDimensionService {
 
     @Override
     public JobStatus getJobStatus(final String jobName) {
-		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = curatorRepository.inSessionClient();
+		return getJobStatus(jobName, curatorRepository.inSessionClient());
+    }
+
+    @Override
+    public JobStatus getJobStatus(final String jobName, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp) {
     	// see if all the shards is finished.
     	List<String> executionItems = curatorFrameworkOp.getChildren(JobNodePath.getExecutionNodePath(jobName));
     	boolean isAllShardsFinished = true;
@@ -391,7 +402,7 @@ public class JobDimensionServiceImpl implements JobDimensionService {
 
     @Override
     public JobSettings getJobSettings(final String jobName, RegistryCenterConfiguration configInSession) {
-		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = curatorRepository.inSessionClient();
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = namespaceReadModelService.inSessionReadClient();
         JobSettings result = new JobSettings();
         result.setJobName(jobName);
         result.setJobClass(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "jobClass")));
@@ -418,7 +429,7 @@ public class JobDimensionServiceImpl implements JobDimensionService {
         }
         result.setEnabled(Boolean.valueOf(JobNodePath.getConfigNodePath(jobName, "enabled")));//默认是禁用的
         result.setPreferList(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "preferList")));
-        result.setPreferListCandidate(getAllExecutors(jobName));
+        result.setPreferListCandidate(getAllExecutors(jobName, curatorFrameworkOp));
         String useDispreferList = curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "useDispreferList"));
         if(Strings.isNullOrEmpty(useDispreferList)){
         	result.setUseDispreferList(null);
@@ -523,7 +534,7 @@ public class JobDimensionServiceImpl implements JobDimensionService {
 
     @Override
     public Collection<JobServer> getServers(final String jobName) {
-		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = curatorRepository.inSessionClient();
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = namespaceReadModelService.inSessionReadClient();
     	String serverNodePath = JobNodePath.getServerNodePath(jobName);
     	List<String> serverIps = new ArrayList<>();
     	if(curatorFrameworkOp.checkExists(serverNodePath)) {
@@ -532,7 +543,7 @@ public class JobDimensionServiceImpl implements JobDimensionService {
         String leaderIp = curatorFrameworkOp.getData(JobNodePath.getLeaderNodePath(jobName, "election/host"));
         Collection<JobServer> result = new ArrayList<>(serverIps.size());
         for (String each : serverIps) {
-            result.add(getJobServer(jobName, leaderIp, each));
+            result.add(getJobServer(jobName, leaderIp, each, curatorFrameworkOp));
         }
         return result;
     }
@@ -553,8 +564,7 @@ public class JobDimensionServiceImpl implements JobDimensionService {
         }
     }
 
-    private JobServer getJobServer(final String jobName, final String leaderIp, final String serverIp) {
-		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = curatorRepository.inSessionClient();
+    private JobServer getJobServer(final String jobName, final String leaderIp, final String serverIp, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp) {
         JobServer result = new JobServer();
         result.setExecutorName(serverIp);
         result.setIp(curatorFrameworkOp.getData(JobNodePath.getServerNodePath(jobName, serverIp, "ip")));
@@ -564,9 +574,9 @@ public class JobDimensionServiceImpl implements JobDimensionService {
         String processFailureCount = curatorFrameworkOp.getData(JobNodePath.getServerNodePath(jobName, serverIp, "processFailureCount"));
         result.setProcessFailureCount(null == processFailureCount ? 0 : Integer.parseInt(processFailureCount));
         result.setSharding(curatorFrameworkOp.getData(JobNodePath.getServerNodePath(jobName, serverIp, "sharding")));
-        result.setStatus(getServerStatus(jobName, serverIp));
+        result.setStatus(getServerStatus(jobName, serverIp, curatorFrameworkOp));
         result.setLeader(serverIp.equals(leaderIp));
-        result.setJobStatus(getJobStatus(jobName));
+        result.setJobStatus(getJobStatus(jobName, curatorFrameworkOp));
         return result;
     }
 
@@ -580,16 +590,15 @@ public class JobDimensionServiceImpl implements JobDimensionService {
         return result;
     }
 
-    private ServerStatus getServerStatus(final String jobName, final String serverIp) {
-		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = curatorRepository.inSessionClient();
+    private ServerStatus getServerStatus(final String jobName, final String serverIp, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp) {
         String ip = curatorFrameworkOp.getData(ExecutorNodePath.getExecutorNodePath(serverIp, "ip"));
         return ServerStatus.getServerStatus(ip);
     }
 
     @Override
     public Collection<ExecutionInfo> getExecutionInfo(final String jobName) {
-		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = curatorRepository.inSessionClient();
-    	if(JobStatus.STOPPED.equals(getJobStatus(jobName))){
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = namespaceReadModelService.inSessionReadClient();
+    	if(JobStatus.STOPPED.equals(getJobStatus(jobName, curatorFrameworkOp))){
     		return Collections.emptyList();
     	}
         // update report node
@@ -607,8 +616,8 @@ public class JobDimensionServiceImpl implements JobDimensionService {
         List<String> items = curatorFrameworkOp.getChildren(executionRootpath);
         List<ExecutionInfo> result = new ArrayList<>(items.size());
         for (String each : items) {
-            if(getRunningIP(each, jobName) != null) { //  || hasFailoverExecutor(each, jobName)
-                result.add(getExecutionInfo(jobName, each));
+            if(getRunningIP(each, jobName, curatorFrameworkOp) != null) { //  || hasFailoverExecutor(each, jobName)
+                result.add(getExecutionInfo(jobName, each, curatorFrameworkOp));
             }
         }
         Collections.sort(result);
@@ -624,8 +633,7 @@ public class JobDimensionServiceImpl implements JobDimensionService {
 		return result;
 	}
 
-    private ExecutionInfo getExecutionInfo(final String jobName, final String item) {
-		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = curatorRepository.inSessionClient();
+    private ExecutionInfo getExecutionInfo(final String jobName, final String item, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp) {
         ExecutionInfo result = new ExecutionInfo();
         result.setJobName(jobName);
         result.setItem(Integer.parseInt(item));
@@ -649,7 +657,7 @@ public class JobDimensionServiceImpl implements JobDimensionService {
         String jobMsg = curatorFrameworkOp.getData(JobNodePath.getExecutionNodePath(jobName, item, "jobMsg"));
         result.setJobMsg(jobMsg);
 
-		String runningIp = getRunningIP(item, jobName);
+		String runningIp = getRunningIP(item, jobName, curatorFrameworkOp);
 		result.setRunningIp(runningIp == null ? "未找到" : runningIp);
 
         if (curatorFrameworkOp.checkExists(JobNodePath.getExecutionNodePath(jobName, item, "failover"))) {
@@ -683,10 +691,10 @@ public class JobDimensionServiceImpl implements JobDimensionService {
 	 *
 	 * @param item 作业分片
 	 * @param jobName 作业名称
+	 * @param curatorFrameworkOp 读取zk或者读模型
 	 * @return 运行item的服务器IP
 	 */
-	private String getRunningIP(String item, String jobName) {
-		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = curatorRepository.inSessionClient();
+	private String getRunningIP(String item, String jobName, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp) {
 		String runningIp = null;
 		String serverNodePath = JobNodePath.getServerNodePath(jobName);
 		if(!curatorFrameworkOp.checkExists(serverNodePath)) {
@@ -779,7 +787,10 @@ public class JobDimensionServiceImpl implements JobDimensionService {
 
 	@Override
 	public boolean isJobEnabled(String jobName) {
-		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = curatorRepository.inSessionClient();
+		return isJobEnabled(jobName, curatorRepository.inSessionClient());
+	}
+
+	private boolean isJobEnabled(String jobName, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp) {
 		return Boolean.valueOf(curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "enabled")));
 	}
 
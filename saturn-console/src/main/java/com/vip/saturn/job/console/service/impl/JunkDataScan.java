@@ -0,0 +1,472 @@
+/**
+ * Copyright 2016 vip.com.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * </p>
+ */
+
+
+package com.vip.saturn.job.console.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.CuratorEvent;
+import org.apache.curator.framework.imps.CuratorFrameworkState;
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vip.saturn.job.console.domain.RegistryCenterClient;
+import com.vip.saturn.job.console.domain.RegistryCenterConfiguration;
+import com.vip.saturn.job.console.domain.SaturnJunkData;
+import com.vip.saturn.job.console.domain.SaturnJunkDataOpType;
+import com.vip.saturn.job.console.domain.SaturnJunkDataScanResult;
+import com.vip.saturn.job.console.utils.ExecutorNodePath;
+import com.vip.saturn.job.console.utils.JobNodePath;
+import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
+
+/**
+ * 一次废弃数据扫描：多个域并发扫描，每个域使用Curator的异步接口读取zk，并限制同时进行中的请求数.
+ * 发现的废弃数据逐步追加，页面按偏移量轮询；取消或者超时后不再发出新的请求，超时的域计为扫描失败
+ */
+class JunkDataScan {
+
+	protected static Logger log = LoggerFactory.getLogger(JunkDataScan.class);
+
+	// 每个域同时进行中的zk请求数
+	private static final int MAX_IN_FLIGHT = 64;
+
+	// 一个域超过这个时间没有任务执行、也没有请求返回，视为扫描失败
+	static final long NAMESPACE_STALL_MILLIS = 60 * 1000L;
+
+	private final String scanId;
+
+	private final List<RegistryCenterConfiguration> registryCenters;
+
+	private final List<SaturnJunkData> junkDataList = new ArrayList<>();
+
+	private final AtomicInteger scannedNamespaces = new AtomicInteger();
+
+	private final AtomicInteger failedNamespaces = new AtomicInteger();
+
+	private final CountDownLatch finishedLatch;
+
+	private volatile boolean cancelled;
+
+	// 整个扫描超时，未完成的域已计为失败
+	private volatile boolean expired;
+
+	private volatile long startTime;
+
+	private volatile long finishTime;
+
+	JunkDataScan(String scanId, List<RegistryCenterConfiguration> registryCenters) {
+		this.scanId = scanId;
+		this.registryCenters = registryCenters;
+		this.finishedLatch = new CountDownLatch(registryCenters.size());
+		this.startTime = System.currentTimeMillis();
+		if (registryCenters.isEmpty()) {
+			finishTime = startTime;
+		}
+	}
+
+	void start(ExecutorService executorService) {
+		startTime = System.currentTimeMillis();
+		for (RegistryCenterConfiguration registryCenter : registryCenters) {
+			try {
+				executorService.execute(new NamespaceScan(registryCenter));
+			} catch (RejectedExecutionException e) {
+				log.warn("the junk data scan of {} is rejected", registryCenter.getNameAndNamespace());
+				namespaceFinished(true);
+			}
+		}
+	}
+
+	/**
+	 * @return 在超时前扫描完成
+	 */
+	boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+		return finishedLatch.await(timeout, unit);
+	}
+
+	void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * 扫描超时：停止扫描，还没有完成的域计为失败，扫描随即结束
+	 */
+	synchronized void expire(long now) {
+		if (isFinished()) {
+			return;
+		}
+		expired = true;
+		int unfinished = (int) finishedLatch.getCount();
+		scannedNamespaces.addAndGet(unfinished);
+		failedNamespaces.addAndGet(unfinished);
+		log.warn("the junk data scan {} is expired, {} namespaces are not finished", scanId, unfinished);
+		for (int i = 0; i < unfinished; i++) {
+			finishedLatch.countDown();
+		}
+		finishTime = now;
+	}
+
+	private boolean isStopped() {
+		return cancelled || expired;
+	}
+
+	String getScanId() {
+		return scanId;
+	}
+
+	boolean isFinished() {
+		return finishedLatch.getCount() == 0;
+	}
+
+	long getStartTime() {
+		return startTime;
+	}
+
+	long getFinishTime() {
+		return finishTime;
+	}
+
+	synchronized List<SaturnJunkData> getJunkDataList() {
+		return new ArrayList<>(junkDataList);
+	}
+
+	/**
+	 * 扫描进度，以及从from开始发现的废弃数据
+	 */
+	SaturnJunkDataScanResult getResult(int from) {
+		SaturnJunkDataScanResult result = new SaturnJunkDataScanResult();
+		result.setScanId(scanId);
+		result.setTotalNamespaces(registryCenters.size());
+		result.setScannedNamespaces(scannedNamespaces.get());
+		result.setFailedNamespaces(failedNamespaces.get());
+		// 先取完成状态，保证完成时返回的废弃数据是完整的
+		result.setFinished(isFinished());
+		result.setCancelled(cancelled);
+		synchronized (this) {
+			int start = Math.min(Math.max(from, 0), junkDataList.size());
+			result.setJunkData(new ArrayList<>(junkDataList.subList(start, junkDataList.size())));
+			result.setNext(junkDataList.size());
+		}
+		return result;
+	}
+
+	private synchronized void addJunkData(SaturnJunkData saturnJunkData) {
+		junkDataList.add(saturnJunkData);
+	}
+
+	private synchronized void namespaceFinished(boolean failed) {
+		if (expired) {
+			return;
+		}
+		scannedNamespaces.incrementAndGet();
+		if (failed) {
+			failedNamespaces.incrementAndGet();
+		}
+		finishedLatch.countDown();
+		if (finishedLatch.getCount() == 0) {
+			finishTime = System.currentTimeMillis();
+		}
+	}
+
+	private interface ScanTask {
+
+		void run() throws Exception;
+	}
+
+	private interface ResultHandler {
+
+		void handle(CuratorEvent event) throws Exception;
+	}
+
+	private enum Op {
+		EXISTS, CHILDREN, DATA
+	}
+
+	/**
+	 * 在扫描线程中执行任务、发出异步请求；zk事件线程中的回调只处理结果，把后续的请求作为任务放回队列，不阻塞事件线程
+	 */
+	private class NamespaceScan implements Runnable {
+
+		private final String namespace;
+
+		private final String zkBootstrapKey;
+
+		private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+
+		private final LinkedBlockingQueue<ScanTask> tasks = new LinkedBlockingQueue<>();
+
+		// 未执行的任务数与未返回的请求数
+		private final AtomicInteger outstanding = new AtomicInteger();
+
+		private volatile boolean failed;
+
+		// 最近一次执行任务或者请求返回的时间
+		private volatile long lastProgressTime;
+
+		private CuratorFramework curatorFramework;
+
+		private NamespaceScan(RegistryCenterConfiguration registryCenter) {
+			this.namespace = registryCenter.getNameAndNamespace();
+			this.zkBootstrapKey = registryCenter.getBootstrapKey();
+		}
+
+		@Override
+		public void run() {
+			try {
+				RegistryCenterClient registryCenterClient = RegistryCenterServiceImpl.getCuratorByNameAndNamespace(namespace);
+				if (isStopped() || registryCenterClient == null || registryCenterClient.getCuratorClient() == null) {
+					return;
+				}
+				curatorFramework = registryCenterClient.getCuratorClient();
+				lastProgressTime = System.currentTimeMillis();
+				request(Op.CHILDREN, JobNodePath.get$JobsNodePath(), new ResultHandler() {
+					@Override
+					public void handle(CuratorEvent event) throws Exception {
+						if (event.getChildren() != null) {
+							for (String jobName : event.getChildren()) {
+								addTask(scanJob(jobName));
+							}
+						}
+					}
+				});
+				while (outstanding.get() > 0 && !isStopped()) {
+					if (curatorFramework.getState() != CuratorFrameworkState.STARTED) {
+						failed = true;
+						log.warn("the client of {} is closed, stop scanning junk data", namespace);
+						break;
+					}
+					ScanTask task = tasks.poll(100L, TimeUnit.MILLISECONDS);
+					if (task == null) {
+						if (System.currentTimeMillis() - lastProgressTime > NAMESPACE_STALL_MILLIS) {
+							failed = true;
+							log.warn("no zk response of {} in {} ms, stop scanning junk data", namespace, NAMESPACE_STALL_MILLIS);
+							break;
+						}
+						continue;
+					}
+					lastProgressTime = System.currentTimeMillis();
+					try {
+						task.run();
+					} catch (InterruptedException | TimeoutException e) {
+						throw e;
+					} catch (Exception e) {
+						failed = true;
+						log.error("scan junk data of " + namespace + " exception:", e);
+					} finally {
+						outstanding.decrementAndGet();
+					}
+				}
+			} catch (InterruptedException e) {
+				failed = true;
+				Thread.currentThread().interrupt();
+			} catch (TimeoutException e) {
+				failed = true;
+				log.warn("scan junk data of {} failed: {}", namespace, e.getMessage());
+			} catch (Exception e) {
+				failed = true;
+				log.error("getJunkData exception:", e);
+			} finally {
+				namespaceFinished(failed);
+			}
+		}
+
+		private void addTask(ScanTask task) {
+			outstanding.incrementAndGet();
+			tasks.add(task);
+		}
+
+		private void request(Op op, String path, final ResultHandler handler) throws Exception {
+			// 请求一直没有返回时不无限等待
+			if (!inFlight.tryAcquire(NAMESPACE_STALL_MILLIS, TimeUnit.MILLISECONDS)) {
+				throw new TimeoutException(MAX_IN_FLIGHT + " zk requests are not returned in " + NAMESPACE_STALL_MILLIS + " ms");
+			}
+			outstanding.incrementAndGet();
+			BackgroundCallback callback = new BackgroundCallback() {
+				@Override
+				public void processResult(CuratorFramework client, CuratorEvent event) throws Exception {
+					inFlight.release();
+					lastProgressTime = System.currentTimeMillis();
+					try {
+						int resultCode = event.getResultCode();
+						if (resultCode == KeeperException.Code.OK.intValue() || resultCode == KeeperException.Code.NONODE.intValue()) {
+							if (!isStopped()) {
+								handler.handle(event);
+							}
+						} else {
+							failed = true;
+							log.warn("scan junk data of {} failed, path:{}, result:{}", namespace, event.getPath(),
+									KeeperException.Code.get(resultCode));
+						}
+					} catch (Exception e) {// NOSONAR
+						failed = true;
+						log.error("scan junk data of " + namespace + " exception:", e);
+					} finally {
+						outstanding.decrementAndGet();
+					}
+				}
+			};
+			try {
+				switch (op) {
+				case EXISTS:
+					curatorFramework.checkExists().inBackground(callback).forPath(path);
+					break;
+				case CHILDREN:
+					curatorFramework.getChildren().inBackground(callback).forPath(path);
+					break;
+				default:
+					curatorFramework.getData().inBackground(callback).forPath(path);
+					break;
+				}
+			} catch (Exception e) {
+				inFlight.release();
+				outstanding.decrementAndGet();
+				throw e;
+			}
+		}
+
+		private void addJunkDataIfExists(final String path, final SaturnJunkDataOpType type, final String description) throws Exception {
+			request(Op.EXISTS, path, new ResultHandler() {
+				@Override
+				public void handle(CuratorEvent event) {
+					if (event.getStat() != null) {
+						addJunkData(newJunkData(path, type, description));
+					}
+				}
+			});
+		}
+
+		private SaturnJunkData newJunkData(String path, SaturnJunkDataOpType type, String description) {
+			SaturnJunkData saturnJunkData = new SaturnJunkData();
+			saturnJunkData.setPath(path);
+			saturnJunkData.setNamespace(namespace);
+			saturnJunkData.setType(type.toString());
+			saturnJunkData.setDescription(description);
+			saturnJunkData.setZkAddr(zkBootstrapKey);
+			return saturnJunkData;
+		}
+
+		private ScanTask scanJob(final String jobName) {
+			return new ScanTask() {
+				@Override
+				public void run() throws Exception {
+					request(Op.EXISTS, JobNodePath.getConfigNodePath(jobName), new ResultHandler() {
+						@Override
+						public void handle(CuratorEvent event) {
+							if (event.getStat() != null) {// $Jobs/jobName/config exists
+								addTask(scanJobConfig(jobName));
+							} else {
+								addTask(scanJobWithoutConfig(jobName));
+							}
+						}
+					});
+				}
+			};
+		}
+
+		private ScanTask scanJobConfig(final String jobName) {
+			return new ScanTask() {
+				@Override
+				public void run() throws Exception {
+					// toDelete node is junk data
+					addJunkDataIfExists(JobNodePath.getConfigNodePath(jobName, "toDelete"), SaturnJunkDataOpType.DELETE, "删除toDelete节点");
+					// forceShard node is junk data
+					addJunkDataIfExists(SaturnExecutorsNode.getJobConfigForceShardNodePath(jobName), SaturnJunkDataOpType.DELETE,
+							"删除forceShard节点");
+					request(Op.CHILDREN, JobNodePath.getServerNodePath(jobName), new ResultHandler() {
+						@Override
+						public void handle(CuratorEvent event) {
+							if (event.getChildren() != null) {
+								for (String jobExecutor : event.getChildren()) {
+									addTask(scanJobExecutor(jobName, jobExecutor));
+								}
+							}
+						}
+					});
+				}
+			};
+		}
+
+		private ScanTask scanJobExecutor(final String jobName, final String jobExecutor) {
+			return new ScanTask() {
+				@Override
+				public void run() throws Exception {
+					// runOneTime node is junk data
+					addJunkDataIfExists(JobNodePath.getRunOneTimePath(jobName, jobExecutor), SaturnJunkDataOpType.DELETE, "删除runOneTime节点");
+					// stopOneTime node is junk data
+					addJunkDataIfExists(JobNodePath.getStopOneTimePath(jobName, jobExecutor), SaturnJunkDataOpType.DELETE,
+							"删除stopOneTime节点");
+					// $Jobs/servers/executors/executorName/sharding has contents, but this executor is offline,this contents is junk data
+					final String shardingPath = JobNodePath.getServerSharding(jobName, jobExecutor);
+					request(Op.DATA, shardingPath, new ResultHandler() {
+						@Override
+						public void handle(CuratorEvent event) {
+							byte[] data = event.getData();
+							if (data == null || data.length == 0) {
+								return;
+							}
+							addTask(new ScanTask() {
+								@Override
+								public void run() throws Exception {
+									request(Op.EXISTS, ExecutorNodePath.getExecutorIpNodePath(jobExecutor), new ResultHandler() {
+										@Override
+										public void handle(CuratorEvent event) {
+											if (event.getStat() == null) {
+												addJunkData(newJunkData(shardingPath, SaturnJunkDataOpType.CLEAR, "清除sharding内容（原因：该executor不在线）"));
+											}
+										}
+									});
+								}
+							});
+						}
+					});
+				}
+			};
+		}
+
+		private ScanTask scanJobWithoutConfig(final String jobName) {
+			return new ScanTask() {
+				@Override
+				public void run() throws Exception {
+					final String jobNodePath = JobNodePath.getJobNodePath(jobName);
+					request(Op.CHILDREN, jobNodePath, new ResultHandler() {
+						@Override
+						public void handle(CuratorEvent event) {
+							// if $Jobs/jobName/config is not exists, but $Jobs/jobName/xxx exists,then $Jobs/jobName is junk data
+							if (event.getChildren() != null && !event.getChildren().isEmpty()) {
+								addJunkData(newJunkData(jobNodePath, SaturnJunkDataOpType.DELETE, "删除整个作业节点（原因：$Jobs/" + jobName
+										+ "/config节点不存在）"));
+							}
+						}
+					});
+				}
+			};
+		}
+	}
+
+}
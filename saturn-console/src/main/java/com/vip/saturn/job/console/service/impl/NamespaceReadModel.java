@@ -0,0 +1,238 @@
+/**
+ * Copyright 2016 vip.com.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * </p>
+ */
+
+
+package com.vip.saturn.job.console.service.impl;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.imps.CuratorFrameworkState;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.framework.recipes.cache.TreeCacheListener;
+import org.apache.curator.utils.CloseableExecutorService;
+
+import com.vip.saturn.job.console.utils.ExecutorNodePath;
+import com.vip.saturn.job.console.utils.JobNodePath;
+import com.vip.saturn.job.sharding.service.ShardingTreeCacheService;
+
+/**
+ * 一个域的内存读模型：缓存$Jobs下jobsDepth层（默认4层，到$Jobs/jobName/execution/item/running）和$SaturnExecutors/executors下2层的节点.
+ * 初始化完成前、连接中断期间，以及超过缓存层数的节点，调用方读取zk
+ */
+class NamespaceReadModel {
+
+	// executor分片索引需要的$Jobs/jobName/servers/executorName/sharding所在的层数
+	static final int SHARDING_DEPTH = 4;
+
+	private static final int EXECUTORS_DEPTH = 2;
+
+	// 每个节点的ChildData、Stat、TreeNode等对象的估算开销
+	private static final int NODE_OVERHEAD_BYTES = 256;
+
+	private final String key;
+
+	private final String namespace;
+
+	private final CuratorFramework curatorFramework;
+
+	private final ExecutorService executorService;
+
+	private final CachedTree[] cachedTrees;
+
+	private final ExecutorShardingIndex executorShardingIndex;
+
+	private volatile long lastAccessTime = System.currentTimeMillis();
+
+	private volatile long memoryBytes;
+
+	/**
+	 * @param key zk地址和域名，不同zk集群可能有同名的域
+	 * @param jobsDepth 缓存$Jobs的层数，小于{@link #SHARDING_DEPTH}时不维护executor分片索引
+	 */
+	NamespaceReadModel(String key, CuratorFramework curatorFramework, ExecutorService executorService, int jobsDepth) {
+		this.key = key;
+		this.namespace = curatorFramework.getNamespace();
+		this.curatorFramework = curatorFramework;
+		this.executorService = executorService;
+		this.cachedTrees = new CachedTree[] { new CachedTree(JobNodePath.get$JobsNodePath(), jobsDepth, executorService),
+				new CachedTree(ExecutorNodePath.getExecutorNodePath(), EXECUTORS_DEPTH, executorService) };
+		if (jobsDepth >= SHARDING_DEPTH) {
+			executorShardingIndex = new ExecutorShardingIndex();
+			this.cachedTrees[0].treeCache.getListenable().addListener(executorShardingIndex);
+		} else {
+			executorShardingIndex = null;
+		}
+	}
+
+	void start() throws Exception {
+		for (CachedTree cachedTree : cachedTrees) {
+			cachedTree.treeCache.start();
+		}
+	}
+
+	void close() {
+		// 先标记为未初始化，关闭后调用方读取zk，不再读取已关闭的TreeCache
+		for (CachedTree cachedTree : cachedTrees) {
+			cachedTree.closed = true;
+			cachedTree.initialized = false;
+		}
+		for (CachedTree cachedTree : cachedTrees) {
+			cachedTree.treeCache.close();
+		}
+		executorService.shutdownNow();
+	}
+
+	/**
+	 * 获取缓存了该节点（children为true时还包括其子节点）且已初始化完成的TreeCache，否则返回null
+	 */
+	TreeCache getInitializedTreeCache(String path, boolean children) {
+		lastAccessTime = System.currentTimeMillis();
+		for (CachedTree cachedTree : cachedTrees) {
+			if (cachedTree.covers(path, children)) {
+				return cachedTree.initialized ? cachedTree.treeCache : null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * $Jobs的TreeCache已初始化完成时返回executor -> (作业名 -> 分片)索引，否则或者没有维护索引时返回null
+	 */
+	Map<String, Map<String, String>> getExecutorShardings() {
+		lastAccessTime = System.currentTimeMillis();
+		if (executorShardingIndex == null) {
+			return null;
+		}
+		return cachedTrees[0].initialized ? executorShardingIndex.getExecutorShardings() : null;
+	}
+
+	/**
+	 * 重新估算占用的内存：节点路径、数据和对象开销
+	 */
+	long updateMemoryBytes() {
+		long bytes = 0;
+		for (CachedTree cachedTree : cachedTrees) {
+			bytes += estimate(cachedTree.treeCache, cachedTree.root);
+		}
+		memoryBytes = bytes;
+		return bytes;
+	}
+
+	private static long estimate(TreeCache treeCache, String path) {
+		ChildData childData = treeCache.getCurrentData(path);
+		if (childData == null) {
+			return 0;
+		}
+		byte[] data = childData.getData();
+		long bytes = NODE_OVERHEAD_BYTES + path.length() * 2L + (data == null ? 0 : data.length);
+		Map<String, ChildData> children = treeCache.getCurrentChildren(path);
+		if (children != null) {
+			for (String child : children.keySet()) {
+				bytes += estimate(treeCache, path + "/" + child);
+			}
+		}
+		return bytes;
+	}
+
+	boolean isClientClosed() {
+		return curatorFramework.getState() != CuratorFrameworkState.STARTED;
+	}
+
+	String getKey() {
+		return key;
+	}
+
+	String getNamespace() {
+		return namespace;
+	}
+
+	long getLastAccessTime() {
+		return lastAccessTime;
+	}
+
+	long getMemoryBytes() {
+		return memoryBytes;
+	}
+
+	/**
+	 * 初始化完成后才使用TreeCache的数据；连接中断期间数据可能过时，不使用，重连后等TreeCache刷新完成、再次发布INITIALIZED事件才使用
+	 */
+	private class CachedTree implements TreeCacheListener {
+
+		private final String root;
+
+		private final int maxDepth;
+
+		private final TreeCache treeCache;
+
+		private volatile boolean initialized;
+
+		private volatile boolean connected = true;
+
+		private volatile boolean closed;
+
+		private CachedTree(String root, int maxDepth, ExecutorService executorService) {
+			this.root = root;
+			this.maxDepth = maxDepth;
+			this.treeCache = TreeCache.newBuilder(curatorFramework, root).setMaxDepth(maxDepth)
+					.setExecutor(new CloseableExecutorService(executorService, false)).build();
+			this.treeCache.getListenable().addListener(this);
+		}
+
+		private boolean covers(String path, boolean children) {
+			if (!path.startsWith(root)) {
+				return false;
+			}
+			if (path.length() == root.length()) {
+				return true;
+			}
+			if (path.charAt(root.length()) != '/') {
+				return false;
+			}
+			int depth = 0;
+			for (int i = root.length(); i < path.length(); i++) {
+				if (path.charAt(i) == '/') {
+					depth++;
+				}
+			}
+			return children ? depth < maxDepth : depth <= maxDepth;
+		}
+
+		@Override
+		public void childEvent(CuratorFramework client, TreeCacheEvent event) throws Exception {
+			// 关闭前已经提交的事件不再修改状态
+			if (closed) {
+				return;
+			}
+			TreeCacheEvent.Type type = event.getType();
+			if (type == TreeCacheEvent.Type.INITIALIZED) {
+				initialized = connected;
+			} else if (type == TreeCacheEvent.Type.CONNECTION_RECONNECTED) {
+				connected = true;
+				initialized = ShardingTreeCacheService.resetInitialized(treeCache);
+			} else if (type == TreeCacheEvent.Type.CONNECTION_SUSPENDED || type == TreeCacheEvent.Type.CONNECTION_LOST) {
+				connected = false;
+				initialized = false;
+			}
+		}
+	}
+
+}
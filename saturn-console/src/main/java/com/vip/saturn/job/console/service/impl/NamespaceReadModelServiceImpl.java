@@ -0,0 +1,226 @@
+/**
+ * Copyright 2016 vip.com.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * </p>
+ */
+
+
+package com.vip.saturn.job.console.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.vip.saturn.job.console.SaturnEnvProperties;
+import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository;
+import com.vip.saturn.job.console.service.NamespaceReadModelService;
+import com.vip.saturn.job.sharding.ShardingWorkerPool;
+
+/**
+ * 每个域的读模型在第一次访问时创建，定期估算内存，关闭长时间没有访问、客户端已关闭的读模型；
+ * 总内存超过上限时，从最久没有访问的读模型开始关闭；单个域就超过上限时不再为其创建读模型，直接读取zk，避免每次访问都重建
+ */
+@Service
+public class NamespaceReadModelServiceImpl implements NamespaceReadModelService {
+
+	protected static Logger log = LoggerFactory.getLogger(NamespaceReadModelServiceImpl.class);
+
+	private static final long CHECK_INTERVAL_SECONDS = 30L;
+
+	@Resource
+	private CuratorRepository curatorRepository;
+
+	private final ConcurrentHashMap<CuratorFramework, NamespaceReadModel> readModels = new ConcurrentHashMap<>();
+
+	// 单个就超过内存上限的域，zk地址/域名
+	private final Set<String> oversizeKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	private ShardingWorkerPool treeCacheWorkerPool;
+
+	private ScheduledExecutorService checkExecutor;
+
+	@PostConstruct
+	public void init() {
+		if (!SaturnEnvProperties.READ_MODEL_ENABLED) {
+			log.info("the namespace read model is disabled");
+			return;
+		}
+		treeCacheWorkerPool = new ShardingWorkerPool("saturn-readmodel", SaturnEnvProperties.SHARDING_WORKER_THREADS);
+		checkExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "saturn-readmodel-check");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		checkExecutor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					checkReadModels();
+				} catch (Throwable t) {// NOSONAR
+					log.error("check the namespace read models error", t);
+				}
+			}
+		}, CHECK_INTERVAL_SECONDS, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (checkExecutor != null) {
+			checkExecutor.shutdownNow();
+		}
+		for (CuratorFramework curatorFramework : new ArrayList<>(readModels.keySet())) {
+			closeReadModel(curatorFramework, "console is shutdown");
+		}
+		if (treeCacheWorkerPool != null) {
+			treeCacheWorkerPool.shutdown();
+		}
+	}
+
+	@Override
+	public CuratorRepository.CuratorFrameworkOp inSessionReadClient() {
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = curatorRepository.inSessionClient();
+		NamespaceReadModel readModel = getReadModel(curatorFrameworkOp);
+		if (readModel == null) {
+			return curatorFrameworkOp;
+		}
+		return new ReadModelCuratorFrameworkOp(curatorFrameworkOp, readModel);
+	}
+
+	@Override
+	public Map<String, Map<String, String>> getExecutorShardings() {
+		NamespaceReadModel readModel = getReadModel(curatorRepository.inSessionClient());
+		return readModel == null ? null : readModel.getExecutorShardings();
+	}
+
+	private NamespaceReadModel getReadModel(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp) {
+		if (!SaturnEnvProperties.READ_MODEL_ENABLED) {
+			return null;
+		}
+		CuratorFramework curatorFramework = curatorFrameworkOp.getCuratorFramework();
+		if (curatorFramework == null) {
+			return null;
+		}
+		return getOrCreateReadModel(curatorFramework);
+	}
+
+	NamespaceReadModel getOrCreateReadModel(CuratorFramework curatorFramework) {
+		NamespaceReadModel readModel = readModels.get(curatorFramework);
+		if (readModel != null) {
+			return readModel;
+		}
+		// 不同zk集群可能有同名的域，带上zk地址区分
+		String key = curatorFramework.getZookeeperClient().getCurrentConnectionString() + "/" + curatorFramework.getNamespace();
+		if (oversizeKeys.contains(key)) {
+			return null;
+		}
+		NamespaceReadModel newReadModel = new NamespaceReadModel(key, curatorFramework,
+				treeCacheWorkerPool.newSerialExecutor("readmodel-" + key), SaturnEnvProperties.READ_MODEL_JOBS_DEPTH);
+		readModel = readModels.putIfAbsent(curatorFramework, newReadModel);
+		if (readModel != null) {
+			newReadModel.close();
+			return readModel;
+		}
+		try {
+			newReadModel.start();
+			log.info("start the read model of {}", newReadModel.getNamespace());
+			return newReadModel;
+		} catch (Exception e) {
+			log.error("start the read model of " + newReadModel.getNamespace() + " error", e);
+			readModels.remove(curatorFramework, newReadModel);
+			newReadModel.close();
+			return null;
+		}
+	}
+
+	private void checkReadModels() {
+		checkReadModels(System.currentTimeMillis(), SaturnEnvProperties.READ_MODEL_IDLE_SECONDS * 1000L,
+				SaturnEnvProperties.READ_MODEL_MAX_MB * 1024L * 1024L);
+	}
+
+	void checkReadModels(long now, long idleMillis, long maxBytes) {
+		long total = 0;
+		List<Map.Entry<CuratorFramework, NamespaceReadModel>> alive = new ArrayList<>();
+		for (Map.Entry<CuratorFramework, NamespaceReadModel> entry : readModels.entrySet()) {
+			NamespaceReadModel readModel = entry.getValue();
+			if (readModel.isClientClosed()) {
+				closeReadModel(entry.getKey(), "the client is closed");
+			} else if (now - readModel.getLastAccessTime() > idleMillis) {
+				closeReadModel(entry.getKey(), "it is idle");
+			} else if (readModel.updateMemoryBytes() > maxBytes) {
+				oversizeKeys.add(readModel.getKey());
+				closeReadModel(entry.getKey(), "its memory alone exceeds " + maxBytes + " bytes, read zk directly");
+			} else {
+				total += readModel.getMemoryBytes();
+				alive.add(entry);
+			}
+		}
+		if (total <= maxBytes) {
+			return;
+		}
+		Collections.sort(alive, new Comparator<Map.Entry<CuratorFramework, NamespaceReadModel>>() {
+			@Override
+			public int compare(Map.Entry<CuratorFramework, NamespaceReadModel> o1, Map.Entry<CuratorFramework, NamespaceReadModel> o2) {
+				long t1 = o1.getValue().getLastAccessTime();
+				long t2 = o2.getValue().getLastAccessTime();
+				return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+			}
+		});
+		for (Map.Entry<CuratorFramework, NamespaceReadModel> entry : alive) {
+			if (total <= maxBytes) {
+				break;
+			}
+			total -= entry.getValue().getMemoryBytes();
+			closeReadModel(entry.getKey(), "the memory of all read models exceeds " + maxBytes + " bytes");
+		}
+	}
+
+	private void closeReadModel(CuratorFramework curatorFramework, String reason) {
+		NamespaceReadModel readModel = readModels.remove(curatorFramework);
+		if (readModel != null) {
+			readModel.close();
+			log.info("close the read model of {}, because {}", readModel.getKey(), reason);
+		}
+	}
+
+	@Override
+	public Map<String, Long> getMemoryUsage() {
+		Map<String, Long> memoryUsage = new TreeMap<>();
+		for (NamespaceReadModel readModel : readModels.values()) {
+			memoryUsage.put(readModel.getKey(), readModel.getMemoryBytes());
+		}
+		return memoryUsage;
+	}
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2016 vip.com.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * </p>
+ */
+
+
+package com.vip.saturn.job.console.service.impl;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+
+import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository.CuratorFrameworkOp;
+
+/**
+ * 优先从读模型读取的CuratorFrameworkOp，读模型不可用时读取zk；写操作直接写zk
+ */
+class ReadModelCuratorFrameworkOp implements CuratorFrameworkOp {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final CuratorFrameworkOp delegate;
+
+	private final NamespaceReadModel readModel;
+
+	ReadModelCuratorFrameworkOp(CuratorFrameworkOp delegate, NamespaceReadModel readModel) {
+		this.delegate = delegate;
+		this.readModel = readModel;
+	}
+
+	@Override
+	public boolean checkExists(String znode) {
+		TreeCache treeCache = readModel.getInitializedTreeCache(znode, false);
+		if (treeCache == null) {
+			return delegate.checkExists(znode);
+		}
+		return treeCache.getCurrentData(znode) != null;
+	}
+
+	@Override
+	public String getData(String znode) {
+		TreeCache treeCache = readModel.getInitializedTreeCache(znode, false);
+		if (treeCache == null) {
+			return delegate.getData(znode);
+		}
+		ChildData childData = treeCache.getCurrentData(znode);
+		if (childData == null || childData.getData() == null) {
+			return null;
+		}
+		return new String(childData.getData(), UTF8);
+	}
+
+	@Override
+	public List<String> getChildren(String znode) {
+		TreeCache treeCache = readModel.getInitializedTreeCache(znode, true);
+		if (treeCache == null) {
+			return delegate.getChildren(znode);
+		}
+		Map<String, ChildData> children = treeCache.getCurrentChildren(znode);
+		if (children == null) {
+			return null;
+		}
+		return new ArrayList<>(children.keySet());
+	}
+
+	@Override
+	public long getMtime(String node) {
+		TreeCache treeCache = readModel.getInitializedTreeCache(node, false);
+		if (treeCache == null) {
+			return delegate.getMtime(node);
+		}
+		ChildData childData = treeCache.getCurrentData(node);
+		return childData == null ? 0L : childData.getStat().getMtime();
+	}
+
+	@Override
+	public void create(String znode) {
+		delegate.create(znode);
+	}
+
+	@Override
+	public void create(String znode, Object value) {
+		delegate.create(znode, value);
+	}
+
+	@Override
+	public void update(String znode, Object value) {
+		delegate.update(znode, value);
+	}
+
+	@Override
+	public void delete(String znode) {
+		delegate.delete(znode);
+	}
+
+	@Override
+	public void deleteRecursive(String znode) {
+		delegate.deleteRecursive(znode);
+	}
+
+	@Override
+	public void fillJobNodeIfNotExist(String node, Object value) {
+		delegate.fillJobNodeIfNotExist(node, value);
+	}
+
+	@Override
+	public CuratorTransactionOp inTransaction() {
+		return delegate.inTransaction();
+	}
+
+	@Override
+	public CuratorFramework getCuratorFramework() {
+		return delegate.getCuratorFramework();
+	}
+
+}
@@ -26,6 +26,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 
 import com.vip.saturn.job.console.utils.ExecutorNodePath;
@@ -49,6 +50,7 @@ import com.vip.saturn.job.console.service.InitRegistryCenterService;
 import com.vip.saturn.job.console.service.RegistryCenterService;
 import com.vip.saturn.job.console.utils.LocalHostService;
 import com.vip.saturn.job.sharding.NamespaceShardingManager;
+import com.vip.saturn.job.sharding.ShardingWorkerPool;
 
 @Service
 public class RegistryCenterServiceImpl implements RegistryCenterService {
@@ -71,11 +73,24 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 
 	private ConcurrentHashMap<String /** nns **/, NamespaceShardingManager> namespaceShardingListenerManagerMap = new ConcurrentHashMap<String, NamespaceShardingManager>();
 
+	/** 全部域共享的分片线程池和TreeCache事件线程池，每个域的任务仍然串行执行 **/
+	private ShardingWorkerPool shardingWorkerPool;
+
+	private ShardingWorkerPool treeCacheWorkerPool;
+
 	@PostConstruct
 	public void init() throws Exception {
+		shardingWorkerPool = new ShardingWorkerPool("saturn-sharding", SaturnEnvProperties.SHARDING_WORKER_THREADS);
+		treeCacheWorkerPool = new ShardingWorkerPool("saturn-treecache", SaturnEnvProperties.SHARDING_WORKER_THREADS);
 		refreshAll();
 	}
 
+	@PreDestroy
+	public void destroy() {
+		shardingWorkerPool.shutdown();
+		treeCacheWorkerPool.shutdown();
+	}
+
 	private String generateShardingLeadershipHostValue() {
 		return LocalHostService.cachedIpAddress + "-" + UUID.randomUUID().toString();
 	}
@@ -89,7 +104,8 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 					// client 从缓存取，不再新建也就不需要关闭
 					try {
 						CuratorFramework client = connect(conf.getNameAndNamespace()).getCuratorClient();
-						NamespaceShardingManager newObj = new NamespaceShardingManager(client, conf.getNamespace(), generateShardingLeadershipHostValue(), reportAlarmService);
+						NamespaceShardingManager newObj = new NamespaceShardingManager(client, conf.getNamespace(), generateShardingLeadershipHostValue(), reportAlarmService,
+								shardingWorkerPool, treeCacheWorkerPool, nns);
 						if (namespaceShardingListenerManagerMap.putIfAbsent(nns, newObj) == null) {
 							log.info("start NamespaceShardingManager {}", nns);
 							newObj.start();
@@ -365,4 +381,9 @@ public class RegistryCenterServiceImpl implements RegistryCenterService {
 		return null;
 	}
 
+	@Override
+	public Map<String, Integer> getShardingQueueDepths() {
+		return shardingWorkerPool.getQueueDepths();
+	}
+
 }
@@ -20,26 +20,33 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.curator.framework.CuratorFramework;
-import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
-import com.google.common.base.Strings;
 import com.vip.saturn.job.console.constants.SaturnConstants;
 import com.vip.saturn.job.console.domain.RegistryCenterClient;
 import com.vip.saturn.job.console.domain.RegistryCenterConfiguration;
 import com.vip.saturn.job.console.domain.SaturnJunkData;
 import com.vip.saturn.job.console.domain.SaturnJunkDataOpType;
-import com.vip.saturn.job.console.exception.JobConsoleException;
+import com.vip.saturn.job.console.domain.SaturnJunkDataScanResult;
+import com.vip.saturn.job.console.domain.ZkCluster;
 import com.vip.saturn.job.console.service.SaturnJunkDataService;
-import com.vip.saturn.job.console.utils.ExecutorNodePath;
-import com.vip.saturn.job.console.utils.JobNodePath;
-import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
 
 /** 
  * @author yangjuanying  
@@ -49,123 +56,158 @@ public class SaturnJunkDataServiceImpl implements SaturnJunkDataService {
 	
 	protected static Logger log = LoggerFactory.getLogger(SaturnJunkDataServiceImpl.class);
 
+	// 同时扫描的域的数量
+	private static final int SCAN_THREADS = 8;
+
+	// 同时进行中的扫描数，超过后不再开始新的扫描
+	static final int MAX_RUNNING_SCANS = 4;
+
+	// 扫描超过这个时间还没有结束，未完成的域计为失败
+	static final long SCAN_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+	// 扫描结束后保留结果的时间
+	static final long SCAN_RESULT_EXPIRE_MILLIS = 10 * 60 * 1000L;
+
+	private static final long CHECK_INTERVAL_SECONDS = 60L;
+
+	private final ConcurrentHashMap<String, JunkDataScan> junkDataScans = new ConcurrentHashMap<>();
+
+	private ExecutorService scanExecutor;
+
+	private ScheduledExecutorService checkExecutor;
+
+	@PostConstruct
+	public void init() {
+		scanExecutor = Executors.newFixedThreadPool(SCAN_THREADS, new ThreadFactory() {
+			private final AtomicInteger index = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "saturn-junkdata-scan-" + index.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		checkExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "saturn-junkdata-scan-check");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		checkExecutor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					checkScans(System.currentTimeMillis());
+				} catch (Throwable t) {// NOSONAR
+					log.error("check the junk data scans error", t);
+				}
+			}
+		}, CHECK_INTERVAL_SECONDS, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		checkExecutor.shutdownNow();
+		for (JunkDataScan junkDataScan : junkDataScans.values()) {
+			junkDataScan.cancel();
+		}
+		scanExecutor.shutdownNow();
+	}
+
 	@Override
 	public Collection<SaturnJunkData> getJunkData(String zkAddr) {
-		ArrayList<RegistryCenterConfiguration> registryCenterList = RegistryCenterServiceImpl.ZKADDR_TO_ZKCLUSTER_MAP.get(zkAddr).getRegCenterConfList();
-		if(CollectionUtils.isEmpty(registryCenterList)){
+		JunkDataScan junkDataScan = newJunkDataScan(zkAddr);
+		if (junkDataScan == null) {
 			return Collections.emptyList();
 		}
-		List<SaturnJunkData> saturnJunkDataList = new ArrayList<SaturnJunkData>();
-		for(RegistryCenterConfiguration registryCenter : registryCenterList){
-			try {
-				String namespace = registryCenter.getNameAndNamespace();
-				RegistryCenterClient registryCenterClient = RegistryCenterServiceImpl.getCuratorByNameAndNamespace(namespace);
-				if(registryCenterClient == null){
-					continue;
-				}
-				String zkBootstrapKey = registryCenter.getBootstrapKey();
-				CuratorFramework curatorFramework = registryCenterClient.getCuratorClient();
-				List<String> jobNames = curatorFramework.getChildren().forPath(JobNodePath.get$JobsNodePath());
-				for (String jobName : jobNames) {
-					if(null != curatorFramework.checkExists().forPath(JobNodePath.getConfigNodePath(jobName))) {// $Jobs/jobName/config exists
-						String toDeletePath = JobNodePath.getConfigNodePath(jobName, "toDelete");
-						if(null != curatorFramework.checkExists().forPath(toDeletePath)){// toDelete node is junk data
-							SaturnJunkData saturnJunkData = new SaturnJunkData();
-							saturnJunkData.setPath(toDeletePath);
-							saturnJunkData.setNamespace(namespace);
-							saturnJunkData.setType(SaturnJunkDataOpType.DELETE.toString());
-							saturnJunkData.setDescription("删除toDelete节点");
-							saturnJunkData.setZkAddr(zkBootstrapKey);
-							saturnJunkDataList.add(saturnJunkData);
-						}
-						String jobConfigForceShardNodePath = SaturnExecutorsNode.getJobConfigForceShardNodePath(jobName);
-		                if (null != curatorFramework.checkExists().forPath(jobConfigForceShardNodePath)) {// forceShard node is junk data
-		                	SaturnJunkData saturnJunkData = new SaturnJunkData();
-							saturnJunkData.setPath(jobConfigForceShardNodePath);
-							saturnJunkData.setNamespace(namespace);
-							saturnJunkData.setType(SaturnJunkDataOpType.DELETE.toString());
-							saturnJunkData.setDescription("删除forceShard节点");
-							saturnJunkData.setZkAddr(zkBootstrapKey);
-							saturnJunkDataList.add(saturnJunkData);
-		                }
-						if(null == curatorFramework.checkExists().forPath(JobNodePath.getServerNodePath(jobName))){
-							continue;
-						}
-						List<String> jobExecutors = curatorFramework.getChildren().forPath(JobNodePath.getServerNodePath(jobName));
-						if(CollectionUtils.isEmpty(jobExecutors)){
-							continue;
-						}
-						for(String jobExecutor : jobExecutors){
-							String runOneTimePath = JobNodePath.getRunOneTimePath(jobName, jobExecutor);
-							if(null != curatorFramework.checkExists().forPath(runOneTimePath)){// runOneTime node is junk data
-								SaturnJunkData saturnJunkData = new SaturnJunkData();
-								saturnJunkData.setPath(runOneTimePath);
-								saturnJunkData.setNamespace(namespace);
-								saturnJunkData.setType(SaturnJunkDataOpType.DELETE.toString());
-								saturnJunkData.setDescription("删除runOneTime节点");
-								saturnJunkData.setZkAddr(zkBootstrapKey);
-								saturnJunkDataList.add(saturnJunkData);
-							}
-							
-							String stopOneTimePath = JobNodePath.getStopOneTimePath(jobName, jobExecutor);
-							if(null != curatorFramework.checkExists().forPath(stopOneTimePath)){// stopOneTime node is junk data
-								SaturnJunkData saturnJunkData = new SaturnJunkData();
-								saturnJunkData.setPath(stopOneTimePath);
-								saturnJunkData.setNamespace(namespace);
-								saturnJunkData.setType(SaturnJunkDataOpType.DELETE.toString());
-								saturnJunkData.setDescription("删除stopOneTime节点");
-								saturnJunkData.setZkAddr(zkBootstrapKey);
-								saturnJunkDataList.add(saturnJunkData);
-							}
-							
-							String shardingPath = JobNodePath.getServerSharding(jobName,jobExecutor);
-							// $Jobs/servers/executors/executorName/sharding has contents, but this executor is offline,this contents is junk data
-							if(!Strings.isNullOrEmpty(getData(curatorFramework,shardingPath)) && null == curatorFramework.checkExists().forPath(ExecutorNodePath.getExecutorIpNodePath(jobExecutor))){
-								SaturnJunkData saturnJunkData = new SaturnJunkData();
-								saturnJunkData.setPath(shardingPath);
-								saturnJunkData.setNamespace(namespace);
-								saturnJunkData.setType(SaturnJunkDataOpType.CLEAR.toString());
-								saturnJunkData.setDescription("清除sharding内容（原因：该executor不在线）");
-								saturnJunkData.setZkAddr(zkBootstrapKey);
-								saturnJunkDataList.add(saturnJunkData);
-							}
-						}
-					}else if(!CollectionUtils.isEmpty(curatorFramework.getChildren().forPath(JobNodePath.getJobNodePath(jobName)))) {
-						// if $Jobs/jobName/config is not exists, but $Jobs/jobName/xxx exists,then $Jobs/jobName is junk data
-						SaturnJunkData saturnJunkData = new SaturnJunkData();
-						saturnJunkData.setType(SaturnJunkDataOpType.DELETE.toString());
-						saturnJunkData.setPath(JobNodePath.getJobNodePath(jobName));
-						saturnJunkData.setNamespace(namespace);
-						saturnJunkData.setDescription("删除整个作业节点（原因：$Jobs/"+jobName+"/config节点不存在）");
-						saturnJunkData.setZkAddr(zkBootstrapKey);
-						saturnJunkDataList.add(saturnJunkData);
-					}
-				}
-			}catch(Exception e){
-				log.error("getJunkData exception:",e);
+		if (!addScan(junkDataScan)) {
+			log.warn("{} junk data scans are running, the scan of {} is not started", MAX_RUNNING_SCANS, zkAddr);
+			return Collections.emptyList();
+		}
+		junkDataScan.start(scanExecutor);
+		try {
+			if (!junkDataScan.await(SCAN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+				junkDataScan.expire(System.currentTimeMillis());
 			}
+		} catch (InterruptedException e) {
+			junkDataScan.cancel();
+			Thread.currentThread().interrupt();
+		} finally {
+			junkDataScans.remove(junkDataScan.getScanId());
 		}
-		return saturnJunkDataList;
+		return junkDataScan.getJunkDataList();
 	}
-	
-	public String getData(final CuratorFramework curatorClient, final String znode) {
-		try {
-			if (null != curatorClient.checkExists().forPath(znode)) {
-				byte[] getZnodeData = curatorClient.getData().forPath(znode);
-				if (getZnodeData == null) {// executor的分片可能存在全部飘走的情况，sharding节点有可能获取到的是null，需要对null做判断，否则new
-											// String时会报空指针异常
-					return null;
-				}
-				return new String(getZnodeData, Charset.forName("UTF-8"));
-			} else {
-				return null;
+
+	@Override
+	public String startJunkDataScan(String zkAddr) {
+		checkScans(System.currentTimeMillis());
+		JunkDataScan junkDataScan = newJunkDataScan(zkAddr);
+		if (junkDataScan == null) {
+			return null;
+		}
+		if (!addScan(junkDataScan)) {
+			log.warn("{} junk data scans are running, the scan of {} is not started", MAX_RUNNING_SCANS, zkAddr);
+			return null;
+		}
+		junkDataScan.start(scanExecutor);
+		return junkDataScan.getScanId();
+	}
+
+	/**
+	 * 进行中的扫描数达到上限时不加入
+	 */
+	synchronized boolean addScan(JunkDataScan junkDataScan) {
+		int running = 0;
+		for (JunkDataScan scan : junkDataScans.values()) {
+			if (!scan.isFinished()) {
+				running++;
 			}
-		} catch (final NoNodeException ex) {
+		}
+		if (running >= MAX_RUNNING_SCANS) {
+			return false;
+		}
+		junkDataScans.put(junkDataScan.getScanId(), junkDataScan);
+		return true;
+	}
+
+	@Override
+	public SaturnJunkDataScanResult getJunkDataScanResult(String scanId, int from) {
+		JunkDataScan junkDataScan = scanId == null ? null : junkDataScans.get(scanId);
+		return junkDataScan == null ? null : junkDataScan.getResult(from);
+	}
+
+	@Override
+	public void cancelJunkDataScan(String scanId) {
+		JunkDataScan junkDataScan = scanId == null ? null : junkDataScans.get(scanId);
+		if (junkDataScan != null) {
+			junkDataScan.cancel();
+		}
+	}
+
+	private JunkDataScan newJunkDataScan(String zkAddr) {
+		ZkCluster zkCluster = zkAddr == null ? null : RegistryCenterServiceImpl.ZKADDR_TO_ZKCLUSTER_MAP.get(zkAddr);
+		if (zkCluster == null || CollectionUtils.isEmpty(zkCluster.getRegCenterConfList())) {
 			return null;
-			// CHECKSTYLE:OFF
-		} catch (final Exception ex) {
-			// CHECKSTYLE:ON
-			throw new JobConsoleException(ex);
+		}
+		return new JunkDataScan(UUID.randomUUID().toString(), new ArrayList<>(zkCluster.getRegCenterConfList()));
+	}
+
+	/**
+	 * 超时的扫描停止并计为失败，结束后超过保留时间的扫描移除
+	 */
+	void checkScans(long now) {
+		Iterator<JunkDataScan> iterator = junkDataScans.values().iterator();
+		while (iterator.hasNext()) {
+			JunkDataScan junkDataScan = iterator.next();
+			if (!junkDataScan.isFinished() && now - junkDataScan.getStartTime() > SCAN_TIMEOUT_MILLIS) {
+				junkDataScan.expire(now);
+			}
+			if (junkDataScan.isFinished() && now - junkDataScan.getFinishTime() > SCAN_RESULT_EXPIRE_MILLIS) {
+				iterator.remove();
+			}
 		}
 	}
 
@@ -34,6 +34,7 @@ import com.vip.saturn.job.console.domain.ServerBriefInfo;
 import com.vip.saturn.job.console.domain.ServerStatus;
 import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository;
 import com.vip.saturn.job.console.service.JobDimensionService;
+import com.vip.saturn.job.console.service.NamespaceReadModelService;
 import com.vip.saturn.job.console.service.ServerDimensionService;
 import com.vip.saturn.job.console.utils.ExecutorNodePath;
 import com.vip.saturn.job.console.utils.JobNodePath;
@@ -49,10 +50,12 @@ public class ServerDimensionServiceImpl implements ServerDimensionService {
     private CuratorRepository curatorRepository;
     @Resource
     private JobDimensionService jobDimensionService;
+    @Resource
+    private NamespaceReadModelService namespaceReadModelService;
 
     @Override
     public Map<String, Object> getAllServersBriefInfo() {
-		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = curatorRepository.inSessionClient();
+		CuratorRepository.CuratorFrameworkOp curatorFrameworkOp = namespaceReadModelService.inSessionReadClient();
     	HashMap<String,Object> model = new HashMap<String,Object>();
     	Map<String,ServerBriefInfo> sbfMap = new LinkedHashMap<String,ServerBriefInfo>();
 		List<String> jobs = new ArrayList<>();
@@ -61,12 +64,31 @@ public class ServerDimensionServiceImpl implements ServerDimensionService {
 		} catch (SaturnJobConsoleException e) {
 			logger.error(e.getMessage(), e);
 		}
+		// 只处理有servers节点的作业，按作业名排序
+		List<String> jobsWithServers = new ArrayList<>();
+		for (String jobName : jobs) {
+			if (curatorFrameworkOp.checkExists(JobNodePath.getServerNodePath(jobName))) {
+				jobsWithServers.add(jobName);
+			}
+		}
+		Set<String> jobsWithServersSet = new HashSet<>(jobsWithServers);
 
         Map<String, Map<String, Integer>> jobNameExecutorNameTotalLevel = new HashMap<>();
+        Map<String, Integer> jobLoadLevels = new HashMap<>();
+        Map<String, Boolean> jobStopped = new HashMap<>();
     	String executorNodePath = ExecutorNodePath.getExecutorNodePath();
     	if(curatorFrameworkOp.checkExists(executorNodePath)) {
     		List<String> executors = curatorFrameworkOp.getChildren(executorNodePath);
     		if(!CollectionUtils.isEmpty(executors)){
+    			// 每个作业都记录所有online的executor，按executor数预设容量，避免逐个扩容
+    			int executorCapacity = executors.size() * 4 / 3 + 1;
+    			for (String jobName : jobsWithServers) {
+    				jobNameExecutorNameTotalLevel.put(jobName, new LinkedHashMap<String, Integer>(executorCapacity));
+    			}
+    			Map<String, Map<String, String>> executorShardings = namespaceReadModelService.getExecutorShardings();
+    			if (executorShardings == null) {
+    				executorShardings = getExecutorShardings(curatorFrameworkOp, executors, jobsWithServers);
+    			}
     			for(String executor : executors){
     				ServerBriefInfo sbf = new ServerBriefInfo(executor);
     				String ip = curatorFrameworkOp.getData(ExecutorNodePath.getExecutorNodePath(executor, "ip"));
@@ -79,55 +101,49 @@ public class ServerDimensionServiceImpl implements ServerDimensionService {
             			sbf.setStatus(ServerStatus.OFFLINE);
             		}
             		sbf.setVersion(curatorFrameworkOp.getData(ExecutorNodePath.getExecutorNodePath(executor, "version")));
-            		if(!CollectionUtils.isEmpty(jobs)){
-        				for (String jobName : jobs) {
-        					String serverNodePath = JobNodePath.getServerNodePath(jobName);
-        		        	if(!curatorFrameworkOp.checkExists(serverNodePath)) {
-        		        		continue;
-        		        	}
-        		        	if(Strings.isNullOrEmpty(sbf.getServerIp())){
-			            		String serverIp = curatorFrameworkOp.getData(JobNodePath.getServerNodePath(jobName, executor, "ip"));
-			            		sbf.setServerIp(serverIp);
-			            	}
-							Map<String, Integer> executorNameWithTotalLevel = null;
-							if(jobNameExecutorNameTotalLevel.containsKey(jobName)) {
-								executorNameWithTotalLevel = jobNameExecutorNameTotalLevel.get(jobName);
-							} else {
-								executorNameWithTotalLevel = new LinkedHashMap<>();
-								jobNameExecutorNameTotalLevel.put(jobName, executorNameWithTotalLevel);
-							}
-							if(ServerStatus.ONLINE.equals(sbf.getStatus())){// 负荷分布图只显示online的Executor
-								executorNameWithTotalLevel.put(executor, 0);
-			            	}
-			            	String sharding = curatorFrameworkOp.getData(JobNodePath.getServerNodePath(jobName, executor, "sharding"));
-			            	if(!Strings.isNullOrEmpty(sharding)){
-			            		sbf.setHasSharding(true);// 如果有分片信息则前端需要屏蔽删除按钮
-	        		        	if(JobStatus.STOPPED.equals(jobDimensionService.getJobStatus(jobName))){
-	                    			continue;// 作业状态为STOPPED的即使有残留分片也不显示该分片
-	                    		}
-	        		        	if(ServerStatus.OFFLINE.equals(sbf.getStatus())){// offline的executor即使有残留分片也不显示该分片
-				            		continue;
-				            	}
-	        		        	// concat executorSharding
-	        		        	String executorSharding = jobName + ":" + sharding;
-				            	if(Strings.isNullOrEmpty(sbf.getSharding())){// 如果有分片信息则前端需要屏蔽删除按钮
-				            		sbf.setSharding(executorSharding);
-				            	}else{
-				            		sbf.setSharding(sbf.getSharding() + "<br/>" + executorSharding);
-				            	}
-				            	// calculate totalLoadLevel
-			            		String loadLevelNode = curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "loadLevel"));
-			            		Integer loadLevel = 1;
-			            		if(!Strings.isNullOrEmpty(loadLevelNode)){
-			            			loadLevel = Integer.parseInt(loadLevelNode);
-			            		}
-			            		Integer totalLoadLevel = sbf.getTotalLoadLevel();
-			            		int thisJobsLoad = (sharding.split(",").length * loadLevel);
-			            		sbf.setTotalLoadLevel((sbf.getTotalLoadLevel() == null?0:totalLoadLevel) + thisJobsLoad);
-				            	executorNameWithTotalLevel.put(executor, thisJobsLoad);
-			            	}
-        		        }
-        			}
+            		if(Strings.isNullOrEmpty(sbf.getServerIp())){// offline的executor取第一个记录了ip的作业的ip
+            			for (String jobName : jobsWithServers) {
+            				String serverIp = curatorFrameworkOp.getData(JobNodePath.getServerNodePath(jobName, executor, "ip"));
+            				if(!Strings.isNullOrEmpty(serverIp)){
+            					sbf.setServerIp(serverIp);
+            					break;
+            				}
+            			}
+            		}
+            		if(ServerStatus.ONLINE.equals(sbf.getStatus())){// 负荷分布图只显示online的Executor
+            			for (Map<String, Integer> executorNameWithTotalLevel : jobNameExecutorNameTotalLevel.values()) {
+            				executorNameWithTotalLevel.put(executor, 0);
+            			}
+            		}
+            		Map<String, String> shardings = executorShardings.get(executor);
+            		if(shardings != null){
+            			for (Map.Entry<String, String> entry : shardings.entrySet()) {
+            				String jobName = entry.getKey();
+            				String sharding = entry.getValue();
+            				if(!jobsWithServersSet.contains(jobName) || Strings.isNullOrEmpty(sharding)){
+            					continue;
+            				}
+            				sbf.setHasSharding(true);// 如果有分片信息则前端需要屏蔽删除按钮
+            				if(isJobStopped(jobName, jobStopped, curatorFrameworkOp)){
+            					continue;// 作业状态为STOPPED的即使有残留分片也不显示该分片
+            				}
+            				if(ServerStatus.OFFLINE.equals(sbf.getStatus())){// offline的executor即使有残留分片也不显示该分片
+            					continue;
+            				}
+            				// concat executorSharding
+            				String executorSharding = jobName + ":" + sharding;
+            				if(Strings.isNullOrEmpty(sbf.getSharding())){
+            					sbf.setSharding(executorSharding);
+            				}else{
+            					sbf.setSharding(sbf.getSharding() + "<br/>" + executorSharding);
+            				}
+            				// calculate totalLoadLevel
+            				int thisJobsLoad = (sharding.split(",").length * getLoadLevel(jobName, jobLoadLevels, curatorFrameworkOp));
+            				Integer totalLoadLevel = sbf.getTotalLoadLevel();
+            				sbf.setTotalLoadLevel((totalLoadLevel == null?0:totalLoadLevel) + thisJobsLoad);
+            				jobNameExecutorNameTotalLevel.get(jobName).put(executor, thisJobsLoad);
+            			}
+            		}
             		sbfMap.put(executor, sbf);
     			}
     		}
@@ -136,6 +152,43 @@ public class ServerDimensionServiceImpl implements ServerDimensionService {
         }
         return model;
     }
+
+    /**
+     * 读模型不可用时，从zk读取executor -> (作业名 -> 分片)
+     */
+    private Map<String, Map<String, String>> getExecutorShardings(CuratorRepository.CuratorFrameworkOp curatorFrameworkOp, List<String> executors, List<String> jobs) {
+    	Map<String, Map<String, String>> executorShardings = new HashMap<>();
+    	for (String executor : executors) {
+    		Map<String, String> shardings = new LinkedHashMap<>();
+    		for (String jobName : jobs) {
+    			String sharding = curatorFrameworkOp.getData(JobNodePath.getServerNodePath(jobName, executor, "sharding"));
+    			if (!Strings.isNullOrEmpty(sharding)) {
+    				shardings.put(jobName, sharding);
+    			}
+    		}
+    		executorShardings.put(executor, shardings);
+    	}
+    	return executorShardings;
+    }
+
+    private boolean isJobStopped(String jobName, Map<String, Boolean> jobStopped, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp) {
+    	Boolean stopped = jobStopped.get(jobName);
+    	if (stopped == null) {
+    		stopped = JobStatus.STOPPED.equals(jobDimensionService.getJobStatus(jobName, curatorFrameworkOp));
+    		jobStopped.put(jobName, stopped);
+    	}
+    	return stopped;
+    }
+
+    private int getLoadLevel(String jobName, Map<String, Integer> jobLoadLevels, CuratorRepository.CuratorFrameworkOp curatorFrameworkOp) {
+    	Integer loadLevel = jobLoadLevels.get(jobName);
+    	if (loadLevel == null) {
+    		String loadLevelNode = curatorFrameworkOp.getData(JobNodePath.getConfigNodePath(jobName, "loadLevel"));
+    		loadLevel = Strings.isNullOrEmpty(loadLevelNode) ? 1 : Integer.parseInt(loadLevelNode);
+    		jobLoadLevels.put(jobName, loadLevel);
+    	}
+    	return loadLevel;
+    }
     
 
 	@Override
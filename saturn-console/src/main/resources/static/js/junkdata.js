@@ -1,4 +1,4 @@
-var junkViewDataTable,$loading = $("#loading");
+var junkViewDataTable,$loading = $("#loading"),currentScanId,scanPollTimer;
 
 $(function() {
     renderZks();
@@ -10,6 +10,10 @@ $(function() {
         }).always(function() {});
 	});
     
+    $("#cancel-scan-btn").click(function() {
+    	cancelJunkDataScan();
+    });
+
     $("#confirm-dialog").on("shown.bs.modal", function (event) {
     	var button = $(event.relatedTarget);
     	var type = button.data('type');
@@ -31,25 +35,74 @@ $(function() {
     });
 });
 
+// 后台扫描废弃数据，每秒获取一次新发现的废弃数据追加到表格中
 function renderJunkData(zkAddr) {
-	$loading.show();
-    $.get("getJunkdata", {zkAddr:zkAddr}, function(data) {
-    	if (junkViewDataTable) {
-    		junkViewDataTable.destroy();
+	cancelJunkDataScan();
+	if (junkViewDataTable) {
+		junkViewDataTable.destroy();
+	}
+    $("#junkdata-tbl tbody").empty();
+    junkViewDataTable = $("#junkdata-tbl").DataTable({"destroy": true,"oLanguage": language});
+    $("#scan-progress").text("开始扫描...");
+    $.post("startJunkDataScan", {zkAddr:zkAddr}, function(scanId) {
+    	if (!scanId) {
+    		$("#scan-progress").text("没有开始扫描：集群不存在，或者进行中的扫描过多，请稍后重试");
+    		return;
     	}
-        $("#junkdata-tbl tbody").empty();
-    	var junkDataList = data;
-        for (var i = 0;i < junkDataList.length;i++) {
-        	var removeButton = "<button operation='removeJunkData' title='点击清理该废弃数据' class='btn btn-danger' data-type='" + junkDataList[i].type + "' data-path='" + junkDataList[i].path + "' data-zkaddr='" + junkDataList[i].zkAddr + "' onclick='showRemoveJunkDataConfirmDialog(this);'>清理</button>";
-            var baseTd = "<td>" + junkDataList[i].namespace + "</td>" 
-            	+ "<td>" + junkDataList[i].zkAddr + "</td>" 
-                + "<td>" + junkDataList[i].path + "</td>" 
-                + "<td>" + junkDataList[i].description + "</td>"
-            	+ "<td>" + removeButton + "</td>";
-            $("#junkdata-tbl tbody").append("<tr>" + baseTd + "</tr>");
-        }
-        junkViewDataTable = $("#junkdata-tbl").DataTable({"destroy": true,"oLanguage": language});
-    }).always(function() { $loading.hide(); });
+    	currentScanId = scanId;
+    	$("#cancel-scan-btn").show();
+    	pollJunkDataScan(scanId, 0);
+    });
+}
+
+function pollJunkDataScan(scanId, from) {
+	$.get("getJunkDataScanResult", {scanId:scanId, from:from}, function(data) {
+		if (scanId != currentScanId || !data) {
+			return;
+		}
+		var junkDataList = data.junkData;
+		for (var i = 0;i < junkDataList.length;i++) {
+			var removeButton = "<button operation='removeJunkData' title='点击清理该废弃数据' class='btn btn-danger' data-type='" + junkDataList[i].type + "' data-path='" + junkDataList[i].path + "' data-zkaddr='" + junkDataList[i].zkAddr + "' onclick='showRemoveJunkDataConfirmDialog(this);'>清理</button>";
+			var baseTd = "<td>" + junkDataList[i].namespace + "</td>" 
+				+ "<td>" + junkDataList[i].zkAddr + "</td>" 
+				+ "<td>" + junkDataList[i].path + "</td>" 
+				+ "<td>" + junkDataList[i].description + "</td>"
+				+ "<td>" + removeButton + "</td>";
+			junkViewDataTable.row.add($("<tr>" + baseTd + "</tr>"));
+		}
+		if (junkDataList.length > 0) {
+			junkViewDataTable.draw(false);
+		}
+		var progress = "已扫描" + data.scannedNamespaces + "/" + data.totalNamespaces + "个域";
+		if (data.failedNamespaces > 0) {
+			progress += "，" + data.failedNamespaces + "个域扫描失败";
+		}
+		if (data.finished) {
+			$("#scan-progress").text(progress + "，扫描完成");
+			$("#cancel-scan-btn").hide();
+			currentScanId = null;
+		} else if (data.cancelled) {
+			$("#scan-progress").text(progress + "，已停止扫描");
+			$("#cancel-scan-btn").hide();
+			currentScanId = null;
+		} else {
+			$("#scan-progress").text(progress + "...");
+			scanPollTimer = setTimeout(function() { pollJunkDataScan(scanId, data.next); }, 1000);
+		}
+	});
+}
+
+function cancelJunkDataScan() {
+	if (scanPollTimer) {
+		clearTimeout(scanPollTimer);
+		scanPollTimer = null;
+	}
+	if (currentScanId) {
+		$.post("cancelJunkDataScan", {scanId:currentScanId}, function() {});
+		$("#scan-progress").text("已停止扫描");
+		currentScanId = null;
+	}
+	$("#cancel-scan-btn").hide();
 }
 
 function showRemoveJunkDataConfirmDialog(obj) {
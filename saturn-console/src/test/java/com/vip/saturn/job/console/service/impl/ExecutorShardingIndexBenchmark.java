@@ -0,0 +1,160 @@
+package com.vip.saturn.job.console.service.impl;
+
+import java.lang.reflect.Field;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.api.transaction.CuratorTransaction;
+import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.curator.utils.CloseableUtils;
+
+import com.vip.saturn.job.console.SaturnEnvProperties;
+import com.vip.saturn.job.console.repository.zookeeper.impl.CuratorRepositoryImpl;
+import com.vip.saturn.job.console.utils.ThreadLocalCuratorClient;
+
+/**
+ * 在内嵌ZK上建500个executor、3000个作业（每个作业分到3个executor），对比服务器总览getAllServersBriefInfo的耗时：
+ * 读模型的executor分片索引，与关闭读模型时按executor×作业逐个读取zk的sharding节点.
+ */
+public class ExecutorShardingIndexBenchmark {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final int EXECUTOR_COUNT = 500;
+
+	private static final int JOB_COUNT = 3000;
+
+	private static final int EXECUTORS_PER_JOB = 3;
+
+	private static final int ROUNDS = 20;
+
+	public static void main(String[] args) throws Exception {
+		TestingServer testingServer = new TestingServer();
+		CuratorFramework client = CuratorFrameworkFactory.builder().connectString(testingServer.getConnectString())
+				.namespace("benchmark").retryPolicy(new RetryOneTime(1000)).build();
+		client.start();
+		NamespaceReadModelServiceImpl readModelService = new NamespaceReadModelServiceImpl();
+		try {
+			createNodes(client);
+			ThreadLocalCuratorClient.setCuratorClient(client);
+			CuratorRepositoryImpl curatorRepository = new CuratorRepositoryImpl();
+			setField(readModelService, "curatorRepository", curatorRepository);
+			readModelService.init();
+			JobDimensionServiceImpl jobDimensionService = new JobDimensionServiceImpl();
+			setField(jobDimensionService, "curatorRepository", curatorRepository);
+			setField(jobDimensionService, "namespaceReadModelService", readModelService);
+			ServerDimensionServiceImpl serverDimensionService = new ServerDimensionServiceImpl();
+			setField(serverDimensionService, "curatorRepository", curatorRepository);
+			setField(serverDimensionService, "jobDimensionService", jobDimensionService);
+			setField(serverDimensionService, "namespaceReadModelService", readModelService);
+
+			// 读模型：第一次访问时创建，等待初始化完成后计时
+			NamespaceReadModel readModel = readModelService.getOrCreateReadModel(client);
+			long start = System.currentTimeMillis();
+			while (readModel.getInitializedTreeCache("/$Jobs", true) == null
+					|| readModel.getInitializedTreeCache("/$SaturnExecutors/executors", true) == null) {
+				Thread.sleep(10L);
+			}
+			System.out.println(String.format("read model initialized in %d ms", System.currentTimeMillis() - start));
+			Map<String, Object> model = null;
+			for (int i = 0; i < ROUNDS; i++) {
+				model = serverDimensionService.getAllServersBriefInfo();
+			}
+			long startNanos = System.nanoTime();
+			for (int i = 0; i < ROUNDS; i++) {
+				model = serverDimensionService.getAllServersBriefInfo();
+			}
+			System.out.println(String.format("with the executor sharding index: %.1f ms per overview, %s",
+					(System.nanoTime() - startNanos) / 1e6 / ROUNDS, summary(model)));
+
+			// 关闭读模型，按executor×作业逐个读取zk
+			SaturnEnvProperties.READ_MODEL_ENABLED = false;
+			startNanos = System.nanoTime();
+			model = serverDimensionService.getAllServersBriefInfo();
+			System.out.println(String.format("reading zk directly: %.1f ms per overview, %s",
+					(System.nanoTime() - startNanos) / 1e6, summary(model)));
+		} finally {
+			readModelService.destroy();
+			ThreadLocalCuratorClient.clear();
+			CloseableUtils.closeQuietly(client);
+			CloseableUtils.closeQuietly(testingServer);
+		}
+	}
+
+	private static void createNodes(CuratorFramework client) throws Exception {
+		NodeBatch batch = new NodeBatch(client);
+		batch.create("/$SaturnExecutors", "");
+		batch.create("/$SaturnExecutors/executors", "");
+		for (int i = 0; i < EXECUTOR_COUNT; i++) {
+			String executorPath = "/$SaturnExecutors/executors/executor" + i;
+			batch.create(executorPath, "");
+			batch.create(executorPath + "/ip", "192.168.0." + i);
+			batch.create(executorPath + "/version", "2.0.0");
+		}
+		batch.create("/$Jobs", "");
+		for (int i = 0; i < JOB_COUNT; i++) {
+			String jobPath = "/$Jobs/job" + i;
+			batch.create(jobPath, "");
+			batch.create(jobPath + "/config", "");
+			batch.create(jobPath + "/config/enabled", "true");
+			batch.create(jobPath + "/config/loadLevel", "1");
+			batch.create(jobPath + "/servers", "");
+			for (int j = 0; j < EXECUTORS_PER_JOB; j++) {
+				String serverPath = jobPath + "/servers/executor" + ((i + j) % EXECUTOR_COUNT);
+				batch.create(serverPath, "");
+				batch.create(serverPath + "/sharding", String.valueOf(j));
+			}
+		}
+		batch.commit();
+	}
+
+	private static String summary(Map<String, Object> model) {
+		return String.format("%d executors, %d jobs", ((Collection<?>) model.get("serverInfos")).size(),
+				((Map<?, ?>) model.get("jobShardLoadLevels")).size());
+	}
+
+	private static void setField(Object target, String name, Object value) throws Exception {
+		Field field = target.getClass().getDeclaredField(name);
+		field.setAccessible(true);
+		field.set(target, value);
+	}
+
+	/**
+	 * 每1000个节点一个事务创建
+	 */
+	private static class NodeBatch {
+
+		private final CuratorFramework client;
+
+		private CuratorTransaction transaction;
+
+		private int size;
+
+		NodeBatch(CuratorFramework client) {
+			this.client = client;
+		}
+
+		void create(String path, String data) throws Exception {
+			if (transaction == null) {
+				transaction = client.inTransaction();
+			}
+			transaction = transaction.create().forPath(path, data.getBytes(UTF8)).and();
+			if (++size >= 1000) {
+				commit();
+			}
+		}
+
+		void commit() throws Exception {
+			if (transaction != null) {
+				((CuratorTransactionFinal) transaction).commit();
+				transaction = null;
+				size = 0;
+			}
+		}
+	}
+}
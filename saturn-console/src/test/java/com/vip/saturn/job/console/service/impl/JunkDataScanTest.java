@@ -0,0 +1,80 @@
+package com.vip.saturn.job.console.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.vip.saturn.job.console.domain.RegistryCenterConfiguration;
+import com.vip.saturn.job.console.domain.SaturnJunkDataScanResult;
+
+public class JunkDataScanTest {
+
+	@Test
+	public void testExpire() throws Exception {
+		JunkDataScan junkDataScan = newScan("scan1", 2);
+		assertThat(junkDataScan.await(10L, TimeUnit.MILLISECONDS)).isFalse();
+
+		// 未完成的域计为失败，扫描随即结束
+		junkDataScan.expire(System.currentTimeMillis());
+		assertThat(junkDataScan.await(0L, TimeUnit.MILLISECONDS)).isTrue();
+		assertResult(junkDataScan.getResult(0), 2, 2);
+
+		// 超时后才结束的域不再重复计数
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		try {
+			junkDataScan.start(executorService);
+		} finally {
+			executorService.shutdown();
+			executorService.awaitTermination(5L, TimeUnit.SECONDS);
+		}
+		assertResult(junkDataScan.getResult(0), 2, 2);
+	}
+
+	@Test
+	public void testCheckScans() throws Exception {
+		SaturnJunkDataServiceImpl junkDataService = new SaturnJunkDataServiceImpl();
+		List<JunkDataScan> junkDataScans = new ArrayList<>();
+		for (int i = 0; i < SaturnJunkDataServiceImpl.MAX_RUNNING_SCANS; i++) {
+			JunkDataScan junkDataScan = newScan("scan" + i, 1);
+			assertThat(junkDataService.addScan(junkDataScan)).isTrue();
+			junkDataScans.add(junkDataScan);
+		}
+		// 进行中的扫描数达到上限
+		assertThat(junkDataService.addScan(newScan("rejected", 1))).isFalse();
+
+		// 超时的扫描结束并计为失败，之后可以开始新的扫描
+		long now = System.currentTimeMillis();
+		junkDataService.checkScans(now + SaturnJunkDataServiceImpl.SCAN_TIMEOUT_MILLIS + 1000L);
+		for (JunkDataScan junkDataScan : junkDataScans) {
+			assertResult(junkDataService.getJunkDataScanResult(junkDataScan.getScanId(), 0), 1, 1);
+		}
+		JunkDataScan newScan = newScan("new", 1);
+		assertThat(junkDataService.addScan(newScan)).isTrue();
+
+		// 结束后超过保留时间的扫描被移除
+		junkDataService.checkScans(now + SaturnJunkDataServiceImpl.SCAN_TIMEOUT_MILLIS
+				+ SaturnJunkDataServiceImpl.SCAN_RESULT_EXPIRE_MILLIS + 2000L);
+		assertThat(junkDataService.getJunkDataScanResult(junkDataScans.get(0).getScanId(), 0)).isNull();
+		assertThat(junkDataService.getJunkDataScanResult(newScan.getScanId(), 0)).isNotNull();
+	}
+
+	private static JunkDataScan newScan(String scanId, int namespaces) {
+		List<RegistryCenterConfiguration> registryCenters = new ArrayList<>();
+		for (int i = 0; i < namespaces; i++) {
+			registryCenters.add(new RegistryCenterConfiguration("junkDataScanTest/ns" + i, "127.0.0.1:2181"));
+		}
+		return new JunkDataScan(scanId, registryCenters);
+	}
+
+	private static void assertResult(SaturnJunkDataScanResult result, int scannedNamespaces, int failedNamespaces) {
+		assertThat(result.isFinished()).isTrue();
+		assertThat(result.getScannedNamespaces()).isEqualTo(scannedNamespaces);
+		assertThat(result.getFailedNamespaces()).isEqualTo(failedNamespaces);
+	}
+}
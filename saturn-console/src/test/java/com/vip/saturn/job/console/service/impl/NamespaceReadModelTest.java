@@ -0,0 +1,303 @@
+package com.vip.saturn.job.console.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.curator.utils.CloseableUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vip.saturn.job.console.repository.zookeeper.CuratorRepository.CuratorFrameworkOp;
+
+public class NamespaceReadModelTest {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private TestingServer testingServer;
+
+	private CuratorFramework client;
+
+	private NamespaceReadModelServiceImpl readModelService;
+
+	@Before
+	public void setUp() throws Exception {
+		testingServer = new TestingServer();
+		client = newClient(testingServer.getConnectString(), "ns1");
+		readModelService = new NamespaceReadModelServiceImpl();
+		readModelService.init();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		readModelService.destroy();
+		CloseableUtils.closeQuietly(client);
+		CloseableUtils.closeQuietly(testingServer);
+	}
+
+	@Test
+	public void testCoversDepth() throws Exception {
+		createNode(client, "/$Jobs/job1/config/cron", "0 * * * * ?");
+		createNode(client, "/$Jobs/job1/servers/e1/sharding", "0,1");
+		createNode(client, "/$Jobs/job1/execution/0/running/deeper", "");
+		createNode(client, "/$SaturnExecutors/executors/e1/ip/deeper", "");
+		createNode(client, "/$JobsOther/job1", "");
+		NamespaceReadModel readModel = readModelService.getOrCreateReadModel(client);
+		waitInitialized(readModel);
+
+		// $Jobs缓存4层，$SaturnExecutors/executors缓存2层
+		assertThat(readModel.getInitializedTreeCache("/$Jobs", true)).isNotNull();
+		assertThat(readModel.getInitializedTreeCache("/$Jobs/job1/execution/0", true)).isNotNull();
+		assertThat(readModel.getInitializedTreeCache("/$Jobs/job1/execution/0/running", false)).isNotNull();
+		assertThat(readModel.getInitializedTreeCache("/$Jobs/job1/execution/0/running", true)).isNull();
+		assertThat(readModel.getInitializedTreeCache("/$Jobs/job1/execution/0/running/deeper", false)).isNull();
+		assertThat(readModel.getInitializedTreeCache("/$SaturnExecutors/executors/e1", true)).isNotNull();
+		assertThat(readModel.getInitializedTreeCache("/$SaturnExecutors/executors/e1/ip", false)).isNotNull();
+		assertThat(readModel.getInitializedTreeCache("/$SaturnExecutors/executors/e1/ip", true)).isNull();
+		assertThat(readModel.getInitializedTreeCache("/$SaturnExecutors", false)).isNull();
+		assertThat(readModel.getInitializedTreeCache("/$JobsOther/job1", false)).isNull();
+		assertThat(readModel.getExecutorShardings().get("e1")).containsEntry("job1", "0,1");
+		try {
+			readModel.getExecutorShardings().get("e1").put("job2", "0");
+			throw new AssertionError("the executor shardings should be read only");
+		} catch (UnsupportedOperationException e) {
+			assertThat(readModel.getExecutorShardings().get("e1")).containsOnlyKeys("job1");
+		}
+
+		// 缓存覆盖的节点从读模型读取，更深的节点读取zk
+		ZkReadOp zkReadOp = new ZkReadOp(client);
+		ReadModelCuratorFrameworkOp curatorFrameworkOp = new ReadModelCuratorFrameworkOp(zkReadOp, readModel);
+		assertThat(curatorFrameworkOp.getData("/$Jobs/job1/config/cron")).isEqualTo("0 * * * * ?");
+		assertThat(curatorFrameworkOp.getChildren("/$Jobs/job1/execution/0")).containsOnly("running");
+		assertThat(curatorFrameworkOp.checkExists("/$Jobs/job1/execution/1")).isFalse();
+		assertThat(zkReadOp.reads.get()).isEqualTo(0);
+		assertThat(curatorFrameworkOp.getChildren("/$Jobs/job1/execution/0/running")).containsOnly("deeper");
+		assertThat(curatorFrameworkOp.checkExists("/$SaturnExecutors/executors/e1/ip/deeper")).isTrue();
+		assertThat(curatorFrameworkOp.getChildren("/$JobsOther")).containsOnly("job1");
+		assertThat(zkReadOp.reads.get()).isEqualTo(3);
+
+		// 修改通过watch更新到读模型
+		client.setData().forPath("/$Jobs/job1/config/cron", "0 0 * * * ?".getBytes(UTF8));
+		for (int i = 0; i < 500 && !"0 0 * * * ?".equals(curatorFrameworkOp.getData("/$Jobs/job1/config/cron")); i++) {
+			Thread.sleep(10L);
+		}
+		assertThat(curatorFrameworkOp.getData("/$Jobs/job1/config/cron")).isEqualTo("0 0 * * * ?");
+	}
+
+	@Test
+	public void testLimitedJobsDepth() throws Exception {
+		createNode(client, "/$Jobs/job1/config/cron", "0 * * * * ?");
+		createNode(client, "/$Jobs/job1/servers/e1/sharding", "0,1");
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		NamespaceReadModel readModel = new NamespaceReadModel("key", client, executorService, 3);
+		try {
+			readModel.start();
+			waitInitialized(readModel);
+			assertThat(readModel.getInitializedTreeCache("/$Jobs/job1/config/cron", false)).isNotNull();
+			assertThat(readModel.getInitializedTreeCache("/$Jobs/job1/servers/e1", true)).isNull();
+			assertThat(readModel.getInitializedTreeCache("/$Jobs/job1/servers/e1/sharding", false)).isNull();
+			// 没有缓存sharding节点，不提供executor分片索引
+			assertThat(readModel.getExecutorShardings()).isNull();
+		} finally {
+			readModel.close();
+		}
+	}
+
+	@Test
+	public void testIdleEviction() throws Exception {
+		NamespaceReadModel readModel = readModelService.getOrCreateReadModel(client);
+		waitInitialized(readModel);
+		long now = System.currentTimeMillis();
+		readModelService.checkReadModels(now, 60000L, Long.MAX_VALUE);
+		assertThat(readModelService.getOrCreateReadModel(client)).isSameAs(readModel);
+
+		// 超过空闲时间被关闭，再次访问时重建
+		readModelService.checkReadModels(now + 120000L, 60000L, Long.MAX_VALUE);
+		assertThat(readModelService.getMemoryUsage()).isEmpty();
+		assertThat(readModel.getInitializedTreeCache("/$Jobs", true)).isNull();
+		NamespaceReadModel rebuilt = readModelService.getOrCreateReadModel(client);
+		assertThat(rebuilt).isNotNull().isNotSameAs(readModel);
+
+		// 客户端已关闭
+		client.close();
+		readModelService.checkReadModels(now, 60000L, Long.MAX_VALUE);
+		assertThat(readModelService.getMemoryUsage()).isEmpty();
+	}
+
+	@Test
+	public void testLruEvictionOverBudget() throws Exception {
+		CuratorFramework client2 = newClient(testingServer.getConnectString(), "ns2");
+		try {
+			for (int i = 0; i < 20; i++) {
+				createNode(client, "/$Jobs/job" + i + "/config/cron", "0 * * * * ?");
+				createNode(client2, "/$Jobs/job" + i + "/config/cron", "0 * * * * ?");
+			}
+			NamespaceReadModel readModel1 = readModelService.getOrCreateReadModel(client);
+			NamespaceReadModel readModel2 = readModelService.getOrCreateReadModel(client2);
+			waitInitialized(readModel1);
+			waitInitialized(readModel2);
+			// readModel1最久没有访问
+			Thread.sleep(10L);
+			readModel2.getInitializedTreeCache("/$Jobs", true);
+			long bytes1 = readModel1.updateMemoryBytes();
+			long bytes2 = readModel2.updateMemoryBytes();
+			assertThat(bytes1).isGreaterThan(0L);
+
+			long now = System.currentTimeMillis();
+			readModelService.checkReadModels(now, 60000L, bytes1 + bytes2 - 1);
+			assertThat(readModelService.getMemoryUsage()).containsOnlyKeys(readModel2.getKey());
+			assertThat(readModelService.getOrCreateReadModel(client2)).isSameAs(readModel2);
+
+			// 单个域就超过上限，不再缓存，直接读取zk
+			readModelService.checkReadModels(now, 60000L, bytes2 - 1);
+			assertThat(readModelService.getMemoryUsage()).isEmpty();
+			assertThat(readModelService.getOrCreateReadModel(client2)).isNull();
+			assertThat(readModelService.getOrCreateReadModel(client)).isNotNull();
+		} finally {
+			client2.close();
+		}
+	}
+
+	@Test
+	public void testMemoryUsageKeyedByConnection() throws Exception {
+		// 不同zk集群上的同名域
+		TestingServer testingServer2 = new TestingServer();
+		CuratorFramework client2 = newClient(testingServer2.getConnectString(), "ns1");
+		try {
+			NamespaceReadModel readModel1 = readModelService.getOrCreateReadModel(client);
+			NamespaceReadModel readModel2 = readModelService.getOrCreateReadModel(client2);
+			assertThat(readModel1.getKey()).isEqualTo(testingServer.getConnectString() + "/ns1");
+			assertThat(readModel2.getKey()).isEqualTo(testingServer2.getConnectString() + "/ns1");
+			assertThat(readModelService.getMemoryUsage()).containsOnlyKeys(readModel1.getKey(), readModel2.getKey());
+		} finally {
+			client2.close();
+			testingServer2.close();
+		}
+	}
+
+	private static CuratorFramework newClient(String connectString, String namespace) throws InterruptedException {
+		CuratorFramework curatorFramework = CuratorFrameworkFactory.builder().connectString(connectString).namespace(namespace)
+				.retryPolicy(new RetryOneTime(1000)).build();
+		curatorFramework.start();
+		curatorFramework.blockUntilConnected();
+		return curatorFramework;
+	}
+
+	private static void createNode(CuratorFramework curatorFramework, String path, String data) throws Exception {
+		curatorFramework.create().creatingParentsIfNeeded().forPath(path, data.getBytes(UTF8));
+	}
+
+	private static void waitInitialized(NamespaceReadModel readModel) throws InterruptedException {
+		for (int i = 0; i < 3000; i++) {
+			if (readModel.getInitializedTreeCache("/$Jobs", true) != null
+					&& readModel.getInitializedTreeCache("/$SaturnExecutors/executors", true) != null) {
+				return;
+			}
+			Thread.sleep(10L);
+		}
+		throw new AssertionError("the read model is not initialized");
+	}
+
+	/**
+	 * 直接读取zk并记录读取次数
+	 */
+	private static class ZkReadOp implements CuratorFrameworkOp {
+
+		private final CuratorFramework curatorFramework;
+
+		private final AtomicInteger reads = new AtomicInteger();
+
+		private ZkReadOp(CuratorFramework curatorFramework) {
+			this.curatorFramework = curatorFramework;
+		}
+
+		@Override
+		public boolean checkExists(String znode) {
+			reads.incrementAndGet();
+			try {
+				return curatorFramework.checkExists().forPath(znode) != null;
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public String getData(String znode) {
+			reads.incrementAndGet();
+			try {
+				return new String(curatorFramework.getData().forPath(znode), UTF8);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public List<String> getChildren(String znode) {
+			reads.incrementAndGet();
+			try {
+				return curatorFramework.getChildren().forPath(znode);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public long getMtime(String node) {
+			reads.incrementAndGet();
+			try {
+				return curatorFramework.checkExists().forPath(node).getMtime();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public void create(String znode) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void create(String znode, Object value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void update(String znode, Object value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void delete(String znode) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void deleteRecursive(String znode) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void fillJobNodeIfNotExist(String node, Object value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CuratorTransactionOp inTransaction() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CuratorFramework getCuratorFramework() {
+			return curatorFramework;
+		}
+	}
+}
@@ -14,10 +14,10 @@
 
 package com.vip.saturn.job.basic;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.zookeeper.data.Stat;
@@ -39,9 +39,6 @@ import com.vip.saturn.job.internal.server.ServerService;
 import com.vip.saturn.job.internal.server.ServerStatus;
 import com.vip.saturn.job.internal.sharding.ShardingService;
 import com.vip.saturn.job.internal.storage.JobNodePath;
-import com.vip.saturn.job.threads.ExtendableThreadPoolExecutor;
-import com.vip.saturn.job.threads.SaturnThreadFactory;
-import com.vip.saturn.job.threads.TaskQueue;
 import com.vip.saturn.job.trigger.SaturnScheduler;
 import com.vip.saturn.job.trigger.SaturnTrigger;
 
@@ -115,8 +112,7 @@ public abstract class AbstractElasticJob implements Stopable {
 		if (executorService != null && !executorService.isShutdown()) {
 			return executorService;
 		}
-		ThreadFactory factory = new SaturnThreadFactory(jobName);
-		executorService = new ExtendableThreadPoolExecutor(0, 100, 2, TimeUnit.MINUTES, new TaskQueue(), factory);
+		executorService = SharedBusinessExecutor.createJobExecutorService(executorName, jobName);
 		return executorService;
 	}
 
@@ -186,10 +182,13 @@ public abstract class AbstractElasticJob implements Stopable {
 		} finally {
 			boolean updateServerStatus = false;
 			Date nextFireTimePausePeriodEffected = jobScheduler.getNextFireTimePausePeriodEffected();
+			List<Integer> validItems = new ArrayList<>();
+			List<Integer> completedItems = new ArrayList<>();
 			for (int item : shardingContext.getShardingItems()) {
 				if (!checkIfZkLostAfterExecution(item)) {
 					continue;// NOSONAR
 				}
+				validItems.add(item);
 				if (!aborted) {
 					if (!updateServerStatus) {
 						JobConfiguration jobConfiguration = getJobScheduler().getCurrentConf();
@@ -202,9 +201,13 @@ public abstract class AbstractElasticJob implements Stopable {
 						}
 						updateServerStatus = true;
 					}
-					executionService.registerJobCompletedByItem(shardingContext, item, nextFireTimePausePeriodEffected);
+					completedItems.add(item);
 				}
-				if (isFailoverSupported() && configService.isFailover()) {
+			}
+			// 所有分片的完成状态合并成少量事务提交
+			executionService.registerJobCompletedByItems(shardingContext, completedItems, nextFireTimePausePeriodEffected);
+			if (isFailoverSupported() && configService.isFailover()) {
+				for (int item : validItems) {
 					failoverService.updateFailoverComplete(item);
 				}
 			}
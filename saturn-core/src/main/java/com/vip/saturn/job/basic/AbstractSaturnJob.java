@@ -9,12 +9,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.PropertyPlaceholderHelper;
 
-import com.google.common.base.Strings;
 import com.vip.saturn.job.SaturnJobReturn;
 import com.vip.saturn.job.SaturnSystemErrorGroup;
 import com.vip.saturn.job.SaturnSystemReturnCode;
 import com.vip.saturn.job.exception.SaturnJobException;
-import com.vip.saturn.job.internal.statistics.ProcessCountStatistics;
+import com.vip.saturn.job.internal.config.JobConfigurationSnapshot;
+import com.vip.saturn.job.internal.statistics.JobProcessCounters;
 
 /**
  * Saturn抽象父类
@@ -97,35 +97,20 @@ public abstract class AbstractSaturnJob extends AbstractElasticJob {
 		// 为了展现分片处理失败的状态
 		saturnContext.getShardingItemResults().put(item, jobReturn);
 		//执行次数加1
-		ProcessCountStatistics.increaseTotalCountDelta(executorName, jobName);
+		JobProcessCounters processCounters = jobScheduler.getProcessCounters();
+		processCounters.increaseTotalCountDelta();
 		// 只要有出错和失败的分片，就认为是处理失败; 否则认为处理成功
 		if (errorCount == 0 && successCount >= 0) {
-			ProcessCountStatistics.incrementProcessSuccessCount(executorName, jobName, successCount);
+			processCounters.incrementProcessSuccessCount(successCount);
 		} else {
-			ProcessCountStatistics.increaseErrorCountDelta(executorName, jobName);
-			ProcessCountStatistics.incrementProcessFailureCount(executorName, jobName, errorCount);
+			processCounters.increaseErrorCountDelta();
+			processCounters.incrementProcessFailureCount(errorCount);
 		}
 	}
 
 	
 	public Properties parseKV(String path) {
-		if (Strings.isNullOrEmpty(path)) {
-			return null;
-		}
-		Properties kv = new Properties();
-		String[] paths = path.split(",");
-		if (paths != null && paths.length > 0) {
-			for (String p : paths) {
-				String[] tmps = p.split("=");
-				if (tmps != null && tmps.length == 2) {
-					kv.put(tmps[0].trim(), tmps[1].trim());
-				} else {
-					log.error("msg=Param is not valid {}", p);
-				}
-			}
-		}
-
-		return kv;
+		return JobConfigurationSnapshot.parseKV(path);
 	}
 	
 	
@@ -144,17 +129,8 @@ public abstract class AbstractSaturnJob extends AbstractElasticJob {
 	 * @return 替换后的值
 	 */
 	protected String getRealItemValue(String jobParameter, String jobValue) {
-		// 处理自定义参数
-		Properties kvProp = parseKV(jobParameter);
-		int kvSize = kvProp != null ? kvProp.size() : 0;
-		final String itemVal; // 作业分片的对应值
-		if (kvSize > 0) {
-			// 有自定义参数, 解析完替换
-			itemVal = placeHolderHelper.replacePlaceholders(jobValue, kvProp);
-		} else {
-			itemVal = jobValue;
-		}
-		return itemVal.replaceAll("!!", "\"").replaceAll("@@", "=").replaceAll("##", ",");
+		// 作业参数和分片参数表已在配置变化时解析，直接取替换后的值
+		return getConfigService().getRealItemValue(jobParameter, jobValue);
 	}
 
 	public String logBusinessExceptionIfNecessary(String jobName, Exception e) {
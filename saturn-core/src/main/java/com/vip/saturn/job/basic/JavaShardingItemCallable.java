@@ -9,7 +9,9 @@ import com.vip.saturn.job.SaturnJobExecutionContext;
 import com.vip.saturn.job.SaturnJobReturn;
 import com.vip.saturn.job.SaturnSystemErrorGroup;
 import com.vip.saturn.job.SaturnSystemReturnCode;
+import com.vip.saturn.job.java.JavaJobInvoker;
 import com.vip.saturn.job.java.SaturnJavaJob;
+import com.vip.saturn.job.utils.LogRingBuffer;
 import com.vip.saturn.job.utils.SaturnLogOutputStream;
 
 /**
@@ -71,29 +73,33 @@ public class JavaShardingItemCallable extends ShardingItemCallable{
 	}
 	
 	/**
-	 * 生成分片上下文对象
-	 * @param jobClassLoader
+	 * 使用作业调用器缓存的复制方法生成分片上下文对象
+	 * @param jobInvoker
 	 * @return
 	 * @throws Exception
 	 */
-	public Object getContextForJob(ClassLoader jobClassLoader) throws Exception{
+	public Object getContextForJob(JavaJobInvoker jobInvoker) throws Exception{
 		if(contextForJob == null){
 			if(shardingContext == null){
 				return null;
 			}
-			SaturnJobExecutionContext context = new SaturnJobExecutionContext();
-			context.setJobName(shardingContext.getJobName());
-			context.setShardingItemParameters(shardingContext.getShardingItemParameters());
-			context.setCustomContext(shardingContext.getCustomContext());
-			context.setJobParameter(shardingContext.getJobParameter());
-			context.setShardingItems(shardingContext.getShardingItems());
-			context.setShardingTotalCount(shardingContext.getShardingTotalCount());
-			contextForJob = cloneObject(context, jobClassLoader);
+			contextForJob = jobInvoker.copyContextToJob(createContext());
 		}
 		
 		return contextForJob;
 	}
 	
+	private SaturnJobExecutionContext createContext() {
+		SaturnJobExecutionContext context = new SaturnJobExecutionContext();
+		context.setJobName(shardingContext.getJobName());
+		context.setShardingItemParameters(shardingContext.getShardingItemParameters());
+		context.setCustomContext(shardingContext.getCustomContext());
+		context.setJobParameter(shardingContext.getJobParameter());
+		context.setShardingItems(shardingContext.getShardingItems());
+		context.setShardingTotalCount(shardingContext.getShardingTotalCount());
+		return context;
+	}
+	
 	/**
 	 * 设置该分片的状态为TIMEOUT
 	 * @return Mark timeout success or fail
@@ -189,15 +195,23 @@ public class JavaShardingItemCallable extends ShardingItemCallable{
 				saturnJobReturn = temp;
 			}
 			
-			String jobLog = SaturnLogOutputStream.clearAndGetLog();
+			LogRingBuffer jobLog = SaturnLogOutputStream.clearLogger();
 
-			if(saturnJob !=null && saturnJob.getConfigService().showNormalLog()){
-				this.shardingContext.putJobLog(this.item, jobLog);
+			// 只在需要展示日志时生成日志字符串
+			if(saturnJob !=null && jobLog != null && (saturnJob.getConfigService().showNormalLog() || isFailed())){
+				this.shardingContext.putJobLog(this.item, jobLog.toString());
 			}
 		}
 		
 		return saturnJobReturn;
 	}
+
+	/**
+	 * 超时、强制终止或者返回失败，此时需要展示日志
+	 */
+	private boolean isFailed() {
+		return saturnJobReturn == null || saturnJobReturn.getErrorGroup() != SaturnSystemErrorGroup.SUCCESS;
+	}
 	
 	protected void checkAndSetSaturnJobReturn() {
 		switch(status.get()) {
@@ -37,6 +37,8 @@ import com.vip.saturn.job.internal.listener.ListenerManager;
 import com.vip.saturn.job.internal.offset.OffsetService;
 import com.vip.saturn.job.internal.server.ServerService;
 import com.vip.saturn.job.internal.sharding.ShardingService;
+import com.vip.saturn.job.internal.statistics.JobProcessCounters;
+import com.vip.saturn.job.internal.statistics.ProcessCountStatistics;
 import com.vip.saturn.job.internal.statistics.StatisticsService;
 import com.vip.saturn.job.internal.storage.JobNodePath;
 import com.vip.saturn.job.internal.storage.JobNodeStorage;
@@ -90,6 +92,8 @@ public class JobScheduler {
 
 	private final JobNodeStorage jobNodeStorage;
 
+	private final JobProcessCounters processCounters;
+
 	private AbstractElasticJob job;
 
 	private SaturnExecutorService saturnExecutorService;
@@ -101,6 +105,7 @@ public class JobScheduler {
 		this.currentConf = jobConfiguration;
 		this.coordinatorRegistryCenter = coordinatorRegistryCenter;
 		this.jobNodeStorage = new JobNodeStorage(coordinatorRegistryCenter, jobConfiguration);
+		this.processCounters = ProcessCountStatistics.getCounters(executorName, jobName);
 		JobRegistry.addJobScheduler(executorName, jobName, this);
 
 		configService = new ConfigurationService(this);
@@ -282,6 +287,7 @@ public class JobScheduler {
 		offsetService.shutdown();
 		analyseService.shutdown();
 		limitMaxJobsService.shutdown();
+		reportService.shutdown();
 
 		coordinatorRegistryCenter.closeTreeCache(JobNodePath.getJobNameFullPath(jobName));
 		try {
@@ -410,6 +416,13 @@ public class JobScheduler {
 		return offsetService;
 	}
 
+	/**
+	 * 获取本作业的处理数据统计计数器
+	 */
+	public JobProcessCounters getProcessCounters() {
+		return processCounters;
+	}
+
 	public AnalyseService getAnalyseService() {
 		return analyseService;
 	}
@@ -79,7 +79,11 @@ public class ShardingItemFutureTask implements Callable<SaturnJobReturn> {
 
 	@Override
 	public SaturnJobReturn call() throws Exception {
-		Thread.currentThread().setUncaughtExceptionHandler(new UncaughtExceptionHandler(){
+		// 共享线程池的线程会执行其它作业，结束时恢复线程原来的UncaughtExceptionHandler和线程名
+		Thread currentThread = Thread.currentThread();
+		String originName = currentThread.getName();
+		UncaughtExceptionHandler originHandler = currentThread.getUncaughtExceptionHandler();
+		currentThread.setUncaughtExceptionHandler(new UncaughtExceptionHandler(){
 
 			@Override
 			public void uncaughtException(Thread t, Throwable e) {
@@ -101,7 +105,12 @@ public class ShardingItemFutureTask implements Callable<SaturnJobReturn> {
 			SaturnJobReturn ret = callable.call();
 			return ret;
 		} finally {
-			done();
+			try {
+				done();
+			} finally {
+				currentThread.setUncaughtExceptionHandler(originHandler);
+				currentThread.setName(originName);
+			}
 		}
 	}
 
@@ -0,0 +1,74 @@
+/**
+ * 
+ */
+package com.vip.saturn.job.basic;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Strings;
+import com.vip.saturn.job.threads.ExtendableThreadPoolExecutor;
+import com.vip.saturn.job.threads.QuotaExecutorService;
+import com.vip.saturn.job.threads.SaturnThreadFactory;
+import com.vip.saturn.job.threads.TaskQueue;
+import com.vip.saturn.job.utils.SystemEnvProperties;
+
+/**
+ * Executor级别共享的业务线程池。每个作业拿到的是共享线程池上的一个配额视图，限制了单个作业的并发数，
+ * 而整个Executor的业务线程数不会超过VIP_SATURN_BUSINESS_MAX_THREADS。
+ */
+public class SharedBusinessExecutor {
+	static Logger log = LoggerFactory.getLogger(SharedBusinessExecutor.class);
+
+	private static ConcurrentHashMap<String, ExtendableThreadPoolExecutor> businessThreadPoolMap = new ConcurrentHashMap<>();
+
+	private SharedBusinessExecutor() {
+
+	}
+
+	private static synchronized ExtendableThreadPoolExecutor getOrCreateThreadPool(String executorName) {
+		ExtendableThreadPoolExecutor threadPool = businessThreadPoolMap.get(executorName);
+		if (threadPool == null || threadPool.isShutdown()) {
+			threadPool = new ExtendableThreadPoolExecutor(0, SystemEnvProperties.VIP_SATURN_BUSINESS_MAX_THREADS, 2,
+					TimeUnit.MINUTES, new TaskQueue(), new SaturnThreadFactory(executorName + "-business"));
+			businessThreadPoolMap.put(executorName, threadPool);
+		}
+		return threadPool;
+	}
+
+	/**
+	 * 为作业创建共享业务线程池上的配额视图，作业的并发数上限为VIP_SATURN_JOB_BUSINESS_MAX_THREADS，
+	 * 可以通过VIP_SATURN_JOB_BUSINESS_MAX_THREADS_{jobName}单独配置
+	 */
+	public static ExecutorService createJobExecutorService(String executorName, String jobName) {
+		return new QuotaExecutorService(getOrCreateThreadPool(executorName), getJobMaxThreads(jobName),
+				"Saturn-" + jobName);
+	}
+
+	private static int getJobMaxThreads(String jobName) {
+		String name = SystemEnvProperties.NAME_VIP_SATURN_JOB_BUSINESS_MAX_THREADS + "_" + jobName;
+		String jobMaxThreads = System.getProperty(name, System.getenv(name));
+		if (!Strings.isNullOrEmpty(jobMaxThreads)) {
+			try {
+				return Math.max(1, Integer.parseInt(jobMaxThreads.trim()));
+			} catch (NumberFormatException e) {
+				log.error(String.format(SaturnConstant.ERROR_LOG_FORMAT, jobName, e.getMessage()), e);
+			}
+		}
+		return SystemEnvProperties.VIP_SATURN_JOB_BUSINESS_MAX_THREADS;
+	}
+
+	/**
+	 * 关闭Executor的共享业务线程池，已提交的分片仍会执行完
+	 */
+	public static synchronized void shutdownThreadPool(String executorName) {
+		ExtendableThreadPoolExecutor threadPool = businessThreadPoolMap.remove(executorName);
+		if (threadPool != null) {
+			threadPool.shutdown();
+		}
+	}
+}
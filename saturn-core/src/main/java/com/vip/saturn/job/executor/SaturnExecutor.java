@@ -21,15 +21,19 @@ import com.google.common.base.Strings;
 import com.vip.saturn.job.basic.JobRegistry;
 import com.vip.saturn.job.basic.JobScheduler;
 import com.vip.saturn.job.basic.JobTypeManager;
+import com.vip.saturn.job.basic.SharedBusinessExecutor;
 import com.vip.saturn.job.basic.ShutdownHandler;
 import com.vip.saturn.job.basic.TimeoutSchedulerExecutor;
 import com.vip.saturn.job.internal.config.JobConfiguration;
+import com.vip.saturn.job.internal.control.ReportFlusher;
+import com.vip.saturn.job.internal.statistics.StatisticsFlusher;
 import com.vip.saturn.job.internal.storage.JobNodePath;
 import com.vip.saturn.job.java.SaturnJavaJob;
 import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
 import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
 import com.vip.saturn.job.shell.SaturnScriptJob;
 import com.vip.saturn.job.threads.SaturnThreadFactory;
+import com.vip.saturn.job.trigger.SaturnWorkerEngine;
 import com.vip.saturn.job.utils.LocalHostService;
 import com.vip.saturn.job.utils.ResourceUtils;
 import com.vip.saturn.job.utils.ScriptPidUtils;
@@ -437,6 +441,7 @@ public class SaturnExecutor {
 	 */
 	public void shutdown() {
 		synchronized (shutdownLock) {
+			saturnExecutorService.shutdownNewJobListener();
 			shutdownUnfinishJob();
 			// 清理Executor的IP运行Node
 			String ipNode = saturnExecutorService.getIpNode();
@@ -449,6 +454,12 @@ public class SaturnExecutor {
 			resetCountService.shutdownRestCountTimer();
 			// shutdown timeout-watchdog-threadpool
 			TimeoutSchedulerExecutor.shutdownScheduler(executorName);
+			// shutdown trigger timer and dispatcher
+			SaturnWorkerEngine.shutdownEngine(executorName);
+			// shutdown business-threadpool
+			SharedBusinessExecutor.shutdownThreadPool(executorName);
+			ReportFlusher.shutdownFlusher(executorName);
+			StatisticsFlusher.shutdownFlusher(executorName);
 			// close zk-dump socket.
 			if(regCenter != null) {
 				regCenter.closeMonitorService();
@@ -464,6 +475,7 @@ public class SaturnExecutor {
 	public void shutdownGracefully() {
 		synchronized (shutdownLock) {
 			shutdownAllCountThread();
+			saturnExecutorService.shutdownNewJobListener();
 			
 			// 清理Executor的IP运行Node
 			String ipNode = saturnExecutorService.getIpNode();
@@ -478,6 +490,10 @@ public class SaturnExecutor {
 				blockUntilJobCompletedIfNotTimeout();
 				shutdownUnfinishJob();
 				JobRegistry.clearExecutor(executorName);
+				SaturnWorkerEngine.shutdownEngine(executorName);
+				SharedBusinessExecutor.shutdownThreadPool(executorName);
+				ReportFlusher.shutdownFlusher(executorName);
+				StatisticsFlusher.shutdownFlusher(executorName);
 			}finally{
 				if (regCenter != null) {
 					regCenter.close();
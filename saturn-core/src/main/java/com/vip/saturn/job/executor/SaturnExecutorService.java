@@ -1,21 +1,35 @@
 package com.vip.saturn.job.executor;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.curator.framework.CuratorFramework;
-import org.apache.curator.framework.recipes.cache.ChildData;
-import org.apache.curator.framework.recipes.cache.TreeCache;
-import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
-import org.apache.curator.framework.recipes.cache.TreeCacheEvent.Type;
-import org.apache.curator.framework.recipes.cache.TreeCacheListener;
+import org.apache.curator.framework.api.CuratorWatcher;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher.Event.EventType;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Strings;
+import com.vip.saturn.job.basic.SaturnConstant;
 import com.vip.saturn.job.exception.TimeDiffIntolerableException;
 import com.vip.saturn.job.internal.config.ConfigurationNode;
 import com.vip.saturn.job.internal.storage.JobNodePath;
 import com.vip.saturn.job.reg.base.CoordinatorRegistryCenter;
+import com.vip.saturn.job.threads.SaturnThreadFactory;
 import com.vip.saturn.job.utils.LocalHostService;
 import com.vip.saturn.job.utils.ResourceUtils;
 import com.vip.saturn.job.utils.SystemEnvProperties;
@@ -26,6 +40,9 @@ import com.vip.saturn.job.utils.SystemEnvProperties;
  *
  */
 public class SaturnExecutorService {
+	static Logger log = LoggerFactory.getLogger(SaturnExecutorService.class);
+
+	private static final String NEW_JOB_WATCHER = "-newJobWatcher";
 	
 	private String executorName;
 	
@@ -33,7 +50,15 @@ public class SaturnExecutorService {
 
 	private CoordinatorRegistryCenter coordinatorRegistryCenter;
 
-	private TreeCache treeCache;
+	private ExecutorService jobsWatcherExecutor;
+
+	private ConnectionStateListener jobsConnectionStateListener;
+
+	// 上次从/$Jobs读到的作业名及其作业节点的czxid，只在jobsWatcherExecutor线程中访问
+	private Map<String, Long> watchedJobs = new HashMap<>();
+
+	// 上次读到的/$Jobs的cversion，只在jobsWatcherExecutor线程中访问
+	private int jobsCversion = -1;
 
 	private String ipNode;
 
@@ -61,7 +86,7 @@ public class SaturnExecutorService {
 	/**
 	 * 获取该域下所有作业名
 	 */
-	public List<String> registerJobNames() {
+	public synchronized List<String> registerJobNames() {
 		jobNames.clear();
 		// be careful, coordinatorRegistryCenter.getChildrenKeys maybe return Collections.emptyList(), it's immutable
 		jobNames.addAll(coordinatorRegistryCenter.getChildrenKeys("/" + JobNodePath.$JOBS_NODE_NAME));
@@ -141,48 +166,186 @@ public class SaturnExecutorService {
 		}
 	}
 
+	/**
+	 * 只在/$Jobs上注册子节点watch（不缓存作业的任何子树），发现新的作业名后再检查其config/jobClass节点，存在则回调；
+	 * 不存在则在该节点上注册一次性watch，等待其创建。
+	 * <p>
+	 * 两次watch之间作业被删除后重建时作业名不变，根据/$Jobs的cversion发现子节点有未体现在作业名变化中的增删，
+	 * 再比较作业节点的czxid找出重建的作业。重连后重新检查所有还没有调度的作业，重新注册可能随会话丢失的config/jobClass watch。
+	 * </p>
+	 */
 	public void addNewJobListenerCallback(final ScheduleNewJobCallback callback) throws Exception {
-		treeCache = new TreeCache((CuratorFramework) coordinatorRegistryCenter.getRawClient(),
-				"/" + JobNodePath.$JOBS_NODE_NAME);
-		treeCache.start();
-		treeCache.getListenable().addListener(new TreeCacheListener() {
+		final CuratorFramework client = (CuratorFramework) coordinatorRegistryCenter.getRawClient();
+		jobsWatcherExecutor = Executors.newSingleThreadExecutor(new SaturnThreadFactory(executorName + NEW_JOB_WATCHER));
+		final Runnable refreshTask = new Runnable() {
 			@Override
-			public void childEvent(CuratorFramework client, TreeCacheEvent event) throws Exception {
-				if (event != null) {
-					Type type = event.getType();
-					ChildData data = event.getData();
-					if (type != null && data != null) {
-						String path = data.getPath();
-						if (path != null) {
-							if (type.equals(Type.NODE_ADDED) && isJobNameNodePath(path)) { // 增加作业
-								String newJob = getJobNameByPath(path);
-								if (!jobNames.contains(newJob)) {
-									jobNames.add(newJob);
-									callback.call(newJob);
-								}
-							} else if (type.equals(Type.NODE_REMOVED) && isJobNameNodePath(path)) { // 删除作业
-								String deleteJob = getJobNameByPath(path);
-								if (jobNames.contains(deleteJob)) {
-									jobNames.remove(deleteJob);
+			public void run() {
+				try {
+					refreshJobs(client, this, callback, false);
+				} catch (Exception e) {
+					log.error("msg=" + e.getMessage(), e);
+				}
+			}
+		};
+		final Runnable recheckTask = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					refreshJobs(client, refreshTask, callback, true);
+				} catch (Exception e) {
+					log.error("msg=" + e.getMessage(), e);
+				}
+			}
+		};
+		jobsConnectionStateListener = new ConnectionStateListener() {
+			@Override
+			public void stateChanged(CuratorFramework client, ConnectionState newState) {
+				// 重连期间可能丢失了子节点变化和config/jobClass的watch，重新注册watch并检查所有作业
+				if (newState == ConnectionState.RECONNECTED) {
+					submitQuietly(recheckTask);
+				}
+			}
+		};
+		client.getConnectionStateListenable().addListener(jobsConnectionStateListener);
+		submitQuietly(refreshTask);
+	}
+
+	/**
+	 * @param recheck 是否重新检查所有还没有调度的作业，以及所有作业是否被重建
+	 */
+	private void refreshJobs(CuratorFramework client, final Runnable refreshTask, ScheduleNewJobCallback callback,
+			boolean recheck) throws Exception {
+		if (jobsWatcherExecutor.isShutdown()) {
+			return;
+		}
+		Stat jobsStat = new Stat();
+		List<String> children = client.getChildren().storingStatIn(jobsStat).usingWatcher(new CuratorWatcher() {
+			@Override
+			public void process(WatchedEvent event) throws Exception {
+				if (event.getType() == EventType.NodeChildrenChanged) {
+					submitQuietly(refreshTask);
+				}
+			}
+		}).forPath("/" + JobNodePath.$JOBS_NODE_NAME);
+		Set<String> currentJobNames = new HashSet<>(children);
+		int changes = 0;
+		Iterator<Entry<String, Long>> iterator = watchedJobs.entrySet().iterator();
+		while (iterator.hasNext()) {
+			String jobName = iterator.next().getKey();
+			if (!currentJobNames.contains(jobName)) { // 删除作业
+				iterator.remove();
+				removeJobName(jobName);
+				changes++;
+			}
+		}
+		List<String> newJobNames = new ArrayList<>();
+		for (String jobName : currentJobNames) {
+			if (!watchedJobs.containsKey(jobName)) {
+				newJobNames.add(jobName);
+			}
+		}
+		changes += newJobNames.size();
+		// cversion的增量多于作业名的变化，说明有作业被删除后重建
+		boolean recreated = jobsCversion >= 0 && jobsStat.getCversion() - jobsCversion > changes;
+		jobsCversion = jobsStat.getCversion();
+		if (recheck || recreated) {
+			for (Entry<String, Long> entry : new ArrayList<>(watchedJobs.entrySet())) {
+				String jobName = entry.getKey();
+				Long czxid = getJobCzxid(client, jobName);
+				if (czxid == null) { // 已被删除，等待子节点watch
+					continue;
+				}
+				if (!czxid.equals(entry.getValue())) { // 重建作业
+					log.info("[{}] msg=job {} is recreated", jobName, jobName);
+					removeJobName(jobName);
+					watchedJobs.put(jobName, czxid);
+					checkNewJob(jobName, callback);
+				} else if (recheck) {
+					checkNewJob(jobName, callback);
+				}
+			}
+		}
+		for (String jobName : newJobNames) { // 增加作业
+			Long czxid = getJobCzxid(client, jobName);
+			if (czxid != null) {
+				watchedJobs.put(jobName, czxid);
+				checkNewJob(jobName, callback);
+			}
+		}
+	}
+
+	private Long getJobCzxid(CuratorFramework client, String jobName) throws Exception {
+		Stat stat = client.checkExists().forPath(JobNodePath.getJobNameFullPath(jobName));
+		return stat == null ? null : stat.getCzxid();
+	}
+
+	private void submitQuietly(Runnable task) {
+		try {
+			jobsWatcherExecutor.execute(task);
+		} catch (RejectedExecutionException ignore) {// NOSONAR
+			// 已停止监听新增作业
+		}
+	}
+
+	private void checkNewJob(final String jobName, final ScheduleNewJobCallback callback) throws Exception {
+		if (containsJobName(jobName)) {
+			return;
+		}
+		final CuratorFramework client = (CuratorFramework) coordinatorRegistryCenter.getRawClient();
+		String jobClassPath = JobNodePath.getNodeFullPath(jobName, ConfigurationNode.JOB_CLASS);
+		if (client.checkExists().forPath(jobClassPath) == null) {
+			Stat stat = client.checkExists().usingWatcher(new CuratorWatcher() {
+				@Override
+				public void process(WatchedEvent event) throws Exception {
+					if (event.getType() == EventType.NodeCreated) {
+						submitQuietly(new Runnable() {
+							@Override
+							public void run() {
+								try {
+									checkNewJob(jobName, callback);
+								} catch (Exception e) {
+									log.error(String.format(SaturnConstant.ERROR_LOG_FORMAT, jobName, e.getMessage()), e);
 								}
 							}
-						}
+						});
 					}
 				}
+			}).forPath(jobClassPath);
+			if (stat == null) {
+				return;
 			}
+		}
+		if (addJobName(jobName)) {
+			callback.call(jobName);
+		}
+	}
 
-			private boolean isJobNameNodePath(String path) {
-				String regex = "/" + "\\" + JobNodePath.$JOBS_NODE_NAME + "/" + "[^/]*/" + ConfigurationNode.JOB_CLASS;
-				return path.matches(regex);
-			}
+	private synchronized boolean containsJobName(String jobName) {
+		return jobNames.contains(jobName);
+	}
 
-			private String getJobNameByPath(String path) {
-				String temp = "/" + JobNodePath.$JOBS_NODE_NAME + "/";
-				String substring = path.substring(temp.length());
-				return substring.split("/")[0];
-			}
-		});
+	private synchronized boolean addJobName(String jobName) {
+		if (jobNames.contains(jobName)) {
+			return false;
+		}
+		return jobNames.add(jobName);
+	}
 
+	private synchronized void removeJobName(String jobName) {
+		jobNames.remove(jobName);
+	}
+
+	/**
+	 * 停止监听新增作业
+	 */
+	public void shutdownNewJobListener() {
+		if (jobsConnectionStateListener != null) {
+			((CuratorFramework) coordinatorRegistryCenter.getRawClient()).getConnectionStateListenable()
+					.removeListener(jobsConnectionStateListener);
+		}
+		if (jobsWatcherExecutor != null) {
+			jobsWatcherExecutor.shutdownNow();
+		}
 	}
 
 	
@@ -222,14 +385,6 @@ public class SaturnExecutorService {
 		this.jobNames = jobNames;
 	}
 
-	public TreeCache getTreeCache() {
-		return treeCache;
-	}
-
-	public void setTreeCache(TreeCache treeCache) {
-		this.treeCache = treeCache;
-	}
-
 	public void setExecutorName(String executorName) {
 		this.executorName = executorName;
 	}
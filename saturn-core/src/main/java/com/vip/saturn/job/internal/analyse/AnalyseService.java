@@ -17,9 +17,12 @@
 
 package com.vip.saturn.job.internal.analyse;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import com.vip.saturn.job.basic.AbstractSaturnService;
 import com.vip.saturn.job.basic.JobScheduler;
-import com.vip.saturn.job.internal.statistics.ProcessCountStatistics;
+import com.vip.saturn.job.internal.statistics.JobProcessCounters;
 
 /**
  * 作业服务器节点统计服务.
@@ -29,9 +32,11 @@ import com.vip.saturn.job.internal.statistics.ProcessCountStatistics;
 public class AnalyseService extends AbstractSaturnService {
     
 	
+    private final JobProcessCounters processCounters;
+	
     public AnalyseService(final JobScheduler jobScheduler) {
     	super(jobScheduler);
-    	
+    	processCounters = jobScheduler.getProcessCounters();
     }
     
     @Override
@@ -47,7 +52,7 @@ public class AnalyseService extends AbstractSaturnService {
     	if (!getJobNodeStorage().isJobNodeExisted(AnalyseNode.PROCESS_COUNT)) {
     		getJobNodeStorage().createOrUpdateJobNodeWithValue(AnalyseNode.PROCESS_COUNT, totalCount.toString());
     	}
-    	ProcessCountStatistics.initTotalCountDelta(executorName, jobName, 0);
+    	processCounters.getAndResetTotalCountDelta();
 	}
 	
 	private void initErrorCount() {
@@ -56,26 +61,29 @@ public class AnalyseService extends AbstractSaturnService {
     	if (!getJobNodeStorage().isJobNodeExisted(AnalyseNode.ERROR_COUNT)) {
     		getJobNodeStorage().createOrUpdateJobNodeWithValue(AnalyseNode.ERROR_COUNT, errorCount.toString());
     	}
-    	ProcessCountStatistics.initErrorCountDelta(executorName, jobName, 0);
+    	processCounters.getAndResetErrorCountDelta();
 	}
     
     
-    public synchronized void persistTotalCount() {
-    	int delta = ProcessCountStatistics.getTotalCountDelta(executorName, jobName);
-    	if (delta > 0) {
-    		int totalCount = Integer.parseInt(getJobNodeStorage().getJobNodeData(AnalyseNode.PROCESS_COUNT));
-    		getJobNodeStorage().updateJobNode(AnalyseNode.PROCESS_COUNT, totalCount + delta);
-    		ProcessCountStatistics.initTotalCountDelta(executorName, jobName, 0);
+    /**
+     * 把执行总次数和失败总次数的增量累加到zk.
+     * 
+     * <p>
+     * 所有executor共用同一个计数节点，按节点版本做CAS更新，并发刷新时不会丢失增量.
+     * </p>
+     * 
+     * @param totalCountDelta 执行次数增量
+     * @param errorCountDelta 失败次数增量
+     */
+    public void persistCountDelta(long totalCountDelta, long errorCountDelta) {
+    	Map<String, Long> deltas = new LinkedHashMap<>();
+    	if (totalCountDelta > 0) {
+    		deltas.put(AnalyseNode.PROCESS_COUNT, totalCountDelta);
     	}
-    }
-	
-    public synchronized void persistErrorCount() {
-    	int delta = ProcessCountStatistics.getErrorCountDelta(executorName, jobName);
-    	if (delta > 0) {
-    		int errorCount = Integer.parseInt(getJobNodeStorage().getJobNodeData(AnalyseNode.ERROR_COUNT));
-    		getJobNodeStorage().updateJobNode(AnalyseNode.ERROR_COUNT, delta + errorCount);
-    		ProcessCountStatistics.initErrorCountDelta(executorName, jobName, 0);
+    	if (errorCountDelta > 0) {
+    		deltas.put(AnalyseNode.ERROR_COUNT, errorCountDelta);
     	}
+    	getJobNodeStorage().incrementJobNodeCounters(deltas);
     }
 	
 }
@@ -18,23 +18,22 @@
 package com.vip.saturn.job.internal.config;
 
 import java.text.ParseException;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.codehaus.jackson.map.type.MapType;
 import org.codehaus.jackson.map.type.TypeFactory;
 import org.quartz.CronExpression;
 
-import com.google.common.base.Strings;
 import com.vip.saturn.job.basic.AbstractSaturnService;
 import com.vip.saturn.job.basic.JobScheduler;
 import com.vip.saturn.job.exception.SaturnJobException;
-import com.vip.saturn.job.exception.ShardingItemParametersException;
 import com.vip.saturn.job.utils.JsonUtils;
 
 /**
@@ -44,13 +43,10 @@ import com.vip.saturn.job.utils.JsonUtils;
  */
 public class ConfigurationService extends AbstractSaturnService {
 	
-	private static final String DOUBLE_QUOTE = "\"";
-	
-	//参考http://stackoverflow.com/questions/17963969/java-regex-pattern-split-commna
-	private static final String PATTERN = ",(?=(([^\"]*\"){2})*[^\"]*$)";
-	
     private MapType customContextType = TypeFactory.defaultInstance().constructMapType(HashMap.class, String.class, String.class);
     
+    private volatile SimpleImmutableEntry<String, Map<String, String>> customContextCache;
+    
     public ConfigurationService(JobScheduler jobScheduler) {
         super(jobScheduler);
     }
@@ -76,55 +72,7 @@ public class ConfigurationService extends AbstractSaturnService {
      * @return 分片序列号和个性化参数对照表
      */
     public Map<Integer, String> getShardingItemParameters() {
-		Map<Integer, String> result = new HashMap<>();
-		String value = jobConfiguration.getShardingItemParameters();
-		if (Strings.isNullOrEmpty(value)) {
-			return result;
-		}
-		//解释命令行参数
-		String[] shardingItemParameters = value.split(PATTERN);
-		Map<String, String> result0 = new HashMap<>(shardingItemParameters.length);
-		for (String each : shardingItemParameters) {
-			String item = "";
-			String exec = "";
-
-			int index = each.indexOf("=");
-			if (index > -1) {
-				item = each.substring(0, index).trim();
-				exec = each.substring(index + 1, each.length()).trim();
-				//去掉前后的双引号"
-				if (exec.startsWith(DOUBLE_QUOTE)) {
-					exec = exec.substring(1);
-				}
-
-				if (exec.endsWith(DOUBLE_QUOTE)) {
-					exec = exec.substring(0, exec.length() - 1);
-				}
-			} else {
-				throw new ShardingItemParametersException("Sharding item parameters '%s' format error", value);
-			}
-			result0.put(item, exec);
-		}
-		if(isLocalMode()) {
-			if(result0.containsKey("*")) {
-				result.put(-1, result0.get("*"));
-			} else {
-				throw new ShardingItemParametersException("Sharding item parameters '%s' format error with local mode job, should be *=xx", value);
-			}
-		} else {
-			Iterator<Map.Entry<String, String>> iterator = result0.entrySet().iterator();
-			while(iterator.hasNext()) {
-				Map.Entry<String, String> next = iterator.next();
-				String item = next.getKey();
-				String exec = next.getValue();
-				try {
-					result.put(Integer.parseInt(item), exec);
-				} catch (final NumberFormatException ex) {
-					throw new ShardingItemParametersException("Sharding item parameters key '%s' is not an integer.", item);
-				}
-			}
-		}
-		return result;
+		return jobConfiguration.getSnapshot().getShardingItemParameters();
     }
     
     /**
@@ -136,6 +84,17 @@ public class ConfigurationService extends AbstractSaturnService {
         return jobConfiguration.getJobParameter();
     }
     
+    /**
+     * 获取替换后的作业分片执行值.
+     * 
+     * @param jobParameter 作业参数
+     * @param jobValue 作业value
+     * @return 替换后的值
+     */
+    public String getRealItemValue(String jobParameter, String jobValue) {
+    	return jobConfiguration.getSnapshot().getRealItemValue(jobParameter, jobValue);
+    }
+    
     /**
      * 获取作业启动时间的cron表达式.
      * 
@@ -219,98 +178,7 @@ public class ConfigurationService extends AbstractSaturnService {
 		int d = calendar.get(Calendar.DAY_OF_MONTH);
 		int h = calendar.get(Calendar.HOUR_OF_DAY);
 		int m = calendar.get(Calendar.MINUTE);
-
-		boolean dateIn = false;
-		String pausePeriodDate = jobConfiguration.getPausePeriodDate();
-		boolean pausePeriodDateIsEmpty = (pausePeriodDate==null || pausePeriodDate.trim().isEmpty());
-		if(!pausePeriodDateIsEmpty){
-			String[] periodsDate = pausePeriodDate.split(",");
-			if (periodsDate != null) {
-				for (String period : periodsDate) {
-					String[] tmp = period.trim().split("-");
-					if (tmp != null && tmp.length == 2) {
-						String left = tmp[0].trim();
-						String right = tmp[1].trim();
-						String[] MdLeft = left.split("/");
-						String[] MdRight = right.split("/");
-						if (MdLeft != null && MdLeft.length == 2 && MdRight != null && MdRight.length == 2) {
-							try {
-								int MLeft = Integer.parseInt(MdLeft[0]);
-								int dLeft = Integer.parseInt(MdLeft[1]);
-								int MRight = Integer.parseInt(MdRight[0]);
-								int dRight = Integer.parseInt(MdRight[1]);
-								dateIn = (M > MLeft || M == MLeft && d >= dLeft) && (M < MRight || M == MRight && d <= dRight);//NOSONAR
-								if (dateIn) {
-									break;
-								}
-							} catch (NumberFormatException e) {
-								dateIn = false;
-								break;
-							}
-						} else {
-							dateIn = false;
-							break;
-						}
-					} else {
-						dateIn = false;
-						break;
-					}
-				}
-			}
-		}
-		boolean timeIn = false;
-		String pausePeriodTime = jobConfiguration.getPausePeriodTime();
-		boolean pausePeriodTimeIsEmpty = (pausePeriodTime==null||pausePeriodTime.trim().isEmpty());
-		if(!pausePeriodTimeIsEmpty){
-			String[] periodsTime = pausePeriodTime.split(",");
-			if (periodsTime != null) {
-				for (String period : periodsTime) {
-					String[] tmp = period.trim().split("-");
-					if (tmp != null && tmp.length == 2) {
-						String left = tmp[0].trim();
-						String right = tmp[1].trim();
-						String[] hmLeft = left.split(":");
-						String[] hmRight = right.split(":");
-						if (hmLeft != null && hmLeft.length == 2 && hmRight != null && hmRight.length == 2) {
-							try {
-								int hLeft = Integer.parseInt(hmLeft[0]);
-								int mLeft = Integer.parseInt(hmLeft[1]);
-								int hRight = Integer.parseInt(hmRight[0]);
-								int mRight = Integer.parseInt(hmRight[1]);
-								timeIn = (h > hLeft || h == hLeft && m >= mLeft) && (h < hRight || h == hRight && m <= mRight);//NOSONAR
-								if (timeIn) {
-									break;
-								}
-							} catch (NumberFormatException e) {
-								timeIn = false;
-								break;
-							}
-						} else {
-							timeIn = false;
-							break;
-						}
-					} else {
-						timeIn = false;
-						break;
-					}
-				}
-			}
-		}
-		
-		
-		if(pausePeriodDateIsEmpty) {
-			if(pausePeriodTimeIsEmpty) {
-				return false;
-			} else {
-				return timeIn;
-			}
-		} else {
-			if(pausePeriodTimeIsEmpty) {
-				return dateIn;
-			} else {
-				return dateIn && timeIn;
-			}
-		}
+		return jobConfiguration.getSnapshot().isInPausePeriod(M, d, h, m);
 	}
 	
     /**
@@ -355,7 +223,13 @@ public class ConfigurationService extends AbstractSaturnService {
      */
     public Map<String, String> getCustomContext() {
     	String jobNodeData = getJobNodeStorage().getJobNodeData(ConfigurationNode.CUSTOME_CONTEXT);
-    	return toCustomContext(jobNodeData);
+    	// 节点数据没有变化时不再解析json
+    	SimpleImmutableEntry<String, Map<String, String>> cached = customContextCache;
+    	if (cached == null || !Objects.equals(cached.getKey(), jobNodeData)) {
+    		cached = new SimpleImmutableEntry<>(jobNodeData, toCustomContext(jobNodeData));
+    		customContextCache = cached;
+    	}
+    	return new HashMap<>(cached.getValue());
     }
     
     /**
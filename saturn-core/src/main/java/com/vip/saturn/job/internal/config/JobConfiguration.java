@@ -17,6 +17,8 @@
 
 package com.vip.saturn.job.internal.config;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.google.common.base.Strings;
 import com.vip.saturn.job.basic.AbstractElasticJob;
 import com.vip.saturn.job.basic.JobTypeManager;
@@ -198,6 +200,16 @@ public class JobConfiguration {
      */
     private boolean useDispreferList = true;
     
+    /**
+     * 分片参数表、暂停时间段、自定义参数的版本，这些配置每次变化都加1
+     */
+    private final AtomicInteger snapshotVersion = new AtomicInteger();
+    
+    /**
+     * 上述配置的解析结果，配置变化后整体替换
+     */
+    private volatile JobConfigurationSnapshot snapshot;
+    
     public void reloadConfig(){
     	if (regCenter == null) {
 			return;
@@ -252,8 +264,30 @@ public class JobConfiguration {
 		localMode =  Boolean.valueOf(regCenter.getDirectly(JobNodePath.getNodeFullPath(jobName, ConfigurationNode.LOCAL_MODE)));
 		useSerial =  Boolean.valueOf(regCenter.getDirectly(JobNodePath.getNodeFullPath(jobName, ConfigurationNode.USE_SERIAL)));
 		useDispreferList =  Boolean.valueOf(regCenter.getDirectly(JobNodePath.getNodeFullPath(jobName, ConfigurationNode.USE_DISPREFER_LIST)));
+		
+		snapshotVersion.incrementAndGet();
+		snapshot = buildSnapshot();
     }
     
+	/**
+	 * 获取分片参数表、暂停时间段、自定义参数的解析结果，配置变化后的第一次调用重新解析
+	 */
+	public JobConfigurationSnapshot getSnapshot() {
+		JobConfigurationSnapshot current = snapshot;
+		if (current == null || current.getVersion() != snapshotVersion.get()) {
+			current = buildSnapshot();
+			snapshot = current;
+		}
+		return current;
+	}
+	
+	private JobConfigurationSnapshot buildSnapshot() {
+		// 先取版本再读配置，构建期间配置再次变化时，版本不一致，下次调用会重新解析
+		int version = snapshotVersion.get();
+		return new JobConfigurationSnapshot(version, shardingItemParameters, localMode, pausePeriodDate,
+				pausePeriodTime, jobParameter);
+	}
+    
 	public boolean isDeleting(){
 		return regCenter.isExisted(JobNodePath.getNodeFullPath(jobName, ConfigurationNode.TO_DELETE));
 	}
@@ -381,18 +415,22 @@ public class JobConfiguration {
 
 	public void setPausePeriodDate(String pausePeriodDate) {
 		this.pausePeriodDate = pausePeriodDate;
+		snapshotVersion.incrementAndGet();
 	}
 
 	public void setPausePeriodTime(String pausePeriodTime) {
 		this.pausePeriodTime = pausePeriodTime;
+		snapshotVersion.incrementAndGet();
 	}
 
 	public void setShardingItemParameters(String shardingItemParameters) {
 		this.shardingItemParameters = shardingItemParameters;
+		snapshotVersion.incrementAndGet();
 	}
 
 	public void setJobParameter(String jobParameter) {
 		this.jobParameter = jobParameter;
+		snapshotVersion.incrementAndGet();
 	}
 
 	public void setProcessCountIntervalSeconds(int processCountIntervalSeconds) {
@@ -445,6 +483,7 @@ public class JobConfiguration {
 
 	public void setLocalMode(boolean localMode) {
 		this.localMode = localMode;
+		snapshotVersion.incrementAndGet();
 	}
 
 	public void setUseSerial(boolean useSerial) {
@@ -0,0 +1,282 @@
+/**
+ * Copyright 2016 vip.com.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * </p>
+ */
+
+package com.vip.saturn.job.internal.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.PropertyPlaceholderHelper;
+
+import com.google.common.base.Strings;
+import com.vip.saturn.job.exception.ShardingItemParametersException;
+
+/**
+ * 作业配置的解析结果.
+ *
+ * <p>
+ * 分片参数表、暂停日期段和时间段、作业自定义参数及替换后的分片执行值在配置变化时解析一次，
+ * 作业每次执行时直接读取，不再解析配置字符串。实例不可变，由{@link JobConfiguration}在配置变化后整体替换.
+ * </p>
+ */
+public final class JobConfigurationSnapshot {
+	private static Logger log = LoggerFactory.getLogger(JobConfigurationSnapshot.class);
+
+	private static final String DOUBLE_QUOTE = "\"";
+
+	//参考http://stackoverflow.com/questions/17963969/java-regex-pattern-split-commna
+	private static final Pattern ITEM_PARAMETERS_PATTERN = Pattern.compile(",(?=(([^\"]*\"){2})*[^\"]*$)");
+
+	private static final Pattern ESCAPED_QUOTE = Pattern.compile("!!", Pattern.LITERAL);
+
+	private static final Pattern ESCAPED_EQUAL = Pattern.compile("@@", Pattern.LITERAL);
+
+	private static final Pattern ESCAPED_COMMA = Pattern.compile("##", Pattern.LITERAL);
+
+	private static final PropertyPlaceholderHelper PLACE_HOLDER_HELPER = new PropertyPlaceholderHelper("{", "}");
+
+	private final int version;
+
+	private final Map<Integer, String> shardingItemParameters;
+
+	private final String shardingItemParametersError;
+
+	private final List<int[]> pausePeriodDates;
+
+	private final List<int[]> pausePeriodTimes;
+
+	private final String jobParameter;
+
+	private final Properties jobParameterKV;
+
+	private final Map<String, String> realItemValues;
+
+	JobConfigurationSnapshot(int version, String shardingItemParameters, boolean localMode, String pausePeriodDate,
+			String pausePeriodTime, String jobParameter) {
+		this.version = version;
+		Map<Integer, String> itemParameters = null;
+		String error = null;
+		try {
+			itemParameters = parseShardingItemParameters(shardingItemParameters, localMode);
+		} catch (ShardingItemParametersException e) {
+			error = e.getMessage();
+		}
+		this.shardingItemParameters = itemParameters;
+		this.shardingItemParametersError = error;
+		this.pausePeriodDates = parsePausePeriods(pausePeriodDate, "/");
+		this.pausePeriodTimes = parsePausePeriods(pausePeriodTime, ":");
+		this.jobParameter = jobParameter;
+		this.jobParameterKV = parseKV(jobParameter);
+		this.realItemValues = resolveItemValues(itemParameters, jobParameterKV);
+	}
+
+	int getVersion() {
+		return version;
+	}
+
+	/**
+	 * 分片序列号和个性化参数对照表，不可修改
+	 *
+	 * @throws ShardingItemParametersException 分片参数表格式不正确
+	 */
+	public Map<Integer, String> getShardingItemParameters() {
+		if (shardingItemParametersError != null) {
+			throw new ShardingItemParametersException("%s", shardingItemParametersError);
+		}
+		return shardingItemParameters;
+	}
+
+	/**
+	 * 月、日或者时、分是否在暂停日期段或者时间段内，语义与原逐次解析的实现一致：
+	 * 两者都未配置则不暂停，只配置了一个则只看该项，都配置了则要同时满足.
+	 */
+	public boolean isInPausePeriod(int month, int day, int hour, int minute) {
+		if (pausePeriodDates == null) {
+			return pausePeriodTimes != null && isIn(pausePeriodTimes, hour, minute);
+		}
+		if (pausePeriodTimes == null) {
+			return isIn(pausePeriodDates, month, day);
+		}
+		return isIn(pausePeriodDates, month, day) && isIn(pausePeriodTimes, hour, minute);
+	}
+
+	private static boolean isIn(List<int[]> periods, int high, int low) {
+		for (int[] period : periods) {
+			if ((high > period[0] || high == period[0] && low >= period[1])
+					&& (high < period[2] || high == period[2] && low <= period[3])) {//NOSONAR
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 获取替换后的作业分片执行值，作业参数与本快照一致且该值在分片参数表中时直接返回解析好的结果
+	 *
+	 * @param jobParameter 作业参数
+	 * @param jobValue 作业value
+	 * @return 替换后的值
+	 */
+	public String getRealItemValue(String jobParameter, String jobValue) {
+		if (jobValue != null && (jobParameter == null ? this.jobParameter == null : jobParameter.equals(this.jobParameter))) {
+			String realItemValue = realItemValues.get(jobValue);
+			if (realItemValue != null) {
+				return realItemValue;
+			}
+			return resolveItemValue(jobValue, jobParameterKV);
+		}
+		return resolveItemValue(jobValue, parseKV(jobParameter));
+	}
+
+	private static Map<Integer, String> parseShardingItemParameters(String value, boolean localMode) {
+		Map<Integer, String> result = new HashMap<>();
+		if (Strings.isNullOrEmpty(value)) {
+			return Collections.unmodifiableMap(result);
+		}
+		//解释命令行参数
+		String[] shardingItemParameters = ITEM_PARAMETERS_PATTERN.split(value);
+		Map<String, String> result0 = new HashMap<>(shardingItemParameters.length);
+		for (String each : shardingItemParameters) {
+			String item = "";
+			String exec = "";
+
+			int index = each.indexOf("=");
+			if (index > -1) {
+				item = each.substring(0, index).trim();
+				exec = each.substring(index + 1, each.length()).trim();
+				//去掉前后的双引号"
+				if (exec.startsWith(DOUBLE_QUOTE)) {
+					exec = exec.substring(1);
+				}
+
+				if (exec.endsWith(DOUBLE_QUOTE)) {
+					exec = exec.substring(0, exec.length() - 1);
+				}
+			} else {
+				throw new ShardingItemParametersException("Sharding item parameters '%s' format error", value);
+			}
+			result0.put(item, exec);
+		}
+		if (localMode) {
+			if (result0.containsKey("*")) {
+				result.put(-1, result0.get("*"));
+			} else {
+				throw new ShardingItemParametersException("Sharding item parameters '%s' format error with local mode job, should be *=xx", value);
+			}
+		} else {
+			for (Map.Entry<String, String> next : result0.entrySet()) {
+				String item = next.getKey();
+				try {
+					result.put(Integer.parseInt(item), next.getValue());
+				} catch (final NumberFormatException ex) {
+					throw new ShardingItemParametersException("Sharding item parameters key '%s' is not an integer.", item);
+				}
+			}
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * 解析暂停时间段，如3/12-4/15或10:00-12:30，返回{左高位, 左低位, 右高位, 右低位}的列表；未配置返回null.
+	 * <p>与原实现一致，遇到第一个格式不正确的时间段后，其后的时间段都被忽略.
+	 */
+	private static List<int[]> parsePausePeriods(String pausePeriod, String separator) {
+		if (pausePeriod == null || pausePeriod.trim().isEmpty()) {
+			return null;
+		}
+		List<int[]> periods = new ArrayList<>();
+		for (String period : pausePeriod.split(",")) {
+			String[] tmp = period.trim().split("-");
+			if (tmp.length != 2) {
+				break;
+			}
+			String[] left = tmp[0].trim().split(separator);
+			String[] right = tmp[1].trim().split(separator);
+			if (left.length != 2 || right.length != 2) {
+				break;
+			}
+			try {
+				periods.add(new int[] { Integer.parseInt(left[0]), Integer.parseInt(left[1]), Integer.parseInt(right[0]),
+						Integer.parseInt(right[1]) });
+			} catch (NumberFormatException e) {
+				break;
+			}
+		}
+		return Collections.unmodifiableList(periods);
+	}
+
+	/**
+	 * 解析作业自定义参数，如a=1,b=2
+	 */
+	public static Properties parseKV(String path) {
+		if (Strings.isNullOrEmpty(path)) {
+			return null;
+		}
+		Properties kv = new Properties();
+		String[] paths = path.split(",");
+		for (String p : paths) {
+			String[] tmps = p.split("=");
+			if (tmps.length == 2) {
+				kv.put(tmps[0].trim(), tmps[1].trim());
+			} else {
+				log.error("msg=Param is not valid {}", p);
+			}
+		}
+		return kv;
+	}
+
+	private static Map<String, String> resolveItemValues(Map<Integer, String> itemParameters, Properties kvProp) {
+		Map<String, String> result = new HashMap<>();
+		if (itemParameters != null) {
+			for (String jobValue : itemParameters.values()) {
+				if (!result.containsKey(jobValue)) {
+					try {
+						result.put(jobValue, resolveItemValue(jobValue, kvProp));
+					} catch (RuntimeException e) {// NOSONAR
+						// 执行时再解析，异常在执行时抛出
+					}
+				}
+			}
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * 用作业自定义参数替换分片执行值中的{key}，并还原转义字符：!!为"，@@为=，##为,
+	 */
+	static String resolveItemValue(String jobValue, Properties kvProp) {
+		int kvSize = kvProp != null ? kvProp.size() : 0;
+		String itemVal;
+		if (kvSize > 0) {
+			// 有自定义参数, 解析完替换
+			itemVal = PLACE_HOLDER_HELPER.replacePlaceholders(jobValue, kvProp);
+		} else {
+			itemVal = jobValue;
+		}
+		itemVal = ESCAPED_QUOTE.matcher(itemVal).replaceAll(Matcher.quoteReplacement("\""));
+		itemVal = ESCAPED_EQUAL.matcher(itemVal).replaceAll(Matcher.quoteReplacement("="));
+		return ESCAPED_COMMA.matcher(itemVal).replaceAll(Matcher.quoteReplacement(","));
+	}
+}
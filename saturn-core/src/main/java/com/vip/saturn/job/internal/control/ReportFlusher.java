@@ -0,0 +1,220 @@
+package com.vip.saturn.job.internal.control;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vip.saturn.job.basic.SaturnConstant;
+import com.vip.saturn.job.threads.ExtendableThreadPoolExecutor;
+import com.vip.saturn.job.threads.SaturnThreadFactory;
+import com.vip.saturn.job.threads.TaskQueue;
+import com.vip.saturn.job.utils.SystemEnvProperties;
+
+/**
+ * Executor级别的运行信息刷新器：各作业上报的运行信息先放入待刷新队列，同一分片多次上报只保留最新的一份，
+ * 由单个flusher线程按作业合并成批次写入zk。
+ * <p>
+ * 同一分片尚未刷新的运行信息按字段合并；待刷新的运行信息最多每个作业分片一份。
+ * zk变慢导致待刷新的分片数达到VIP_SATURN_REPORT_MAX_PENDING_ITEMS时，上报线程不等待，新分片的运行信息被丢弃并计数，
+ * 下次刷新时打印丢弃数；已在等待的分片仍然合并。丢弃的只是控制台展示的运行信息，不影响作业执行和统计。
+ * </p>
+ */
+public class ReportFlusher {
+	static Logger log = LoggerFactory.getLogger(ReportFlusher.class);
+
+	private static final String REPORT_FLUSHER = "-reportFlusher";
+
+	private static ConcurrentHashMap<String, ReportFlusher> flusherMap = new ConcurrentHashMap<>();
+
+	private final ExtendableThreadPoolExecutor flushExecutor;
+
+	private final Object lock = new Object();
+
+	private final Map<ReportService, Map<Integer, ExecutionInfo>> pendingInfos = new LinkedHashMap<>();
+
+	private int pendingItems = 0;
+
+	// 达到上限后丢弃的分片运行信息数，下次刷新时打印
+	private int droppedItems = 0;
+
+	private boolean flushing = false;
+
+	private boolean shutdown = false;
+
+	private final Runnable flushTask = new Runnable() {
+		@Override
+		public void run() {
+			flush();
+		}
+	};
+
+	private ReportFlusher(String executorName) {
+		flushExecutor = new ExtendableThreadPoolExecutor(0, 1, 2, TimeUnit.MINUTES, new TaskQueue(),
+				new SaturnThreadFactory(executorName + REPORT_FLUSHER));
+	}
+
+	/**
+	 * 获取executor的运行信息刷新器，如果不存在或者已关闭，则新建
+	 */
+	public static synchronized ReportFlusher getFlusher(String executorName) {
+		ReportFlusher flusher = flusherMap.get(executorName);
+		if (flusher == null || flusher.isShutdown()) {
+			flusher = new ReportFlusher(executorName);
+			flusherMap.put(executorName, flusher);
+		}
+		return flusher;
+	}
+
+	/**
+	 * 关闭executor的运行信息刷新器，尚未刷新的运行信息会被丢弃
+	 */
+	public static synchronized void shutdownFlusher(String executorName) {
+		ReportFlusher flusher = flusherMap.remove(executorName);
+		if (flusher != null) {
+			flusher.shutdown();
+		}
+	}
+
+	/**
+	 * 提交作业的运行信息，与同一分片尚未刷新的运行信息合并
+	 *
+	 * @param reportService 作业的上报服务
+	 * @param infos 分片及其运行信息
+	 */
+	public void submit(ReportService reportService, Map<Integer, ExecutionInfo> infos) {
+		boolean needSchedule;
+		synchronized (lock) {
+			if (shutdown) {
+				return;
+			}
+			Map<Integer, ExecutionInfo> jobInfos = pendingInfos.get(reportService);
+			if (jobInfos == null) {
+				jobInfos = new HashMap<>();
+				pendingInfos.put(reportService, jobInfos);
+			}
+			for (Entry<Integer, ExecutionInfo> entry : infos.entrySet()) {
+				ExecutionInfo pending = jobInfos.get(entry.getKey());
+				if (pending == null) {
+					if (pendingItems >= SystemEnvProperties.VIP_SATURN_REPORT_MAX_PENDING_ITEMS) {
+						droppedItems++;
+						continue;
+					}
+					jobInfos.put(entry.getKey(), entry.getValue());
+					pendingItems++;
+				} else {
+					jobInfos.put(entry.getKey(), merge(pending, entry.getValue()));
+				}
+			}
+			if (jobInfos.isEmpty()) {
+				pendingInfos.remove(reportService);
+			}
+			needSchedule = !flushing && !pendingInfos.isEmpty();
+			flushing = flushing || needSchedule;
+		}
+		if (needSchedule) {
+			try {
+				flushExecutor.execute(flushTask);
+			} catch (RejectedExecutionException e) {
+				synchronized (lock) {
+					flushing = false;
+				}
+				log.warn("[{}] msg=the report flusher is shutdown, cannot flush execution infos any more",
+						reportService.getJobName());
+			}
+		}
+	}
+
+	/**
+	 * 合并同一分片的运行信息.
+	 * <p>
+	 * 新的运行信息带lastBeginTime时是新一次执行，尚未刷新的上一次执行的完成信息（lastCompleteTime、jobMsg、jobLog）不再保留；
+	 * 否则是完成信息，新的非空字段覆盖旧的，保留尚未刷新的开始信息中的lastBeginTime。nextFireTime总是取最新的非空值。
+	 * </p>
+	 */
+	static ExecutionInfo merge(ExecutionInfo pending, ExecutionInfo newer) {
+		ExecutionInfo merged = new ExecutionInfo(newer.getItem());
+		merged.setNextFireTime(newer.getNextFireTime() != null ? newer.getNextFireTime() : pending.getNextFireTime());
+		if (newer.getLastBeginTime() != null) {
+			merged.setLastBeginTime(newer.getLastBeginTime());
+			merged.setLastCompleteTime(newer.getLastCompleteTime());
+			merged.setJobMsg(newer.getJobMsg());
+			merged.setJobLog(newer.getJobLog());
+			return merged;
+		}
+		merged.setLastBeginTime(pending.getLastBeginTime());
+		merged.setLastCompleteTime(
+				newer.getLastCompleteTime() != null ? newer.getLastCompleteTime() : pending.getLastCompleteTime());
+		merged.setJobMsg(newer.getJobMsg() != null ? newer.getJobMsg() : pending.getJobMsg());
+		merged.setJobLog(newer.getJobLog() != null ? newer.getJobLog() : pending.getJobLog());
+		return merged;
+	}
+
+	private void flush() {
+		while (true) {
+			Map<ReportService, Map<Integer, ExecutionInfo>> infos;
+			int dropped;
+			synchronized (lock) {
+				if (shutdown || pendingInfos.isEmpty()) {
+					flushing = false;
+					return;
+				}
+				infos = new LinkedHashMap<>(pendingInfos);
+				pendingInfos.clear();
+				pendingItems = 0;
+				dropped = droppedItems;
+				droppedItems = 0;
+			}
+			if (dropped > 0) {
+				log.warn("msg=too many execution infos were waiting to be flushed to zk, dropped {} of them", dropped);
+			}
+			for (Entry<ReportService, Map<Integer, ExecutionInfo>> entry : infos.entrySet()) {
+				try {
+					entry.getKey().flushToZk(entry.getValue());
+				} catch (Throwable t) {
+					log.error(String.format(SaturnConstant.ERROR_LOG_FORMAT, entry.getKey().getJobName(), t.getMessage()), t);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 等待刷新到zk的分片数
+	 */
+	public int getPendingItems() {
+		synchronized (lock) {
+			return pendingItems;
+		}
+	}
+
+	/**
+	 * 达到上限后丢弃、尚未打印的分片运行信息数
+	 */
+	public int getDroppedItems() {
+		synchronized (lock) {
+			return droppedItems;
+		}
+	}
+
+	private boolean isShutdown() {
+		synchronized (lock) {
+			return shutdown;
+		}
+	}
+
+	private void shutdown() {
+		synchronized (lock) {
+			shutdown = true;
+			pendingInfos.clear();
+			pendingItems = 0;
+			droppedItems = 0;
+		}
+		flushExecutor.shutdown();
+	}
+}
@@ -29,6 +29,7 @@ import org.slf4j.LoggerFactory;
 import com.vip.saturn.job.basic.AbstractSaturnService;
 import com.vip.saturn.job.basic.JobScheduler;
 import com.vip.saturn.job.internal.execution.ExecutionNode;
+import com.vip.saturn.job.internal.storage.JobNodeBatch;
 
 /**
  * @author chembo.huang
@@ -40,38 +41,66 @@ public class ReportService extends AbstractSaturnService {
 	
 	public Map<Integer, ExecutionInfo> infoMap = new HashMap<>();
 	
+	private volatile boolean shutdown = false;
+	
     public ReportService(JobScheduler jobScheduler) {
         super(jobScheduler);
     }
     
+    /**
+     * 把运行信息交给executor的刷新器异步写入zk，不等待写入完成.
+     */
     public void reportData2Zk() {
+    	Map<Integer, ExecutionInfo> infos;
     	synchronized (infoMap) {
-    		if (infoMap.size() != 0) {
-	    		List<Integer> shardingItems = jobScheduler.getExecutionContextService().getShardingItems();
-	    		Iterator<Entry<Integer,ExecutionInfo>> iterator = infoMap.entrySet().iterator();
-	    		while(iterator.hasNext()) {
-	    			Entry<Integer, ExecutionInfo> next = iterator.next();
-	    			Integer item = next.getKey();
-	    			ExecutionInfo info = next.getValue();
-	    			if (!shardingItems.contains(item)) {
-	    				log.info("sharding items don't have such item: {}, reporter is going to ignore this executionInfo: {}", item, info);
-	    				continue;
-	    			}
-	    			if (info.getLastBeginTime() != null) {
-	    				jobScheduler.getJobNodeStorage().replaceJobNode(ExecutionNode.getLastBeginTimeNode(item), info.getLastBeginTime());
-	    			}
-	    			if (info.getLastCompleteTime() != null) {
-	    				jobScheduler.getJobNodeStorage().replaceJobNode(ExecutionNode.getLastCompleteTimeNode(item), info.getLastCompleteTime());
-					}
-	    			if (info.getNextFireTime() != null) {
-	    				jobScheduler.getJobNodeStorage().replaceJobNode(ExecutionNode.getNextFireTimeNode(item), info.getNextFireTime());
-					}
-	    			jobScheduler.getJobNodeStorage().replaceJobNode(ExecutionNode.getJobLog(item), (info.getJobLog() == null?"":info.getJobLog()));
-	    			jobScheduler.getJobNodeStorage().replaceJobNode(ExecutionNode.getJobMsg(item), (info.getJobMsg() == null?"":info.getJobMsg()));
-	    			log.info("done flushed {} to zk.", info);
-	    		}
-	    		infoMap.clear();
-	    	}
+    		if (infoMap.size() == 0) {
+    			return;
+    		}
+    		infos = new HashMap<>(infoMap);
+    		infoMap.clear();
+    	}
+    	List<Integer> shardingItems = jobScheduler.getExecutionContextService().getShardingItems();
+    	Iterator<Entry<Integer,ExecutionInfo>> iterator = infos.entrySet().iterator();
+    	while(iterator.hasNext()) {
+    		Entry<Integer, ExecutionInfo> next = iterator.next();
+    		if (!shardingItems.contains(next.getKey())) {
+    			log.info("sharding items don't have such item: {}, reporter is going to ignore this executionInfo: {}", next.getKey(), next.getValue());
+    			iterator.remove();
+    		}
+    	}
+    	if (!infos.isEmpty()) {
+    		ReportFlusher.getFlusher(executorName).submit(this, infos);
+    	}
+    }
+    
+    /**
+     * 由刷新器线程调用，把作业的运行信息合并到一个批次写入zk，与zk中相同的数据不再写入.
+     * 
+     * @param infos 分片及其运行信息
+     */
+    void flushToZk(Map<Integer, ExecutionInfo> infos) {
+    	if (shutdown) {
+    		return;
+    	}
+    	JobNodeBatch batch = jobScheduler.getJobNodeStorage().createBatch();
+    	for (Entry<Integer, ExecutionInfo> entry : infos.entrySet()) {
+    		Integer item = entry.getKey();
+    		ExecutionInfo info = entry.getValue();
+    		if (info.getLastBeginTime() != null) {
+    			batch.replaceJobNodeIfChanged(ExecutionNode.getLastBeginTimeNode(item), info.getLastBeginTime());
+    		}
+    		if (info.getLastCompleteTime() != null) {
+    			batch.replaceJobNodeIfChanged(ExecutionNode.getLastCompleteTimeNode(item), info.getLastCompleteTime());
+    		}
+    		if (info.getNextFireTime() != null) {
+    			batch.replaceJobNodeIfChanged(ExecutionNode.getNextFireTimeNode(item), info.getNextFireTime());
+    		}
+    		batch.replaceJobNodeIfChanged(ExecutionNode.getJobLog(item), (info.getJobLog() == null?"":info.getJobLog()));
+    		batch.replaceJobNodeIfChanged(ExecutionNode.getJobMsg(item), (info.getJobMsg() == null?"":info.getJobMsg()));
+    	}
+    	batch.commit();
+    	for (ExecutionInfo info : infos.values()) {
+    		log.info("done flushed {} to zk.", info);
     	}
     }
     
@@ -110,4 +139,9 @@ public class ReportService extends AbstractSaturnService {
     	}
 	}
 	
+	@Override
+	public void shutdown() {
+		shutdown = true;
+	}
+	
 }
@@ -18,25 +18,53 @@
 package com.vip.saturn.job.internal.election;
 
 import com.vip.saturn.job.basic.SaturnConstant;
+import com.vip.saturn.job.internal.storage.LeaderExecutionCallback;
+import com.vip.saturn.job.utils.SystemEnvProperties;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vip.saturn.job.basic.AbstractSaturnService;
 import com.vip.saturn.job.basic.JobScheduler;
-import com.vip.saturn.job.internal.storage.LeaderExecutionCallback;
-import com.vip.saturn.job.utils.BlockUtils;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 选举主节点的服务.
  * 
+ * <p>
+ * 主节点是executor会话中的临时节点leader/election/host，节点不存在时创建，创建成功的成为主节点；executor会话失效时节点自动删除，其它executor重新选举.
+ * </p>
  * 
+ * <p>
+ * 旧版本executor在leader/election/latch锁内删除并重建主节点，与不获取锁直接创建主节点的executor混合部署时会删除对方的主节点，
+ * 所以默认仍在锁内创建；域下所有executor都升级后，才能通过VIP_SATURN_LEADER_ELECTION_WITHOUT_LATCH去掉每次选举的LeaderLatch.
+ * </p>
  */
 public class LeaderElectionService extends AbstractSaturnService{
 	static Logger log = LoggerFactory.getLogger(LeaderElectionService.class);
 
+    // 等待选举完成时，每次等待watch通知的最长时间，防止丢失通知
+    private static final long WAIT_LEADER_MAX_MILLIS = 1000L;
+
     private AtomicBoolean isShutdown = new AtomicBoolean(false);
+
+    private final Object leaderHostMonitor = new Object();
+
+    // leader/election/host节点的变化次数，由leaderHostWatcher增加
+    private long leaderHostChanges;
+
+    private final Watcher leaderHostWatcher = new Watcher() {
+
+        @Override
+        public void process(final WatchedEvent event) {
+            synchronized (leaderHostMonitor) {
+                leaderHostChanges++;
+                leaderHostMonitor.notifyAll();
+            }
+        }
+    };
     
     public LeaderElectionService(final JobScheduler jobScheduler) {
     	super(jobScheduler);
@@ -63,22 +91,41 @@ public class LeaderElectionService extends AbstractSaturnService{
      * 选举主节点.
      */
     public void leaderElection() {
-        getJobNodeStorage().executeInLeader(ElectionNode.LATCH, new LeaderElectionExecutionCallback());
+        if (SystemEnvProperties.VIP_SATURN_LEADER_ELECTION_WITHOUT_LATCH) {
+            electLeader();
+        } else {
+            getJobNodeStorage().executeInLeader(ElectionNode.LATCH, new LeaderElectionExecutionCallback());
+        }
+    }
+    
+    private void electLeader() {
+        synchronized (isShutdown) {
+            if(isShutdown.get()) {
+                return;
+            }
+            if (!getJobNodeStorage().isJobNodeExisted(ElectionNode.LEADER_HOST)
+                    && getJobNodeStorage().createEphemeralJobNodeIfAbsent(ElectionNode.LEADER_HOST, executorName)) {
+                log.info("[{}] msg=executor {} become job {}'s leader", jobName, executorName, jobName);
+            }
+        }
     }
     
     /**
      * 判断当前节点是否是主节点.
      * 
      * <p>
-     * 如果主节点正在选举中而导致取不到主节点, 则阻塞至主节点选举完成再返回.
+     * 如果主节点正在选举中而导致取不到主节点, 则阻塞至主节点选举完成再返回，由leader/election/host节点的watch唤醒.
      * </p>
      * 
      * @return 当前节点是否是主节点
      */
     public Boolean isLeader() {
         while (!isShutdown.get() && !hasLeader()) {
-            log.info("[{}] msg=Elastic job: {} leader node is electing, waiting for 100 ms at executor '{}'", jobName, jobName, executorName);
-            BlockUtils.waitingShortTime();
+            log.info("[{}] msg=Elastic job: {} leader node is electing, waiting at executor '{}'", jobName, jobName, executorName);
+            if (waitLeaderHostChanged()) {
+                // 主节点已经存在，本地缓存还没有更新，直接从注册中心读取
+                return executorName.equals(getJobNodeStorage().getJobNodeDataDirectly(ElectionNode.LEADER_HOST));
+            }
         }
         return executorName.equals(getJobNodeStorage().getJobNodeData(ElectionNode.LEADER_HOST));
     }
@@ -97,19 +144,36 @@ public class LeaderElectionService extends AbstractSaturnService{
         return getJobNodeStorage().isJobNodeExisted(ElectionNode.LEADER_HOST);
     }
     
+    /**
+     * 主节点不存在时等待leader/election/host节点变化.
+     * 
+     * @return 注册中心中主节点是否已经存在
+     */
+    private boolean waitLeaderHostChanged() {
+        long changes;
+        synchronized (leaderHostMonitor) {
+            changes = leaderHostChanges;
+        }
+        if (getJobNodeStorage().isJobNodeExistedWithWatcher(ElectionNode.LEADER_HOST, leaderHostWatcher)) {
+            return true;
+        }
+        synchronized (leaderHostMonitor) {
+            if (changes == leaderHostChanges) {
+                try {
+                    leaderHostMonitor.wait(WAIT_LEADER_MAX_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        return false;
+    }
+    
     class LeaderElectionExecutionCallback implements LeaderExecutionCallback {
         
         @Override
         public void execute() {
-            synchronized (isShutdown) {
-                if(isShutdown.get()) {
-                    return;
-                }
-                if (!getJobNodeStorage().isJobNodeExisted(ElectionNode.LEADER_HOST)) {
-                    getJobNodeStorage().fillEphemeralJobNode(ElectionNode.LEADER_HOST, executorName);
-                    log.info("[{}] msg=executor {} become job {}'s leader", jobName, executorName, jobName);
-                }
-            }
+            electLeader();
         }
     }
 }
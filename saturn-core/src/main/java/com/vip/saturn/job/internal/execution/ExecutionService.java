@@ -37,6 +37,7 @@ import com.vip.saturn.job.internal.control.ReportService;
 import com.vip.saturn.job.internal.failover.FailoverNode;
 import com.vip.saturn.job.internal.server.ServerService;
 import com.vip.saturn.job.internal.server.ServerStatus;
+import com.vip.saturn.job.internal.storage.JobNodeBatch;
 
 /**
  * 执行作业的服务.
@@ -108,8 +109,14 @@ public class ExecutionService extends AbstractSaturnService {
 			reportService.clearInfoMap();
 			Date nextFireTimePausePeriodEffected = jobScheduler.getNextFireTimePausePeriodEffected();
 			Long nextFireTime = nextFireTimePausePeriodEffected == null?null:nextFireTimePausePeriodEffected.getTime();
+			// 所有分片的节点变更合并成少量事务提交
+			JobNodeBatch batch = getJobNodeStorage().createBatch();
 			for (int item : shardingItems) {
-				registerJobBeginByItem(jobExecutionShardingContext, item, nextFireTime);
+				addJobBeginNodes(batch, item);
+			}
+			batch.commit();
+			for (int item : shardingItems) {
+				reportService.initInfoOnBegin(item, nextFireTime);
 			}
 		}
 	}
@@ -118,19 +125,9 @@ public class ExecutionService extends AbstractSaturnService {
 		if (log.isDebugEnabled()) {
 			log.debug("registerJobBeginByItem: " + item);
 		}
-		if (jobConfiguration.isEnabledReport() == null){
-			if("JAVA_JOB".equals(jobConfiguration.getJobType()) || "SHELL_JOB".equals(jobConfiguration.getJobType())) {
-				getJobNodeStorage().removeJobNodeIfExisted(ExecutionNode.getCompletedNode(item));
-				getJobNodeStorage().fillEphemeralJobNode(ExecutionNode.getRunningNode(item), "");
-				// 清除完成状态timeout等信息
-				cleanSaturnNode(item);
-			}
-		} else if (jobConfiguration.isEnabledReport()) {
-			getJobNodeStorage().removeJobNodeIfExisted(ExecutionNode.getCompletedNode(item));
-			getJobNodeStorage().fillEphemeralJobNode(ExecutionNode.getRunningNode(item), "");
-			// 清除完成状态timeout等信息
-			cleanSaturnNode(item);
-		}
+		JobNodeBatch batch = getJobNodeStorage().createBatch();
+		addJobBeginNodes(batch, item);
+		batch.commit();
 
 		reportService.initInfoOnBegin(item, nextFireTime);
 		//getJobNodeStorage().replaceJobNode(ExecutionNode.getLastBeginTimeNode(item), System.currentTimeMillis());
@@ -138,11 +135,40 @@ public class ExecutionService extends AbstractSaturnService {
 		//updateNextFireTimeAndPausePeriodEffected(item);
 	}
 	
+	private void addJobBeginNodes(JobNodeBatch batch, int item) {
+		if (isReportEnabled()) {
+			batch.removeJobNodeIfExisted(ExecutionNode.getCompletedNode(item));
+			batch.fillEphemeralJobNode(ExecutionNode.getRunningNode(item), "");
+			// 清除完成状态timeout等信息
+			batch.removeJobNodeIfExisted(ExecutionNode.getFailedNode(item));
+			batch.removeJobNodeIfExisted(ExecutionNode.getTimeoutNode(item));
+		}
+	}
+	
 	public void registerJobCompletedByItem(final JobExecutionMultipleShardingContext jobExecutionShardingContext, int item, Date nextFireTimePausePeriodEffected) {
 		registerJobCompletedControlInfoByItem(jobExecutionShardingContext, item);
 		registerJobCompletedReportInfoByItem(jobExecutionShardingContext, item, nextFireTimePausePeriodEffected);
 	}
 	
+	/**
+	 * 注册多个分片的作业完成信息，所有分片的节点变更合并成少量事务提交.
+	 * 
+	 * @param items 已确认running节点属于本executor的分片
+	 */
+	public void registerJobCompletedByItems(final JobExecutionMultipleShardingContext jobExecutionShardingContext, List<Integer> items, Date nextFireTimePausePeriodEffected) {
+		if (items.isEmpty()) {
+			return;
+		}
+		JobNodeBatch batch = getJobNodeStorage().createBatch();
+		for (int item : items) {
+			addJobCompletedNodes(jobExecutionShardingContext, batch, item);
+		}
+		batch.commit();
+		for (int item : items) {
+			registerJobCompletedReportInfoByItem(jobExecutionShardingContext, item, nextFireTimePausePeriodEffected);
+		}
+	}
+	
 	public void registerJobCompletedReportInfoByItem(final JobExecutionMultipleShardingContext jobExecutionShardingContext, int item, Date nextFireTimePausePeriodEffected) {
 		ExecutionInfo info = reportService.getInfoByItem(item);
 		if (info == null) { // old data has been flushed to zk.
@@ -181,6 +207,15 @@ public class ExecutionService extends AbstractSaturnService {
      * 
      */
 	public void registerJobCompletedControlInfoByItem(final JobExecutionMultipleShardingContext jobExecutionShardingContext, int item) {
+		JobNodeBatch batch = getJobNodeStorage().createBatch();
+		addJobCompletedNodes(jobExecutionShardingContext, batch, item);
+		batch.commit();
+	}
+	
+	private void addJobCompletedNodes(final JobExecutionMultipleShardingContext jobExecutionShardingContext, JobNodeBatch batch, int item) {
+		if (!isReportEnabled()) {
+			return;
+		}
 		if (jobExecutionShardingContext instanceof SaturnExecutionContext) {
 			// 为了展现分片处理失败的状态
 			SaturnExecutionContext saturnContext = (SaturnExecutionContext) jobExecutionShardingContext;
@@ -189,45 +224,28 @@ public class ExecutionService extends AbstractSaturnService {
 				if (jobRet != null) {
 					int errorGroup = jobRet.getErrorGroup();
 					if (errorGroup == SaturnSystemErrorGroup.TIMEOUT) { 
-						if (jobConfiguration.isEnabledReport() == null) {
-							if ("JAVA_JOB".equals(jobConfiguration.getJobType()) || "SHELL_JOB".equals(jobConfiguration.getJobType())) {
-								getJobNodeStorage().createJobNodeIfNeeded(ExecutionNode.getTimeoutNode(item));
-							}
-						} else if (jobConfiguration.isEnabledReport()) {
-							getJobNodeStorage().createJobNodeIfNeeded(ExecutionNode.getTimeoutNode(item));
-						}
+						batch.createJobNodeIfNeeded(ExecutionNode.getTimeoutNode(item));
 					} else if (errorGroup == SaturnSystemErrorGroup.FAIL) {
-						if (jobConfiguration.isEnabledReport() == null) {
-							if ("JAVA_JOB".equals(jobConfiguration.getJobType()) || "SHELL_JOB".equals(jobConfiguration.getJobType())) {
-								getJobNodeStorage().createJobNodeIfNeeded(ExecutionNode.getFailedNode(item));
-							}
-						} else if (jobConfiguration.isEnabledReport()) {
-							getJobNodeStorage().createJobNodeIfNeeded(ExecutionNode.getFailedNode(item));
-						}
+						batch.createJobNodeIfNeeded(ExecutionNode.getFailedNode(item));
 					}
-					
 				} else {
-					if (jobConfiguration.isEnabledReport() == null){
-						if ("JAVA_JOB".equals(jobConfiguration.getJobType()) || "SHELL_JOB".equals(jobConfiguration.getJobType())) {
-							getJobNodeStorage().createJobNodeIfNeeded(ExecutionNode.getFailedNode(item));
-						}
-					} else if (jobConfiguration.isEnabledReport()) {
-						getJobNodeStorage().createJobNodeIfNeeded(ExecutionNode.getFailedNode(item));
-					}
+					batch.createJobNodeIfNeeded(ExecutionNode.getFailedNode(item));
 				}
 			}
 		}
-		//updateNextFireTimeAndPausePeriodEffected(item);
-		if(jobConfiguration.isEnabledReport() == null){
-			if("JAVA_JOB".equals(jobConfiguration.getJobType()) || "SHELL_JOB".equals(jobConfiguration.getJobType())){
-				getJobNodeStorage().createJobNodeIfNeeded(ExecutionNode.getCompletedNode(item));
-				getJobNodeStorage().removeJobNodeIfExisted(ExecutionNode.getRunningNode(item));
-			}
-		}else if(jobConfiguration.isEnabledReport()){
-			getJobNodeStorage().createJobNodeIfNeeded(ExecutionNode.getCompletedNode(item));
-			getJobNodeStorage().removeJobNodeIfExisted(ExecutionNode.getRunningNode(item));
+		batch.createJobNodeIfNeeded(ExecutionNode.getCompletedNode(item));
+		// running节点在执行前由本executor创建，事务提交失败时会回退为存在才删除
+		batch.removeExistedJobNode(ExecutionNode.getRunningNode(item));
+	}
+	
+	/**
+	 * 没有配enabledReport时，java/shell作业默认为开启
+	 */
+	private boolean isReportEnabled() {
+		if (jobConfiguration.isEnabledReport() == null) {
+			return "JAVA_JOB".equals(jobConfiguration.getJobType()) || "SHELL_JOB".equals(jobConfiguration.getJobType());
 		}
-		
+		return jobConfiguration.isEnabledReport();
 	}
     
     /**
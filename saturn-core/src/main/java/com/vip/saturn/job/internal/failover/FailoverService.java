@@ -26,7 +26,9 @@ import com.vip.saturn.job.basic.JobScheduler;
 import com.vip.saturn.job.internal.config.ConfigurationNode;
 import com.vip.saturn.job.internal.execution.ExecutionNode;
 import com.vip.saturn.job.internal.server.ServerService;
+import com.vip.saturn.job.internal.storage.JobNodeBatch;
 import com.vip.saturn.job.internal.storage.LeaderExecutionCallback;
+import com.vip.saturn.job.utils.SystemEnvProperties;
 
 /**
  * 作业失效转移服务.
@@ -134,6 +136,32 @@ public class FailoverService extends AbstractSaturnService {
 		}
 	}
 
+	/**
+	 * 本次可以接管的分片数：按存活的作业服务器数平分待接管的分片，不超过VIP_SATURN_FAILOVER_BATCH_SIZE.
+	 * 正在执行分片的服务器不会进入接管流程，空闲的服务器先接管，因此分片按负载分散到存活的服务器.
+	 * 
+	 * @param crashedCount 待接管的分片数
+	 * @return 本次接管的分片数
+	 */
+	private int getFailoverQuota(final int crashedCount) {
+		int batchSize = SystemEnvProperties.VIP_SATURN_FAILOVER_BATCH_SIZE;
+		if (batchSize <= 1 || crashedCount <= 1) {
+			return 1;
+		}
+		int liveServers = serverService.getOnlineServerCount();
+		int share = liveServers <= 1 ? crashedCount : (crashedCount + liveServers - 1) / liveServers;
+		return Math.min(batchSize, share);
+	}
+
+	private List<Integer> toSortedItems(final List<String> itemNodes) {
+		List<Integer> result = new ArrayList<>(itemNodes.size());
+		for (String each : itemNodes) {
+			result.add(Integer.parseInt(each));
+		}
+		Collections.sort(result);
+		return result;
+	}
+
 	class FailoverLeaderExecutionCallback implements LeaderExecutionCallback {
 
 		@Override
@@ -147,10 +175,22 @@ public class FailoverService extends AbstractSaturnService {
 			if(!jobScheduler.getConfigService().getPreferList().contains(executorName) && !jobScheduler.getConfigService().isUseDispreferList()){
 				return;
 			}
-			int crashedItem = Integer.parseInt(getJobNodeStorage().getJobNodeChildrenKeys(FailoverNode.ITEMS_ROOT).get(0));
-			log.info("[{}] msg=Elastic job: failover job begin, crashed item:{}.", jobName, crashedItem);
-			getJobNodeStorage().fillEphemeralJobNode(FailoverNode.getExecutionFailoverNode(crashedItem), executorName);
-			getJobNodeStorage().removeJobNodeIfExisted(FailoverNode.getItemsNode(crashedItem));
+			List<Integer> crashedItems = toSortedItems(getJobNodeStorage().getJobNodeChildrenKeys(FailoverNode.ITEMS_ROOT));
+			if (crashedItems.isEmpty()) {
+				return;
+			}
+			List<Integer> claimedItems = crashedItems.subList(0, Math.min(crashedItems.size(), getFailoverQuota(crashedItems.size())));
+			log.info("[{}] msg=Elastic job: failover job begin, crashed items:{}.", jobName, claimedItems);
+			// 接管的分片在一个事务中标记为本机执行并移出待接管列表，认领成功后一次执行；失败时不回退，分片留在待接管列表中等待下一轮
+			JobNodeBatch batch = getJobNodeStorage().createBatch().withoutFallback();
+			for (int each : claimedItems) {
+				batch.fillEphemeralJobNode(FailoverNode.getExecutionFailoverNode(each), executorName);
+				batch.removeJobNodeIfExisted(FailoverNode.getItemsNode(each));
+			}
+			if (!batch.commit()) {
+				log.warn("[{}] msg=failover claim of items {} failed, wait for the next round", jobName, claimedItems);
+				return;
+			}
 			jobScheduler.triggerJob();
 		}
 	}
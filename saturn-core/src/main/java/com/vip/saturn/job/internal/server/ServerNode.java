@@ -48,6 +48,9 @@ public final class ServerNode {
     public static final String RUNONETIME = ROOT + "/%s/runOneTime";
     
     public static final String STOPONETIME = ROOT + "/%s/stopOneTime";
+
+    /** 最近一次累加analyse计数的事务标识，连接断开时用来判断事务是否已经写入 */
+    public static final String COUNTER_TXN = ROOT + "/%s/counterTxn";
     
     private ServerNode() {
     }
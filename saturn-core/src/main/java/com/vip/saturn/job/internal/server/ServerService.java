@@ -25,6 +25,7 @@ import com.google.common.base.Strings;
 import com.vip.saturn.job.basic.AbstractSaturnService;
 import com.vip.saturn.job.basic.JobScheduler;
 import com.vip.saturn.job.internal.election.LeaderElectionService;
+import com.vip.saturn.job.internal.storage.JobNodeBatch;
 import com.vip.saturn.job.utils.LocalHostService;
 import com.vip.saturn.job.utils.ResourceUtils;
 
@@ -117,6 +118,21 @@ public class ServerService extends AbstractSaturnService {
         return result;
     }
     
+    /**
+     * 获取该作业在线的服务器数量.
+     * 
+     * @return 在线的作业服务器数量
+     */
+    public int getOnlineServerCount() {
+        int count = 0;
+        for (String each : getJobNodeStorage().getJobNodeChildrenKeys(ServerNode.ROOT)) {
+            if (getJobNodeStorage().isJobNodeExisted(ServerNode.getStatusNode(each))) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
     /**
      * 判断当前服务器是否是等待执行的状态.
      * 
@@ -135,7 +151,7 @@ public class ServerService extends AbstractSaturnService {
      * 
      * @param processSuccessCount 成功数
      */
-    public void persistProcessSuccessCount(final int processSuccessCount) {
+    public void persistProcessSuccessCount(final long processSuccessCount) {
         getJobNodeStorage().replaceJobNode(ServerNode.getProcessSuccessCountNode(executorName), processSuccessCount);
     }
     
@@ -144,8 +160,20 @@ public class ServerService extends AbstractSaturnService {
      * 
      * @param processFailureCount 失败数
      */
-    public void persistProcessFailureCount(final int processFailureCount) {
+    public void persistProcessFailureCount(final long processFailureCount) {
         getJobNodeStorage().replaceJobNode(ServerNode.getProcessFailureCountNode(executorName), processFailureCount);
     }
     
+    /**
+     * 把统计处理数据成功和失败的数量加入批次，与zk中相同的不再写入.
+     * 
+     * @param batch 批次
+     * @param processSuccessCount 成功的数量
+     * @param processFailureCount 失败的数量
+     */
+    public void persistProcessCount(final JobNodeBatch batch, final long processSuccessCount, final long processFailureCount) {
+        batch.replaceJobNodeIfChanged(ServerNode.getProcessSuccessCountNode(executorName), processSuccessCount);
+        batch.replaceJobNodeIfChanged(ServerNode.getProcessFailureCountNode(executorName), processFailureCount);
+    }
+    
 }
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2016 vip.com.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * </p>
+ */
+
+package com.vip.saturn.job.internal.statistics;
+
+/**
+ * 单个作业在本executor上的处理数据统计.
+ *
+ * <p>
+ * 由{@link ProcessCountStatistics#getCounters(String, String)}获取，JobScheduler创建时获取一次，之后直接使用，
+ * 分片执行完成时的累加不再拼接key、查询map，也没有全局锁.
+ * </p>
+ */
+public final class JobProcessCounters {
+
+	private final StripedCounter successCount = new StripedCounter();
+
+	private final StripedCounter failureCount = new StripedCounter();
+
+	private final StripedCounter totalCountDelta = new StripedCounter();
+
+	private final StripedCounter errorCountDelta = new StripedCounter();
+
+	JobProcessCounters() {
+	}
+
+	/**
+	 * 增加本作业服务器处理数据正确的数量.
+	 *
+	 * @param count 处理数据正确的数量
+	 */
+	public void incrementProcessSuccessCount(final int count) {
+		successCount.add(count);
+	}
+
+	/**
+	 * 增加本作业服务器处理数据错误的数量.
+	 *
+	 * @param count 处理数据错误的数量
+	 */
+	public void incrementProcessFailureCount(final int count) {
+		failureCount.add(count);
+	}
+
+	/**
+	 * 执行次数加1
+	 */
+	public void increaseTotalCountDelta() {
+		totalCountDelta.increment();
+	}
+
+	/**
+	 * 失败次数加1
+	 */
+	public void increaseErrorCountDelta() {
+		errorCountDelta.increment();
+	}
+
+	public long getProcessSuccessCount() {
+		return successCount.sum();
+	}
+
+	public long getProcessFailureCount() {
+		return failureCount.sum();
+	}
+
+	public long getTotalCountDelta() {
+		return totalCountDelta.sum();
+	}
+
+	public long getErrorCountDelta() {
+		return errorCountDelta.sum();
+	}
+
+	/**
+	 * 取出尚未持久化的执行次数并清零
+	 */
+	public long getAndResetTotalCountDelta() {
+		return totalCountDelta.sumThenReset();
+	}
+
+	/**
+	 * 取出尚未持久化的失败次数并清零
+	 */
+	public long getAndResetErrorCountDelta() {
+		return errorCountDelta.sumThenReset();
+	}
+
+	/**
+	 * 持久化失败时，把取出的执行次数加回去
+	 */
+	public void addTotalCountDelta(final long delta) {
+		totalCountDelta.add(delta);
+	}
+
+	/**
+	 * 持久化失败时，把取出的失败次数加回去
+	 */
+	public void addErrorCountDelta(final long delta) {
+		errorCountDelta.add(delta);
+	}
+
+	/**
+	 * 重置success/failure统计信息. analyse的totalCount和errorCount不清零。
+	 */
+	public void resetSuccessFailureCount() {
+		successCount.reset();
+		failureCount.reset();
+	}
+
+	/**
+	 * 重置analyse统计信息. servers底下的success/failure不清零。
+	 */
+	public void resetAnalyseCount() {
+		totalCountDelta.reset();
+		errorCountDelta.reset();
+	}
+}
@@ -19,8 +19,9 @@ package com.vip.saturn.job.internal.statistics;
 
 import com.vip.saturn.job.basic.JobScheduler;
 import com.vip.saturn.job.internal.analyse.AnalyseService;
-import com.vip.saturn.job.internal.config.JobConfiguration;
 import com.vip.saturn.job.internal.server.ServerService;
+import com.vip.saturn.job.internal.storage.JobNodeBatch;
+import com.vip.saturn.job.internal.storage.JobNodeStorage;
 
 /**
  * 统计处理数据数量的作业.
@@ -29,24 +30,58 @@ import com.vip.saturn.job.internal.server.ServerService;
  */
 public class ProcessCountJob implements Runnable {
     
-    private final JobConfiguration jobConfiguration;
+    private final String jobName;
+    
+    private final JobNodeStorage jobNodeStorage;
     
     private final ServerService serverService;
     
     private final AnalyseService analyseService;
     
+    private final JobProcessCounters processCounters;
+    
+    private long lastSuccessCount = -1;
+    
+    private long lastFailureCount = -1;
+    
     public ProcessCountJob(final JobScheduler jobScheduler) {
-    	 jobConfiguration = jobScheduler.getCurrentConf();
+         jobName = jobScheduler.getJobName();
+         jobNodeStorage = jobScheduler.getJobNodeStorage();
          serverService = jobScheduler.getServerService();
          analyseService = jobScheduler.getAnalyseService();
+         processCounters = jobScheduler.getProcessCounters();
+    }
+    
+    public String getJobName() {
+    	return jobName;
     }
     
+    /**
+     * 统计数据没有变化时不写zk；有变化时先按版本累加analyse的processCount/errorCount，再在一个事务中写入success/failure.
+     */
     @Override
     public void run() {
-        String jobName = jobConfiguration.getJobName();
-        serverService.persistProcessSuccessCount(ProcessCountStatistics.getProcessSuccessCount(serverService.getExecutorName(), jobName));
-        serverService.persistProcessFailureCount(ProcessCountStatistics.getProcessFailureCount(serverService.getExecutorName(), jobName));
-        analyseService.persistTotalCount();
-        analyseService.persistErrorCount();
+        long successCount = processCounters.getProcessSuccessCount();
+        long failureCount = processCounters.getProcessFailureCount();
+        long totalCountDelta = processCounters.getAndResetTotalCountDelta();
+        long errorCountDelta = processCounters.getAndResetErrorCountDelta();
+        if (successCount == lastSuccessCount && failureCount == lastFailureCount && totalCountDelta == 0 && errorCountDelta == 0) {
+        	return;
+        }
+        try {
+        	analyseService.persistCountDelta(totalCountDelta, errorCountDelta);
+        } catch (RuntimeException e) {
+        	// 增量没有写入或者结果未知，留到下次，已写入的部分由JobNodeStorage在下次提交前扣除
+        	processCounters.addTotalCountDelta(totalCountDelta);
+        	processCounters.addErrorCountDelta(errorCountDelta);
+        	throw e;
+        }
+        // success/failure是累计值，没有确认写入时不记录，下次重新写入即可
+        JobNodeBatch batch = jobNodeStorage.createBatch();
+        serverService.persistProcessCount(batch, successCount, failureCount);
+        if (batch.commit()) {
+            lastSuccessCount = successCount;
+            lastFailureCount = failureCount;
+        }
     }
 }
@@ -19,63 +19,62 @@ package com.vip.saturn.job.internal.statistics;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 统计处理数据数量的类.
  * 
- * 
+ * <p>
+ * 按executor、作业保存{@link JobProcessCounters}，执行作业时应使用JobScheduler持有的计数器，以下静态方法供重置等低频操作使用.
+ * </p>
  */
 public final class ProcessCountStatistics {
 
-    private static ConcurrentMap<String, AtomicInteger> successCountMap = new ConcurrentHashMap<>();
-    
-    private static ConcurrentMap<String, AtomicInteger> failureCountMap = new ConcurrentHashMap<>();
-    
-    private static ConcurrentMap<String, AtomicInteger> totalCountDeltaMap = new ConcurrentHashMap<>();
-    
-    private static ConcurrentMap<String, AtomicInteger> errorCountDeltaMap = new ConcurrentHashMap<>();
+    private static ConcurrentMap<String, ConcurrentMap<String, JobProcessCounters>> countersMap = new ConcurrentHashMap<>();
 
-    private static String buildKey(String executorName, String jobName) {
-        return executorName + "_" + jobName;
+    private ProcessCountStatistics() {
     }
 
-    public static void initTotalCountDelta(final String executorName, final String jobName, final int processCount) {
-    	totalCountDeltaMap.put(buildKey(executorName, jobName), new AtomicInteger(processCount));
-    }
-    
-    public static void initErrorCountDelta(final String executorName, final String jobName, final int errorCount) {
-    	errorCountDeltaMap.put(buildKey(executorName, jobName), new AtomicInteger(errorCount));
+    /**
+     * 获取作业的计数器，不存在则新建.
+     *
+     * @param executorName executor名
+     * @param jobName 作业名称
+     * @return 作业的计数器
+     */
+    public static JobProcessCounters getCounters(final String executorName, final String jobName) {
+        ConcurrentMap<String, JobProcessCounters> jobCountersMap = countersMap.get(executorName);
+        if (jobCountersMap == null) {
+            jobCountersMap = new ConcurrentHashMap<>();
+            ConcurrentMap<String, JobProcessCounters> existed = countersMap.putIfAbsent(executorName, jobCountersMap);
+            if (existed != null) {
+                jobCountersMap = existed;
+            }
+        }
+        JobProcessCounters counters = jobCountersMap.get(jobName);
+        if (counters == null) {
+            counters = new JobProcessCounters();
+            JobProcessCounters existed = jobCountersMap.putIfAbsent(jobName, counters);
+            if (existed != null) {
+                counters = existed;
+            }
+        }
+        return counters;
     }
-    
-    public static synchronized void increaseTotalCountDelta(final String executorName, final String jobName) {
-        incrementProcessCount(buildKey(executorName, jobName), totalCountDeltaMap);
+
+    public static void increaseTotalCountDelta(final String executorName, final String jobName) {
+        getCounters(executorName, jobName).increaseTotalCountDelta();
     }
     
-    public static synchronized void increaseErrorCountDelta(final String executorName, final String jobName) {
-        incrementProcessCount(buildKey(executorName, jobName), errorCountDeltaMap);
+    public static void increaseErrorCountDelta(final String executorName, final String jobName) {
+        getCounters(executorName, jobName).increaseErrorCountDelta();
     }
 
-    public static int getTotalCountDelta(final String executorName, final String jobName) {
-        String key = buildKey(executorName, jobName);
-        return null == totalCountDeltaMap.get(key) ? 0 : totalCountDeltaMap.get(key).get();
+    public static long getTotalCountDelta(final String executorName, final String jobName) {
+        return getCounters(executorName, jobName).getTotalCountDelta();
     }
     
-    public static int getErrorCountDelta(final String executorName, final String jobName) {
-        String key = buildKey(executorName, jobName);
-        return null == errorCountDeltaMap.get(key) ? 0 : errorCountDeltaMap.get(key).get();
-    }
-    
-    
-    
-    /**
-     * 增加本作业服务器处理数据正确的数量.
-     *
-     * @param executorName executor名
-     * @param jobName 作业名称
-     */
-    public static synchronized void incrementProcessSuccessCount(final String executorName, final String jobName) {
-        incrementProcessCount(buildKey(executorName, jobName), successCountMap);
+    public static long getErrorCountDelta(final String executorName, final String jobName) {
+        return getCounters(executorName, jobName).getErrorCountDelta();
     }
     
     /**
@@ -85,18 +84,8 @@ public final class ProcessCountStatistics {
      * @param jobName 作业名称
      * @param successCount 处理数据正确的数量
      */
-    public static synchronized void incrementProcessSuccessCount(final String executorName, final String jobName, final int successCount) {
-        incrementProcessCount(buildKey(executorName, jobName), successCount, successCountMap);
-    }
-    
-    /**
-     * 增加本作业服务器处理数据错误的数量.
-     *
-     * @param executorName executor名
-     * @param jobName 作业名称
-     */
-    public static synchronized void incrementProcessFailureCount(final String executorName, final String jobName) {
-        incrementProcessCount(buildKey(executorName, jobName), failureCountMap);
+    public static void incrementProcessSuccessCount(final String executorName, final String jobName, final int successCount) {
+        getCounters(executorName, jobName).incrementProcessSuccessCount(successCount);
     }
     
     /**
@@ -107,17 +96,7 @@ public final class ProcessCountStatistics {
      * @param failureCount 处理数据错误的数量
      */
     public static void incrementProcessFailureCount(final String executorName, final String jobName, final int failureCount) {
-        incrementProcessCount(buildKey(executorName, jobName), failureCount, failureCountMap);
-    }
-    
-    private static void incrementProcessCount(final String key, final ConcurrentMap<String, AtomicInteger> processCountMap) {
-        processCountMap.putIfAbsent(key, new AtomicInteger(0));
-        processCountMap.get(key).incrementAndGet();
-    }
-    
-    private static void incrementProcessCount(final String key, final int count, final ConcurrentMap<String, AtomicInteger> processCountMap) {
-        processCountMap.putIfAbsent(key, new AtomicInteger(0));
-        processCountMap.get(key).addAndGet(count);
+        getCounters(executorName, jobName).incrementProcessFailureCount(failureCount);
     }
     
     /**
@@ -127,9 +106,8 @@ public final class ProcessCountStatistics {
      * @param jobName 作业名称
      * @return 本作业服务器处理数据正确的数量
      */
-    public static int getProcessSuccessCount(final String executorName, final String jobName) {
-        String key = buildKey(executorName, jobName);
-        return null == successCountMap.get(key) ? 0 : successCountMap.get(key).get();
+    public static long getProcessSuccessCount(final String executorName, final String jobName) {
+        return getCounters(executorName, jobName).getProcessSuccessCount();
     }
     
     /**
@@ -139,9 +117,8 @@ public final class ProcessCountStatistics {
      * @param jobName 作业名称
      * @return 本作业服务器处理数据错误的数量
      */
-    public static int getProcessFailureCount(final String executorName, final String jobName) {
-        String key = buildKey(executorName, jobName);
-        return null == failureCountMap.get(key) ? 0 : failureCountMap.get(key).get();
+    public static long getProcessFailureCount(final String executorName, final String jobName) {
+        return getCounters(executorName, jobName).getProcessFailureCount();
     }
     
     /**
@@ -151,13 +128,7 @@ public final class ProcessCountStatistics {
      * @param jobName 作业名称
      */
     public static void resetSuccessFailureCount(final String executorName, final String jobName) {
-        String key = buildKey(executorName, jobName);
-        if (successCountMap.containsKey(key)) {
-            successCountMap.get(key).set(0);
-        }
-        if (failureCountMap.containsKey(key)) {
-            failureCountMap.get(key).set(0);
-        }
+        getCounters(executorName, jobName).resetSuccessFailureCount();
     }
     
 	/**
@@ -166,12 +137,6 @@ public final class ProcessCountStatistics {
 	 * @param jobName
 	 */
     public static void resetAnalyseCount(final String executorName, final String jobName) {
-        String key = buildKey(executorName, jobName);
-        if (totalCountDeltaMap.containsKey(key)) {
-        	totalCountDeltaMap.get(key).set(0);
-        }
-        if (errorCountDeltaMap.containsKey(key)) {
-        	errorCountDeltaMap.get(key).set(0);
-        }
+        getCounters(executorName, jobName).resetAnalyseCount();
     }
 }
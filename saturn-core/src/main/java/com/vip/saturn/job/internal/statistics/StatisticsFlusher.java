@@ -0,0 +1,102 @@
+/**
+ * Copyright 2016 vip.com.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * </p>
+ */
+
+package com.vip.saturn.job.internal.statistics;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vip.saturn.job.basic.SaturnConstant;
+import com.vip.saturn.job.threads.SaturnThreadFactory;
+
+/**
+ * Executor级别的统计信息刷新器：本executor所有作业的{@link ProcessCountJob}由同一个线程定时执行，线程数不随作业数增长.
+ * <p>
+ * 每个作业首次刷新的时间在一个统计周期内随机分布，避免所有作业同时写zk.
+ * </p>
+ */
+public class StatisticsFlusher {
+	static Logger log = LoggerFactory.getLogger(StatisticsFlusher.class);
+
+	private static final String STATISTICS_FLUSHER = "-statisticsFlusher";
+
+	private static ConcurrentHashMap<String, StatisticsFlusher> flusherMap = new ConcurrentHashMap<>();
+
+	private final ScheduledThreadPoolExecutor scheduler;
+
+	private final Random random = new Random();
+
+	private StatisticsFlusher(String executorName) {
+		scheduler = new ScheduledThreadPoolExecutor(1, new SaturnThreadFactory(executorName + STATISTICS_FLUSHER));
+		// 作业停止统计时取消的任务直接移出队列
+		scheduler.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * 获取executor的统计信息刷新器，如果不存在或者已关闭，则新建
+	 */
+	public static synchronized StatisticsFlusher getFlusher(String executorName) {
+		StatisticsFlusher flusher = flusherMap.get(executorName);
+		if (flusher == null || flusher.scheduler.isShutdown()) {
+			flusher = new StatisticsFlusher(executorName);
+			flusherMap.put(executorName, flusher);
+		}
+		return flusher;
+	}
+
+	/**
+	 * 关闭executor的统计信息刷新器
+	 */
+	public static synchronized void shutdownFlusher(String executorName) {
+		StatisticsFlusher flusher = flusherMap.remove(executorName);
+		if (flusher != null) {
+			flusher.scheduler.shutdownNow();
+		}
+	}
+
+	/**
+	 * 按统计周期定时刷新作业的统计信息，首次刷新时间在一个周期内随机
+	 *
+	 * @param processCountJob 作业的统计信息刷新任务
+	 * @param intervalSeconds 统计周期（秒）
+	 * @return 用于取消刷新的future
+	 */
+	public ScheduledFuture<?> schedule(final ProcessCountJob processCountJob, int intervalSeconds) {
+		long periodMillis = TimeUnit.SECONDS.toMillis(intervalSeconds);
+		long initialDelayMillis;
+		synchronized (random) {
+			initialDelayMillis = (long) (random.nextDouble() * periodMillis);
+		}
+		return scheduler.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					processCountJob.run();
+				} catch (Throwable t) {
+					// 不抛出异常，否则后续不会再执行
+					log.error(String.format(SaturnConstant.ERROR_LOG_FORMAT, processCountJob.getJobName(), t.getMessage()), t);
+				}
+			}
+		}, initialDelayMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+}
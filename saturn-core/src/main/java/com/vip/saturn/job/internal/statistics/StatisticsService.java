@@ -14,13 +14,7 @@
 
 package com.vip.saturn.job.internal.statistics;
 
-import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,8 +33,6 @@ public class StatisticsService extends AbstractSaturnService {
 
 	private ConfigurationService configService;
 
-	private ScheduledExecutorService processCountExecutor;
-
 	private ScheduledFuture<?> processCountJobFuture;
 
 	private boolean isdown = false;
@@ -52,44 +44,27 @@ public class StatisticsService extends AbstractSaturnService {
 	@Override
 	public synchronized void start() {
 		configService = jobScheduler.getConfigService();
-		processCountExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
-			private AtomicInteger number = new AtomicInteger(0);
-
-			@Override
-			public Thread newThread(Runnable r) {
-				StringBuilder name = new StringBuilder(jobConfiguration.getJobName()).append("-ProcessCount-Thread-")
-						.append(number.incrementAndGet());
-				Thread t = new Thread(r, name.toString());
-				if (t.isDaemon()) {
-					t.setDaemon(false);
-				}
-				if (t.getPriority() != Thread.NORM_PRIORITY) {
-					t.setPriority(Thread.NORM_PRIORITY);
-				}
-				return t;
-			}
-		});
 	}
 
 	/**
-	 * 开启或重启统计处理数据数量的作业.
+	 * 开启或重启统计处理数据数量的作业，由executor的统计信息刷新器定时执行.
 	 */
 	public synchronized void startProcessCountJob() {
 		int processCountIntervalSeconds = configService.getProcessCountIntervalSeconds();
 		if (processCountIntervalSeconds > 0) {
 
 			if (processCountJobFuture != null) {
-				processCountJobFuture.cancel(true);
+				processCountJobFuture.cancel(false);
 				log.info("[{}] msg=Reschedule ProcessCountJob of the {} job, the processCountIntervalSeconds is {}",
 						jobName, jobConfiguration.getJobName(), processCountIntervalSeconds);
 			}
-			processCountJobFuture = processCountExecutor.scheduleAtFixedRate(new ProcessCountJob(jobScheduler), new Random().nextInt(10),
-					processCountIntervalSeconds, TimeUnit.SECONDS);
+			processCountJobFuture = StatisticsFlusher.getFlusher(executorName).schedule(new ProcessCountJob(jobScheduler),
+					processCountIntervalSeconds);
 
 		} else { // don't count, reset to zero.
 			if (processCountJobFuture != null) {
-				log.info("[{}] msg=shutdown the task of reporting statistics data");
-				processCountJobFuture.cancel(true);
+				log.info("[{}] msg=shutdown the task of reporting statistics data", jobName);
+				processCountJobFuture.cancel(false);
 				processCountJobFuture = null;
 			}
 		}
@@ -100,10 +75,8 @@ public class StatisticsService extends AbstractSaturnService {
 	 */
 	public synchronized void stopProcessCountJob() {
 		if (processCountJobFuture != null) {
-			processCountJobFuture.cancel(true);
-		}
-		if (processCountExecutor != null) {
-			processCountExecutor.shutdown();
+			processCountJobFuture.cancel(false);
+			processCountJobFuture = null;
 		}
 	}
 
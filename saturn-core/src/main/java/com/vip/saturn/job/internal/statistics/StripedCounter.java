@@ -0,0 +1,123 @@
+/**
+ * Copyright 2016 vip.com.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * </p>
+ */
+
+package com.vip.saturn.job.internal.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分段的64位计数器，与LongAdder类似：没有竞争时只累加base，第一次CAS失败后才分配分段的槽，之后不同线程按线程id累加到不同的槽，读取时求和，写入没有全局锁.
+ *
+ * <p>
+ * 每个槽之间隔开一个缓存行，避免伪共享。从未出现竞争的计数器（大多数作业）只占一个AtomicLong.
+ * </p>
+ */
+public final class StripedCounter {
+
+	// 每个槽占8个long（64字节），只使用第一个
+	private static final int PADDING = 8;
+
+	private static final int STRIPES = stripes();
+
+	private final AtomicLong base = new AtomicLong();
+
+	// 第一次出现竞争时分配
+	private volatile AtomicLongArray cells;
+
+	private static int stripes() {
+		int stripes = 1;
+		int max = Math.min(64, Runtime.getRuntime().availableProcessors() * 2);
+		while (stripes < max) {
+			stripes <<= 1;
+		}
+		return stripes;
+	}
+
+	private static int index() {
+		long id = Thread.currentThread().getId();
+		int hash = (int) (id ^ (id >>> 32));
+		hash ^= (hash >>> 16);
+		return (hash & (STRIPES - 1)) * PADDING;
+	}
+
+	private AtomicLongArray initCells() {
+		synchronized (base) {
+			AtomicLongArray cs = cells;
+			if (cs == null) {
+				cs = new AtomicLongArray(STRIPES * PADDING);
+				cells = cs;
+			}
+			return cs;
+		}
+	}
+
+	public void increment() {
+		add(1L);
+	}
+
+	public void add(long delta) {
+		AtomicLongArray cs = cells;
+		if (cs == null) {
+			long b = base.get();
+			if (base.compareAndSet(b, b + delta)) {
+				return;
+			}
+			cs = initCells();
+		}
+		cs.getAndAdd(index(), delta);
+	}
+
+	/**
+	 * 是否已分配分段的槽
+	 */
+	boolean isStriped() {
+		return cells != null;
+	}
+
+	/**
+	 * 当前计数值
+	 */
+	public long sum() {
+		long sum = base.get();
+		AtomicLongArray cs = cells;
+		if (cs != null) {
+			for (int i = 0; i < STRIPES; i++) {
+				sum += cs.get(i * PADDING);
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * 取出当前计数值并清零。base和每个槽原子地取出并清零，并发的累加要么计入本次结果，要么保留到下一次，不会丢失也不会重复计算
+	 */
+	public long sumThenReset() {
+		long sum = base.getAndSet(0L);
+		AtomicLongArray cs = cells;
+		if (cs != null) {
+			for (int i = 0; i < STRIPES; i++) {
+				sum += cs.getAndSet(i * PADDING, 0L);
+			}
+		}
+		return sum;
+	}
+
+	public void reset() {
+		sumThenReset();
+	}
+}
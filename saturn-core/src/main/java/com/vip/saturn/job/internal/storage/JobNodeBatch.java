@@ -0,0 +1,343 @@
+/**
+ * Copyright 2016 vip.com.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * </p>
+ */
+
+package com.vip.saturn.job.internal.storage;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.curator.framework.api.transaction.CuratorTransaction;
+import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.apache.zookeeper.CreateMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 批量提交的作业节点变更.
+ *
+ * <p>
+ * 收集一次触发中所有分片的节点变更，提交时按作业的本地缓存判断节点是否存在，再合并成少量ZooKeeper multi事务，
+ * 每个事务的操作数和数据量都控制在jute.maxbuffer以内.
+ * 某个事务提交失败（如缓存滞后导致节点已存在或不存在）时，该事务中的变更逐个回退到{@link JobNodeStorage}的单节点操作.
+ * </p>
+ */
+public class JobNodeBatch {
+	static Logger log = LoggerFactory.getLogger(JobNodeBatch.class);
+
+    private static final int MAX_OPS_PER_TRANSACTION = 500;
+
+    // jute.maxbuffer默认为1M，只用一半，留出请求头和序列化的余量
+    private static final int MAX_BYTES_PER_TRANSACTION = Integer.getInteger("jute.maxbuffer", 0xfffff) / 2;
+
+    private static final int OP_OVERHEAD_BYTES = 32;
+
+    private static final byte[] EMPTY_DATA = new byte[0];
+
+    private final JobNodeStorage jobNodeStorage;
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    private boolean fallback = true;
+
+    JobNodeBatch(final JobNodeStorage jobNodeStorage) {
+        this.jobNodeStorage = jobNodeStorage;
+    }
+
+    /**
+     * 删除作业节点，节点不存在则忽略.
+     *
+     * @param node 作业节点名称
+     * @return 本批次
+     */
+    public JobNodeBatch removeJobNodeIfExisted(final String node) {
+        operations.add(new Operation(OperationType.REMOVE_IF_EXISTED, node, null));
+        return this;
+    }
+
+    /**
+     * 删除调用方已确认存在的作业节点，不再查询缓存.
+     *
+     * @param node 作业节点名称
+     * @return 本批次
+     */
+    public JobNodeBatch removeExistedJobNode(final String node) {
+        operations.add(new Operation(OperationType.REMOVE_EXISTED, node, null));
+        return this;
+    }
+
+    /**
+     * 如果不存在则创建作业节点.
+     *
+     * @param node 作业节点名称
+     * @return 本批次
+     */
+    public JobNodeBatch createJobNodeIfNeeded(final String node) {
+        operations.add(new Operation(OperationType.CREATE_IF_NEEDED, node, ""));
+        return this;
+    }
+
+    /**
+     * 替换作业节点数据，本地缓存中的数据与待写入的数据相同时不再写入.
+     *
+     * @param node 作业节点名称
+     * @param value 待替换的数据
+     * @return 本批次
+     */
+    public JobNodeBatch replaceJobNodeIfChanged(final String node, final Object value) {
+        operations.add(new Operation(OperationType.REPLACE_IF_CHANGED, node, value.toString()));
+        return this;
+    }
+
+    /**
+     * 填充临时节点数据.
+     *
+     * @param node 作业节点名称
+     * @param value 作业节点数据值
+     * @return 本批次
+     */
+    public JobNodeBatch fillEphemeralJobNode(final String node, final Object value) {
+        operations.add(new Operation(OperationType.FILL_EPHEMERAL, node, value.toString()));
+        return this;
+    }
+
+    /**
+     * 事务失败时不回退到单节点操作，提交返回false时失败事务中的变更都没有写入.
+     *
+     * <p>
+     * 用于必须整体成功的变更，如failover时认领分片.
+     * </p>
+     *
+     * @return 本批次
+     */
+    public JobNodeBatch withoutFallback() {
+        fallback = false;
+        return this;
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * 提交本批次的全部变更.
+     *
+     * @return 全部变更都通过multi事务写入时返回true；有事务失败、回退到单节点操作时返回false，
+     * 单节点操作会忽略连接断开等异常，调用方不能认为变更已经写入；{@link #withoutFallback()}时失败事务中的变更都没有写入
+     */
+    public boolean commit() {
+        if (operations.isEmpty()) {
+            return true;
+        }
+        boolean committed = true;
+        Set<String> plannedPaths = new HashSet<>();
+        List<Operation> chunkOperations = new ArrayList<>();
+        List<Step> chunkSteps = new ArrayList<>();
+        int chunkBytes = 0;
+        for (Operation each : operations) {
+            List<Step> steps = plan(each, plannedPaths);
+            int bytes = 0;
+            for (Step step : steps) {
+                bytes += step.size();
+            }
+            if (!chunkOperations.isEmpty() && (chunkSteps.size() + steps.size() > MAX_OPS_PER_TRANSACTION
+                    || chunkBytes + bytes > MAX_BYTES_PER_TRANSACTION)) {
+                committed &= commitChunk(chunkOperations, chunkSteps);
+                chunkOperations = new ArrayList<>();
+                chunkSteps = new ArrayList<>();
+                chunkBytes = 0;
+            }
+            chunkOperations.add(each);
+            chunkSteps.addAll(steps);
+            chunkBytes += bytes;
+        }
+        committed &= commitChunk(chunkOperations, chunkSteps);
+        operations.clear();
+        return committed;
+    }
+
+    private List<Step> plan(final Operation operation, final Set<String> plannedPaths) {
+        List<Step> steps = new ArrayList<>(3);
+        String fullPath = jobNodeStorage.getJobNodeFullPath(operation.node);
+        switch (operation.type) {
+            case REMOVE_IF_EXISTED:
+                if (jobNodeStorage.isJobNodeExistedInCache(operation.node)) {
+                    steps.add(new Step(StepType.DELETE, fullPath, null, null));
+                }
+                break;
+            case REMOVE_EXISTED:
+                steps.add(new Step(StepType.DELETE, fullPath, null, null));
+                break;
+            case CREATE_IF_NEEDED:
+                if (jobNodeStorage.isJobNodeExistedInCache(operation.node)) {
+                    // 校验缓存没有过期，节点实际不存在时整个事务失败并回退
+                    steps.add(new Step(StepType.CHECK, fullPath, null, null));
+                } else {
+                    planParent(fullPath, plannedPaths, steps);
+                    steps.add(new Step(StepType.CREATE, fullPath, operation.value, CreateMode.PERSISTENT));
+                }
+                break;
+            case REPLACE_IF_CHANGED:
+                String cachedValue = jobNodeStorage.getJobNodeDataInCache(operation.node);
+                if (operation.value.equals(cachedValue)) {
+                    break;
+                }
+                if (null != cachedValue || jobNodeStorage.isJobNodeExistedInCache(operation.node)) {
+                    steps.add(new Step(StepType.SET_DATA, fullPath, operation.value, null));
+                } else {
+                    planParent(fullPath, plannedPaths, steps);
+                    steps.add(new Step(StepType.CREATE, fullPath, operation.value, CreateMode.PERSISTENT));
+                }
+                break;
+            case FILL_EPHEMERAL:
+                if (jobNodeStorage.isJobNodeExistedInCache(operation.node)) {
+                    steps.add(new Step(StepType.DELETE, fullPath, null, null));
+                } else {
+                    planParent(fullPath, plannedPaths, steps);
+                }
+                steps.add(new Step(StepType.CREATE, fullPath, operation.value, CreateMode.EPHEMERAL));
+                break;
+            default:
+                break;
+        }
+        return steps;
+    }
+
+    private void planParent(final String fullPath, final Set<String> plannedPaths, final List<Step> steps) {
+        String parentPath = fullPath.substring(0, fullPath.lastIndexOf('/'));
+        if (plannedPaths.contains(parentPath) || jobNodeStorage.isFullPathExistedInCache(parentPath)) {
+            return;
+        }
+        plannedPaths.add(parentPath);
+        steps.add(new Step(StepType.CREATE, parentPath, "", CreateMode.PERSISTENT));
+    }
+
+    private boolean commitChunk(final List<Operation> chunkOperations, final List<Step> chunkSteps) {
+        if (chunkSteps.isEmpty()) {
+            return true;
+        }
+        try {
+            CuratorTransaction transaction = jobNodeStorage.getClient().inTransaction();
+            for (Step each : chunkSteps) {
+                transaction = each.appendTo(transaction);
+            }
+            ((CuratorTransactionFinal) transaction).commit();
+            return true;
+        //CHECKSTYLE:OFF
+        } catch (final Exception ex) {
+        //CHECKSTYLE:ON
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (!fallback) {
+                log.info("[{}] msg=batch commit of {} node operations failed, cause: {}",
+                        jobNodeStorage.getJobConfiguration().getJobName(), chunkSteps.size(), ex.toString());
+                return false;
+            }
+            log.info("[{}] msg=batch commit of {} node operations failed, fallback to single operations, cause: {}",
+                    jobNodeStorage.getJobConfiguration().getJobName(), chunkSteps.size(), ex.toString());
+            for (Operation each : chunkOperations) {
+                fallback(each);
+            }
+            return false;
+        }
+    }
+
+    private void fallback(final Operation operation) {
+        switch (operation.type) {
+            case REMOVE_IF_EXISTED:
+            case REMOVE_EXISTED:
+                jobNodeStorage.removeJobNodeIfExisted(operation.node);
+                break;
+            case CREATE_IF_NEEDED:
+                jobNodeStorage.createJobNodeIfNeeded(operation.node);
+                break;
+            case REPLACE_IF_CHANGED:
+                jobNodeStorage.replaceJobNode(operation.node, operation.value);
+                break;
+            case FILL_EPHEMERAL:
+                jobNodeStorage.fillEphemeralJobNode(operation.node, operation.value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private enum OperationType {
+        REMOVE_IF_EXISTED, REMOVE_EXISTED, CREATE_IF_NEEDED, REPLACE_IF_CHANGED, FILL_EPHEMERAL
+    }
+
+    private enum StepType {
+        CHECK, DELETE, SET_DATA, CREATE
+    }
+
+    private static final class Operation {
+
+        private final OperationType type;
+
+        private final String node;
+
+        private final String value;
+
+        private Operation(final OperationType type, final String node, final String value) {
+            this.type = type;
+            this.node = node;
+            this.value = value;
+        }
+    }
+
+    private static final class Step {
+
+        private final StepType type;
+
+        private final String path;
+
+        private final byte[] data;
+
+        private final CreateMode mode;
+
+        private Step(final StepType type, final String path, final String value, final CreateMode mode) {
+            this.type = type;
+            this.path = path;
+            this.data = value == null ? EMPTY_DATA : value.getBytes(Charset.forName("UTF-8"));
+            this.mode = mode;
+        }
+
+        private int size() {
+            return path.length() + data.length + OP_OVERHEAD_BYTES;
+        }
+
+        private CuratorTransaction appendTo(final CuratorTransaction transaction) throws Exception {
+            switch (type) {
+                case CHECK:
+                    return transaction.check().forPath(path).and();
+                case DELETE:
+                    return transaction.delete().forPath(path).and();
+                case SET_DATA:
+                    return transaction.setData().forPath(path, data).and();
+                default:
+                    return transaction.create().withMode(mode).forPath(path, data).and();
+            }
+        }
+    }
+}
@@ -17,11 +17,27 @@
 
 package com.vip.saturn.job.internal.storage;
 
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCache;
 import org.apache.curator.framework.recipes.leader.LeaderLatch;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +63,12 @@ import com.vip.saturn.job.utils.BlockUtils;
 public class JobNodeStorage {
 	static Logger log = LoggerFactory.getLogger(JobNodeStorage.class);
 
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int MAX_COUNTER_ATTEMPTS = 5;
+
+    private static final long MAX_COUNTER_BACKOFF_MILLIS = 100L;
+
     private final CoordinatorRegistryCenter coordinatorRegistryCenter;
     
     private final JobConfiguration jobConfiguration;
@@ -54,6 +76,13 @@ public class JobNodeStorage {
     private String executorName;
     
     private final String jobName;
+
+    // 结果未知的计数事务标识及其增量，调用方会把增量留到下次，下次提交前先判断是否已经写入
+    private String unresolvedCounterTxn;
+
+    private Map<String, Long> unresolvedCounterDeltas;
+
+    private boolean counterTxnNodeCreated;
     
     public JobNodeStorage(final CoordinatorRegistryCenter coordinatorRegistryCenter, final JobConfiguration jobConfiguration) {
         this.coordinatorRegistryCenter = coordinatorRegistryCenter;
@@ -179,6 +208,53 @@ public class JobNodeStorage {
     public void fillEphemeralJobNode(final String node, final Object value) {
         coordinatorRegistryCenter.persistEphemeral(JobNodePath.getNodeFullPath(jobConfiguration.getJobName(), node), value.toString());
     }
+
+    /**
+     * 临时节点不存在时创建，已存在时不覆盖.
+     *
+     * <p>
+     * 创建是原子的，多个executor同时创建时只有一个成功，可以代替分布式锁+判断+创建.
+     * </p>
+     *
+     * @param node 作业节点名称
+     * @param value 作业节点数据值
+     * @return 是否由本次调用创建
+     */
+    public boolean createEphemeralJobNodeIfAbsent(final String node, final Object value) {
+        try {
+            getClient().create().creatingParentsIfNeeded().withMode(CreateMode.EPHEMERAL).forPath(getJobNodeFullPath(node), value.toString().getBytes(UTF8));
+            return true;
+        } catch (final KeeperException.NodeExistsException ex) {
+            return false;
+        //CHECKSTYLE:OFF
+        } catch (final Exception ex) {
+        //CHECKSTYLE:ON
+            RegExceptionHandler.handleException(ex);
+            return false;
+        }
+    }
+
+    /**
+     * 直接从注册中心判断作业节点是否存在，并注册watcher，节点被创建、删除或者数据变化时通知.
+     *
+     * <p>
+     * 同一个watcher对象重复注册在同一个节点上只会通知一次.
+     * </p>
+     *
+     * @param node 作业节点名称
+     * @param watcher 监听节点变化的watcher
+     * @return 作业节点是否存在
+     */
+    public boolean isJobNodeExistedWithWatcher(final String node, final Watcher watcher) {
+        try {
+            return null != getClient().checkExists().usingWatcher(watcher).forPath(getJobNodeFullPath(node));
+        //CHECKSTYLE:OFF
+        } catch (final Exception ex) {
+        //CHECKSTYLE:ON
+            RegExceptionHandler.handleException(ex);
+            return false;
+        }
+    }
     
     /**
      * 更新节点数据.
@@ -239,6 +315,15 @@ public class JobNodeStorage {
         }
     }
     
+    /**
+     * 创建批量提交的作业节点变更.
+     * 
+     * @return 作业节点变更批次
+     */
+    public JobNodeBatch createBatch() {
+        return new JobNodeBatch(this);
+    }
+    
     /**
      * 在主节点执行操作.
      * 
@@ -261,10 +346,220 @@ public class JobNodeStorage {
             }
         }
     }
+
+    /**
+     * 把计数节点的值加上增量，所有节点在一个事务中以读到的版本为条件写入.
+     *
+     * <p>
+     * 多个executor同时累加同一个计数节点时，版本已被其他executor修改的事务整体失败，随机退避后重新读取再提交，增量不会丢失也不会重复.
+     * 节点不存在时先创建为0.
+     * 事务直接通过ZooKeeper提交，不使用Curator的重试：连接断开后重试会因为版本已变化而失败，无法区分是否已经写入.
+     * 事务同时把本executor的servers/{executorName}/counterTxn写为本次的标识，提交时连接断开，结果未知，重新读取该节点判断是否已经写入.
+     * 重新读取也失败时记下标识并抛出异常，调用方把增量留到下次，下次提交前先判断上次是否已经写入，已写入的部分不再累加.
+     * </p>
+     *
+     * @param deltas 计数节点名称与增量
+     * @throws JobException 重试多次仍冲突或者注册中心异常，增量没有写入或者结果留到下次判断
+     */
+    public synchronized void incrementJobNodeCounters(final Map<String, Long> deltas) {
+        CuratorFramework client = getClient();
+        String txnFullPath = getJobNodeFullPath(String.format(ServerNode.COUNTER_TXN, executorName));
+        Map<String, Long> remaining = new LinkedHashMap<>(deltas);
+        if (unresolvedCounterTxn != null) {
+            Boolean written = isCounterTxnWritten(client, txnFullPath, unresolvedCounterTxn);
+            if (written == null) {
+                throw new JobException("cannot check whether counters %s were written", unresolvedCounterDeltas);
+            }
+            if (written) {
+                subtractDeltas(remaining, unresolvedCounterDeltas);
+            }
+            unresolvedCounterTxn = null;
+            unresolvedCounterDeltas = null;
+        }
+        if (remaining.isEmpty()) {
+            return;
+        }
+        String txn = UUID.randomUUID().toString();
+        for (int attempt = 1; ; attempt++) {
+            List<Op> ops = new ArrayList<>(remaining.size() + 1);
+            boolean sent = false;
+            try {
+                for (Map.Entry<String, Long> each : remaining.entrySet()) {
+                    String fullPath = getJobNodeFullPath(each.getKey());
+                    Stat stat = new Stat();
+                    byte[] data;
+                    try {
+                        data = client.getData().storingStatIn(stat).forPath(fullPath);
+                    } catch (final KeeperException.NoNodeException ex) {
+                        createCounterNodeIfNeeded(client, fullPath);
+                        data = client.getData().storingStatIn(stat).forPath(fullPath);
+                    }
+                    byte[] value = String.valueOf(parseCount(data) + each.getValue()).getBytes(UTF8);
+                    ops.add(Op.setData(ZKPaths.fixForNamespace(client.getNamespace(), fullPath), value, stat.getVersion()));
+                }
+                if (!counterTxnNodeCreated) {
+                    createCounterNodeIfNeeded(client, txnFullPath);
+                    counterTxnNodeCreated = true;
+                }
+                ops.add(Op.setData(ZKPaths.fixForNamespace(client.getNamespace(), txnFullPath), txn.getBytes(UTF8), -1));
+                sent = true;
+                commitCounters(client, ops);
+                return;
+            } catch (final KeeperException.BadVersionException ex) {
+                if (attempt >= MAX_COUNTER_ATTEMPTS) {
+                    throw new JobException("increment counters %s failed after %s attempts", remaining, attempt);
+                }
+                backoff(attempt);
+            } catch (final KeeperException.NoNodeException ex) {
+                // 计数节点或者事务标识节点在读取后被删除，重新创建
+                counterTxnNodeCreated = false;
+                if (attempt >= MAX_COUNTER_ATTEMPTS) {
+                    throw new JobException("increment counters %s failed after %s attempts", remaining, attempt);
+                }
+            } catch (final KeeperException.ConnectionLossException | KeeperException.SessionExpiredException ex) {
+                if (sent) {
+                    Boolean written = isCounterTxnWritten(client, txnFullPath, txn);
+                    if (written == null) {
+                        unresolvedCounterTxn = txn;
+                        unresolvedCounterDeltas = remaining;
+                        throw new JobException("increment counters %s is unknown after connection loss, check it next time", remaining);
+                    }
+                    if (written) {
+                        return;
+                    }
+                }
+                if (attempt >= MAX_COUNTER_ATTEMPTS) {
+                    throw new JobException("increment counters %s failed after %s attempts", remaining, attempt);
+                }
+                backoff(attempt);
+            //CHECKSTYLE:OFF
+            } catch (final Exception ex) {
+            //CHECKSTYLE:ON
+                if (ex instanceof InterruptedException) {//NOSONAR
+                    Thread.currentThread().interrupt();
+                }
+                throw new JobException(ex);
+            }
+        }
+    }
+
+    void commitCounters(final CuratorFramework client, final List<Op> ops) throws Exception {
+        ZooKeeper zooKeeper = client.getZookeeperClient().getZooKeeper();
+        zooKeeper.multi(ops);
+    }
+
+    /**
+     * 重新读取本executor的事务标识节点，判断计数事务是否已经写入.
+     *
+     * <p>
+     * 标识节点只有本executor在累加计数时写入，事务整体提交，节点数据等于本次的标识说明计数已经写入，否则没有写入.
+     * </p>
+     *
+     * @return 是否已经写入，读取失败无法判断时返回null
+     */
+    Boolean isCounterTxnWritten(final CuratorFramework client, final String txnFullPath, final String txn) {
+        try {
+            return Arrays.equals(client.getData().forPath(txnFullPath), txn.getBytes(UTF8));
+        } catch (final KeeperException.NoNodeException ex) {// NOSONAR
+            return false;
+        //CHECKSTYLE:OFF
+        } catch (final Exception ex) {
+        //CHECKSTYLE:ON
+            if (ex instanceof InterruptedException) {//NOSONAR
+                Thread.currentThread().interrupt();
+            }
+            log.warn("[{}] msg=cannot read {} after connection loss: {}", jobName, txnFullPath, ex.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 上次结果未知的增量已经写入，从本次留下来的增量中减去
+     */
+    private static void subtractDeltas(final Map<String, Long> remaining, final Map<String, Long> written) {
+        for (Map.Entry<String, Long> each : written.entrySet()) {
+            Long delta = remaining.get(each.getKey());
+            long left = (delta == null ? 0 : delta) - each.getValue();
+            if (left > 0) {
+                remaining.put(each.getKey(), left);
+            } else {
+                remaining.remove(each.getKey());
+            }
+        }
+    }
+
+    private static long parseCount(final byte[] data) {
+        if (data == null) {
+            return 0;
+        }
+        String value = new String(data, UTF8).trim();
+        return value.isEmpty() ? 0 : Long.parseLong(value);
+    }
+
+    private static void createCounterNodeIfNeeded(final CuratorFramework client, final String fullPath) {
+        try {
+            client.create().creatingParentsIfNeeded().forPath(fullPath, "0".getBytes(UTF8));
+        } catch (final KeeperException.NodeExistsException ignore) {// NOSONAR
+            // 其他executor已创建
+        //CHECKSTYLE:OFF
+        } catch (final Exception ex) {
+        //CHECKSTYLE:ON
+            throw new JobException(ex);
+        }
+    }
+
+    private static void backoff(final int attempt) {
+        long maxMillis = Math.min(MAX_COUNTER_BACKOFF_MILLIS, 1L << Math.min(attempt, 7));
+        try {
+            Thread.sleep(1 + ThreadLocalRandom.current().nextLong(maxMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobException(e);
+        }
+    }
+
+    CuratorFramework getClient() {
+        return (CuratorFramework) coordinatorRegistryCenter.getRawClient();
+    }
     
+    String getJobNodeFullPath(final String node) {
+        return JobNodePath.getNodeFullPath(jobConfiguration.getJobName(), node);
+    }
     
-    private CuratorFramework getClient() {
-        return (CuratorFramework) coordinatorRegistryCenter.getRawClient();
+    /**
+     * 只根据本地缓存判断作业节点是否存在，作业没有缓存时直接查询注册中心.
+     * 
+     * @param node 作业节点名称
+     * @return 作业节点是否存在
+     */
+    boolean isJobNodeExistedInCache(final String node) {
+        return isFullPathExistedInCache(getJobNodeFullPath(node));
+    }
+    
+    /**
+     * 只从本地缓存获取作业节点数据.
+     * 
+     * @param node 作业节点名称
+     * @return 作业节点数据值，作业没有缓存或者缓存中没有该节点时返回null
+     */
+    String getJobNodeDataInCache(final String node) {
+        TreeCache cache = coordinatorRegistryCenter.getRawCache(JobNodePath.getJobNameFullPath(jobConfiguration.getJobName()));
+        if (null == cache) {
+            return null;
+        }
+        ChildData data = cache.getCurrentData(getJobNodeFullPath(node));
+        if (null == data) {
+            return null;
+        }
+        return null == data.getData() ? "" : new String(data.getData(), Charset.forName("UTF-8"));
+    }
+    
+    boolean isFullPathExistedInCache(final String fullPath) {
+        TreeCache cache = coordinatorRegistryCenter.getRawCache(JobNodePath.getJobNameFullPath(jobConfiguration.getJobName()));
+        if (null == cache) {
+            return coordinatorRegistryCenter.isExisted(fullPath);
+        }
+        return null != cache.getCurrentData(fullPath);
     }
     
     /**
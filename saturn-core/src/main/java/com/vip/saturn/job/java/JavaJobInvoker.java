@@ -0,0 +1,148 @@
+package com.vip.saturn.job.java;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+import com.vip.saturn.job.SaturnJobExecutionContext;
+import com.vip.saturn.job.SaturnJobReturn;
+
+/**
+ * Java作业业务实例的调用器.
+ * <p>
+ * 创建业务实例时解析一次业务方法，以及在作业ClassLoader与Executor ClassLoader之间复制上下文、返回值所用的构造器和copyFrom方法，
+ * 分片执行时不再loadClass和getMethod.
+ * </p>
+ */
+public class JavaJobInvoker {
+
+	private static final String HANDLE_JAVA_JOB = "handleJavaJob";
+
+	private static final String ON_TIMEOUT = "onTimeout";
+
+	private static final String BEFORE_TIMEOUT = "beforeTimeout";
+
+	private static final String POST_FORCE_STOP = "postForceStop";
+
+	private final Object jobBusinessInstance;
+
+	private final Method handleJavaJob;
+
+	private final Method onTimeout;
+
+	private final Method beforeTimeout;
+
+	private final Method postForceStop;
+
+	private final ObjectCopier contextCopier;
+
+	private final ObjectCopier returnCopier;
+
+	public JavaJobInvoker(Object jobBusinessInstance, ClassLoader jobClassLoader, ClassLoader executorClassLoader)
+			throws ClassNotFoundException {
+		this.jobBusinessInstance = jobBusinessInstance;
+		Class<?> contextClass = jobClassLoader.loadClass(SaturnJobExecutionContext.class.getCanonicalName());
+		Class<?> businessClass = jobBusinessInstance.getClass();
+		handleJavaJob = findMethod(businessClass, HANDLE_JAVA_JOB, contextClass);
+		onTimeout = findMethod(businessClass, ON_TIMEOUT, contextClass);
+		beforeTimeout = findMethod(businessClass, BEFORE_TIMEOUT, contextClass);
+		postForceStop = findMethod(businessClass, POST_FORCE_STOP, contextClass);
+		contextCopier = new ObjectCopier(jobClassLoader);
+		returnCopier = new ObjectCopier(executorClassLoader);
+	}
+
+	/**
+	 * 业务类没有该方法时返回null，调用时再抛出NoSuchMethodException，与原来每次反射查找的行为一致
+	 */
+	private static Method findMethod(Class<?> businessClass, String name, Class<?> contextClass) {
+		try {
+			return businessClass.getMethod(name, String.class, Integer.class, String.class, contextClass);
+		} catch (NoSuchMethodException e) {// NOSONAR
+			return null;
+		}
+	}
+
+	private Object invoke(Method method, String name, String jobName, Integer key, String value, Object contextForJob)
+			throws Exception {
+		if (method == null) {
+			throw new NoSuchMethodException(jobBusinessInstance.getClass().getName() + "." + name);
+		}
+		return method.invoke(jobBusinessInstance, jobName, key, value, contextForJob);
+	}
+
+	public Object getJobBusinessInstance() {
+		return jobBusinessInstance;
+	}
+
+	/**
+	 * 调用业务的handleJavaJob，返回值已复制到Executor ClassLoader
+	 */
+	public SaturnJobReturn handleJavaJob(String jobName, Integer key, String value, Object contextForJob)
+			throws Exception {
+		Object ret = invoke(handleJavaJob, HANDLE_JAVA_JOB, jobName, key, value, contextForJob);
+		return (SaturnJobReturn) returnCopier.copy(ret);
+	}
+
+	public void onTimeout(String jobName, Integer key, String value, Object contextForJob) throws Exception {
+		invoke(onTimeout, ON_TIMEOUT, jobName, key, value, contextForJob);
+	}
+
+	public void beforeTimeout(String jobName, Integer key, String value, Object contextForJob) throws Exception {
+		invoke(beforeTimeout, BEFORE_TIMEOUT, jobName, key, value, contextForJob);
+	}
+
+	public void postForceStop(String jobName, Integer key, String value, Object contextForJob) throws Exception {
+		invoke(postForceStop, POST_FORCE_STOP, jobName, key, value, contextForJob);
+	}
+
+	/**
+	 * 将分片上下文复制到作业ClassLoader
+	 */
+	public Object copyContextToJob(SaturnJobExecutionContext context) throws Exception {
+		return contextCopier.copy(context);
+	}
+
+	/**
+	 * 把对象复制为目标ClassLoader中的同名类实例，缓存最近一次源类对应的构造器和copyFrom方法
+	 */
+	static final class ObjectCopier {
+
+		private final ClassLoader targetClassLoader;
+
+		// 最近一次使用的复制方法，源类变化时重新反射查找
+		volatile CopyAdapter adapter;
+
+		ObjectCopier(ClassLoader targetClassLoader) {
+			this.targetClassLoader = targetClassLoader;
+		}
+
+		Object copy(Object source) throws Exception {
+			if (source == null) {
+				return null;
+			}
+			CopyAdapter current = adapter;
+			if (current == null || current.sourceClass != source.getClass()) {
+				current = new CopyAdapter(source.getClass(), targetClassLoader);
+				adapter = current;
+			}
+			Object target = current.constructor.newInstance();
+			current.copyFrom.invoke(target, source);
+			return target;
+		}
+	}
+
+	static final class CopyAdapter {
+
+		private final Class<?> sourceClass;
+
+		private final Constructor<?> constructor;
+
+		private final Method copyFrom;
+
+		private CopyAdapter(Class<?> sourceClass, ClassLoader targetClassLoader) throws Exception {
+			this.sourceClass = sourceClass;
+			Class<?> targetClass = targetClassLoader.loadClass(sourceClass.getCanonicalName());
+			this.constructor = targetClass.getConstructor();
+			this.copyFrom = targetClass.getMethod("copyFrom", Object.class);
+		}
+	}
+}
@@ -11,7 +11,6 @@ import org.quartz.SchedulerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.vip.saturn.job.SaturnJobExecutionContext;
 import com.vip.saturn.job.SaturnJobReturn;
 import com.vip.saturn.job.SaturnSystemErrorGroup;
 import com.vip.saturn.job.SaturnSystemReturnCode;
@@ -33,6 +32,8 @@ public class SaturnJavaJob extends CrondJob {
 	private Map<Integer, ShardingItemFutureTask> futureTaskMap;
 
 	private Object jobBusinessInstance = null;
+
+	private JavaJobInvoker jobInvoker = null;
 	
 	public JavaShardingItemCallable createCallable(String jobName, Integer item, String itemValue, int timeoutSeconds,
 			SaturnExecutionContext shardingContext,  AbstractSaturnJob saturnJob){
@@ -89,6 +90,13 @@ public class SaturnJavaJob extends CrondJob {
 		if (jobBusinessInstance == null) {
 			throw new SchedulerException("init job business instance failed, the job class is " + jobClassStr);
 		}
+		try {
+			jobInvoker = new JavaJobInvoker(jobBusinessInstance, saturnExecutorService.getJobClassLoader(),
+					saturnExecutorService.getExecutorClassLoader());
+		} catch (Throwable t) {
+			log.error(String.format(SaturnConstant.ERROR_LOG_FORMAT, jobName, "create job invoker error"), t);
+			throw new SchedulerException(t);
+		}
 	}
 	
 	@Override
@@ -190,21 +198,15 @@ public class SaturnJavaJob extends CrondJob {
 		log.info("[{}] msg=Running SaturnJavaJob,  jobClass is {} ", jobName, jobClass);
 
 		try {
-			if( jobBusinessInstance == null){
+			if( jobInvoker == null){
 				throw new JobException("the jobClass is not found");
 			}
 			ClassLoader jobClassLoader = saturnExecutorService.getJobClassLoader();
 			ClassLoader executorClassLoader = saturnExecutorService.getExecutorClassLoader();
 			Thread.currentThread().setContextClassLoader(jobClassLoader);
 			try {
-				Class<?> saturnJobExecutionContextClazz = jobClassLoader
-						.loadClass(SaturnJobExecutionContext.class.getCanonicalName());
-
-				Object ret = jobBusinessInstance.getClass()
-						.getMethod("handleJavaJob", String.class, Integer.class, String.class,
-								saturnJobExecutionContextClazz)
-						.invoke(jobBusinessInstance, jobName, key, value, callable.getContextForJob(jobClassLoader));
-				SaturnJobReturn saturnJobReturn = (SaturnJobReturn) JavaShardingItemCallable.cloneObject(ret, executorClassLoader);
+				SaturnJobReturn saturnJobReturn = jobInvoker.handleJavaJob(jobName, key, value,
+						callable.getContextForJob(jobInvoker));
 				if(saturnJobReturn != null) {
 					callable.setBusinessReturned(true);
 				}
@@ -228,20 +230,14 @@ public class SaturnJavaJob extends CrondJob {
 		log.info("[{}] msg=SaturnJavaJob onTimeout,  jobClass is {} ", jobName, jobClass);
 
 		try {
-			if( jobBusinessInstance == null){
+			if( jobInvoker == null){
 				throw new JobException("the jobClass is not found");
 			}
 			ClassLoader executorClassLoader = saturnExecutorService.getExecutorClassLoader();
 			ClassLoader jobClassLoader = saturnExecutorService.getJobClassLoader();
 			Thread.currentThread().setContextClassLoader(jobClassLoader);
 			try {
-				Class<?> saturnJobExecutionContextClazz = jobClassLoader
-						.loadClass(SaturnJobExecutionContext.class.getCanonicalName());
-
-				jobBusinessInstance.getClass()
-						.getMethod("onTimeout", String.class, Integer.class, String.class,
-								saturnJobExecutionContextClazz)
-						.invoke(jobBusinessInstance, jobName, key, value, callable.getContextForJob(jobClassLoader));
+				jobInvoker.onTimeout(jobName, key, value, callable.getContextForJob(jobInvoker));
 			} finally {
 				Thread.currentThread().setContextClassLoader(executorClassLoader);
 			}
@@ -256,20 +252,14 @@ public class SaturnJavaJob extends CrondJob {
 		log.info("[{}] msg=SaturnJavaJob beforeTimeout,  jobClass is {} ", jobName, jobClass);
 
 		try {
-			if( jobBusinessInstance == null){
+			if( jobInvoker == null){
 				throw new JobException("the jobClass is not found");
 			}
 			ClassLoader executorClassLoader = saturnExecutorService.getExecutorClassLoader();
 			ClassLoader jobClassLoader = saturnExecutorService.getJobClassLoader();
 			Thread.currentThread().setContextClassLoader(jobClassLoader);
 			try {
-				Class<?> saturnJobExecutionContextClazz = jobClassLoader
-						.loadClass(SaturnJobExecutionContext.class.getCanonicalName());
-
-				jobBusinessInstance.getClass()
-						.getMethod("beforeTimeout", String.class, Integer.class, String.class,
-								saturnJobExecutionContextClazz)
-						.invoke(jobBusinessInstance, jobName, key, value, callable.getContextForJob(jobClassLoader));
+				jobInvoker.beforeTimeout(jobName, key, value, callable.getContextForJob(jobInvoker));
 			} finally {
 				Thread.currentThread().setContextClassLoader(executorClassLoader);
 			}
@@ -284,7 +274,7 @@ public class SaturnJavaJob extends CrondJob {
 		log.info("[{}] msg=SaturnJavaJob postForceStop,  jobClass is {} ", jobName, jobClass);
 
 		try {
-			if( jobBusinessInstance == null){
+			if( jobInvoker == null){
 				throw new JobException("the jobClass is not found");
 			}
 			ClassLoader executorClassLoader = saturnExecutorService.getExecutorClassLoader();
@@ -292,13 +282,7 @@ public class SaturnJavaJob extends CrondJob {
 			
 			Thread.currentThread().setContextClassLoader(jobClassLoader);
 			try {
-				Class<?> saturnJobExecutionContextClazz = jobClassLoader
-						.loadClass(SaturnJobExecutionContext.class.getCanonicalName());
-
-				jobBusinessInstance.getClass()
-						.getMethod("postForceStop", String.class, Integer.class, String.class,
-								saturnJobExecutionContextClazz)
-						.invoke(jobBusinessInstance, jobName, key, value, callable.getContextForJob(jobClassLoader));
+				jobInvoker.postForceStop(jobName, key, value, callable.getContextForJob(jobInvoker));
 			} finally {
 				Thread.currentThread().setContextClassLoader(executorClassLoader);
 			}
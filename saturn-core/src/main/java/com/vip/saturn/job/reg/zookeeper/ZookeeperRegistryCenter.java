@@ -199,11 +199,20 @@ public class ZookeeperRegistryCenter implements CoordinatorRegistryCenter {
         return null;
     }
     
-    private TreeCache findTreeCache(final String key) {
-        for (Entry<String, TreeCache> entry : caches.entrySet()) {
-            if (key.startsWith(entry.getKey())) {
-                return entry.getValue();
+    /**
+     * 按key中每一级以/结尾的前缀查找缓存，查找次数只与路径深度有关，与缓存数量无关.
+     */
+    TreeCache findTreeCache(final String key) {
+        if (caches.isEmpty()) {
+            return null;
+        }
+        int index = key.indexOf('/', 1);
+        while (index > 0) {
+            TreeCache cache = caches.get(key.substring(0, index + 1));
+            if (null != cache) {
+                return cache;
             }
+            index = key.indexOf('/', index + 1);
         }
         return null;
     }
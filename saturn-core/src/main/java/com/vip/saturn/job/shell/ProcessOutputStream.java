@@ -1,8 +1,8 @@
 package com.vip.saturn.job.shell;
 
-import org.apache.commons.exec.LogOutputStream;
+import java.io.OutputStream;
 
-import com.vip.saturn.job.utils.LRUList;
+import com.vip.saturn.job.utils.LogRingBuffer;
 
 /**
  * 封装子进程的输出信息
@@ -10,36 +10,28 @@ import com.vip.saturn.job.utils.LRUList;
  * @author linzhaoming
  *
  */
-public class ProcessOutputStream extends LogOutputStream {
+public class ProcessOutputStream extends OutputStream {
 	private static final int MAX_LINE = 100;
 
-	/** 保存最近运行的100条记录 */
-	//private LRUMap map = new LRUMap(MAX_LINE);
-	LRUList<String> lruList = new LRUList<>(MAX_LINE);
+	private static final int MAX_BYTES = 64 * 1024;
 
-	Object lock = new Object();
-	
-	public ProcessOutputStream(final int level) {
-		super(level);
+	/** 保存最近运行的100行输出 */
+	private final LogRingBuffer buffer = new LogRingBuffer(MAX_BYTES, MAX_LINE);
+
+	@Override
+	public void write(int b) {
+		buffer.write(b);
 	}
 
 	@Override
-	protected void processLine(final String line, final int level) {
-		synchronized(lock){
-			lruList.put(line);
-		}
+	public void write(byte[] b, int off, int len) {
+		buffer.write(b, off, len);
 	}
 
 	/**
 	 * @return 获取运行作业的日志 
 	 */
 	public String getJobLog() {
-		StringBuilder sb = new StringBuilder();
-		synchronized(lock){
-			for (String line: lruList) {
-				sb.append(line).append(System.lineSeparator());
-			}
-		}
-		return sb.toString();
+		return buffer.toString();
 	}
 }
\ No newline at end of file
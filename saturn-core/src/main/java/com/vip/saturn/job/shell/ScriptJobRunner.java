@@ -129,7 +129,7 @@ public class ScriptJobRunner {
         try {
             createSaturnJobReturnFile();
 
-            ProcessOutputStream processOutputStream = new ProcessOutputStream(1);
+            ProcessOutputStream processOutputStream = new ProcessOutputStream();
             DefaultExecutor executor = new DefaultExecutor();
             PumpStreamHandler streamHandler = new PumpStreamHandler(processOutputStream);
             streamHandler.setStopTimeout(timeoutSeconds * 1000);    //关闭线程等待时间, (注意commons-exec会固定增加2秒的addition)
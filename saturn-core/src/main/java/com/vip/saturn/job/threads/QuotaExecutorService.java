@@ -0,0 +1,228 @@
+package com.vip.saturn.job.threads;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 共享线程池上的一个配额视图：同一时刻最多有maxConcurrency个任务交给共享线程池，其余任务在本视图内排队，
+ * 前一个任务结束后再按FIFO顺序交出下一个。这样各个作业在共享线程池的队列里轮流排队，单个作业无法占满整个线程池。
+ * <p>
+ * shutdown只关闭本视图，不影响共享线程池。
+ * </p>
+ * <p>
+ * 强制终止作业时会对业务线程调用Thread.stop()，ThreadDeath可能晚于业务代码到达，落在任务结束后归还配额的代码中，
+ * 这时重试直到配额归还、排队的任务交出，避免配额泄漏、排队的任务不再执行。
+ * </p>
+ */
+public class QuotaExecutorService extends AbstractExecutorService {
+
+	private final Executor sharedExecutor;
+
+	private final int maxConcurrency;
+
+	private final String threadName;
+
+	private final ArrayDeque<Runnable> pendingTasks = new ArrayDeque<>();
+
+	private final Object lock = new Object();
+
+	private int activeCount = 0;
+
+	private boolean shutdown = false;
+
+	/**
+	 * @param sharedExecutor 共享线程池
+	 * @param maxConcurrency 最大并发数
+	 * @param threadName 任务执行期间线程名的前缀，为null则不修改线程名
+	 */
+	public QuotaExecutorService(Executor sharedExecutor, int maxConcurrency, String threadName) {
+		this.sharedExecutor = sharedExecutor;
+		this.maxConcurrency = Math.max(1, maxConcurrency);
+		this.threadName = threadName;
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		if (command == null) {
+			throw new NullPointerException();
+		}
+		synchronized (lock) {
+			if (shutdown) {
+				throw new RejectedExecutionException("Executor is shutdown, can't accept a command any more");
+			}
+			if (activeCount >= maxConcurrency) {
+				pendingTasks.add(command);
+				return;
+			}
+			activeCount++;
+		}
+		try {
+			sharedExecutor.execute(new QuotaTask(command));
+		} catch (RejectedExecutionException e) {
+			releaseQuota();
+			throw e;
+		}
+	}
+
+	private void releaseQuota() {
+		synchronized (lock) {
+			activeCount--;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * 正在共享线程池中执行或排队的任务数
+	 */
+	public int getActiveCount() {
+		synchronized (lock) {
+			return activeCount;
+		}
+	}
+
+	/**
+	 * 在本视图中等待配额的任务数
+	 */
+	public int getPendingCount() {
+		synchronized (lock) {
+			return pendingTasks.size();
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		synchronized (lock) {
+			shutdown = true;
+			lock.notifyAll();
+		}
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		synchronized (lock) {
+			shutdown = true;
+			List<Runnable> tasks = new ArrayList<>(pendingTasks);
+			pendingTasks.clear();
+			lock.notifyAll();
+			return tasks;
+		}
+	}
+
+	@Override
+	public boolean isShutdown() {
+		synchronized (lock) {
+			return shutdown;
+		}
+	}
+
+	@Override
+	public boolean isTerminated() {
+		synchronized (lock) {
+			return shutdown && activeCount == 0;
+		}
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (lock) {
+			while (!(shutdown && activeCount == 0)) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+			}
+			return true;
+		}
+	}
+
+	private class QuotaTask implements Runnable {
+
+		private final Runnable command;
+
+		// 交出过程中被ThreadDeath打断时可能交出两次，只执行一次
+		private final AtomicBoolean started = new AtomicBoolean(false);
+
+		// 以下字段只在执行本任务的线程中访问
+		private boolean released = false;
+
+		// 用本任务归还的配额交出的下一个排队任务
+		private QuotaTask next;
+
+		QuotaTask(Runnable command) {
+			this.command = command;
+		}
+
+		@Override
+		public void run() {
+			if (!started.compareAndSet(false, true)) {
+				return;
+			}
+			Thread currentThread = Thread.currentThread();
+			String originName = currentThread.getName();
+			try {
+				if (threadName != null) {
+					currentThread.setName(threadName + "-" + originName);
+				}
+				command.run();
+			} finally {
+				afterTask();
+				if (threadName != null) {
+					currentThread.setName(originName);
+				}
+			}
+		}
+
+		/**
+		 * 先归还配额，再交出下一个排队的任务；被ThreadDeath打断时重试
+		 */
+		private void afterTask() {
+			while (true) {
+				try {
+					releaseAndPollNext();
+					dispatchNext();
+					return;
+				} catch (ThreadDeath ignore) {// NOSONAR
+					// 强制终止的ThreadDeath晚到了，业务代码已经结束
+				}
+			}
+		}
+
+		private void releaseAndPollNext() {
+			synchronized (lock) {
+				if (released) {
+					return;
+				}
+				activeCount--;
+				released = true;
+				if (activeCount < maxConcurrency && !pendingTasks.isEmpty()) {
+					next = new QuotaTask(pendingTasks.poll());
+					activeCount++;
+				}
+				lock.notifyAll();
+			}
+		}
+
+		private void dispatchNext() {
+			QuotaTask task = next;
+			if (task == null) {
+				return;
+			}
+			try {
+				sharedExecutor.execute(task);
+				next = null;
+			} catch (RejectedExecutionException ignore) {// NOSONAR
+				// 共享线程池已关闭，排队的任务不会再被执行
+				next = null;
+				releaseQuota();
+			}
+		}
+	}
+}
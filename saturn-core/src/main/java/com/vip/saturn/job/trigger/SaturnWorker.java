@@ -1,10 +1,11 @@
 /**
- * 
+ *
  */
 package com.vip.saturn.job.trigger;
 
 import java.util.Date;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
@@ -16,143 +17,228 @@ import com.vip.saturn.job.basic.AbstractElasticJob;
 import com.vip.saturn.job.basic.SaturnConstant;
 
 /**
+ * 作业的触发状态机。不再独占线程等待，而是把下次触发时间登记到executor的{@link SaturnWorkerEngine}，到点后由dispatch线程执行作业。
+ *
  * @author chembo.huang
  *
  */
-public class SaturnWorker implements Runnable {
+public class SaturnWorker {
 	static Logger log = LoggerFactory.getLogger(SaturnWorker.class);
 
+	private static final String SATURN_QUARTZ_WORKER = "-saturnQuartz-worker";
+
 	private AbstractElasticJob job;
+	private final SaturnWorkerEngine engine;
+	private final String workerName;
 	private OperableTrigger triggerObj;
 	private final Object sigLock = new Object();
 	private boolean paused = false;
 	private boolean triggered = false;
-	private AtomicBoolean halted = new AtomicBoolean(false);
+	// 作业已交给dispatch线程，且尚未执行完成
+	private boolean running = false;
+	private boolean halted = false;
+	private boolean registered = false;
+	private ScheduledFuture<?> nextFireFuture;
+
+	private final Runnable fireTask = new Runnable() {
+		@Override
+		public void run() {
+			fire();
+		}
+	};
+
+	private final Runnable executeTask = new Runnable() {
+		@Override
+		public void run() {
+			executeJob(false);
+		}
+	};
 
-	public SaturnWorker(AbstractElasticJob job, Trigger trigger) throws SchedulerException {
+	private final Runnable fireExecuteTask = new Runnable() {
+		@Override
+		public void run() {
+			executeJob(true);
+		}
+	};
+
+	public SaturnWorker(AbstractElasticJob job, Trigger trigger, SaturnWorkerEngine engine) throws SchedulerException {
 		this.job = job;
+		this.engine = engine;
+		this.workerName = job.getExecutorName() + "_" + job.getJobName() + SATURN_QUARTZ_WORKER;
 		initTrigger(trigger);
 	}
 
+	void start() {
+		synchronized (sigLock) {
+			if (!registered && !halted) {
+				registered = true;
+				engine.register();
+			}
+			scheduleNext();
+		}
+	}
+
 	public void reInitTrigger(Trigger trigger) throws SchedulerException {
-		initTrigger(trigger);
 		synchronized (sigLock) {
-			sigLock.notifyAll();
+			initTrigger(trigger);
+			// 正在执行的话，执行完成后会按新的trigger计算下次触发时间
+			if (!running) {
+				scheduleNext();
+			}
 		}
 	}
-	
+
 	private void initTrigger(Trigger trigger) throws SchedulerException {
 		if(trigger == null) return;
-		
+
 		this.triggerObj = (OperableTrigger) trigger;
 		Date ft = this.triggerObj.computeFirstFireTime(null);
 		if (ft == null) {
 			log.warn("[{}] msg=Based on configured schedule, the given trigger '" + trigger.getKey() + "' will never fire.", job.getJobName());
 		}
 	}
-	
+
 
 	public boolean isShutDown() {
-		return halted.get();
+		synchronized (sigLock) {
+			return halted;
+		}
 	}
-	
+
 	void togglePause(boolean pause) {
 		synchronized (sigLock) {
 			paused = pause;
-			sigLock.notifyAll();
+			if (paused) {
+				cancelNextFire();
+			} else if (!running) {
+				scheduleNext();
+			}
 		}
 	}
 
 	void halt() {
 		synchronized (sigLock) {
-			halted.set(true);
-			sigLock.notifyAll();
+			halted = true;
+			cancelNextFire();
+			if (registered) {
+				registered = false;
+				engine.unregister();
+			}
 		}
 	}
 
 	void trigger() {
 		synchronized (sigLock) {
 			triggered = true;
-			sigLock.notifyAll();
+			// 正在执行的话，执行完成后立即再执行一次
+			if (!running) {
+				scheduleNext();
+			}
 		}
 	}
 
-	@Override
-	public void run() {
-		while (!halted.get()) {
+	/**
+	 * 计算并登记下次触发，调用方需持有sigLock
+	 */
+	private void scheduleNext() {
+		cancelNextFire();
+		if (halted || paused || running) {
+			return;
+		}
+		// 触发执行只有两个条件：1.时间到了；2。点立即执行；
+		if (triggered) {
+			// 重置立即执行标志；立即执行不更新执行时间
+			triggered = false;
+			dispatch(executeTask);
+			return;
+		}
+		if (triggerObj == null) {
+			return;
+		}
+		triggerObj.updateAfterMisfire(null);
+		scheduleFire(triggerObj.getNextFireTime());
+	}
+
+	/**
+	 * 登记到点触发，调用方需持有sigLock
+	 */
+	private void scheduleFire(Date nextFireTime) {
+		if (nextFireTime == null) { // 没有下次执行时间，不执行作业，只等待立即执行
+			return;
+		}
+		long timeUntilTrigger = nextFireTime.getTime() - System.currentTimeMillis();
+		if (timeUntilTrigger > 2) {
 			try {
-				synchronized (sigLock) {
-					while (paused && !halted.get()) {
-						try {
-							sigLock.wait(1000L);
-						} catch (InterruptedException ignore) {
-						}
-					}
-					if (halted.get()) {
-						break;
-					}
-				}
-				boolean noFireTime = false; // 没有下次执行时间，初始化为false
-				long timeUntilTrigger = 1000;
-				if(triggerObj != null){
-					triggerObj.updateAfterMisfire(null);
-					long now = System.currentTimeMillis();
-					Date nextFireTime = triggerObj.getNextFireTime();
-					if(nextFireTime != null) {
-                        timeUntilTrigger = nextFireTime.getTime() - now;
-                    } else {
-                        noFireTime = true;
-                    }
-				}
-				
-				while (!noFireTime && timeUntilTrigger > 2) {
-					synchronized (sigLock) {
-						if (halted.get()) {
-							break;
-						}
-						if (triggered){
-							break;
-						}
-						
-						try {
-							sigLock.wait(timeUntilTrigger);
-						} catch (InterruptedException ignore) {
-						}
-						
-						if(triggerObj != null){
-							long now = System.currentTimeMillis();
-                            Date nextFireTime = triggerObj.getNextFireTime();
-                            if(nextFireTime != null) {
-                                timeUntilTrigger = nextFireTime.getTime() - now;
-                            } else {
-                                noFireTime = true;
-                            }
-						}
-					}
-				}
-				boolean goAhead;
-				// 触发执行只有两个条件：1.时间到了；2。点立即执行；
-				synchronized (sigLock) {
-					goAhead = !halted.get() && !paused;
-					// 重置立即执行标志；
-					if (triggered) {
-						triggered = false;
-					} else { // 非立即执行。即，执行时间到了，或者没有下次执行时间。
-                        goAhead = goAhead && !noFireTime;
-                        if(goAhead && triggerObj != null) { // 执行时间到了，更新执行时间；没有下次执行时间，不更新时间，并且不执行作业
-                            triggerObj.triggered(null);
-                        }
-                    }
-				}
-				if (goAhead) {
-					job.execute();
-				}
-				
-			} catch (RuntimeException e) {
-				log.error(String.format(SaturnConstant.ERROR_LOG_FORMAT, job.getJobName(), e.getMessage()), e);
+				nextFireFuture = engine.schedule(fireTask, timeUntilTrigger);
+			} catch (RejectedExecutionException e) {
+				log.warn("[{}] msg=the trigger engine is shutdown, cannot schedule the job any more", job.getJobName());
 			}
+		} else {
+			// 执行时间到了，由dispatch线程更新执行时间，避免cron计算占用timer线程
+			dispatch(fireExecuteTask);
+		}
+	}
+
+	private void fire() {
+		synchronized (sigLock) {
+			nextFireFuture = null;
+			if (halted || paused || running || triggerObj == null) {
+				return;
+			}
+			// 重新取一次时间，timer可能被提前唤醒，或者trigger已经被reInit
+			scheduleFire(triggerObj.getNextFireTime());
+		}
+	}
+
+	/**
+	 * 交给dispatch线程执行作业，调用方需持有sigLock
+	 */
+	private void dispatch(Runnable task) {
+		running = true;
+		try {
+			engine.dispatch(task);
+		} catch (RejectedExecutionException e) {
+			running = false;
+			log.warn("[{}] msg=the trigger engine is shutdown, cannot execute the job any more", job.getJobName());
 		}
+	}
+
+	private void cancelNextFire() {
+		if (nextFireFuture != null) {
+			nextFireFuture.cancel(false);
+			nextFireFuture = null;
+		}
+	}
+
+	private void executeJob(boolean fireTimeReached) {
+		synchronized (sigLock) {
+			// dispatch之后才暂停的，不再执行，恢复时重新计算下次触发时间
+			if (halted || paused) {
+				running = false;
+				return;
+			}
+			if (fireTimeReached && triggerObj != null) {
+				triggerObj.triggered(null);
+			}
+		}
+		Thread currentThread = Thread.currentThread();
+		String originName = currentThread.getName();
+		currentThread.setName(workerName);
+		try {
+			doExecute();
+		} catch (RuntimeException e) {
+			log.error(String.format(SaturnConstant.ERROR_LOG_FORMAT, job.getJobName(), e.getMessage()), e);
+		} finally {
+			currentThread.setName(originName);
+			synchronized (sigLock) {
+				running = false;
+				scheduleNext();
+			}
+		}
+	}
 
+	protected void doExecute() {
+		job.execute();
 	}
 
-}
\ No newline at end of file
+}
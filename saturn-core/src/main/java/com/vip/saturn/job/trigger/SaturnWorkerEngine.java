@@ -0,0 +1,110 @@
+/**
+ *
+ */
+package com.vip.saturn.job.trigger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vip.saturn.job.threads.ExtendableThreadPoolExecutor;
+import com.vip.saturn.job.threads.SaturnThreadFactory;
+import com.vip.saturn.job.threads.TaskQueue;
+import com.vip.saturn.job.utils.SystemEnvProperties;
+
+/**
+ * Executor级别的作业触发引擎：少量timer线程维护所有作业的下次触发时间（堆），到点后把作业交给dispatch线程池执行，
+ * 取代原来每个作业一个常驻SaturnWorker线程的方式。
+ * 作业执行期间一直占用dispatch线程，每个作业同时最多只有一次执行，所以dispatch线程数上限不小于登记的作业数，长时间运行的作业不会让其它作业排队延迟触发；
+ * 线程按需创建，空闲2分钟后回收。
+ */
+public class SaturnWorkerEngine {
+	static Logger log = LoggerFactory.getLogger(SaturnWorkerEngine.class);
+
+	private static final String SATURN_QUARTZ_TIMER = "-saturnQuartz-timer";
+	private static final String SATURN_QUARTZ_DISPATCHER = "-saturnQuartz-dispatcher";
+
+	private static ConcurrentHashMap<String, SaturnWorkerEngine> engineMap = new ConcurrentHashMap<>();
+
+	private final ScheduledThreadPoolExecutor timer;
+
+	private final ExtendableThreadPoolExecutor dispatcher;
+
+	// 登记的SaturnWorker数
+	private int workerCount;
+
+	private SaturnWorkerEngine(String executorName) {
+		timer = new ScheduledThreadPoolExecutor(SystemEnvProperties.VIP_SATURN_TRIGGER_TIMER_THREADS,
+				new SaturnThreadFactory(executorName + SATURN_QUARTZ_TIMER));
+		timer.setRemoveOnCancelPolicy(true);
+		dispatcher = new ExtendableThreadPoolExecutor(0, SystemEnvProperties.VIP_SATURN_TRIGGER_DISPATCH_MAX_THREADS, 2,
+				TimeUnit.MINUTES, new TaskQueue(), new SaturnThreadFactory(executorName + SATURN_QUARTZ_DISPATCHER));
+	}
+
+	/**
+	 * 获取executor的触发引擎，如果不存在或者已关闭，则新建
+	 */
+	public static synchronized SaturnWorkerEngine getEngine(String executorName) {
+		SaturnWorkerEngine engine = engineMap.get(executorName);
+		if (engine == null || engine.isShutdown()) {
+			engine = new SaturnWorkerEngine(executorName);
+			engineMap.put(executorName, engine);
+		}
+		return engine;
+	}
+
+	/**
+	 * 关闭executor的触发引擎，正在执行的作业不会被中断
+	 */
+	public static synchronized void shutdownEngine(String executorName) {
+		SaturnWorkerEngine engine = engineMap.remove(executorName);
+		if (engine != null) {
+			engine.timer.shutdownNow();
+			engine.dispatcher.shutdown();
+		}
+	}
+
+	synchronized void register() {
+		workerCount++;
+		resizeDispatcher();
+	}
+
+	synchronized void unregister() {
+		workerCount--;
+		resizeDispatcher();
+	}
+
+	private void resizeDispatcher() {
+		dispatcher.setMaximumPoolSize(Math.max(SystemEnvProperties.VIP_SATURN_TRIGGER_DISPATCH_MAX_THREADS, workerCount));
+	}
+
+	/**
+	 * dispatch线程数上限
+	 */
+	public int getMaximumDispatchThreads() {
+		return dispatcher.getMaximumPoolSize();
+	}
+
+	ScheduledFuture<?> schedule(Runnable fireTask, long delayMillis) {
+		return timer.schedule(fireTask, delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	void dispatch(Runnable executeTask) {
+		dispatcher.execute(executeTask);
+	}
+
+	boolean isShutdown() {
+		return timer.isShutdown() || dispatcher.isShutdown();
+	}
+
+	/**
+	 * 当前timer线程数与dispatch线程数之和
+	 */
+	public int getPoolSize() {
+		return timer.getPoolSize() + dispatcher.getPoolSize();
+	}
+}
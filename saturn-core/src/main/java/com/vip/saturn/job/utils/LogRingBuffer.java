@@ -0,0 +1,186 @@
+package com.vip.saturn.job.utils;
+
+import java.nio.charset.Charset;
+
+/**
+ * 保存最近输出的固定大小的字节环形缓冲区.
+ *
+ * <p>
+ * 按行保存最近的maxLines行，总字节数不超过maxBytes，超出时覆盖最早的输出；写入时只复制字节，不创建对象，
+ * 调用{@link #toString()}时才生成日志字符串。行结束符的处理与commons-exec的LogOutputStream相同：\n、\r和\r\n都作为一行的结束.
+ * </p>
+ */
+public class LogRingBuffer {
+
+	private static final int INITIAL_CAPACITY = 512;
+
+	private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(Charset.defaultCharset());
+
+	private final int maxBytes;
+
+	private final int maxLines;
+
+	// 第一次写入时分配，按需扩容到maxBytes
+	private byte[] buf;
+
+	// 已写入的字节总数，不包括行结束符
+	private long written;
+
+	// 最近maxLines个完整行的起止位置，按completedLines % maxLines存放
+	private final long[] lineStarts;
+
+	private final long[] lineEnds;
+
+	private long completedLines;
+
+	// 当前未结束的行的起始位置
+	private long lineStart;
+
+	private boolean lastCR;
+
+	public LogRingBuffer(int maxBytes, int maxLines) {
+		this.maxBytes = maxBytes;
+		this.maxLines = maxLines;
+		this.lineStarts = new long[maxLines];
+		this.lineEnds = new long[maxLines];
+	}
+
+	public synchronized void write(int b) {
+		if (b == '\n' || b == '\r') {
+			endLine(b);
+		} else {
+			lastCR = false;
+			ensureCapacity(1);
+			buf[(int) (written % buf.length)] = (byte) b;
+			written++;
+		}
+	}
+
+	public synchronized void write(byte[] b, int off, int len) {
+		int end = off + len;
+		int from = off;
+		for (int i = off; i < end; i++) {
+			byte c = b[i];
+			if (c == '\n' || c == '\r') {
+				if (i > from) {
+					lastCR = false;
+					put(b, from, i - from);
+				}
+				endLine(c);
+				from = i + 1;
+			}
+		}
+		if (end > from) {
+			lastCR = false;
+			put(b, from, end - from);
+		}
+	}
+
+	private void endLine(int c) {
+		if (c == '\n' && lastCR) {
+			lastCR = false;
+			return;
+		}
+		int index = (int) (completedLines % maxLines);
+		lineStarts[index] = lineStart;
+		lineEnds[index] = written;
+		completedLines++;
+		lineStart = written;
+		lastCR = c == '\r';
+	}
+
+	private void put(byte[] b, int off, int len) {
+		ensureCapacity(len);
+		int capacity = buf.length;
+		if (len > capacity) {
+			written += len - capacity;
+			off += len - capacity;
+			len = capacity;
+		}
+		int pos = (int) (written % capacity);
+		int first = Math.min(len, capacity - pos);
+		System.arraycopy(b, off, buf, pos, first);
+		if (first < len) {
+			System.arraycopy(b, off + first, buf, 0, len - first);
+		}
+		written += len;
+	}
+
+	/**
+	 * 缓冲区写满之前按需扩容，之后不再分配
+	 */
+	private void ensureCapacity(int len) {
+		if (buf == null) {
+			buf = new byte[Math.min(maxBytes, Math.max(INITIAL_CAPACITY, len))];
+			return;
+		}
+		if (buf.length >= maxBytes || written + len <= buf.length) {
+			return;
+		}
+		long required = Math.max(buf.length * 2L, written + len);
+		byte[] newBuf = new byte[(int) Math.min(maxBytes, required)];
+		// 扩容前还没有覆盖过，数据从0开始连续存放
+		System.arraycopy(buf, 0, newBuf, 0, (int) written);
+		buf = newBuf;
+	}
+
+	/**
+	 * @return 最近的日志，每行以System.lineSeparator()结尾；被覆盖了一部分的最早一行只保留未覆盖的部分
+	 */
+	@Override
+	public synchronized String toString() {
+		if (completedLines == 0 && written == 0) {
+			return "";
+		}
+		long floor = buf == null ? 0L : Math.max(0L, written - buf.length);
+		boolean hasPending = written > lineStart;
+		long lines = Math.min(completedLines, hasPending ? maxLines - 1 : maxLines);
+		int segments = (int) lines + (hasPending ? 1 : 0);
+		long[] starts = new long[segments];
+		long[] ends = new long[segments];
+		int count = 0;
+		int size = 0;
+		for (long line = completedLines - lines; line < completedLines; line++) {
+			int index = (int) (line % maxLines);
+			count = addSegment(starts, ends, count, lineStarts[index], lineEnds[index], floor);
+		}
+		if (hasPending) {
+			count = addSegment(starts, ends, count, lineStart, written, floor);
+		}
+		for (int i = 0; i < count; i++) {
+			size += (int) (ends[i] - starts[i]) + LINE_SEPARATOR.length;
+		}
+		byte[] bytes = new byte[size];
+		int pos = 0;
+		for (int i = 0; i < count; i++) {
+			pos = copyOut(starts[i], ends[i], bytes, pos);
+			System.arraycopy(LINE_SEPARATOR, 0, bytes, pos, LINE_SEPARATOR.length);
+			pos += LINE_SEPARATOR.length;
+		}
+		return new String(bytes, Charset.defaultCharset());
+	}
+
+	private static int addSegment(long[] starts, long[] ends, int count, long start, long end, long floor) {
+		if (start < floor && end <= floor) {
+			return count;
+		}
+		starts[count] = Math.max(start, floor);
+		ends[count] = end;
+		return count + 1;
+	}
+
+	private int copyOut(long start, long end, byte[] bytes, int pos) {
+		int len = (int) (end - start);
+		if (len == 0) {
+			return pos;
+		}
+		int capacity = buf.length;
+		int from = (int) (start % capacity);
+		int first = Math.min(len, capacity - from);
+		System.arraycopy(buf, from, bytes, pos, first);
+		if (first < len) {
+			System.arraycopy(buf, 0, bytes, pos + first, len - first);
+		}
+		return pos + len;
+	}
+}
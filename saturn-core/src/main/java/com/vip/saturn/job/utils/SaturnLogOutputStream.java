@@ -1,61 +1,76 @@
 package com.vip.saturn.job.utils;
 
+import java.io.OutputStream;
 import java.io.PrintStream;
 
-import org.apache.commons.exec.LogOutputStream;
-
 /**
  * 捕获System.out输出
+ * <p>
+ * 只捕获通过{@link #initLogger()}注册的分片线程（以及它创建的线程）的输出，保存到该线程的{@link LogRingBuffer}；
+ * 所有线程的输出都原样写到原来的System.out.
+ * </p>
  * @author dylan.xue
  *
  */
-public class SaturnLogOutputStream extends LogOutputStream {
+public class SaturnLogOutputStream extends OutputStream {
 	private static final int MAX_LINE = 100;
+
+	private static final int MAX_BYTES = 64 * 1024;
 	
-	private static ThreadLocal<LRUList<String>> lists = new InheritableThreadLocal<LRUList<String>>() {
-		@Override
-		protected LRUList<String> initialValue() {
-			return new LRUList<String>(MAX_LINE);
-		}
-	};
-	private static PrintStream catchedOut = new PrintStream(new SaturnLogOutputStream(1));
+	private static ThreadLocal<LogRingBuffer> buffers = new InheritableThreadLocal<LogRingBuffer>();
 	private static PrintStream out = System.out; //NOSONAR
+	private static PrintStream catchedOut = new PrintStream(new SaturnLogOutputStream());
 
 	static {
 		System.setOut(catchedOut);
 	}
 	
-	private SaturnLogOutputStream(int level) {
-		super(level);
+	private SaturnLogOutputStream() {
+	}
+
+	@Override
+	public void write(int b) {
+		LogRingBuffer buffer = buffers.get();
+		if (buffer != null) {
+			buffer.write(b);
+		}
+		out.write(b);
 	}
 
-	protected void processLine(String line, int level) {
-		LRUList<String> lruList = (LRUList<String>) lists.get();
-		lruList.put(line);
-		out.println(line);
+	@Override
+	public void write(byte[] b, int off, int len) {
+		LogRingBuffer buffer = buffers.get();
+		if (buffer != null) {
+			buffer.write(b, off, len);
+		}
+		out.write(b, off, len);
 	}
 
+	@Override
+	public void flush() {
+		out.flush();
+	}
+
+	/**
+	 * 开始捕获当前线程的输出
+	 */
 	public static void initLogger() {
-		lists.get().clear();
+		buffers.set(new LogRingBuffer(MAX_BYTES, MAX_LINE));
 	}
 
-	private static void clearCache(){
-		lists.remove();
+	/**
+	 * 停止捕获当前线程的输出
+	 * @return 捕获的输出，当前线程没有注册时返回null
+	 */
+	public static LogRingBuffer clearLogger() {
+		LogRingBuffer buffer = buffers.get();
+		buffers.remove();
+		return buffer;
 	}
 	
 	public static String clearAndGetLog() {
-		try{
-			StringBuilder sb = new StringBuilder();
-			LRUList<String> lruList = (LRUList<String>) lists.get();
-			for (String line : lruList) {
-				sb.append(line).append(System.lineSeparator());
-			}
-			lruList.clear();
-			clearCache();
-			return sb.toString();
-		}catch(Exception e){//NOSONAR
-			return "";
-		}
+		LogRingBuffer buffer = clearLogger();
+		return buffer == null ? "" : buffer.toString();
 	}
 
 }
\ No newline at end of file
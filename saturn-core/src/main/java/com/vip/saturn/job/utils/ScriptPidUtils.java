@@ -5,7 +5,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -77,6 +79,14 @@ public class ScriptPidUtils {
 	
 	private static final String CHECK_RUNNING_JOB_THREAD_NAME = "check-if-job-%s-done";
 	
+	private static final String PROC_PATH = "/proc";
+	
+	private static final String PROFILE_PATH = "/etc/profile";
+	
+	private static final String PROFILE_D_PATH = "/etc/profile.d";
+	
+	private static volatile ProfileEnv profileEnv;
+	
 
 	/**
 	 * 获取当前Saturn的执行目录(executing)
@@ -266,33 +276,110 @@ public class ScriptPidUtils {
 	
 	/**
 	 * This method will kill all the child/grandchild/... processes.
+	 * <p>进程树从/proc读取，整棵树的进程由一条kill命令发送信号，子进程在前，不再逐层fork pgrep、逐个fork kill。
 	 * @param pid pid to kill.
+	 * @return 发送了信号的pid
 	 */
-	public static void killAllChildrenByPid(long pid, boolean force) throws InterruptedException {
+	public static List<Long> killAllChildrenByPid(long pid, boolean force) throws InterruptedException {
+		List<Long> killedPids = new ArrayList<>();
 		if(pid <= UNKNOWN_PID){
-			return;
-		}
-		String pidStr = Long.toString(pid) + "";
-		List<String> pidList = new ArrayList<>();
-		pidList.add(pidStr);
-		while ( null != (pidStr = exeCmdWithoutPipe(CommandLine.parse("pgrep -P " + pidStr), null, null))) {
-			String[] pids = pidStr.split(System.getProperty("line.separator"));
-			for (int i = 0; i < pids.length; i++) {
-				pidList.add(pids[i]);//NOSONAR
-			}
-			pidStr = StringUtils.join(pids,",");
+			return killedPids;
 		}
+		List<Long> pidList = getProcessTree(pid);
 		// make sure kill the son before kill the parent.
+		StringBuilder cmd = new StringBuilder(force ? "kill -9" : "kill");
 		for (int i = pidList.size() - 1; i >=0; i--) {
-			String ppid =  pidList.get(i);
+			Long ppid = pidList.get(i);
 			if(!isPidRunning(ppid)){
 				continue;
 			}
-			if (force) {
-				exeWholeCmd("kill -9 " +ppid);
-			} else {
-				exeWholeCmd("kill " + ppid );
+			cmd.append(' ').append(ppid);
+			killedPids.add(ppid);
+		}
+		if (!killedPids.isEmpty()) {
+			exeCmdWithoutPipe(CommandLine.parse(cmd.toString()), null, null);
+			log.info("msg=sent {} to processes {}", force ? "SIGKILL" : "SIGTERM", killedPids);
+		}
+		return killedPids;
+	}
+	
+	/**
+	 * 获取以pid为根的进程树，按层次排列，根在前
+	 * @param pid 根进程pid
+	 * @return 进程树的所有pid
+	 */
+	public static List<Long> getProcessTree(long pid) {
+		List<Long> pidList = new ArrayList<>();
+		pidList.add(pid);
+		Map<Long, List<Long>> childrenMap = readChildrenFromProc();
+		if (childrenMap == null) {
+			addChildrenByPgrep(pid, pidList);
+			return pidList;
+		}
+		for (int i = 0; i < pidList.size(); i++) {
+			List<Long> children = childrenMap.get(pidList.get(i));
+			if (children != null) {
+				pidList.addAll(children);
+			}
+		}
+		return pidList;
+	}
+	
+	/**
+	 * 扫描一次/proc/[pid]/stat，得到父进程到子进程的映射
+	 * @return 不支持/proc时返回null
+	 */
+	private static Map<Long, List<Long>> readChildrenFromProc() {
+		File[] procFiles = new File(PROC_PATH).listFiles();
+		if (procFiles == null) {
+			return null;
+		}
+		Map<Long, List<Long>> childrenMap = new HashMap<>();
+		for (File procFile : procFiles) {
+			String name = procFile.getName();
+			if (!StringUtils.isNumeric(name)) {
+				continue;
+			}
+			long ppid = readParentPid(procFile);
+			if (ppid <= 0) {
+				continue;
 			}
+			List<Long> children = childrenMap.get(ppid);
+			if (children == null) {
+				children = new ArrayList<>();
+				childrenMap.put(ppid, children);
+			}
+			children.add(Long.valueOf(name));
+		}
+		return childrenMap;
+	}
+	
+	/**
+	 * /proc/[pid]/stat的格式为：pid (comm) state ppid ...，comm中可能有空格和括号，从最后一个')'开始解析
+	 */
+	private static long readParentPid(File procFile) {
+		try {
+			String stat = new String(Files.readAllBytes(new File(procFile, "stat").toPath()), Charset.forName("utf-8"));
+			int index = stat.lastIndexOf(')');
+			if (index < 0) {
+				return UNKNOWN_PID;
+			}
+			String[] fields = stat.substring(index + 1).trim().split(" ");
+			return fields.length > 1 ? Long.parseLong(fields[1]) : UNKNOWN_PID;
+		} catch (IOException | NumberFormatException e) {// NOSONAR
+			// 进程已经退出
+			return UNKNOWN_PID;
+		}
+	}
+	
+	private static void addChildrenByPgrep(long pid, List<Long> pidList) {
+		String pidStr = Long.toString(pid);
+		while ( null != (pidStr = exeCmdWithoutPipe(CommandLine.parse("pgrep -P " + pidStr), null, null))) {
+			String[] pids = pidStr.split(System.getProperty("line.separator"));
+			for (int i = 0; i < pids.length; i++) {
+				pidList.add(Long.valueOf(pids[i].trim()));//NOSONAR
+			}
+			pidStr = StringUtils.join(pids,",");
 		}
 	}
 	
@@ -538,7 +625,37 @@ public class ScriptPidUtils {
  		return map;
 	}
 	
+	/**
+	 * 获取source /etc/profile后的环境变量。结果会被缓存，超过VIP_SATURN_PROFILE_ENV_REFRESH_SECONDS或者/etc/profile被修改后才重新加载，
+	 * 避免每次执行shell作业都fork一个sh进程。
+	 * 
+	 * @return 只读的环境变量
+	 */
 	public static Map<String,String> loadEnv() {
+		return getProfileEnv().env;
+	}
+	
+	private static ProfileEnv getProfileEnv() {
+		ProfileEnv current = profileEnv;
+		if (current != null && !current.isExpired()) {
+			return current;
+		}
+		synchronized (ScriptPidUtils.class) {
+			current = profileEnv;
+			if (current == null || current.isExpired()) {
+				long profileLastModified = getProfileLastModified();
+				current = new ProfileEnv(loadEnvFromProfile(), profileLastModified);
+				profileEnv = current;
+			}
+			return current;
+		}
+	}
+	
+	private static long getProfileLastModified() {
+		return Math.max(new File(PROFILE_PATH).lastModified(), new File(PROFILE_D_PATH).lastModified());
+	}
+	
+	private static Map<String,String> loadEnvFromProfile() {
 		Map<String, String> env = new HashMap<>();
 		try {
 			final CommandLine cmdLine =  new CommandLine("/bin/sh");
@@ -555,15 +672,55 @@ public class ScriptPidUtils {
 	}
 	
 	public static String filterEnvInCmdStr(Map<String,String> env, String cmd) {
-		String patternString = "\\$\\{?(" + StringUtils.join(env.keySet(),"|") + ")\\}?";
-	    Pattern pattern = Pattern.compile(patternString);
+		ProfileEnv current = profileEnv;
+		// 缓存的环境变量直接使用预编译的正则
+		Pattern pattern = current != null && current.env == env ? current.pattern : compileEnvPattern(env);
+		if (pattern == null) {
+			return cmd;
+		}
 	    Matcher matcher = pattern.matcher(cmd);
 	    StringBuffer sb = new StringBuffer();//NOSONAR
 	    while(matcher.find()) {
-	        matcher.appendReplacement(sb, env.get(matcher.group(1)));
+	        matcher.appendReplacement(sb, Matcher.quoteReplacement(env.get(matcher.group(1))));
 	    }
 	    matcher.appendTail(sb);
 	    return sb.toString();
 	}
 	
+	private static Pattern compileEnvPattern(Map<String,String> env) {
+		if (env.isEmpty()) {
+			return null;
+		}
+		List<String> keys = new ArrayList<>(env.size());
+		for (String key : env.keySet()) {
+			keys.add(Pattern.quote(key));
+		}
+		return Pattern.compile("\\$\\{?(" + StringUtils.join(keys, "|") + ")\\}?");
+	}
+	
+	/**
+	 * 缓存的/etc/profile环境变量及其预编译的替换正则
+	 */
+	private static final class ProfileEnv {
+		
+		private final Map<String, String> env;
+		
+		private final Pattern pattern;
+		
+		private final long loadTime = System.currentTimeMillis();
+		
+		private final long profileLastModified;
+		
+		private ProfileEnv(Map<String, String> env, long profileLastModified) {
+			this.env = Collections.unmodifiableMap(env);
+			this.pattern = compileEnvPattern(env);
+			this.profileLastModified = profileLastModified;
+		}
+		
+		private boolean isExpired() {
+			return System.currentTimeMillis() - loadTime >= SystemEnvProperties.VIP_SATURN_PROFILE_ENV_REFRESH_SECONDS * 1000L
+					|| getProfileLastModified() != profileLastModified;
+		}
+	}
+	
 }
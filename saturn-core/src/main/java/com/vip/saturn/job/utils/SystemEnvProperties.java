@@ -50,6 +50,55 @@ public class SystemEnvProperties {
 
 	private static String NAME_VIP_SATURN_SHUTDOWN_TIMEOUT = "VIP_SATURN_SHUTDOWN_TIMEOUT";
 
+	private static String NAME_VIP_SATURN_TRIGGER_TIMER_THREADS = "VIP_SATURN_TRIGGER_TIMER_THREADS";
+	/**
+	 * 每个Executor计算作业触发时间的timer线程数
+	 */
+	public static int VIP_SATURN_TRIGGER_TIMER_THREADS = 2;
+
+	private static String NAME_VIP_SATURN_TRIGGER_DISPATCH_MAX_THREADS = "VIP_SATURN_TRIGGER_DISPATCH_MAX_THREADS";
+	/**
+	 * 每个Executor执行到点作业的dispatch线程数上限，默认与每个域最大作业数量一致；作业执行期间占用dispatch线程，作业数更多时上限按作业数扩大
+	 */
+	public static int VIP_SATURN_TRIGGER_DISPATCH_MAX_THREADS = VIP_SATURN_MAX_NUMBER_OF_JOBS;
+
+	private static String NAME_VIP_SATURN_BUSINESS_MAX_THREADS = "VIP_SATURN_BUSINESS_MAX_THREADS";
+	/**
+	 * 每个Executor共享业务线程池的最大线程数
+	 */
+	public static int VIP_SATURN_BUSINESS_MAX_THREADS = 1000;
+
+	public static String NAME_VIP_SATURN_JOB_BUSINESS_MAX_THREADS = "VIP_SATURN_JOB_BUSINESS_MAX_THREADS";
+	/**
+	 * 每个作业在共享业务线程池中的最大并发分片数，可以通过VIP_SATURN_JOB_BUSINESS_MAX_THREADS_{jobName}单独配置
+	 */
+	public static int VIP_SATURN_JOB_BUSINESS_MAX_THREADS = 100;
+
+	private static String NAME_VIP_SATURN_REPORT_MAX_PENDING_ITEMS = "VIP_SATURN_REPORT_MAX_PENDING_ITEMS";
+	/**
+	 * 每个Executor等待刷新到zk的运行信息分片数上限，超过后不再接收新分片的运行信息（丢弃并计数），已在等待的分片仍然合并
+	 */
+	public static int VIP_SATURN_REPORT_MAX_PENDING_ITEMS = 10000;
+
+	private static String NAME_VIP_SATURN_PROFILE_ENV_REFRESH_SECONDS = "VIP_SATURN_PROFILE_ENV_REFRESH_SECONDS";
+	/**
+	 * Shell作业使用的/etc/profile环境变量的缓存时间（秒），/etc/profile修改后也会立即重新加载
+	 */
+	public static int VIP_SATURN_PROFILE_ENV_REFRESH_SECONDS = 60;
+
+	private static String NAME_VIP_SATURN_FAILOVER_BATCH_SIZE = "VIP_SATURN_FAILOVER_BATCH_SIZE";
+	/**
+	 * 每次获得失效转移主节点时最多接管的分片数，默认1即逐个接管；大于1时按存活的作业服务器数平分待接管的分片，一次接管、一次执行
+	 */
+	public static int VIP_SATURN_FAILOVER_BATCH_SIZE = 1;
+
+	private static String NAME_VIP_SATURN_LEADER_ELECTION_WITHOUT_LATCH = "VIP_SATURN_LEADER_ELECTION_WITHOUT_LATCH";
+	/**
+	 * 选举作业主节点时不再获取leader/election/latch锁，直接创建主节点。旧版本executor在锁内删除并重建主节点，
+	 * 只有域下所有executor都升级后才能开启，默认关闭
+	 */
+	public static boolean VIP_SATURN_LEADER_ELECTION_WITHOUT_LATCH = Boolean.parseBoolean(System.getProperty(NAME_VIP_SATURN_LEADER_ELECTION_WITHOUT_LATCH, System.getenv(NAME_VIP_SATURN_LEADER_ELECTION_WITHOUT_LATCH)));
+
 	static {
 		String maxNumberOfJobs = System.getProperty(NAME_VIP_SATURN_MAX_NUMBER_OF_JOBS, System.getenv(NAME_VIP_SATURN_MAX_NUMBER_OF_JOBS));
 		if(!Strings.isNullOrEmpty(maxNumberOfJobs)) {
@@ -71,6 +120,70 @@ public class SystemEnvProperties {
 		if(VIP_SATURN_SHUTDOWN_TIMEOUT > VIP_SATURN_SHUTDOWN_TIMEOUT_MAX){
 			VIP_SATURN_SHUTDOWN_TIMEOUT = VIP_SATURN_SHUTDOWN_TIMEOUT_MAX;
 		}
+
+		String triggerTimerThreads = System.getProperty(NAME_VIP_SATURN_TRIGGER_TIMER_THREADS, System.getenv(NAME_VIP_SATURN_TRIGGER_TIMER_THREADS));
+		if(!Strings.isNullOrEmpty(triggerTimerThreads)) {
+			try {
+				VIP_SATURN_TRIGGER_TIMER_THREADS = Math.max(1, Integer.parseInt(triggerTimerThreads.trim()));
+			} catch (Throwable t) {
+				log.error("msg=" + t.getMessage(), t);
+			}
+		}
+
+		VIP_SATURN_TRIGGER_DISPATCH_MAX_THREADS = VIP_SATURN_MAX_NUMBER_OF_JOBS;
+		String triggerDispatchMaxThreads = System.getProperty(NAME_VIP_SATURN_TRIGGER_DISPATCH_MAX_THREADS, System.getenv(NAME_VIP_SATURN_TRIGGER_DISPATCH_MAX_THREADS));
+		if(!Strings.isNullOrEmpty(triggerDispatchMaxThreads)) {
+			try {
+				VIP_SATURN_TRIGGER_DISPATCH_MAX_THREADS = Math.max(1, Integer.parseInt(triggerDispatchMaxThreads.trim()));
+			} catch (Throwable t) {
+				log.error("msg=" + t.getMessage(), t);
+			}
+		}
+
+		String businessMaxThreads = System.getProperty(NAME_VIP_SATURN_BUSINESS_MAX_THREADS, System.getenv(NAME_VIP_SATURN_BUSINESS_MAX_THREADS));
+		if(!Strings.isNullOrEmpty(businessMaxThreads)) {
+			try {
+				VIP_SATURN_BUSINESS_MAX_THREADS = Math.max(1, Integer.parseInt(businessMaxThreads.trim()));
+			} catch (Throwable t) {
+				log.error("msg=" + t.getMessage(), t);
+			}
+		}
+
+		String jobBusinessMaxThreads = System.getProperty(NAME_VIP_SATURN_JOB_BUSINESS_MAX_THREADS, System.getenv(NAME_VIP_SATURN_JOB_BUSINESS_MAX_THREADS));
+		if(!Strings.isNullOrEmpty(jobBusinessMaxThreads)) {
+			try {
+				VIP_SATURN_JOB_BUSINESS_MAX_THREADS = Math.max(1, Integer.parseInt(jobBusinessMaxThreads.trim()));
+			} catch (Throwable t) {
+				log.error("msg=" + t.getMessage(), t);
+			}
+		}
+
+		String reportMaxPendingItems = System.getProperty(NAME_VIP_SATURN_REPORT_MAX_PENDING_ITEMS, System.getenv(NAME_VIP_SATURN_REPORT_MAX_PENDING_ITEMS));
+		if(!Strings.isNullOrEmpty(reportMaxPendingItems)) {
+			try {
+				VIP_SATURN_REPORT_MAX_PENDING_ITEMS = Math.max(1, Integer.parseInt(reportMaxPendingItems.trim()));
+			} catch (Throwable t) {
+				log.error("msg=" + t.getMessage(), t);
+			}
+		}
+
+		String profileEnvRefreshSeconds = System.getProperty(NAME_VIP_SATURN_PROFILE_ENV_REFRESH_SECONDS, System.getenv(NAME_VIP_SATURN_PROFILE_ENV_REFRESH_SECONDS));
+		if(!Strings.isNullOrEmpty(profileEnvRefreshSeconds)) {
+			try {
+				VIP_SATURN_PROFILE_ENV_REFRESH_SECONDS = Math.max(0, Integer.parseInt(profileEnvRefreshSeconds.trim()));
+			} catch (Throwable t) {
+				log.error("msg=" + t.getMessage(), t);
+			}
+		}
+
+		String failoverBatchSize = System.getProperty(NAME_VIP_SATURN_FAILOVER_BATCH_SIZE, System.getenv(NAME_VIP_SATURN_FAILOVER_BATCH_SIZE));
+		if(!Strings.isNullOrEmpty(failoverBatchSize)) {
+			try {
+				VIP_SATURN_FAILOVER_BATCH_SIZE = Math.max(1, Integer.parseInt(failoverBatchSize.trim()));
+			} catch (Throwable t) {
+				log.error("msg=" + t.getMessage(), t);
+			}
+		}
 	}
 
 	
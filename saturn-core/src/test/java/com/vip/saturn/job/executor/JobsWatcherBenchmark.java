@@ -0,0 +1,147 @@
+package com.vip.saturn.job.executor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.framework.recipes.cache.TreeCacheListener;
+
+import com.vip.saturn.job.internal.config.ConfigurationNode;
+import com.vip.saturn.job.internal.storage.JobNodePath;
+import com.vip.saturn.job.reg.zookeeper.NestedZookeeperServers;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
+
+/**
+ * 在内嵌ZK上建1k个作业（每个作业约60个节点），对比Executor发现新作业的两种方式占用的堆和ZK watch数：
+ * 原来在整个/$Jobs上的TreeCache，与只监听/$Jobs子节点的PathChildrenCache.
+ */
+public class JobsWatcherBenchmark {
+
+	private static final int PORT = 2190;
+
+	private static final int JOB_COUNT = 1000;
+
+	public static void main(String[] args) throws Exception {
+		File dataDir = new File(System.getProperty("java.io.tmpdir"), "jobs-watcher-benchmark");
+		NestedZookeeperServers.getInstance().startServerIfNotStarted(PORT, dataDir.getAbsolutePath());
+		try {
+			ZookeeperRegistryCenter regCenter = newRegCenter();
+			createJobs(regCenter);
+			regCenter.close();
+
+			// 每种方式使用独立的session，关闭session后服务端才会清掉它的watch
+			regCenter = newRegCenter();
+			long heapBefore = usedHeap();
+			final CountDownLatch initialized = new CountDownLatch(1);
+			TreeCache treeCache = new TreeCache((CuratorFramework) regCenter.getRawClient(), "/" + JobNodePath.$JOBS_NODE_NAME);
+			treeCache.getListenable().addListener(new TreeCacheListener() {
+				@Override
+				public void childEvent(CuratorFramework client, TreeCacheEvent event) throws Exception {
+					if (event.getType() == TreeCacheEvent.Type.INITIALIZED) {
+						initialized.countDown();
+					}
+				}
+			});
+			treeCache.start();
+			initialized.await(60, TimeUnit.SECONDS);
+			System.out.println(String.format("TreeCache on /$Jobs: heap +%d KB, %s", (usedHeap() - heapBefore) / 1024,
+					watches()));
+			treeCache.close();
+			regCenter.close();
+			Thread.sleep(1000L);
+
+			regCenter = newRegCenter();
+			heapBefore = usedHeap();
+			SaturnExecutorService executorService = SaturnExecutorService.init("benchmark", regCenter, "benchmarkExecutor");
+			executorService.registerJobNames();
+			final AtomicInteger newJobs = new AtomicInteger();
+			executorService.addNewJobListenerCallback(new ScheduleNewJobCallback() {
+				@Override
+				public void call(String jobName) {
+					newJobs.incrementAndGet();
+				}
+			});
+			Thread.sleep(3000L);
+			System.out.println(String.format("children watcher on /$Jobs: heap +%d KB, %s", (usedHeap() - heapBefore) / 1024,
+					watches()));
+
+			// 新作业：先建作业节点，再建config/jobClass
+			regCenter.persist(JobNodePath.getJobNameFullPath("newJob"), "");
+			Thread.sleep(500L);
+			regCenter.persist(JobNodePath.getNodeFullPath("newJob", ConfigurationNode.JOB_CLASS), "demo.NewJob");
+			Thread.sleep(1000L);
+			System.out.println("new jobs detected: " + newJobs.get());
+			executorService.shutdownNewJobListener();
+			regCenter.close();
+		} finally {
+			NestedZookeeperServers.getInstance().closeServer(PORT);
+		}
+	}
+
+	private static ZookeeperRegistryCenter newRegCenter() {
+		ZookeeperRegistryCenter regCenter = new ZookeeperRegistryCenter(
+				new ZookeeperConfiguration("127.0.0.1:" + PORT, "benchmark", 1000, 3000, 3));
+		regCenter.init();
+		return regCenter;
+	}
+
+	private static void createJobs(ZookeeperRegistryCenter regCenter) {
+		for (int i = 0; i < JOB_COUNT; i++) {
+			String jobName = "job" + i;
+			for (String config : new String[] { "jobClass", "jobType", "cron", "shardingTotalCount",
+					"shardingItemParameters", "jobParameter", "timeoutSeconds", "description", "enabled",
+					"preferList", "loadLevel", "failover", "showNormalLog", "queueName", "channelName" }) {
+				regCenter.persist(JobNodePath.getConfigNodePath(jobName, config), "some config value of " + config);
+			}
+			for (int server = 0; server < 5; server++) {
+				String serverNode = "servers/executor" + server;
+				regCenter.persist(JobNodePath.getNodeFullPath(jobName, serverNode + "/status"), "READY");
+				regCenter.persist(JobNodePath.getNodeFullPath(jobName, serverNode + "/processSuccessCount"), "100");
+				regCenter.persist(JobNodePath.getNodeFullPath(jobName, serverNode + "/sharding"), "0,1");
+			}
+			for (int item = 0; item < 10; item++) {
+				regCenter.persist(JobNodePath.getNodeFullPath(jobName, "execution/" + item + "/completed"), "");
+				regCenter.persist(JobNodePath.getNodeFullPath(jobName, "execution/" + item + "/lastBeginTime"),
+						String.valueOf(System.currentTimeMillis()));
+			}
+			regCenter.persist(JobNodePath.getNodeFullPath(jobName, "leader/election/host"), "executor0");
+		}
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(200L);
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * ZK四字命令mntr中的zk_watch_count，包括数据watch和子节点watch
+	 */
+	private static String watches() throws Exception {
+		try (Socket socket = new Socket("127.0.0.1", PORT)) {
+			OutputStream out = socket.getOutputStream();
+			out.write("mntr".getBytes("UTF-8"));
+			out.flush();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith("zk_watch_count")) {
+					return "watches " + line.substring("zk_watch_count".length()).trim();
+				}
+			}
+			return "watches unknown";
+		}
+	}
+}
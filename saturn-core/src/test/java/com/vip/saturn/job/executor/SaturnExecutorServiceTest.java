@@ -0,0 +1,123 @@
+package com.vip.saturn.job.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+import org.apache.curator.test.KillSession;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.vip.saturn.job.internal.config.ConfigurationNode;
+import com.vip.saturn.job.internal.storage.JobNodePath;
+import com.vip.saturn.job.reg.zookeeper.NestedZookeeperServers;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
+
+public class SaturnExecutorServiceTest {
+
+	private static final int PORT = 2193;
+
+	private static final String CONNECT_STRING = "127.0.0.1:" + PORT;
+
+	private ZookeeperRegistryCenter regCenter;
+
+	private CuratorFramework client;
+
+	private SaturnExecutorService saturnExecutorService;
+
+	// 回调的作业名
+	private final BlockingQueue<String> scheduledJobs = new LinkedBlockingQueue<>();
+
+	@BeforeClass
+	public static void setUpClass() {
+		File dataDir = new File(System.getProperty("java.io.tmpdir"), "saturn-executor-service-test");
+		NestedZookeeperServers.getInstance().startServerIfNotStarted(PORT, dataDir.getAbsolutePath());
+	}
+
+	@AfterClass
+	public static void tearDownClass() {
+		NestedZookeeperServers.getInstance().closeServer(PORT);
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		ZookeeperConfiguration zkConfig = new ZookeeperConfiguration(CONNECT_STRING, "executorServiceTest", 1000, 3000, 3);
+		zkConfig.setSessionTimeoutMilliseconds(3000);
+		regCenter = new ZookeeperRegistryCenter(zkConfig);
+		regCenter.init();
+		client = (CuratorFramework) regCenter.getRawClient();
+		regCenter.remove("/" + JobNodePath.$JOBS_NODE_NAME);
+		regCenter.persist("/" + JobNodePath.$JOBS_NODE_NAME, "");
+		createJob("job1");
+
+		saturnExecutorService = SaturnExecutorService.init("executorServiceTest", regCenter, "executor");
+		saturnExecutorService.addNewJobListenerCallback(new ScheduleNewJobCallback() {
+			@Override
+			public void call(String jobName) {
+				scheduledJobs.add(jobName);
+			}
+		});
+		assertThat(scheduledJobs.poll(5, TimeUnit.SECONDS)).isEqualTo("job1");
+	}
+
+	@After
+	public void tearDown() {
+		saturnExecutorService.shutdownNewJobListener();
+		regCenter.close();
+	}
+
+	@Test
+	public void testRecreatedJob() throws Exception {
+		// 在一个事务中删除并重建作业，只触发一次子节点watch，作业名不变
+		String jobPath = JobNodePath.getJobNameFullPath("job1");
+		String configPath = JobNodePath.getNodeFullPath("job1", ConfigurationNode.ROOT);
+		String jobClassPath = JobNodePath.getNodeFullPath("job1", ConfigurationNode.JOB_CLASS);
+		client.inTransaction().delete().forPath(jobClassPath).and().delete().forPath(configPath).and().delete()
+				.forPath(jobPath).and().create().forPath(jobPath).and().create().forPath(configPath).and().create()
+				.forPath(jobClassPath, "demo.Job".getBytes("UTF-8")).and().commit();
+
+		assertThat(scheduledJobs.poll(5, TimeUnit.SECONDS)).isEqualTo("job1");
+		assertThat(saturnExecutorService.getJobNames()).containsExactly("job1");
+	}
+
+	@Test
+	public void testJobClassWatchLostWithSession() throws Exception {
+		// 作业还没有config/jobClass，在其上等待创建
+		regCenter.persist(JobNodePath.getNodeFullPath("job2", ConfigurationNode.ROOT), "");
+		Thread.sleep(500L);
+		assertThat(scheduledJobs).isEmpty();
+
+		final CountDownLatch reconnected = new CountDownLatch(1);
+		client.getConnectionStateListenable().addListener(new ConnectionStateListener() {
+			@Override
+			public void stateChanged(CuratorFramework client, ConnectionState newState) {
+				if (newState == ConnectionState.RECONNECTED) {
+					reconnected.countDown();
+				}
+			}
+		});
+		// 会话失效，config/jobClass上的watch随之丢失
+		KillSession.kill(client.getZookeeperClient().getZooKeeper(), CONNECT_STRING);
+		assertThat(reconnected.await(20, TimeUnit.SECONDS)).isTrue();
+		Thread.sleep(500L);
+
+		regCenter.persist(JobNodePath.getNodeFullPath("job2", ConfigurationNode.JOB_CLASS), "demo.Job");
+		assertThat(scheduledJobs.poll(5, TimeUnit.SECONDS)).isEqualTo("job2");
+		assertThat(saturnExecutorService.getJobNames()).containsOnly("job1", "job2");
+	}
+
+	private void createJob(String jobName) {
+		regCenter.persist(JobNodePath.getNodeFullPath(jobName, ConfigurationNode.JOB_CLASS), "demo.Job");
+	}
+}
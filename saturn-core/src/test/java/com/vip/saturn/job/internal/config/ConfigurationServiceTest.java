@@ -2,13 +2,16 @@ package com.vip.saturn.job.internal.config;
 
 import com.vip.saturn.job.basic.JobRegistry;
 import com.vip.saturn.job.basic.JobScheduler;
+import com.vip.saturn.job.exception.ShardingItemParametersException;
 import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
 import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
 import org.junit.Test;
 
 import java.util.Calendar;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 
 /**
  * Created by xiaopeng.he on 2016/9/23.
@@ -93,4 +96,39 @@ public class ConfigurationServiceTest {
         }
     }
 
+    @Test
+    public void test_B_snapshotRebuiltAfterConfigChanged() throws Exception {
+        JobConfiguration jobConfiguration = new JobConfiguration("");
+        jobConfiguration.setShardingItemParameters("0=\"echo {a}!!\",1=b@@c");
+        jobConfiguration.setJobParameter("a=1");
+
+        ZookeeperRegistryCenter zookeeperRegistryCenter = new ZookeeperRegistryCenter(new ZookeeperConfiguration());
+        zookeeperRegistryCenter.setExecutorName("haha");
+        ConfigurationService configurationService = new ConfigurationService(new JobScheduler(zookeeperRegistryCenter, jobConfiguration));
+
+        try {
+            JobConfigurationSnapshot snapshot = jobConfiguration.getSnapshot();
+            assertThat(jobConfiguration.getSnapshot()).isSameAs(snapshot);
+            Map<Integer, String> shardingItemParameters = configurationService.getShardingItemParameters();
+            assertThat(shardingItemParameters).hasSize(2).containsEntry(0, "echo {a}!!").containsEntry(1, "b@@c");
+            assertThat(configurationService.getRealItemValue("a=1", shardingItemParameters.get(0))).isEqualTo("echo 1\"");
+            assertThat(configurationService.getRealItemValue("a=2", shardingItemParameters.get(0))).isEqualTo("echo 2\"");
+            assertThat(configurationService.getRealItemValue("a=1", shardingItemParameters.get(1))).isEqualTo("b=c");
+
+            jobConfiguration.setShardingItemParameters("0=x");
+            assertThat(jobConfiguration.getSnapshot()).isNotSameAs(snapshot);
+            assertThat(configurationService.getShardingItemParameters()).hasSize(1).containsEntry(0, "x");
+
+            jobConfiguration.setShardingItemParameters("0");
+            try {
+                configurationService.getShardingItemParameters();
+                fail("should throw ShardingItemParametersException");
+            } catch (ShardingItemParametersException e) {
+                assertThat(e.getMessage()).isEqualTo("Sharding item parameters '0' format error");
+            }
+        } finally {
+            JobRegistry.clearExecutor(zookeeperRegistryCenter.getExecutorName());
+        }
+    }
+
 }
@@ -0,0 +1,176 @@
+package com.vip.saturn.job.internal.control;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.vip.saturn.job.basic.JobRegistry;
+import com.vip.saturn.job.basic.JobScheduler;
+import com.vip.saturn.job.internal.config.JobConfiguration;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
+import com.vip.saturn.job.utils.SystemEnvProperties;
+
+public class ReportFlusherTest {
+
+	private static final String EXECUTOR_NAME = "reportFlusherTest";
+
+	private final int maxPendingItems = SystemEnvProperties.VIP_SATURN_REPORT_MAX_PENDING_ITEMS;
+
+	// 按刷新顺序记录的作业名和运行信息
+	private final List<String> flushedJobs = Collections.synchronizedList(new ArrayList<String>());
+
+	private final List<Map<Integer, ExecutionInfo>> flushedInfos = Collections
+			.synchronizedList(new ArrayList<Map<Integer, ExecutionInfo>>());
+
+	// 第一次刷新开始后阻塞，直到unblock，模拟zk变慢
+	private final CountDownLatch firstFlushStarted = new CountDownLatch(1);
+
+	private final CountDownLatch unblock = new CountDownLatch(1);
+
+	@After
+	public void tearDown() {
+		unblock.countDown();
+		ReportFlusher.shutdownFlusher(EXECUTOR_NAME);
+		JobRegistry.clearExecutor(EXECUTOR_NAME);
+		SystemEnvProperties.VIP_SATURN_REPORT_MAX_PENDING_ITEMS = maxPendingItems;
+	}
+
+	@Test
+	public void testMergeCompletionKeepsPendingBegin() {
+		ExecutionInfo begin = new ExecutionInfo(1, 100L);
+		begin.setNextFireTime(200L);
+		ExecutionInfo complete = new ExecutionInfo(1);
+		complete.setLastCompleteTime(150L);
+		complete.setJobMsg("ok");
+		complete.setJobLog("log");
+
+		ExecutionInfo merged = ReportFlusher.merge(begin, complete);
+		assertThat(merged.getLastBeginTime()).isEqualTo(100L);
+		assertThat(merged.getLastCompleteTime()).isEqualTo(150L);
+		assertThat(merged.getNextFireTime()).isEqualTo(200L);
+		assertThat(merged.getJobMsg()).isEqualTo("ok");
+		assertThat(merged.getJobLog()).isEqualTo("log");
+	}
+
+	@Test
+	public void testMergeNewerBeginClearsPendingCompletion() {
+		ExecutionInfo previous = new ExecutionInfo(1);
+		previous.setLastCompleteTime(150L);
+		previous.setNextFireTime(200L);
+		previous.setJobMsg("previous run");
+		previous.setJobLog("previous log");
+		ExecutionInfo begin = new ExecutionInfo(1, 300L);
+
+		ExecutionInfo merged = ReportFlusher.merge(previous, begin);
+		assertThat(merged.getLastBeginTime()).isEqualTo(300L);
+		assertThat(merged.getLastCompleteTime()).isNull();
+		assertThat(merged.getJobMsg()).isNull();
+		assertThat(merged.getJobLog()).isNull();
+		assertThat(merged.getNextFireTime()).isEqualTo(200L);
+	}
+
+	@Test
+	public void testFlushOrder() throws Exception {
+		ReportFlusher flusher = ReportFlusher.getFlusher(EXECUTOR_NAME);
+		ReportService jobA = mockReportService("jobA");
+		ReportService jobB = mockReportService("jobB");
+		ReportService jobC = mockReportService("jobC");
+
+		flusher.submit(jobA, infos(new ExecutionInfo(0, 1L)));
+		assertThat(firstFlushStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// 第一次刷新阻塞期间提交的按提交顺序刷新，同一分片合并为一份
+		flusher.submit(jobC, infos(new ExecutionInfo(0, 2L)));
+		flusher.submit(jobB, infos(new ExecutionInfo(0, 3L)));
+		ExecutionInfo complete = new ExecutionInfo(0);
+		complete.setLastCompleteTime(4L);
+		flusher.submit(jobC, infos(complete));
+		assertThat(flusher.getPendingItems()).isEqualTo(2);
+
+		unblock.countDown();
+		waitFlushed(flusher, 3);
+		assertThat(flushedJobs).containsExactly("jobA", "jobC", "jobB");
+		ExecutionInfo mergedC = flushedInfos.get(1).get(0);
+		assertThat(mergedC.getLastBeginTime()).isEqualTo(2L);
+		assertThat(mergedC.getLastCompleteTime()).isEqualTo(4L);
+	}
+
+	@Test
+	public void testDropNewItemsOverLimit() throws Exception {
+		SystemEnvProperties.VIP_SATURN_REPORT_MAX_PENDING_ITEMS = 2;
+		ReportFlusher flusher = ReportFlusher.getFlusher(EXECUTOR_NAME);
+		ReportService job = mockReportService("job");
+
+		flusher.submit(job, infos(new ExecutionInfo(0, 1L)));
+		assertThat(firstFlushStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		flusher.submit(job, infos(new ExecutionInfo(1, 2L), new ExecutionInfo(2, 2L)));
+		// 达到上限，新分片被丢弃，已在等待的分片仍然合并
+		flusher.submit(job, infos(new ExecutionInfo(3, 3L)));
+		ExecutionInfo complete = new ExecutionInfo(1);
+		complete.setLastCompleteTime(4L);
+		flusher.submit(job, infos(complete));
+		assertThat(flusher.getPendingItems()).isEqualTo(2);
+		assertThat(flusher.getDroppedItems()).isEqualTo(1);
+
+		unblock.countDown();
+		waitFlushed(flusher, 2);
+		assertThat(flushedInfos.get(1).keySet()).containsOnly(1, 2);
+		assertThat(flushedInfos.get(1).get(1).getLastCompleteTime()).isEqualTo(4L);
+		assertThat(flusher.getDroppedItems()).isEqualTo(0);
+
+		// 刷新后恢复接收
+		flusher.submit(job, infos(new ExecutionInfo(3, 5L)));
+		waitFlushed(flusher, 3);
+		assertThat(flushedInfos.get(2).keySet()).containsOnly(3);
+	}
+
+	/**
+	 * 记录刷新顺序的ReportService，不连接zk
+	 */
+	private ReportService mockReportService(final String jobName) {
+		ZookeeperRegistryCenter regCenter = new ZookeeperRegistryCenter(new ZookeeperConfiguration());
+		regCenter.setExecutorName(EXECUTOR_NAME);
+		return new ReportService(new JobScheduler(regCenter, new JobConfiguration(jobName))) {
+			@Override
+			void flushToZk(Map<Integer, ExecutionInfo> infos) {
+				flushedJobs.add(jobName);
+				flushedInfos.add(new HashMap<>(infos));
+				firstFlushStarted.countDown();
+				try {
+					unblock.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+	}
+
+	private static Map<Integer, ExecutionInfo> infos(ExecutionInfo... infos) {
+		Map<Integer, ExecutionInfo> map = new HashMap<>();
+		for (ExecutionInfo info : infos) {
+			map.put(info.getItem(), info);
+		}
+		return map;
+	}
+
+	private void waitFlushed(ReportFlusher flusher, int flushes) throws InterruptedException {
+		for (int i = 0; i < 500; i++) {
+			if (flushedJobs.size() >= flushes && flusher.getPendingItems() == 0) {
+				return;
+			}
+			Thread.sleep(10L);
+		}
+		throw new AssertionError("flush timeout");
+	}
+}
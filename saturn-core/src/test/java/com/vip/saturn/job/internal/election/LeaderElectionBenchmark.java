@@ -0,0 +1,147 @@
+package com.vip.saturn.job.internal.election;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+
+import com.vip.saturn.job.internal.config.JobConfiguration;
+import com.vip.saturn.job.internal.storage.JobNodeStorage;
+import com.vip.saturn.job.internal.storage.LeaderExecutionCallback;
+import com.vip.saturn.job.reg.zookeeper.NestedZookeeperServers;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
+
+/**
+ * 在内嵌ZK上模拟一个executor是1000个作业的主节点，该executor下线后其它executor同时重新选举：
+ * 每次选举创建LeaderLatch（默认，兼容旧版本executor），与开启VIP_SATURN_LEADER_ELECTION_WITHOUT_LATCH后直接创建临时节点leader/election/host的对比，
+ * 统计全部作业选出主节点的耗时.
+ */
+public class LeaderElectionBenchmark {
+
+	private static final int PORT = 2190;
+
+	private static final int JOBS = 1000;
+
+	private static final int SURVIVORS = 4;
+
+	// 每个executor处理选举事件的线程数
+	private static final int THREADS = 10;
+
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) throws Exception {
+		File dataDir = new File(System.getProperty("java.io.tmpdir"), "leader-election-benchmark");
+		NestedZookeeperServers.getInstance().startServerIfNotStarted(PORT, dataDir.getAbsolutePath());
+		try {
+			for (int round = 0; round < ROUNDS; round++) {
+				run("latch", true, round);
+				run("lease", false, round);
+			}
+		} finally {
+			NestedZookeeperServers.getInstance().closeServer(PORT);
+		}
+	}
+
+	private static ZookeeperRegistryCenter newRegCenter() {
+		ZookeeperConfiguration zkConfig = new ZookeeperConfiguration("127.0.0.1:" + PORT, "benchmark", 1000, 3000, 3);
+		zkConfig.setSessionTimeoutMilliseconds(3000);
+		ZookeeperRegistryCenter regCenter = new ZookeeperRegistryCenter(zkConfig);
+		regCenter.init();
+		return regCenter;
+	}
+
+	private static void run(String name, final boolean legacy, int round) throws Exception {
+		ZookeeperRegistryCenter leader = newRegCenter();
+		for (int j = 0; j < JOBS; j++) {
+			newStorage(leader, j).createEphemeralJobNodeIfAbsent(ElectionNode.LEADER_HOST, "leader");
+		}
+
+		final CountDownLatch elected = new CountDownLatch(JOBS);
+		final AtomicInteger elections = new AtomicInteger();
+		List<ZookeeperRegistryCenter> regCenters = new ArrayList<>();
+		List<ExecutorService> executorServices = new ArrayList<>();
+		for (int s = 0; s < SURVIVORS; s++) {
+			ZookeeperRegistryCenter regCenter = newRegCenter();
+			final ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+			regCenters.add(regCenter);
+			executorServices.add(executorService);
+			final String executorName = "executor" + s;
+			for (int j = 0; j < JOBS; j++) {
+				final JobNodeStorage storage = newStorage(regCenter, j);
+				storage.isJobNodeExistedWithWatcher(ElectionNode.LEADER_HOST, new Watcher() {
+
+					@Override
+					public void process(WatchedEvent event) {
+						if (event.getType() != Event.EventType.NodeDeleted) {
+							return;
+						}
+						executorService.submit(new Runnable() {
+
+							@Override
+							public void run() {
+								elections.incrementAndGet();
+								if (elect(storage, executorName, legacy)) {
+									elected.countDown();
+								}
+							}
+						});
+					}
+				});
+			}
+		}
+
+		long start = System.nanoTime();
+		leader.close();
+		boolean finished = elected.await(5, TimeUnit.MINUTES);
+		long millis = (System.nanoTime() - start) / 1000000;
+		// 等待其它executor的选举全部结束
+		for (ExecutorService executorService : executorServices) {
+			executorService.shutdown();
+			executorService.awaitTermination(5, TimeUnit.MINUTES);
+		}
+		long drainMillis = (System.nanoTime() - start) / 1000000;
+
+		ZookeeperRegistryCenter cleaner = regCenters.get(0);
+		for (int j = 0; j < JOBS; j++) {
+			cleaner.remove("/" + jobName(j));
+		}
+		for (ZookeeperRegistryCenter regCenter : regCenters) {
+			regCenter.close();
+		}
+		System.out.println(String.format("%s round %d, %d jobs re-elected by %d executors in %d ms%s, all %d elections finished in %d ms",
+				name, round, JOBS, SURVIVORS, millis, finished ? "" : " (timeout)", elections.get(), drainMillis));
+	}
+
+	private static boolean elect(final JobNodeStorage storage, final String executorName, boolean legacy) {
+		if (!legacy) {
+			return !storage.isJobNodeExisted(ElectionNode.LEADER_HOST)
+					&& storage.createEphemeralJobNodeIfAbsent(ElectionNode.LEADER_HOST, executorName);
+		}
+		final boolean[] result = new boolean[1];
+		storage.executeInLeader(ElectionNode.LATCH, new LeaderExecutionCallback() {
+
+			@Override
+			public void execute() {
+				result[0] = !storage.isJobNodeExisted(ElectionNode.LEADER_HOST)
+						&& storage.createEphemeralJobNodeIfAbsent(ElectionNode.LEADER_HOST, executorName);
+			}
+		});
+		return result[0];
+	}
+
+	private static JobNodeStorage newStorage(ZookeeperRegistryCenter regCenter, int job) {
+		return new JobNodeStorage(regCenter, new JobConfiguration(jobName(job)));
+	}
+
+	private static String jobName(int job) {
+		return "electionJob" + job;
+	}
+}
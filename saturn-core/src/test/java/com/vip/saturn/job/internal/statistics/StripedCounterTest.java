@@ -0,0 +1,95 @@
+package com.vip.saturn.job.internal.statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class StripedCounterTest {
+
+	@Test
+	public void assertSumThenResetNeverLosesIncrements() throws Exception {
+		final StripedCounter counter = new StripedCounter();
+		final int threads = 8;
+		final int incrementsPerThread = 200000;
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int i = 0; i < threads; i++) {
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < incrementsPerThread; j++) {
+						counter.increment();
+					}
+					done.countDown();
+				}
+			}).start();
+		}
+		long drained = 0;
+		while (done.getCount() > 0) {
+			drained += counter.sumThenReset();
+		}
+		drained += counter.sumThenReset();
+		assertThat(drained).isEqualTo((long) threads * incrementsPerThread);
+		assertThat(counter.sum()).isEqualTo(0L);
+	}
+
+	@Test
+	public void assertCellsAllocatedOnlyOnContention() throws InterruptedException {
+		StripedCounter counter = new StripedCounter();
+		for (int i = 0; i < 1000; i++) {
+			counter.increment();
+		}
+		assertThat(counter.isStriped()).isFalse();
+		assertThat(counter.sumThenReset()).isEqualTo(1000L);
+
+		// 多个线程一直累加，直到出现CAS失败而分配槽
+		final StripedCounter contended = new StripedCounter();
+		final AtomicLong total = new AtomicLong();
+		final long deadline = System.currentTimeMillis() + 10000L;
+		final int threads = 8;
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int i = 0; i < threads; i++) {
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					long count = 0;
+					while (!contended.isStriped() && System.currentTimeMillis() < deadline) {
+						for (int j = 0; j < 1000; j++) {
+							contended.increment();
+						}
+						count += 1000;
+					}
+					for (int j = 0; j < 1000; j++) {
+						contended.increment();
+					}
+					total.addAndGet(count + 1000);
+					done.countDown();
+				}
+			}).start();
+		}
+		done.await();
+		assertThat(contended.isStriped()).isTrue();
+		assertThat(contended.sum()).isEqualTo(total.get());
+	}
+
+	@Test
+	public void assertCountsBeyondIntRange() {
+		StripedCounter counter = new StripedCounter();
+		counter.add(Integer.MAX_VALUE);
+		counter.add(Integer.MAX_VALUE);
+		counter.increment();
+		assertThat(counter.sum()).isEqualTo(2L * Integer.MAX_VALUE + 1);
+	}
+
+	@Test
+	public void assertCountersAreSharedPerJob() {
+		JobProcessCounters counters = ProcessCountStatistics.getCounters("executor_counter_test", "job");
+		assertThat(ProcessCountStatistics.getCounters("executor_counter_test", "job")).isSameAs(counters);
+		counters.incrementProcessSuccessCount(3);
+		assertThat(ProcessCountStatistics.getProcessSuccessCount("executor_counter_test", "job")).isEqualTo(3L);
+		ProcessCountStatistics.resetSuccessFailureCount("executor_counter_test", "job");
+		assertThat(counters.getProcessSuccessCount()).isEqualTo(0L);
+	}
+}
@@ -0,0 +1,116 @@
+package com.vip.saturn.job.internal.storage;
+
+import java.io.File;
+import java.util.Arrays;
+
+import com.vip.saturn.job.internal.config.JobConfiguration;
+import com.vip.saturn.job.internal.execution.ExecutionNode;
+import com.vip.saturn.job.reg.zookeeper.NestedZookeeperServers;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
+
+/**
+ * 在内嵌ZK上统计不同分片数下，作业开始（删completed、建running、删failed/timeout）和作业完成（建completed、删running）的耗时：
+ * 逐个分片调用JobNodeStorage与使用JobNodeBatch批量提交的对比.
+ */
+public class JobNodeBatchBenchmark {
+
+	private static final int PORT = 2189;
+
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) throws Exception {
+		File dataDir = new File(System.getProperty("java.io.tmpdir"), "job-node-batch-benchmark");
+		NestedZookeeperServers.getInstance().startServerIfNotStarted(PORT, dataDir.getAbsolutePath());
+		ZookeeperConfiguration zkConfig = new ZookeeperConfiguration("127.0.0.1:" + PORT, "benchmark", 1000, 3000, 3);
+		ZookeeperRegistryCenter regCenter = new ZookeeperRegistryCenter(zkConfig);
+		regCenter.init();
+		try {
+			for (int shardCount : new int[] { 10, 50, 200, 1000 }) {
+				String jobName = "batchJob" + shardCount;
+				regCenter.persist(JobNodePath.getNodeFullPath(jobName, ExecutionNode.ROOT), "");
+				regCenter.addCacheData(JobNodePath.getJobNameFullPath(jobName));
+				JobNodeStorage storage = new JobNodeStorage(regCenter, new JobConfiguration(jobName));
+				// 预热并建好execution/item节点
+				runSingle(storage, shardCount);
+				runBatch(storage, shardCount);
+
+				long[] singleBegin = new long[ROUNDS], singleComplete = new long[ROUNDS];
+				long[] batchBegin = new long[ROUNDS], batchComplete = new long[ROUNDS];
+				for (int i = 0; i < ROUNDS; i++) {
+					long[] single = runSingle(storage, shardCount);
+					singleBegin[i] = single[0];
+					singleComplete[i] = single[1];
+					long[] batch = runBatch(storage, shardCount);
+					batchBegin[i] = batch[0];
+					batchComplete[i] = batch[1];
+				}
+				System.out.println(String.format(
+						"shards=%d, begin ms single=%.1f batch=%.1f, complete ms single=%.1f batch=%.1f", shardCount,
+						median(singleBegin), median(batchBegin), median(singleComplete), median(batchComplete)));
+				regCenter.closeTreeCache(JobNodePath.getJobNameFullPath(jobName));
+				regCenter.remove(JobNodePath.getJobNameFullPath(jobName));
+			}
+		} finally {
+			regCenter.close();
+			NestedZookeeperServers.getInstance().closeServer(PORT);
+		}
+	}
+
+	private static long[] runSingle(JobNodeStorage storage, int shardCount) throws InterruptedException {
+		long start = System.nanoTime();
+		for (int item = 0; item < shardCount; item++) {
+			storage.removeJobNodeIfExisted(ExecutionNode.getCompletedNode(item));
+			storage.fillEphemeralJobNode(ExecutionNode.getRunningNode(item), "");
+			storage.removeJobNodeIfExisted(ExecutionNode.getFailedNode(item));
+			storage.removeJobNodeIfExisted(ExecutionNode.getTimeoutNode(item));
+		}
+		long begin = System.nanoTime() - start;
+		waitForCache();
+		start = System.nanoTime();
+		for (int item = 0; item < shardCount; item++) {
+			storage.createJobNodeIfNeeded(ExecutionNode.getCompletedNode(item));
+			storage.removeJobNodeIfExisted(ExecutionNode.getRunningNode(item));
+		}
+		long complete = System.nanoTime() - start;
+		waitForCache();
+		return new long[] { begin, complete };
+	}
+
+	private static long[] runBatch(JobNodeStorage storage, int shardCount) throws InterruptedException {
+		long start = System.nanoTime();
+		JobNodeBatch batch = storage.createBatch();
+		for (int item = 0; item < shardCount; item++) {
+			batch.removeJobNodeIfExisted(ExecutionNode.getCompletedNode(item));
+			batch.fillEphemeralJobNode(ExecutionNode.getRunningNode(item), "");
+			batch.removeJobNodeIfExisted(ExecutionNode.getFailedNode(item));
+			batch.removeJobNodeIfExisted(ExecutionNode.getTimeoutNode(item));
+		}
+		batch.commit();
+		long begin = System.nanoTime() - start;
+		waitForCache();
+		start = System.nanoTime();
+		batch = storage.createBatch();
+		for (int item = 0; item < shardCount; item++) {
+			batch.createJobNodeIfNeeded(ExecutionNode.getCompletedNode(item));
+			batch.removeExistedJobNode(ExecutionNode.getRunningNode(item));
+		}
+		batch.commit();
+		long complete = System.nanoTime() - start;
+		waitForCache();
+		return new long[] { begin, complete };
+	}
+
+	/**
+	 * 模拟作业执行的间隔，让TreeCache追上节点变更
+	 */
+	private static void waitForCache() throws InterruptedException {
+		Thread.sleep(300L);
+	}
+
+	private static double median(long[] nanos) {
+		long[] sorted = nanos.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2] / 1000000.0;
+	}
+}
@@ -0,0 +1,104 @@
+package com.vip.saturn.job.internal.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.vip.saturn.job.internal.config.JobConfiguration;
+import com.vip.saturn.job.reg.zookeeper.NestedZookeeperServers;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
+
+public class JobNodeBatchTest {
+
+	private static final int PORT = 2192;
+
+	private static final String JOB_NAME = "batchTestJob";
+
+	private static ZookeeperRegistryCenter regCenter;
+
+	private JobNodeStorage storage;
+
+	@BeforeClass
+	public static void setUpClass() {
+		File dataDir = new File(System.getProperty("java.io.tmpdir"), "job-node-batch-test");
+		NestedZookeeperServers.getInstance().startServerIfNotStarted(PORT, dataDir.getAbsolutePath());
+		regCenter = new ZookeeperRegistryCenter(new ZookeeperConfiguration("127.0.0.1:" + PORT, "batchTest", 1000, 3000, 3));
+		regCenter.init();
+	}
+
+	@AfterClass
+	public static void tearDownClass() {
+		regCenter.close();
+		NestedZookeeperServers.getInstance().closeServer(PORT);
+	}
+
+	@Before
+	public void setUp() {
+		regCenter.remove(JobNodePath.getJobNameFullPath(JOB_NAME));
+		regCenter.persist(JobNodePath.getNodeFullPath(JOB_NAME, "test"), "");
+		storage = new JobNodeStorage(regCenter, new JobConfiguration(JOB_NAME));
+	}
+
+	@Test
+	public void testChunkOverLimit() {
+		// 150个8K的节点超过jute.maxbuffer，放在一个multi事务中会失败
+		char[] chars = new char[8 * 1024];
+		Arrays.fill(chars, 'x');
+		String value = new String(chars);
+		JobNodeBatch batch = storage.createBatch();
+		for (int i = 0; i < 150; i++) {
+			batch.replaceJobNodeIfChanged("test/data" + i, value + i);
+		}
+		// 超过单个事务的操作数
+		for (int i = 0; i < 1200; i++) {
+			batch.createJobNodeIfNeeded("test/node" + i);
+		}
+		assertThat(batch.commit()).isTrue();
+		assertThat(batch.isEmpty()).isTrue();
+		for (int i = 0; i < 150; i++) {
+			assertThat(storage.getJobNodeDataDirectly("test/data" + i)).isEqualTo(value + i);
+		}
+		assertThat(storage.getJobNodeChildrenKeys("test")).hasSize(1350);
+	}
+
+	@Test
+	public void testFallbackOnFailedOperation() {
+		storage.createJobNodeIfNeeded("test/existed");
+		JobNodeBatch batch = storage.createBatch();
+		batch.createJobNodeIfNeeded("test/a");
+		// 节点不存在，整个事务失败，逐个回退到单节点操作
+		batch.removeExistedJobNode("test/notExisted");
+		batch.replaceJobNodeIfChanged("test/b", "b");
+		batch.fillEphemeralJobNode("test/running", "executor");
+		batch.removeJobNodeIfExisted("test/existed");
+		assertThat(batch.commit()).isFalse();
+
+		assertThat(storage.isJobNodeExisted("test/a")).isTrue();
+		assertThat(storage.getJobNodeDataDirectly("test/b")).isEqualTo("b");
+		assertThat(storage.getJobNodeDataDirectly("test/running")).isEqualTo("executor");
+		assertThat(storage.isJobNodeExisted("test/existed")).isFalse();
+		assertThat(storage.isJobNodeExisted("test/notExisted")).isFalse();
+	}
+
+	@Test
+	public void testWithoutFallback() {
+		storage.createJobNodeIfNeeded("test/existed");
+		JobNodeBatch batch = storage.createBatch().withoutFallback();
+		batch.fillEphemeralJobNode("test/running", "executor");
+		batch.removeJobNodeIfExisted("test/existed");
+		// 节点不存在，整个事务失败，不回退
+		batch.removeExistedJobNode("test/notExisted");
+		assertThat(batch.commit()).isFalse();
+		assertThat(batch.isEmpty()).isTrue();
+
+		assertThat(storage.isJobNodeExisted("test/running")).isFalse();
+		assertThat(storage.isJobNodeExisted("test/existed")).isTrue();
+	}
+}
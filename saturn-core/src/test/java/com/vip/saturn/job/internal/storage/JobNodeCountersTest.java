@@ -0,0 +1,180 @@
+package com.vip.saturn.job.internal.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.vip.saturn.job.exception.JobException;
+import com.vip.saturn.job.internal.config.JobConfiguration;
+import com.vip.saturn.job.reg.zookeeper.NestedZookeeperServers;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
+
+public class JobNodeCountersTest {
+
+	private static final int PORT = 2194;
+
+	private static final String JOB_NAME = "countersTestJob";
+
+	private static final String PROCESS_COUNT = "analyse/processCount";
+
+	private static final String ERROR_COUNT = "analyse/errorCount";
+
+	private static ZookeeperRegistryCenter regCenter;
+
+	private FaultyJobNodeStorage storage;
+
+	@BeforeClass
+	public static void setUpClass() {
+		File dataDir = new File(System.getProperty("java.io.tmpdir"), "job-node-counters-test");
+		NestedZookeeperServers.getInstance().startServerIfNotStarted(PORT, dataDir.getAbsolutePath());
+		regCenter = new ZookeeperRegistryCenter(new ZookeeperConfiguration("127.0.0.1:" + PORT, "countersTest", 1000, 3000, 3));
+		regCenter.setExecutorName("executor");
+		regCenter.init();
+	}
+
+	@AfterClass
+	public static void tearDownClass() {
+		regCenter.close();
+		NestedZookeeperServers.getInstance().closeServer(PORT);
+	}
+
+	@Before
+	public void setUp() {
+		regCenter.remove(JobNodePath.getJobNameFullPath(JOB_NAME));
+		storage = new FaultyJobNodeStorage();
+	}
+
+	@Test
+	public void testIncrement() {
+		storage.incrementJobNodeCounters(deltas(3L, 1L));
+		storage.incrementJobNodeCounters(deltas(2L, 0L));
+		assertCounts(5L, 1L);
+	}
+
+	@Test
+	public void testConnectionLossAfterWritten() {
+		// 事务已提交但客户端收到连接断开，不再重复累加
+		storage.lossAfterCommit = true;
+		storage.incrementJobNodeCounters(deltas(3L, 1L));
+		assertCounts(3L, 1L);
+		assertThat(storage.commits).isEqualTo(1);
+	}
+
+	@Test
+	public void testConnectionLossBeforeWritten() {
+		// 事务没有提交，重新累加
+		storage.lossBeforeCommit = true;
+		storage.incrementJobNodeCounters(deltas(3L, 1L));
+		assertCounts(3L, 1L);
+		assertThat(storage.commits).isEqualTo(1);
+	}
+
+	@Test
+	public void testUnknownResultCarriedForward() {
+		// 事务已提交，连接断开后也无法读取，结果留到下次判断
+		storage.lossAfterCommit = true;
+		storage.unreadable = true;
+		try {
+			storage.incrementJobNodeCounters(deltas(3L, 1L));
+			throw new AssertionError("the result should be unknown");
+		} catch (JobException e) {
+			assertThat(e.getMessage()).contains("unknown");
+		}
+		assertCounts(3L, 1L);
+
+		// 调用方把增量留到下次，与新的增量一起提交，已写入的部分不再累加
+		storage.lossAfterCommit = false;
+		storage.unreadable = false;
+		storage.incrementJobNodeCounters(deltas(3L + 4L, 1L));
+		assertCounts(7L, 1L);
+	}
+
+	@Test
+	public void testUnknownResultNotWritten() {
+		// 事务没有提交，连接断开后也无法读取，下次判断出没有写入，增量全部累加
+		storage.lossBeforeCommit = true;
+		storage.unreadable = true;
+		try {
+			storage.incrementJobNodeCounters(deltas(3L, 1L));
+			throw new AssertionError("the result should be unknown");
+		} catch (JobException e) {
+			assertThat(e.getMessage()).contains("unknown");
+		}
+		assertCounts(0L, 0L);
+
+		storage.lossBeforeCommit = false;
+		storage.unreadable = false;
+		storage.incrementJobNodeCounters(deltas(3L, 1L));
+		assertCounts(3L, 1L);
+	}
+
+	private static Map<String, Long> deltas(long processCountDelta, long errorCountDelta) {
+		Map<String, Long> deltas = new HashMap<>();
+		if (processCountDelta > 0) {
+			deltas.put(PROCESS_COUNT, processCountDelta);
+		}
+		if (errorCountDelta > 0) {
+			deltas.put(ERROR_COUNT, errorCountDelta);
+		}
+		return deltas;
+	}
+
+	private void assertCounts(long processCount, long errorCount) {
+		assertThat(count(PROCESS_COUNT)).isEqualTo(processCount);
+		assertThat(count(ERROR_COUNT)).isEqualTo(errorCount);
+	}
+
+	private long count(String node) {
+		String value = storage.getJobNodeDataDirectly(node);
+		return value == null ? 0L : Long.parseLong(value);
+	}
+
+	/**
+	 * 第一次提交时模拟连接断开
+	 */
+	private static class FaultyJobNodeStorage extends JobNodeStorage {
+
+		private boolean lossBeforeCommit;
+
+		private boolean lossAfterCommit;
+
+		private boolean unreadable;
+
+		private int commits;
+
+		FaultyJobNodeStorage() {
+			super(regCenter, new JobConfiguration(JOB_NAME));
+		}
+
+		@Override
+		void commitCounters(CuratorFramework client, List<Op> ops) throws Exception {
+			if (lossBeforeCommit) {
+				lossBeforeCommit = false;
+				throw new KeeperException.ConnectionLossException();
+			}
+			super.commitCounters(client, ops);
+			commits++;
+			if (lossAfterCommit) {
+				lossAfterCommit = false;
+				throw new KeeperException.ConnectionLossException();
+			}
+		}
+
+		@Override
+		Boolean isCounterTxnWritten(CuratorFramework client, String txnFullPath, String txn) {
+			return unreadable ? null : super.isCounterTxnWritten(client, txnFullPath, txn);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.vip.saturn.job.java;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.vip.saturn.job.AbstractSaturnJavaJob;
+import com.vip.saturn.job.SaturnJobExecutionContext;
+import com.vip.saturn.job.SaturnJobReturn;
+import com.vip.saturn.job.basic.JavaShardingItemCallable;
+
+/**
+ * 统计Java作业每个分片调用业务方法的耗时（含上下文复制到作业ClassLoader、返回值复制回Executor ClassLoader）：
+ * 原来每次loadClass、getMethod反射查找与使用JavaJobInvoker缓存的方法的对比.
+ * <p>
+ * 业务类由独立的ClassLoader加载，与Executor中作业ClassLoader的隔离方式一致.
+ * </p>
+ */
+public class JavaJobInvokerBenchmark {
+
+	private static final int WARMUP = 200000;
+
+	private static final int INVOCATIONS = 1000000;
+
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws Exception {
+		ClassLoader executorClassLoader = JavaJobInvokerBenchmark.class.getClassLoader();
+		ClassLoader jobClassLoader = new URLClassLoader(new URL[] {
+				SaturnJobExecutionContext.class.getProtectionDomain().getCodeSource().getLocation(),
+				BenchmarkJob.class.getProtectionDomain().getCodeSource().getLocation() }, null);
+		Object jobBusinessInstance = jobClassLoader.loadClass(BenchmarkJob.class.getName()).newInstance();
+		JavaJobInvoker invoker = new JavaJobInvoker(jobBusinessInstance, jobClassLoader, executorClassLoader);
+
+		Map<Integer, String> shardingItemParameters = new HashMap<>();
+		shardingItemParameters.put(0, "a");
+		SaturnJobExecutionContext context = new SaturnJobExecutionContext();
+		context.setJobName("benchmarkJob");
+		context.setShardingItemParameters(shardingItemParameters);
+		context.setShardingTotalCount(1);
+
+		long check = runReflection(jobBusinessInstance, jobClassLoader, executorClassLoader, context, WARMUP)
+				+ runInvoker(invoker, context, WARMUP);
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			check += runReflection(jobBusinessInstance, jobClassLoader, executorClassLoader, context, INVOCATIONS);
+			double reflectionNanos = (double) (System.nanoTime() - start) / INVOCATIONS;
+			start = System.nanoTime();
+			check += runInvoker(invoker, context, INVOCATIONS);
+			double invokerNanos = (double) (System.nanoTime() - start) / INVOCATIONS;
+			System.out.println(String.format("round %d, ns/shard reflection=%.0f invoker=%.0f (check %d)", round,
+					reflectionNanos, invokerNanos, check));
+		}
+	}
+
+	/**
+	 * 原SaturnJavaJob.handleJavaJob的调用方式
+	 */
+	private static long runReflection(Object jobBusinessInstance, ClassLoader jobClassLoader,
+			ClassLoader executorClassLoader, SaturnJobExecutionContext context, int count) throws Exception {
+		long check = 0;
+		for (int i = 0; i < count; i++) {
+			Class<?> saturnJobExecutionContextClazz = jobClassLoader
+					.loadClass(SaturnJobExecutionContext.class.getCanonicalName());
+			Object ret = jobBusinessInstance.getClass()
+					.getMethod("handleJavaJob", String.class, Integer.class, String.class,
+							saturnJobExecutionContextClazz)
+					.invoke(jobBusinessInstance, "benchmarkJob", i, "a",
+							JavaShardingItemCallable.cloneObject(context, jobClassLoader));
+			SaturnJobReturn saturnJobReturn = (SaturnJobReturn) JavaShardingItemCallable.cloneObject(ret,
+					executorClassLoader);
+			check += saturnJobReturn.getReturnCode();
+		}
+		return check;
+	}
+
+	private static long runInvoker(JavaJobInvoker invoker, SaturnJobExecutionContext context, int count)
+			throws Exception {
+		long check = 0;
+		for (int i = 0; i < count; i++) {
+			SaturnJobReturn saturnJobReturn = invoker.handleJavaJob("benchmarkJob", i, "a",
+					invoker.copyContextToJob(context));
+			check += saturnJobReturn.getReturnCode();
+		}
+		return check;
+	}
+
+	public static class BenchmarkJob extends AbstractSaturnJavaJob {
+
+		@Override
+		public SaturnJobReturn handleJavaJob(String jobName, Integer shardItem, String shardParam,
+				SaturnJobExecutionContext shardingContext) {
+			return new SaturnJobReturn(shardItem & 1, shardParam, 200);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.vip.saturn.job.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vip.saturn.job.AbstractSaturnJavaJob;
+import com.vip.saturn.job.SaturnJobExecutionContext;
+import com.vip.saturn.job.SaturnJobReturn;
+
+public class JavaJobInvokerTest {
+
+	private final ClassLoader executorClassLoader = JavaJobInvokerTest.class.getClassLoader();
+
+	// 与Executor隔离的作业ClassLoader
+	private ClassLoader jobClassLoader;
+
+	@Before
+	public void setUp() {
+		jobClassLoader = new URLClassLoader(new URL[] {
+				SaturnJobExecutionContext.class.getProtectionDomain().getCodeSource().getLocation(),
+				TestJob.class.getProtectionDomain().getCodeSource().getLocation() }, null);
+	}
+
+	@Test
+	public void testHandleJavaJob() throws Exception {
+		JavaJobInvoker invoker = newInvoker(TestJob.class);
+
+		Object contextForJob = invoker.copyContextToJob(createContext());
+		assertThat(contextForJob.getClass().getClassLoader()).isSameAs(jobClassLoader);
+		SaturnJobReturn saturnJobReturn = invoker.handleJavaJob("testJob", 1, "b", contextForJob);
+		assertThat(saturnJobReturn.getReturnCode()).isEqualTo(1);
+		assertThat(saturnJobReturn.getReturnMsg()).isEqualTo("testJob-b-2");
+		assertThat(saturnJobReturn.getErrorGroup()).isEqualTo(200);
+	}
+
+	@Test
+	public void testCopierCacheHit() throws Exception {
+		JavaJobInvoker.ObjectCopier copier = new JavaJobInvoker.ObjectCopier(jobClassLoader);
+		Object first = copier.copy(createContext());
+		JavaJobInvoker.CopyAdapter adapter = copier.adapter;
+		Object second = copier.copy(createContext());
+
+		// 同一源类复用缓存的构造器和copyFrom方法，每次仍复制出新对象
+		assertThat(copier.adapter).isSameAs(adapter);
+		assertThat(second).isNotSameAs(first);
+		assertThat(second.getClass()).isSameAs(first.getClass());
+		assertThat(second.getClass().getMethod("getJobName").invoke(second)).isEqualTo("testJob");
+	}
+
+	@Test
+	public void testCopierReflectionFallback() throws Exception {
+		JavaJobInvoker.ObjectCopier copier = new JavaJobInvoker.ObjectCopier(executorClassLoader);
+		assertThat(copier.copy(null)).isNull();
+		assertThat(copier.adapter).isNull();
+
+		Object contextForJob = new JavaJobInvoker.ObjectCopier(jobClassLoader).copy(createContext());
+		SaturnJobExecutionContext context = (SaturnJobExecutionContext) copier.copy(contextForJob);
+		JavaJobInvoker.CopyAdapter contextAdapter = copier.adapter;
+		assertThat(context.getShardingItemParameters()).containsEntry(0, "a");
+
+		// 源类变化时重新反射查找，之后缓存新的复制方法
+		SaturnJobReturn saturnJobReturn = (SaturnJobReturn) copier.copy(new SaturnJobReturn(1, "msg", 200));
+		assertThat(copier.adapter).isNotSameAs(contextAdapter);
+		assertThat(saturnJobReturn.getReturnMsg()).isEqualTo("msg");
+		assertThat(copier.copy(contextForJob)).isInstanceOf(SaturnJobExecutionContext.class);
+		assertThat(copier.adapter).isNotSameAs(contextAdapter);
+	}
+
+	@Test
+	public void testMissingMethod() throws Exception {
+		JavaJobInvoker invoker = newInvoker(PlainJob.class);
+		Object contextForJob = invoker.copyContextToJob(createContext());
+
+		assertThat(invoker.handleJavaJob("testJob", 0, "a", contextForJob).getReturnMsg()).isEqualTo("plain");
+		try {
+			invoker.onTimeout("testJob", 0, "a", contextForJob);
+			throw new AssertionError("onTimeout should not be found");
+		} catch (NoSuchMethodException e) {
+			assertThat(e.getMessage()).endsWith(PlainJob.class.getName() + ".onTimeout");
+		}
+	}
+
+	private JavaJobInvoker newInvoker(Class<?> jobClass) throws Exception {
+		Object jobBusinessInstance = jobClassLoader.loadClass(jobClass.getName()).newInstance();
+		return new JavaJobInvoker(jobBusinessInstance, jobClassLoader, executorClassLoader);
+	}
+
+	private static SaturnJobExecutionContext createContext() {
+		Map<Integer, String> shardingItemParameters = new HashMap<>();
+		shardingItemParameters.put(0, "a");
+		shardingItemParameters.put(1, "b");
+		SaturnJobExecutionContext context = new SaturnJobExecutionContext();
+		context.setJobName("testJob");
+		context.setShardingItemParameters(shardingItemParameters);
+		context.setShardingTotalCount(2);
+		return context;
+	}
+
+	public static class TestJob extends AbstractSaturnJavaJob {
+
+		@Override
+		public SaturnJobReturn handleJavaJob(String jobName, Integer shardItem, String shardParam,
+				SaturnJobExecutionContext shardingContext) {
+			return new SaturnJobReturn(shardItem, jobName + "-" + shardParam + "-"
+					+ shardingContext.getShardingTotalCount(), 200);
+		}
+	}
+
+	/**
+	 * 不继承AbstractSaturnJavaJob，只有handleJavaJob
+	 */
+	public static class PlainJob {
+
+		public SaturnJobReturn handleJavaJob(String jobName, Integer shardItem, String shardParam,
+				SaturnJobExecutionContext shardingContext) {
+			return new SaturnJobReturn("plain");
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.vip.saturn.job.reg.zookeeper;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.curator.framework.recipes.cache.TreeCache;
+
+import com.vip.saturn.job.internal.storage.JobNodePath;
+
+/**
+ * 统计注册10、1k、10k个作业缓存时，按路径查找TreeCache的耗时：原来遍历所有缓存做startsWith与按路径前缀直接查找的对比.
+ */
+public class FindTreeCacheBenchmark {
+
+	private static final int LOOKUPS = 200000;
+
+	public static void main(String[] args) throws Exception {
+		for (int cacheCount : new int[] { 10, 1000, 10000 }) {
+			runRound(cacheCount);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void runRound(int cacheCount) throws Exception {
+		ZookeeperRegistryCenter regCenter = new ZookeeperRegistryCenter(new ZookeeperConfiguration());
+		Field field = ZookeeperRegistryCenter.class.getDeclaredField("caches");
+		field.setAccessible(true);
+		Map<String, TreeCache> caches = (Map<String, TreeCache>) field.get(regCenter);
+		for (int i = 0; i < cacheCount; i++) {
+			String cachePath = JobNodePath.getJobNameFullPath("job" + i);
+			caches.put(cachePath + "/", new TreeCache(null, cachePath));
+		}
+		String[] keys = new String[1024];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = JobNodePath.getNodeFullPath("job" + (i * 7919 % cacheCount), "execution/" + i + "/running");
+		}
+
+		// 预热
+		long found = lookupByScan(caches, keys, LOOKUPS / 10) + lookup(regCenter, keys, LOOKUPS);
+		int scanLookups = cacheCount >= 10000 ? LOOKUPS / 100 : LOOKUPS;
+		long start = System.nanoTime();
+		found += lookupByScan(caches, keys, scanLookups);
+		double scanNanos = (double) (System.nanoTime() - start) / scanLookups;
+		start = System.nanoTime();
+		found += lookup(regCenter, keys, LOOKUPS);
+		double lookupNanos = (double) (System.nanoTime() - start) / LOOKUPS;
+		System.out.println(String.format("caches=%d, ns/lookup scan=%.0f prefix=%.0f (found %d)", cacheCount, scanNanos,
+				lookupNanos, found));
+	}
+
+	private static long lookup(ZookeeperRegistryCenter regCenter, String[] keys, int count) {
+		long found = 0;
+		for (int i = 0; i < count; i++) {
+			if (regCenter.findTreeCache(keys[i & (keys.length - 1)]) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * 原findTreeCache的实现
+	 */
+	private static long lookupByScan(Map<String, TreeCache> caches, String[] keys, int count) {
+		long found = 0;
+		for (int i = 0; i < count; i++) {
+			String key = keys[i & (keys.length - 1)];
+			for (Entry<String, TreeCache> entry : caches.entrySet()) {
+				if (key.startsWith(entry.getKey())) {
+					found++;
+					break;
+				}
+			}
+		}
+		return found;
+	}
+}
@@ -0,0 +1,175 @@
+package com.vip.saturn.job.threads;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QuotaExecutorServiceTest {
+
+	private ExtendableThreadPoolExecutor sharedExecutor;
+
+	@Before
+	public void setUp() {
+		sharedExecutor = new ExtendableThreadPoolExecutor(0, 8, 1, TimeUnit.MINUTES, new TaskQueue(),
+				new SaturnThreadFactory("quota-test"));
+	}
+
+	@After
+	public void tearDown() {
+		sharedExecutor.shutdownNow();
+	}
+
+	@Test
+	public void assertConcurrencyLimitedByQuota() throws Exception {
+		QuotaExecutorService executorService = new QuotaExecutorService(sharedExecutor, 2, "job");
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			futures.add(executorService.submit(new Runnable() {
+				@Override
+				public void run() {
+					int current = running.incrementAndGet();
+					synchronized (maxRunning) {
+						maxRunning.set(Math.max(maxRunning.get(), current));
+					}
+					try {
+						Thread.sleep(20);
+					} catch (InterruptedException ignore) {
+					}
+					running.decrementAndGet();
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get(5, TimeUnit.SECONDS);
+		}
+		executorService.shutdown();
+		assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(maxRunning.get()).isEqualTo(2);
+		assertThat(executorService.getActiveCount()).isEqualTo(0);
+		assertThat(executorService.getPendingCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void assertShutdownDoesNotAffectSharedExecutor() throws Exception {
+		QuotaExecutorService executorService = new QuotaExecutorService(sharedExecutor, 2, "job");
+		executorService.submit(new Runnable() {
+			@Override
+			public void run() {
+			}
+		}).get(5, TimeUnit.SECONDS);
+		executorService.shutdown();
+
+		assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(sharedExecutor.isShutdown()).isFalse();
+
+		QuotaExecutorService another = new QuotaExecutorService(sharedExecutor, 2, "another");
+		assertThat(another.submit(new Runnable() {
+			@Override
+			public void run() {
+			}
+		}, "ok").get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+	}
+
+	@Test
+	public void assertQuotaReturnedWhenBusinessThreadStopped() throws Exception {
+		QuotaExecutorService executorService = new QuotaExecutorService(sharedExecutor, 1, "job");
+		final CountDownLatch started = new CountDownLatch(1);
+		final AtomicReference<Thread> businessThread = new AtomicReference<>();
+		Future<?> stopped = executorService.submit(new Runnable() {
+			@Override
+			public void run() {
+				businessThread.set(Thread.currentThread());
+				started.countDown();
+				while (true) {
+					try {
+						Thread.sleep(1);
+					} catch (InterruptedException ignore) {
+					}
+				}
+			}
+		});
+		final AtomicInteger ran = new AtomicInteger();
+		List<Future<?>> queued = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			queued.add(executorService.submit(new Runnable() {
+				@Override
+				public void run() {
+					ran.incrementAndGet();
+				}
+			}));
+		}
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(executorService.getPendingCount()).isEqualTo(5);
+
+		// 与ShardingItemFutureTask.killRunningBusinessThread一样，直到任务结束前一直stop
+		while (!stopped.isDone()) {
+			businessThread.get().stop();
+			Thread.sleep(1);
+		}
+		try {
+			stopped.get();
+		} catch (ExecutionException e) {
+			assertThat(e.getCause()).isInstanceOf(ThreadDeath.class);
+		}
+		for (Future<?> future : queued) {
+			future.get(5, TimeUnit.SECONDS);
+		}
+		assertThat(ran.get()).isEqualTo(5);
+		executorService.shutdown();
+		assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(executorService.getActiveCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void assertPendingTasksDispatchedWhenThreadDeathArrivesLate() throws Exception {
+		// 模拟ThreadDeath落在交出下一个排队任务时
+		final AtomicBoolean throwThreadDeath = new AtomicBoolean(true);
+		Executor executor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				if (Thread.currentThread().getName().contains("quota-test") && throwThreadDeath.compareAndSet(true, false)) {
+					throw new ThreadDeath();
+				}
+				sharedExecutor.execute(command);
+			}
+		};
+		QuotaExecutorService executorService = new QuotaExecutorService(executor, 1, "job");
+		final AtomicInteger ran = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			futures.add(executorService.submit(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(10);
+					} catch (InterruptedException ignore) {
+					}
+					ran.incrementAndGet();
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get(5, TimeUnit.SECONDS);
+		}
+		assertThat(throwThreadDeath.get()).isFalse();
+		assertThat(ran.get()).isEqualTo(5);
+		executorService.shutdown();
+		assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(executorService.getActiveCount()).isEqualTo(0);
+	}
+}
@@ -0,0 +1,144 @@
+package com.vip.saturn.job.trigger;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.quartz.CronScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.spi.OperableTrigger;
+
+import com.vip.saturn.job.basic.AbstractElasticJob;
+import com.vip.saturn.job.basic.JobExecutionMultipleShardingContext;
+
+/**
+ * 统计1k、10k个每秒触发的作业在共享触发引擎下的线程数和触发时间抖动（实际执行时间 - 计划触发时间）。
+ * 原实现每个作业一个SaturnWorker线程，线程数等于作业数。
+ * 另外统计1k个每次执行3秒的作业：作业执行期间占用dispatch线程，作业数超过VIP_SATURN_TRIGGER_DISPATCH_MAX_THREADS时不应排队延迟触发。
+ */
+public class SaturnWorkerEngineBenchmark {
+
+	private static final int ROUND_SECONDS = 10;
+
+	private static final long LONG_RUNNING_MILLIS = 3000L;
+
+	public static void main(String[] args) throws Exception {
+		for (int jobCount : new int[] { 1000, 10000 }) {
+			runRound(jobCount, 0L);
+		}
+		runRound(1000, LONG_RUNNING_MILLIS);
+		System.exit(0);
+	}
+
+	private static void runRound(int jobCount, final long executeMillis) throws Exception {
+		String executorName = "benchmark-executor-" + jobCount + "-" + executeMillis;
+		SaturnWorkerEngine engine = SaturnWorkerEngine.getEngine(executorName);
+		int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+		final AtomicLongArray jitters = new AtomicLongArray(jobCount * (ROUND_SECONDS + 1));
+		final AtomicInteger fired = new AtomicInteger();
+		List<SaturnWorker> workers = new ArrayList<>(jobCount);
+		for (int i = 0; i < jobCount; i++) {
+			final Trigger trigger = TriggerBuilder.newTrigger().withIdentity(executorName + "_job" + i)
+					.withSchedule(CronScheduleBuilder.cronSchedule("* * * * * ?").withMisfireHandlingInstructionDoNothing())
+					.build();
+			SaturnWorker worker = new SaturnWorker(new BenchmarkJob(executorName, "job" + i), trigger, engine) {
+				@Override
+				protected void doExecute() {
+					long jitter = System.currentTimeMillis() - ((OperableTrigger) trigger).getPreviousFireTime().getTime();
+					int index = fired.getAndIncrement();
+					if (index < jitters.length()) {
+						jitters.set(index, jitter);
+					}
+					if (executeMillis > 0) {
+						try {
+							Thread.sleep(executeMillis);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				}
+			};
+			workers.add(worker);
+		}
+		for (SaturnWorker worker : workers) {
+			worker.start();
+		}
+
+		int peakThreads = 0;
+		for (int i = 0; i < ROUND_SECONDS * 10; i++) {
+			Thread.sleep(100L);
+			peakThreads = Math.max(peakThreads, ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore);
+		}
+		int engineThreads = engine.getPoolSize();
+		int maxDispatchThreads = engine.getMaximumDispatchThreads();
+		for (SaturnWorker worker : workers) {
+			worker.halt();
+		}
+		SaturnWorkerEngine.shutdownEngine(executorName);
+
+		int count = Math.min(fired.get(), jitters.length());
+		long[] sorted = new long[count];
+		for (int i = 0; i < count; i++) {
+			sorted[i] = jitters.get(i);
+		}
+		Arrays.sort(sorted);
+		System.out.println(String.format(
+				"jobs=%d, executeMillis=%d, fires=%d, engineThreads=%d, maxDispatchThreads=%d, peakNewThreads=%d (old: %d), jitter ms p50=%d p99=%d max=%d",
+				jobCount, executeMillis, count, engineThreads, maxDispatchThreads, peakThreads, jobCount, percentile(sorted, 50),
+				percentile(sorted, 99), count == 0 ? 0 : sorted[count - 1]));
+	}
+
+	private static long percentile(long[] sorted, int p) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return sorted[Math.min(sorted.length - 1, sorted.length * p / 100)];
+	}
+
+	private static class BenchmarkJob extends AbstractElasticJob {
+
+		BenchmarkJob(String executorName, String jobName) {
+			setExecutorName(executorName);
+			setJobName(jobName);
+		}
+
+		@Override
+		protected void executeJob(JobExecutionMultipleShardingContext shardingContext) {
+		}
+
+		@Override
+		public boolean isFailoverSupported() {
+			return false;
+		}
+
+		@Override
+		public SaturnTrigger getTrigger() {
+			return null;
+		}
+
+		@Override
+		public void enableJob() {
+		}
+
+		@Override
+		public void disableJob() {
+		}
+
+		@Override
+		public void onResharding() {
+		}
+
+		@Override
+		public void onForceStop(int item) {
+		}
+
+		@Override
+		public void onTimeout(int item) {
+		}
+	}
+}
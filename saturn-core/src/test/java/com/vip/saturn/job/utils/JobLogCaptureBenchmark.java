@@ -0,0 +1,142 @@
+package com.vip.saturn.job.utils;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedList;
+
+import org.apache.commons.exec.LogOutputStream;
+
+/**
+ * 一个频繁输出的作业（每个分片打印20000行）：原来用LogOutputStream按行切分、保存到LinkedList的方式，
+ * 与只捕获注册线程、写入LogRingBuffer的方式对比，统计分片线程和未注册线程每行分配的字节数.
+ * 使用HotSpot的com.sun.management.ThreadMXBean统计线程分配的字节数.
+ */
+public class JobLogCaptureBenchmark {
+
+	private static final int LINES = 20000;
+
+	private static final int SHARDS = 20;
+
+	private static final int ROUNDS = 3;
+
+	private static final String[] MESSAGES = new String[64];
+
+	public static void main(String[] args) throws Exception {
+		// 屏蔽原来的System.out，SaturnLogOutputStream和LegacyLogOutputStream都透传到这里
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		}, true));
+		PrintStream legacyOut = new PrintStream(new LegacyLogOutputStream(System.out));
+		// 触发SaturnLogOutputStream替换System.out
+		SaturnLogOutputStream.clearLogger();
+		PrintStream ringOut = System.out;
+		for (int i = 0; i < MESSAGES.length; i++) {
+			MESSAGES[i] = "[demoJob] processing order " + (100000 + i * 7919) + ", status=OK, cost=" + i + "ms";
+		}
+
+		for (int round = 0; round < ROUNDS; round++) {
+			run("legacy", legacyOut, true, round);
+			run("ring", ringOut, false, round);
+		}
+	}
+
+	private static void run(String name, PrintStream out, boolean legacy, int round) {
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		long shardBytes = 0;
+		long logBytes = 0;
+		long start = System.nanoTime();
+		for (int shard = 0; shard < SHARDS; shard++) {
+			long before = threadMXBean.getThreadAllocatedBytes(threadId);
+			if (legacy) {
+				LegacyLogOutputStream.initLogger();
+			} else {
+				SaturnLogOutputStream.initLogger();
+			}
+			for (int i = 0; i < LINES; i++) {
+				out.println(MESSAGES[i & (MESSAGES.length - 1)]);
+			}
+			long afterPrint = threadMXBean.getThreadAllocatedBytes(threadId);
+			// showNormalLog为true时才生成日志字符串
+			String log = legacy ? LegacyLogOutputStream.clearAndGetLog() : SaturnLogOutputStream.clearLogger().toString();
+			long afterLog = threadMXBean.getThreadAllocatedBytes(threadId);
+			shardBytes += afterPrint - before;
+			logBytes += afterLog - afterPrint + (log.isEmpty() ? 1 : 0);
+		}
+		long shardMillis = (System.nanoTime() - start) / 1000000;
+
+		// 没有注册的线程，例如作业之外的框架线程
+		if (legacy) {
+			LegacyLogOutputStream.clearAndGetLog();
+		}
+		long before = threadMXBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < LINES; i++) {
+			out.println(MESSAGES[i & (MESSAGES.length - 1)]);
+		}
+		long otherBytes = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+		if (legacy) {
+			LegacyLogOutputStream.clearAndGetLog();
+		}
+
+		System.out.flush();
+		System.err.println(String.format(
+				"%s round %d, shard thread %.1f bytes/line, job log %d bytes/shard, unregistered thread %.1f bytes/line, %d shards in %d ms",
+				name, round, (double) shardBytes / SHARDS / LINES, logBytes / SHARDS, (double) otherBytes / LINES, SHARDS,
+				shardMillis));
+	}
+
+	/**
+	 * 原SaturnLogOutputStream
+	 */
+	private static class LegacyLogOutputStream extends LogOutputStream {
+
+		private static final int MAX_LINE = 100;
+
+		private static ThreadLocal<LinkedList<String>> lists = new InheritableThreadLocal<LinkedList<String>>() {
+			@Override
+			protected LinkedList<String> initialValue() {
+				return new LinkedList<String>();
+			}
+		};
+
+		private final PrintStream out;
+
+		LegacyLogOutputStream(PrintStream out) {
+			super(1);
+			this.out = out;
+		}
+
+		@Override
+		protected void processLine(String line, int level) {
+			LinkedList<String> list = lists.get();
+			if (list.size() >= MAX_LINE) {
+				list.removeFirst();
+			}
+			list.addLast(line);
+			out.println(line);
+		}
+
+		static void initLogger() {
+			lists.get().clear();
+		}
+
+		static String clearAndGetLog() {
+			StringBuilder sb = new StringBuilder();
+			LinkedList<String> list = lists.get();
+			for (String line : list) {
+				sb.append(line).append(System.lineSeparator());
+			}
+			list.clear();
+			lists.remove();
+			return sb.toString();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.vip.saturn.job.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+public class LogRingBufferTest {
+
+	private static final String LS = System.lineSeparator();
+
+	@Test
+	public void testLines() {
+		LogRingBuffer buffer = new LogRingBuffer(1024, 10);
+		assertThat(buffer.toString()).isEmpty();
+		write(buffer, "a\r\nb\rc\n\nd");
+		buffer.write('e');
+		assertThat(buffer.toString()).isEqualTo("a" + LS + "b" + LS + "c" + LS + LS + "de" + LS);
+		buffer.write('\r');
+		buffer.write('\n');
+		assertThat(buffer.toString()).isEqualTo("a" + LS + "b" + LS + "c" + LS + LS + "de" + LS);
+	}
+
+	@Test
+	public void testMaxLines() {
+		LogRingBuffer buffer = new LogRingBuffer(64 * 1024, 100);
+		for (int i = 0; i < 250; i++) {
+			write(buffer, "line" + i + "\n");
+		}
+		StringBuilder expected = new StringBuilder();
+		for (int i = 150; i < 250; i++) {
+			expected.append("line").append(i).append(LS);
+		}
+		assertThat(buffer.toString()).isEqualTo(expected.toString());
+
+		// 未结束的行也算一行
+		write(buffer, "pending");
+		assertThat(buffer.toString()).startsWith("line151" + LS).endsWith("line249" + LS + "pending" + LS);
+	}
+
+	@Test
+	public void testMaxBytes() {
+		LogRingBuffer buffer = new LogRingBuffer(16, 100);
+		write(buffer, "0123456789\nabcdefghij\nxyz");
+		// 只保留最后16个字节，最早一行被截断
+		assertThat(buffer.toString()).isEqualTo("789" + LS + "abcdefghij" + LS + "xyz" + LS);
+
+		write(buffer, "\n" + "ABCDEFGHIJKLMNOPQRSTUVWXYZ");
+		assertThat(buffer.toString()).isEqualTo("KLMNOPQRSTUVWXYZ" + LS);
+	}
+
+	@Test
+	public void testGrow() {
+		LogRingBuffer buffer = new LogRingBuffer(4096, 1000);
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			String line = "" + i + i;
+			write(buffer, line + "\n");
+			expected.append(line).append(LS);
+		}
+		assertThat(buffer.toString()).isEqualTo(expected.toString());
+	}
+
+	private static void write(LogRingBuffer buffer, String s) {
+		byte[] bytes = s.getBytes(Charset.defaultCharset());
+		buffer.write(bytes, 0, bytes.length);
+	}
+}
@@ -2,9 +2,12 @@ package com.vip.saturn.job.utils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.InputStreamReader;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -87,4 +90,48 @@ public class ScriptPidUtilsTest {
 		assertThat(result).isEqualTo(expected);
 	}
 
+	@Test
+	public void testFilterEnvInCmdStrWithSpecialValue() {
+		Map<String, String> env = new HashMap<>();
+		env.put("price", "$100\\");
+		String result = ScriptPidUtils.filterEnvInCmdStr(env, "echo ${price}");
+		assertThat(result).isEqualTo("echo $100\\");
+		assertThat(ScriptPidUtils.filterEnvInCmdStr(new HashMap<String, String>(), "echo $price")).isEqualTo("echo $price");
+	}
+
+	@Test
+	public void assertLoadEnvCached() {
+		Map<String, String> env = ScriptPidUtils.loadEnv();
+		assertThat(ScriptPidUtils.loadEnv()).isSameAs(env);
+	}
+
+	@Test
+	public void assertKillAllChildrenByPid() throws Exception {
+		Process process = new ProcessBuilder("sh", "-c", "echo $$; sleep 300 & sleep 300 & wait").start();
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+			long pid = Long.parseLong(reader.readLine().trim());
+			List<Long> tree = ScriptPidUtils.getProcessTree(pid);
+			for (int i = 0; i < 50 && tree.size() < 3; i++) {
+				Thread.sleep(100L);
+				tree = ScriptPidUtils.getProcessTree(pid);
+			}
+			assertThat(tree).hasSize(3);
+			assertThat(tree.get(0)).isEqualTo(pid);
+
+			List<Long> killed = ScriptPidUtils.killAllChildrenByPid(pid, true);
+			assertThat(killed).containsOnlyElementsOf(tree).hasSize(3);
+			assertThat(killed.get(2)).isEqualTo(pid);
+			process.waitFor();
+			for (Long each : tree) {
+				for (int i = 0; i < 50 && ScriptPidUtils.isPidRunning(each); i++) {
+					Thread.sleep(100L);
+				}
+				assertThat(ScriptPidUtils.isPidRunning(each)).isFalse();
+			}
+		} finally {
+			process.destroy();
+		}
+	}
+
 }
@@ -0,0 +1,428 @@
+package com.vip.saturn.job.executor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * 支持并行加载的URLClassLoader，创建时建立包名到jar的索引.
+ *
+ * <p>
+ * 查找类和资源时只读取包含该包的jar（以及无法建立索引的classes目录），不再按顺序扫描全部jar；查找顺序与URLClassLoader相同。
+ * 查找目录（如com/vip/）时读取包含该目录或其子目录的jar。
+ * 找不到的类会记录下来（最多{@link #MAX_NOT_FOUND_CLASSES}个），再次查找时直接抛出ClassNotFoundException。
+ * 存在非本地文件的URL时不建立索引，使用URLClassLoader原来的查找方式.
+ * </p>
+ */
+public class IndexedURLClassLoader extends URLClassLoader {
+
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+	private static final ClassPathEntry[] NO_ENTRIES = new ClassPathEntry[0];
+
+	private static final int MAX_NOT_FOUND_CLASSES = 10000;
+
+	private final List<ClassPathEntry> entries = new ArrayList<>();
+
+	// 包路径（如com/vip/saturn）-> 按查找顺序排列的jar和目录
+	private final Map<String, ClassPathEntry[]> packageIndex = new HashMap<>();
+
+	// 目录路径（如com/vip）-> 包含该目录或其子目录的jar和目录
+	private final Map<String, ClassPathEntry[]> directoryIndex = new HashMap<>();
+
+	// 目录无法建立索引，索引中没有的包只在目录中查找
+	private ClassPathEntry[] directories = NO_ENTRIES;
+
+	private boolean indexed;
+
+	private final Set<String> notFoundClasses = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	public IndexedURLClassLoader(URL[] urls, ClassLoader parent) {
+		super(urls, parent);
+		indexed = buildIndex(urls);
+		if (!indexed) {
+			closeEntries();
+		}
+	}
+
+	private boolean buildIndex(URL[] urls) {
+		Set<String> visited = new HashSet<>();
+		List<URL> pending = new ArrayList<>();
+		Collections.addAll(pending, urls);
+		Map<String, List<ClassPathEntry>> packages = new HashMap<>();
+		Map<String, List<ClassPathEntry>> directoryPackages = new HashMap<>();
+		List<ClassPathEntry> dirs = new ArrayList<>();
+		while (!pending.isEmpty()) {
+			URL url = pending.remove(0);
+			if (url == null || !visited.add(url.toString())) {
+				continue;
+			}
+			if (!"file".equals(url.getProtocol())) {
+				return false;
+			}
+			File file;
+			try {
+				file = new File(url.toURI());
+			} catch (URISyntaxException | IllegalArgumentException e) {
+				return false;
+			}
+			if (file.isDirectory()) {
+				ClassPathEntry entry = new ClassPathEntry(entries.size(), url, file, null);
+				entries.add(entry);
+				dirs.add(entry);
+				continue;
+			}
+			if (!file.isFile()) {
+				continue;
+			}
+			JarFile jarFile;
+			try {
+				jarFile = new JarFile(file);
+			} catch (IOException e) {
+				// 与URLClassLoader相同，忽略无法打开的jar
+				continue;
+			}
+			ClassPathEntry entry = new ClassPathEntry(entries.size(), url, file, jarFile);
+			entries.add(entry);
+			Enumeration<JarEntry> jarEntries = jarFile.entries();
+			while (jarEntries.hasMoreElements()) {
+				JarEntry jarEntry = jarEntries.nextElement();
+				String name = jarEntry.getName();
+				String directory;
+				if (jarEntry.isDirectory()) {
+					directory = name.substring(0, name.length() - 1);
+				} else {
+					directory = getPackagePath(name);
+					addToIndex(packages, directory, entry);
+				}
+				// 所在目录及其全部上级目录；已经添加过的目录，其上级目录也已经添加过
+				while (!directory.isEmpty() && addToIndex(directoryPackages, directory, entry)) {
+					directory = getPackagePath(directory);
+				}
+			}
+			// Manifest中Class-Path引用的jar紧接着当前jar查找
+			List<URL> classPathUrls = getManifestClassPath(entry);
+			pending.addAll(0, classPathUrls);
+		}
+		directories = dirs.toArray(NO_ENTRIES);
+		toIndex(packages, dirs, packageIndex);
+		toIndex(directoryPackages, dirs, directoryIndex);
+		return true;
+	}
+
+	/**
+	 * @return 是否添加，jar按顺序建立索引，最后一个已经是该jar则不再添加
+	 */
+	private static boolean addToIndex(Map<String, List<ClassPathEntry>> packages, String path, ClassPathEntry entry) {
+		List<ClassPathEntry> list = packages.get(path);
+		if (list == null) {
+			list = new ArrayList<>(1);
+			packages.put(path, list);
+		}
+		if (list.isEmpty() || list.get(list.size() - 1) != entry) {
+			list.add(entry);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 合并目录，按查找顺序排列
+	 */
+	private static void toIndex(Map<String, List<ClassPathEntry>> packages, List<ClassPathEntry> dirs, Map<String, ClassPathEntry[]> index) {
+		for (Map.Entry<String, List<ClassPathEntry>> next : packages.entrySet()) {
+			List<ClassPathEntry> list = next.getValue();
+			if (!dirs.isEmpty()) {
+				list = mergeEntries(list, dirs);
+			}
+			index.put(next.getKey(), list.toArray(NO_ENTRIES));
+		}
+	}
+
+	private static List<ClassPathEntry> mergeEntries(List<ClassPathEntry> first, List<ClassPathEntry> second) {
+		Set<ClassPathEntry> merged = new LinkedHashSet<>(first);
+		merged.addAll(second);
+		List<ClassPathEntry> list = new ArrayList<>(merged);
+		Collections.sort(list);
+		return list;
+	}
+
+	private List<URL> getManifestClassPath(ClassPathEntry entry) {
+		List<URL> urls = new ArrayList<>();
+		Manifest manifest = entry.getManifest();
+		if (manifest == null) {
+			return urls;
+		}
+		String classPath = manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+		if (classPath == null) {
+			return urls;
+		}
+		StringTokenizer tokenizer = new StringTokenizer(classPath);
+		while (tokenizer.hasMoreTokens()) {
+			try {
+				urls.add(new URL(entry.url, tokenizer.nextToken()));
+			} catch (MalformedURLException e) {// NOSONAR
+				// 与URLClassLoader相同，忽略
+			}
+		}
+		return urls;
+	}
+
+	private static String getPackagePath(String resourceName) {
+		int index = resourceName.lastIndexOf('/');
+		return index == -1 ? "" : resourceName.substring(0, index);
+	}
+
+	private ClassPathEntry[] getCandidates(String resourceName) {
+		ClassPathEntry[] candidates = packageIndex.get(getPackagePath(resourceName));
+		return candidates == null ? directories : candidates;
+	}
+
+	/**
+	 * 资源可能是目录：以/结尾的只查找包含该目录的jar；否则与JarFile.getEntry相同，同时查找同名的文件和目录
+	 */
+	private ClassPathEntry[] getResourceCandidates(String resourceName) {
+		if (resourceName.endsWith("/")) {
+			ClassPathEntry[] candidates = directoryIndex.get(resourceName.substring(0, resourceName.length() - 1));
+			return candidates == null ? directories : candidates;
+		}
+		ClassPathEntry[] candidates = getCandidates(resourceName);
+		ClassPathEntry[] directoryCandidates = directoryIndex.get(resourceName);
+		if (directoryCandidates == null || Arrays.equals(candidates, directoryCandidates)) {
+			return candidates;
+		}
+		return mergeEntries(Arrays.asList(candidates), Arrays.asList(directoryCandidates)).toArray(NO_ENTRIES);
+	}
+
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		if (!indexed) {
+			return super.findClass(name);
+		}
+		if (notFoundClasses.contains(name)) {
+			throw new ClassNotFoundException(name);
+		}
+		String path = name.replace('.', '/').concat(".class");
+		for (ClassPathEntry entry : getCandidates(path)) {
+			try {
+				Class<?> clazz = entry.defineClass(name, path);
+				if (clazz != null) {
+					return clazz;
+				}
+			} catch (IOException e) {
+				throw new ClassNotFoundException(name, e);
+			}
+		}
+		// 超过上限时清空，避免不断查找不同的类名时无限增长
+		if (notFoundClasses.size() >= MAX_NOT_FOUND_CLASSES) {
+			notFoundClasses.clear();
+		}
+		notFoundClasses.add(name);
+		throw new ClassNotFoundException(name);
+	}
+
+	@Override
+	public URL findResource(String name) {
+		if (!indexed) {
+			return super.findResource(name);
+		}
+		for (ClassPathEntry entry : getResourceCandidates(name)) {
+			URL url = entry.findResource(name);
+			if (url != null) {
+				return url;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Enumeration<URL> findResources(String name) throws IOException {
+		if (!indexed) {
+			return super.findResources(name);
+		}
+		List<URL> urls = new ArrayList<>();
+		for (ClassPathEntry entry : getResourceCandidates(name)) {
+			URL url = entry.findResource(name);
+			if (url != null) {
+				urls.add(url);
+			}
+		}
+		return Collections.enumeration(urls);
+	}
+
+	@Override
+	public void close() throws IOException {
+		closeEntries();
+		super.close();
+	}
+
+	private void closeEntries() {
+		for (ClassPathEntry entry : entries) {
+			entry.close();
+		}
+	}
+
+	private void definePackageIfAbsent(String packageName, ClassPathEntry entry) {
+		if (getPackage(packageName) != null) {
+			return;
+		}
+		Manifest manifest = entry.getManifest();
+		try {
+			if (manifest != null) {
+				definePackage(packageName, manifest, entry.url);
+			} else {
+				definePackage(packageName, null, null, null, null, null, null, null);
+			}
+		} catch (IllegalArgumentException e) {
+			// 其它线程已经定义
+			if (getPackage(packageName) == null) {
+				throw e;
+			}
+		}
+	}
+
+	private static byte[] readFully(InputStream in, long size) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(size > 0 ? (int) size : 4096);
+			byte[] buf = new byte[8192];
+			int n;
+			while ((n = in.read(buf)) != -1) {
+				out.write(buf, 0, n);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private final class ClassPathEntry implements Comparable<ClassPathEntry> {
+
+		private final int order;
+
+		private final URL url;
+
+		private final File file;
+
+		private final JarFile jarFile;
+
+		private final CodeSource codeSource;
+
+		private URL jarBaseUrl;
+
+		private volatile boolean manifestLoaded;
+
+		private Manifest manifest;
+
+		private ClassPathEntry(int order, URL url, File file, JarFile jarFile) {
+			this.order = order;
+			this.url = url;
+			this.file = file;
+			this.jarFile = jarFile;
+			this.codeSource = new CodeSource(url, (CodeSigner[]) null);
+		}
+
+		private Manifest getManifest() {
+			if (jarFile == null) {
+				return null;
+			}
+			if (!manifestLoaded) {
+				synchronized (this) {
+					if (!manifestLoaded) {
+						try {
+							manifest = jarFile.getManifest();
+						} catch (IOException e) {// NOSONAR
+							manifest = null;
+						}
+						manifestLoaded = true;
+					}
+				}
+			}
+			return manifest;
+		}
+
+		private Class<?> defineClass(String name, String path) throws IOException {
+			byte[] bytes;
+			CodeSource cs = codeSource;
+			if (jarFile != null) {
+				JarEntry jarEntry = jarFile.getJarEntry(path);
+				if (jarEntry == null) {
+					return null;
+				}
+				bytes = readFully(jarFile.getInputStream(jarEntry), jarEntry.getSize());
+				CodeSigner[] signers = jarEntry.getCodeSigners();
+				if (signers != null) {
+					cs = new CodeSource(url, signers);
+				}
+			} else {
+				File classFile = new File(file, path);
+				if (!classFile.isFile()) {
+					return null;
+				}
+				bytes = readFully(new FileInputStream(classFile), classFile.length());
+			}
+			int index = name.lastIndexOf('.');
+			if (index != -1) {
+				definePackageIfAbsent(name.substring(0, index), this);
+			}
+			return IndexedURLClassLoader.this.defineClass(name, bytes, 0, bytes.length, cs);
+		}
+
+		private URL findResource(String name) {
+			try {
+				if (jarFile != null) {
+					if (jarFile.getEntry(name) == null) {
+						return null;
+					}
+					if (jarBaseUrl == null) {
+						jarBaseUrl = new URL("jar:" + url + "!/");
+					}
+					return new URL(jarBaseUrl, name);
+				}
+				File resourceFile = new File(file, name);
+				return resourceFile.exists() ? resourceFile.toURI().toURL() : null;
+			} catch (MalformedURLException e) {// NOSONAR
+				return null;
+			}
+		}
+
+		private void close() {
+			if (jarFile != null) {
+				try {
+					jarFile.close();
+				} catch (IOException e) {// NOSONAR
+				}
+			}
+		}
+
+		@Override
+		public int compareTo(ClassPathEntry o) {
+			return order < o.order ? -1 : (order == o.order ? 0 : 1);
+		}
+	}
+}
@@ -1,9 +1,12 @@
 package com.vip.saturn.job.executor;
 
 import java.net.URL;
-import java.net.URLClassLoader;
 
-public class JobClassLoader extends URLClassLoader {
+public class JobClassLoader extends IndexedURLClassLoader {
+
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
 
 	public JobClassLoader(URL[] urls) {
 		super(urls, null);
@@ -1,9 +1,13 @@
 package com.vip.saturn.job.executor;
 
 import java.net.URL;
-import java.net.URLClassLoader;
 
-public class SaturnClassLoader extends URLClassLoader {
+public class SaturnClassLoader extends IndexedURLClassLoader {
+
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
 	public SaturnClassLoader(URL[] urls, ClassLoader parent) {
 		super(urls, parent);
 	}
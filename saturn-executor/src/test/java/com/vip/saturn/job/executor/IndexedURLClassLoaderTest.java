@@ -0,0 +1,102 @@
+package com.vip.saturn.job.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IndexedURLClassLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSameOrderAsURLClassLoader() throws Exception {
+        File classes = folder.newFolder("classes");
+        File dirClass = new File(classes, "demo/b/Both.class");
+        dirClass.getParentFile().mkdirs();
+        FileOutputStream out = new FileOutputStream(dirClass);
+        out.write(TestJars.classBytes("demo.b.Both"));
+        out.close();
+
+        File jar1 = TestJars.jar(folder.newFile("a.jar"), "c.jar", Collections.singletonMap("META-INF/demo.txt", "a"), "demo.a.A",
+                "demo.a.Dup");
+        File jar2 = TestJars.jar(folder.newFile("b.jar"), null, Collections.singletonMap("META-INF/demo.txt", "b"), "demo.a.Dup",
+                "demo.b.Both");
+        File jar3 = TestJars.jar(folder.newFile("c.jar"), null, Collections.singletonMap("META-INF/demo.txt", "c"), "demo.c.C");
+        URL[] urls = { jar1.toURI().toURL(), classes.toURI().toURL(), jar2.toURI().toURL() };
+
+        try (IndexedURLClassLoader loader = new JobClassLoader(urls);
+                URLClassLoader expected = new URLClassLoader(urls, null)) {
+            for (String name : new String[] { "demo.a.A", "demo.a.Dup", "demo.b.Both", "demo.c.C" }) {
+                assertThat(location(loader.loadClass(name))).isEqualTo(location(expected.loadClass(name)));
+            }
+            // Class-Path引用的c.jar紧接着a.jar查找
+            assertThat(location(loader.loadClass("demo.c.C"))).isEqualTo(jar3.toURI().toURL());
+            assertThat(location(loader.loadClass("demo.b.Both"))).isEqualTo(classes.toURI().toURL());
+            assertThat(loader.loadClass("demo.a.A").getPackage()).isNotNull();
+
+            assertThat(loader.getResource("META-INF/demo.txt")).isEqualTo(expected.getResource("META-INF/demo.txt"));
+            List<URL> resources = Collections.list(loader.getResources("META-INF/demo.txt"));
+            assertThat(resources).isEqualTo(Collections.list(expected.getResources("META-INF/demo.txt")));
+            assertThat(resources).hasSize(3);
+            assertThat(loader.getResource("demo/b/Both.class")).isEqualTo(expected.getResource("demo/b/Both.class"));
+            assertThat(loader.getResource("not/exists.txt")).isNull();
+        }
+    }
+
+    @Test
+    public void testDirectoryResources() throws Exception {
+        // 目录中只有子目录，没有文件
+        Map<String, String> directories = new LinkedHashMap<>();
+        directories.put("demo/", "");
+        directories.put("demo/sub/", "");
+        directories.put("demo/sub/deep/", "");
+        File jar1 = TestJars.jar(folder.newFile("a.jar"), null, Collections.singletonMap("demo/a/", ""), "demo.a.A");
+        File jar2 = TestJars.jar(folder.newFile("b.jar"), null, directories, "demo.sub.deep.Deep");
+        URL[] urls = { jar1.toURI().toURL(), jar2.toURI().toURL() };
+
+        try (IndexedURLClassLoader loader = new JobClassLoader(urls);
+                URLClassLoader expected = new URLClassLoader(urls, null)) {
+            for (String name : new String[] { "demo/", "demo", "demo/sub/", "demo/sub", "demo/sub/deep/", "demo/a/", "demo/none/" }) {
+                assertThat(loader.getResource(name)).as(name).isEqualTo(expected.getResource(name));
+                assertThat(Collections.list(loader.getResources(name))).as(name).isEqualTo(Collections.list(expected.getResources(name)));
+            }
+            // a.jar没有demo/目录项
+            assertThat(Collections.list(loader.getResources("demo/"))).containsExactly(new URL("jar:" + jar2.toURI().toURL() + "!/demo/"));
+            assertThat(loader.getResource("demo/sub/")).isNotNull();
+        }
+    }
+
+    @Test
+    public void testClassNotFound() throws Exception {
+        File jar = TestJars.jar(folder.newFile("a.jar"), null, null, "demo.a.A");
+        try (IndexedURLClassLoader loader = new JobClassLoader(new URL[] { jar.toURI().toURL() })) {
+            for (int i = 0; i < 2; i++) {
+                for (String name : new String[] { "demo.a.NotExists", "demo.none.NotExists" }) {
+                    try {
+                        loader.loadClass(name);
+                        throw new AssertionError(name + " should not be found");
+                    } catch (ClassNotFoundException e) {
+                        assertThat(e.getMessage()).isEqualTo(name);
+                    }
+                }
+            }
+            assertThat(loader.loadClass("java.lang.String")).isSameAs(String.class);
+        }
+    }
+
+    private static URL location(Class<?> clazz) {
+        return clazz.getProtectionDomain().getCodeSource().getLocation();
+    }
+}
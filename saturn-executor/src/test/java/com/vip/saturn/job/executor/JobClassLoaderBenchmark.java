@@ -0,0 +1,130 @@
+package com.vip.saturn.job.executor;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 300个jar的应用：原来不支持并行加载、按顺序扫描全部jar的JobClassLoader，与IndexedURLClassLoader的对比.
+ * 启动耗时为创建ClassLoader、从每个jar加载一个类、查找200个不存在的类；首次触发为200个作业在16个线程中同时首次执行，每个作业加载30个类、查找5个不存在的类.
+ */
+public class JobClassLoaderBenchmark {
+
+    private static final int JARS = 300;
+
+    private static final int PACKAGES_PER_JAR = 5;
+
+    private static final int CLASSES_PER_PACKAGE = 20;
+
+    private static final int JOBS = 200;
+
+    private static final int THREADS = 16;
+
+    private static final int CLASSES_PER_JOB = 30;
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        File dir = Files.createTempDirectory("saturn-jars").toFile();
+        URL[] urls = new URL[JARS];
+        for (int i = 0; i < JARS; i++) {
+            String[] classNames = new String[PACKAGES_PER_JAR * CLASSES_PER_PACKAGE];
+            for (int p = 0; p < PACKAGES_PER_JAR; p++) {
+                for (int c = 0; c < CLASSES_PER_PACKAGE; c++) {
+                    classNames[p * CLASSES_PER_PACKAGE + c] = className(i, p, c);
+                }
+            }
+            urls[i] = TestJars.jar(new File(dir, "lib" + i + ".jar"), null, null, classNames).toURI().toURL();
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            run("legacy", new LegacyJobClassLoader(urls), round);
+            run("indexed", new JobClassLoader(urls), round);
+        }
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    private static String className(int jar, int pkg, int clazz) {
+        return "com.demo.lib" + jar + ".p" + pkg + ".C" + clazz;
+    }
+
+    private static void run(String name, final URLClassLoader loader, int round) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < JARS; i++) {
+            loader.loadClass(className(i, 0, 0));
+        }
+        for (int i = 0; i < 200; i++) {
+            loadQuietly(loader, "org.optional.Probe" + i);
+        }
+        long startupMillis = (System.nanoTime() - start) / 1000000;
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        List<Callable<Long>> jobs = new ArrayList<>();
+        for (int j = 0; j < JOBS; j++) {
+            final int job = j;
+            jobs.add(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    long jobStart = System.nanoTime();
+                    for (int c = 0; c < CLASSES_PER_JOB; c++) {
+                        int index = job * CLASSES_PER_JOB + c;
+                        int jar = (index * 7919) % JARS;
+                        loader.loadClass(className(jar, 1 + index % (PACKAGES_PER_JAR - 1), index % CLASSES_PER_PACKAGE));
+                    }
+                    for (int c = 0; c < 5; c++) {
+                        loadQuietly(loader, "com.demo.lib" + (job % JARS) + ".p0.Missing" + c);
+                    }
+                    return System.nanoTime() - jobStart;
+                }
+            });
+        }
+        start = System.nanoTime();
+        long totalJobNanos = 0;
+        for (Future<Long> future : executorService.invokeAll(jobs)) {
+            totalJobNanos += future.get();
+        }
+        long firstFireMillis = (System.nanoTime() - start) / 1000000;
+        executorService.shutdown();
+        loader.close();
+
+        System.out.println(String.format("%s round %d, startup %d ms, first fire of %d jobs %d ms, avg %.2f ms per job", name, round,
+                startupMillis, JOBS, firstFireMillis, totalJobNanos / 1000000.0 / JOBS));
+    }
+
+    private static void loadQuietly(ClassLoader loader, String name) {
+        try {
+            loader.loadClass(name);
+        } catch (ClassNotFoundException e) {// NOSONAR
+        }
+    }
+
+    /**
+     * 原JobClassLoader
+     */
+    private static class LegacyJobClassLoader extends URLClassLoader {
+
+        LegacyJobClassLoader(URL[] urls) {
+            super(urls, null);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> findClass = findLoadedClass(name);
+                if (findClass == null) {
+                    findClass = super.loadClass(name, resolve);
+                }
+                return findClass;
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.vip.saturn.job.executor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * 生成测试用的jar，类文件只有类名和父类java.lang.Object
+ */
+final class TestJars {
+
+    private TestJars() {
+    }
+
+    static byte[] classBytes(String className) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(50);
+        out.writeShort(5);
+        out.writeByte(7);
+        out.writeShort(2);
+        out.writeByte(1);
+        out.writeUTF(className.replace('.', '/'));
+        out.writeByte(7);
+        out.writeShort(4);
+        out.writeByte(1);
+        out.writeUTF("java/lang/Object");
+        out.writeShort(0x0021);
+        out.writeShort(1);
+        out.writeShort(3);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param classPath Manifest的Class-Path，为null则不写
+     * @param resources 资源名 -> 内容
+     */
+    static File jar(File file, String classPath, Map<String, String> resources, String... classNames) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (classPath != null) {
+            manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, classPath);
+        }
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(file), manifest);
+        try {
+            for (String className : classNames) {
+                out.putNextEntry(new JarEntry(className.replace('.', '/') + ".class"));
+                out.write(classBytes(className));
+                out.closeEntry();
+            }
+            if (resources != null) {
+                for (Map.Entry<String, String> resource : resources.entrySet()) {
+                    out.putNextEntry(new JarEntry(resource.getKey()));
+                    out.write(resource.getValue().getBytes("UTF-8"));
+                    out.closeEntry();
+                }
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
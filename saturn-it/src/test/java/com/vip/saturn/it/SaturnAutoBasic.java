@@ -35,6 +35,7 @@ import com.vip.saturn.job.reg.base.CoordinatorRegistryCenter;
 import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
 import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
 import com.vip.saturn.job.sharding.NamespaceShardingManager;
+import com.vip.saturn.job.sharding.ShardingWorkerPool;
 import com.vip.saturn.job.utils.ScriptPidUtils;
 import com.vip.saturn.job.utils.SystemEnvProperties;
 
@@ -51,6 +52,9 @@ public class SaturnAutoBasic {
 
     protected static List<Main> saturnExecutorList = new ArrayList<>();
     protected static List<NamespaceShardingManager> namespaceShardingManagerList = new ArrayList<>();
+    // 与console相同，全部NamespaceShardingManager共享分片线程池和TreeCache事件线程池
+    protected static ShardingWorkerPool shardingWorkerPool = new ShardingWorkerPool("it-sharding", 4);
+    protected static ShardingWorkerPool treeCacheWorkerPool = new ShardingWorkerPool("it-treecache", 4);
 
     protected static Map<String, ClassLoader> classloaders = new HashMap<String, ClassLoader>();
 
@@ -155,7 +159,8 @@ public class SaturnAutoBasic {
         for (int i = 0; i < count; i++) {
             ZookeeperRegistryCenter shardingRegCenter = new ZookeeperRegistryCenter(new ZookeeperConfiguration(-1, nestedZkUtils.getZkString(), NAMESPACE, 1000, 3000, 3));
             shardingRegCenter.init();
-            NamespaceShardingManager namespaceShardingManager = new NamespaceShardingManager((CuratorFramework) shardingRegCenter.getRawClient(),NAMESPACE, "127.0.0.1-" + i, null);
+            NamespaceShardingManager namespaceShardingManager = new NamespaceShardingManager((CuratorFramework) shardingRegCenter.getRawClient(),NAMESPACE, "127.0.0.1-" + i, null,
+                    shardingWorkerPool, treeCacheWorkerPool, null);
             namespaceShardingManager.start();
             namespaceShardingManagerList.add(namespaceShardingManager);
         }
@@ -0,0 +1,138 @@
+package com.vip.saturn.it.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.vip.saturn.it.AbstractSaturnIT;
+import com.vip.saturn.job.exception.JobException;
+import com.vip.saturn.job.internal.analyse.AnalyseNode;
+import com.vip.saturn.job.internal.config.JobConfiguration;
+import com.vip.saturn.job.internal.storage.JobNodePath;
+import com.vip.saturn.job.internal.storage.JobNodeStorage;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperConfiguration;
+import com.vip.saturn.job.reg.zookeeper.ZookeeperRegistryCenter;
+
+/**
+ * 多个executor同时刷新analyse的processCount/errorCount，总数不丢失
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class AnalyseCountIT extends AbstractSaturnIT {
+
+	private static final int CLIENTS = 10;
+
+	private static final int EXECUTORS = 100;
+
+	private static final int FLUSHES = 20;
+
+	private static List<ZookeeperRegistryCenter> regCenters = new ArrayList<>();
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		for (int i = 0; i < CLIENTS; i++) {
+			ZookeeperRegistryCenter executorRegCenter = new ZookeeperRegistryCenter(
+					new ZookeeperConfiguration(-1, nestedZkUtils.getZkString(), NAMESPACE, 1000, 3000, 3));
+			executorRegCenter.init();
+			regCenters.add(executorRegCenter);
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() throws Exception {
+		for (ZookeeperRegistryCenter each : regCenters) {
+			each.close();
+		}
+		regCenters.clear();
+	}
+
+	/**
+	 * 100个executor并发刷新，每次增量不同，最终总数等于所有增量之和；
+	 * 冲突重试多次仍失败的增量与ProcessCountJob一样留到下次刷新
+	 */
+	@Test
+	public void test_A_concurrentFlushNotLost() throws Exception {
+		final String jobName = "analyseCountITJob";
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(EXECUTORS);
+		List<Future<?>> futures = new ArrayList<>();
+		long expectedTotal = 0;
+		long expectedError = 0;
+		try {
+			for (int i = 0; i < EXECUTORS; i++) {
+				final int executorIndex = i;
+				final JobNodeStorage jobNodeStorage = new JobNodeStorage(regCenters.get(i % CLIENTS),
+						new JobConfiguration(jobName));
+				for (int j = 0; j < FLUSHES; j++) {
+					expectedTotal += executorIndex + j + 1;
+					expectedError += (executorIndex + j) % 3;
+				}
+				futures.add(pool.submit(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							start.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+						long pendingTotal = 0;
+						long pendingError = 0;
+						for (int j = 0; j < FLUSHES || pendingTotal > 0 || pendingError > 0; j++) {
+							if (j < FLUSHES) {
+								pendingTotal += executorIndex + j + 1;
+								pendingError += (executorIndex + j) % 3;
+							}
+							Map<String, Long> deltas = new LinkedHashMap<>();
+							if (pendingTotal > 0) {
+								deltas.put(AnalyseNode.PROCESS_COUNT, pendingTotal);
+							}
+							if (pendingError > 0) {
+								deltas.put(AnalyseNode.ERROR_COUNT, pendingError);
+							}
+							try {
+								jobNodeStorage.incrementJobNodeCounters(deltas);
+								pendingTotal = 0;
+								pendingError = 0;
+							} catch (JobException e) {
+								// 增量没有写入，留到下次
+							}
+							try {
+								Thread.sleep(ThreadLocalRandom.current().nextInt(20));
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+								return;
+							}
+						}
+					}
+				}));
+			}
+			start.countDown();
+			for (Future<?> each : futures) {
+				each.get();
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertThat(regCenter.getDirectly(JobNodePath.getNodeFullPath(jobName, AnalyseNode.PROCESS_COUNT)))
+				.isEqualTo(String.valueOf(expectedTotal));
+		assertThat(regCenter.getDirectly(JobNodePath.getNodeFullPath(jobName, AnalyseNode.ERROR_COUNT)))
+				.isEqualTo(String.valueOf(expectedError));
+
+		regCenter.remove(JobNodePath.getJobNameFullPath(jobName));
+	}
+}
@@ -0,0 +1,158 @@
+package com.vip.saturn.it.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.vip.saturn.it.AbstractSaturnIT;
+import com.vip.saturn.it.JobType;
+import com.vip.saturn.it.job.LongtimeJavaJob;
+import com.vip.saturn.job.internal.config.JobConfiguration;
+import com.vip.saturn.job.internal.execution.ExecutionNode;
+import com.vip.saturn.job.internal.storage.JobNodePath;
+import com.vip.saturn.job.utils.SystemEnvProperties;
+
+/**
+ * 500个分片所在的executor崩溃后，其他executor接管全部分片并执行完的时间：逐个接管与批量接管的对比
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class FailoverBatchIT extends AbstractSaturnIT {
+
+	private static final int SHARD_COUNT = 500;
+
+	private static int defaultBatchSize;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		defaultBatchSize = SystemEnvProperties.VIP_SATURN_FAILOVER_BATCH_SIZE;
+		startNamespaceShardingManagerList(1);
+	}
+
+	@AfterClass
+	public static void tearDown() throws Exception {
+		stopNamespaceShardingManagerList();
+		SystemEnvProperties.VIP_SATURN_FAILOVER_BATCH_SIZE = defaultBatchSize;
+	}
+
+	@Before
+	public void before() {
+		LongtimeJavaJob.statusMap.clear();
+	}
+
+	@After
+	public void after() throws Exception {
+		stopExecutorList();
+		LongtimeJavaJob.statusMap.clear();
+	}
+
+	/**
+	 * 逐个接管
+	 */
+	@Test
+	public void test_A_failoverOneByOne() throws Exception {
+		SystemEnvProperties.VIP_SATURN_FAILOVER_BATCH_SIZE = 1;
+		long millis = failover("failoverBatchITJob1", 300);
+		System.out.println("failover " + SHARD_COUNT + " items one by one, recovered in " + millis + " ms");
+	}
+
+	/**
+	 * 批量接管
+	 */
+	@Test
+	public void test_B_failoverInBatch() throws Exception {
+		SystemEnvProperties.VIP_SATURN_FAILOVER_BATCH_SIZE = 100;
+		long millis = failover("failoverBatchITJob2", 60);
+		System.out.println("failover " + SHARD_COUNT + " items in batch, recovered in " + millis + " ms");
+	}
+
+	/**
+	 * 全部分片只分配到第一个executor，运行中停止它，等待其他executor接管并执行完全部分片
+	 *
+	 * @return 从executor下线到全部分片执行完的毫秒数
+	 */
+	private long failover(final String jobName, int timeoutSeconds) throws Exception {
+		startExecutorList(3);
+		StringBuilder shardingItemParameters = new StringBuilder();
+		for (int i = 0; i < SHARD_COUNT; i++) {
+			LongtimeJavaJob.JobStatus status = new LongtimeJavaJob.JobStatus();
+			status.sleepSeconds = 30;
+			LongtimeJavaJob.statusMap.put(jobName + "_" + i, status);
+			if (i > 0) {
+				shardingItemParameters.append(',');
+			}
+			shardingItemParameters.append(i).append('=').append(i);
+		}
+
+		final JobConfiguration jobConfiguration = new JobConfiguration(jobName);
+		jobConfiguration.setCron("0 0 1 1 * ?");
+		jobConfiguration.setJobType(JobType.JAVA_JOB.toString());
+		jobConfiguration.setJobClass(LongtimeJavaJob.class.getCanonicalName());
+		jobConfiguration.setShardingTotalCount(SHARD_COUNT);
+		jobConfiguration.setShardingItemParameters(shardingItemParameters.toString());
+		jobConfiguration.setPreferList(saturnExecutorList.get(0).getExecutorName());
+		jobConfiguration.setUseDispreferList(true);
+		addJob(jobConfiguration);
+		Thread.sleep(1000);
+		enableJob(jobName);
+		Thread.sleep(2000);
+		runAtOnce(jobName);
+
+		// 全部分片都在第一个executor上运行
+		try {
+			waitForFinish(new FinishCheck() {
+				@Override
+				public boolean docheck() {
+					for (int i = 0; i < SHARD_COUNT; i++) {
+						if (!regCenter.isExisted(JobNodePath.getNodeFullPath(jobName, ExecutionNode.getRunningNode(i)))) {
+							return false;
+						}
+					}
+					return true;
+				}
+			}, 30);
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+
+		stopExecutor(0);
+		// executor关闭完成时其临时节点已删除，从此刻开始计时
+		long start = System.currentTimeMillis();
+		for (LongtimeJavaJob.JobStatus status : LongtimeJavaJob.statusMap.values()) {
+			status.sleepSeconds = 0;
+			status.runningCount = 0;
+		}
+
+		try {
+			waitForFinish(new FinishCheck() {
+				@Override
+				public boolean docheck() {
+					for (int i = 0; i < SHARD_COUNT; i++) {
+						if (LongtimeJavaJob.statusMap.get(jobName + "_" + i).runningCount <= 0) {
+							return false;
+						}
+					}
+					return true;
+				}
+			}, timeoutSeconds);
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+		long millis = System.currentTimeMillis() - start;
+
+		disableJob(jobName);
+		Thread.sleep(1000);
+		removeJob(jobName);
+		Thread.sleep(2000);
+		assertThat(millis).isLessThan(timeoutSeconds * 1000L);
+		return millis;
+	}
+}
@@ -63,7 +63,9 @@ public class ShardingIT extends AbstractSaturnIT {
 		runAtOnce(jobName);
 		Thread.sleep(1000);
 
-		assertThat(regCenter.getDirectly(SaturnExecutorsNode.SHARDING_COUNT_PATH)).isEqualTo("4");
+		// executor上线和作业servers上线可能落在同一个合并窗口内，合并为一轮分片
+		int shardingCount = Integer.parseInt(regCenter.getDirectly(SaturnExecutorsNode.SHARDING_COUNT_PATH));
+		assertThat(shardingCount).isGreaterThanOrEqualTo(3).isLessThanOrEqualTo(4);
 		
 		waitForFinish(new FinishCheck(){
 
@@ -117,7 +119,9 @@ public class ShardingIT extends AbstractSaturnIT {
 
 		stopExecutor(0); //停第1个executor
 
-		assertThat(regCenter.getDirectly(SaturnExecutorsNode.SHARDING_COUNT_PATH)).isEqualTo("9");
+		// 第2、3台executor上线各至少分片一轮，不合并时为9
+		assertThat(Integer.parseInt(regCenter.getDirectly(SaturnExecutorsNode.SHARDING_COUNT_PATH)))
+				.isGreaterThanOrEqualTo(shardingCount + 2).isLessThanOrEqualTo(9);
 		
 		Thread.sleep(1000);
 		runAtOnce(jobName);
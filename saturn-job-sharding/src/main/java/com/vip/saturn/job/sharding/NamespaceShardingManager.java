@@ -40,10 +40,20 @@ public class NamespaceShardingManager {
 	private ShardingConnectionLostListener shardingConnectionLostListener;
 	
 	public NamespaceShardingManager(CuratorFramework curatorFramework, String namespace, String hostValue, ReportAlarmService reportAlarmService) {
+		this(curatorFramework, namespace, hostValue, reportAlarmService, null, null, null);
+	}
+
+	/**
+	 * @param shardingWorkerPool 多个域共享的分片线程池，为null则每个域使用自己的线程
+	 * @param treeCacheWorkerPool 多个域共享的TreeCache事件线程池，为null则每个域使用自己的线程
+	 * @param nns zk集群名/域名，在共享线程池中区分不同zk集群上的同名域，为null则使用域名
+	 */
+	public NamespaceShardingManager(CuratorFramework curatorFramework, String namespace, String hostValue, ReportAlarmService reportAlarmService,
+			ShardingWorkerPool shardingWorkerPool, ShardingWorkerPool treeCacheWorkerPool, String nns) {
 		this.curatorFramework = curatorFramework;
 		this.namespace = namespace;
-		this.shardingTreeCacheService = new ShardingTreeCacheService(namespace, curatorFramework);
-		this.namespaceShardingService = new NamespaceShardingService(curatorFramework, hostValue, reportAlarmService);
+		this.shardingTreeCacheService = new ShardingTreeCacheService(namespace, curatorFramework, treeCacheWorkerPool, nns);
+		this.namespaceShardingService = new NamespaceShardingService(curatorFramework, hostValue, reportAlarmService, shardingTreeCacheService, shardingWorkerPool, nns);
 		this.executorCleanService = new ExecutorCleanService(curatorFramework);
 		this.addJobListenersService = new AddJobListenersService(namespace, curatorFramework, namespaceShardingService, shardingTreeCacheService);
 	}
@@ -0,0 +1,258 @@
+package com.vip.saturn.job.sharding;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 多个域共享的固定大小线程池.
+ *
+ * <p>
+ * 每个域通过{@link #newSerialExecutor(String)}获取一个串行的ExecutorService，同一个域的任务按提交顺序逐个执行，与单线程池的语义相同；
+ * 不同域的任务复用同一组工作线程，每执行完一个任务重新排队，避免某个域长时间占用线程.
+ * </p>
+ */
+public class ShardingWorkerPool {
+
+	static Logger log = LoggerFactory.getLogger(ShardingWorkerPool.class);
+
+	private final String name;
+
+	private final ThreadPoolExecutor workers;
+
+	private final ScheduledExecutorService timer;
+
+	private final ConcurrentHashMap<String, SerialExecutor> serialExecutors = new ConcurrentHashMap<>();
+
+	public ShardingWorkerPool(String name, int threads) {
+		this.name = name;
+		this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				new WorkerThreadFactory(name + "-worker"));
+		this.timer = Executors.newSingleThreadScheduledExecutor(new WorkerThreadFactory(name + "-timer"));
+	}
+
+	/**
+	 * 获取某个域的串行ExecutorService，关闭后不再计入队列长度统计
+	 */
+	public ExecutorService newSerialExecutor(String key) {
+		SerialExecutor serialExecutor = new SerialExecutor(key);
+		serialExecutors.put(key, serialExecutor);
+		return serialExecutor;
+	}
+
+	/**
+	 * 延迟提交任务到executor，等待期间不占用工作线程；executor已经关闭则丢弃
+	 */
+	public void schedule(final ExecutorService executor, final Runnable task, long delayMillis) {
+		timer.schedule(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (!executor.isShutdown()) {
+						executor.execute(task);
+					}
+				} catch (RejectedExecutionException e) {
+					log.debug("{} discard the scheduled task, because the executor is shutdown", name);
+				}
+			}
+		}, delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 每个域等待执行的任务数，不包括正在执行的任务
+	 */
+	public Map<String, Integer> getQueueDepths() {
+		Map<String, Integer> queueDepths = new TreeMap<>();
+		for (Map.Entry<String, SerialExecutor> entry : serialExecutors.entrySet()) {
+			queueDepths.put(entry.getKey(), entry.getValue().getQueueSize());
+		}
+		return queueDepths;
+	}
+
+	public int getThreads() {
+		return workers.getCorePoolSize();
+	}
+
+	public void shutdown() {
+		timer.shutdownNow();
+		workers.shutdownNow();
+	}
+
+	private class SerialExecutor extends AbstractExecutorService {
+
+		private final String key;
+
+		private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+		private final Runnable runNext = new Runnable() {
+			@Override
+			public void run() {
+				runNext();
+			}
+		};
+
+		// 已经提交到工作线程池，或者正在执行任务
+		private boolean scheduled;
+
+		private Thread runningThread;
+
+		private boolean shutdown;
+
+		private SerialExecutor(String key) {
+			this.key = key;
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			synchronized (this) {
+				if (shutdown) {
+					throw new RejectedExecutionException(name + " executor of " + key + " is shutdown");
+				}
+				tasks.add(command);
+				if (scheduled) {
+					return;
+				}
+				scheduled = true;
+			}
+			submitRunNext();
+		}
+
+		private void submitRunNext() {
+			try {
+				workers.execute(runNext);
+			} catch (RejectedExecutionException e) {
+				synchronized (this) {
+					tasks.clear();
+					finished();
+				}
+				throw e;
+			}
+		}
+
+		private void runNext() {
+			Runnable task;
+			synchronized (this) {
+				task = tasks.poll();
+				if (task == null) {
+					finished();
+					return;
+				}
+				runningThread = Thread.currentThread();
+			}
+			try {
+				task.run();
+			} catch (Throwable t) {// NOSONAR
+				log.error(name + " executor of " + key + " run task error", t);
+			} finally {
+				boolean hasNext;
+				synchronized (this) {
+					runningThread = null;
+					// 清除shutdownNow设置的中断标记，不影响其它域的任务
+					Thread.interrupted();
+					hasNext = !tasks.isEmpty();
+					if (!hasNext) {
+						finished();
+					}
+				}
+				if (hasNext) {
+					try {
+						submitRunNext();
+					} catch (RejectedExecutionException e) {
+						log.warn("{} is shutdown, discard the tasks of {}", name, key);
+					}
+				}
+			}
+		}
+
+		private void finished() {
+			scheduled = false;
+			if (shutdown) {
+				serialExecutors.remove(key, this);
+			}
+			notifyAll();
+		}
+
+		private synchronized int getQueueSize() {
+			return tasks.size();
+		}
+
+		@Override
+		public synchronized void shutdown() {
+			shutdown = true;
+			if (!scheduled) {
+				finished();
+			}
+		}
+
+		@Override
+		public synchronized List<Runnable> shutdownNow() {
+			shutdown = true;
+			List<Runnable> remaining = new ArrayList<>(tasks);
+			tasks.clear();
+			if (runningThread != null) {
+				runningThread.interrupt();
+			}
+			if (!scheduled) {
+				finished();
+			}
+			return remaining;
+		}
+
+		@Override
+		public synchronized boolean isShutdown() {
+			return shutdown;
+		}
+
+		@Override
+		public synchronized boolean isTerminated() {
+			return shutdown && !scheduled;
+		}
+
+		@Override
+		public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			while (!isTerminated()) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+			return true;
+		}
+	}
+
+	private static class WorkerThreadFactory implements ThreadFactory {
+
+		private final String prefix;
+
+		private final AtomicInteger index = new AtomicInteger();
+
+		private WorkerThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, prefix + "-" + index.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -0,0 +1,233 @@
+package com.vip.saturn.job.sharding.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分片结果按作业建立的索引：作业 -> executor -> 分片项数组.
+ *
+ * <p>
+ * 对executor列表只遍历一次，之后获取某个作业的分片、比较两次分片结果中某个作业的分片是否变化都不再遍历全部executor的shardList.
+ * 每个作业的分片有结构哈希，哈希不同直接认为变化，相同时再逐个比较有序的分片项数组；整个分片结果有64位结构哈希，用于替代两次序列化成JSON后的比较.
+ * </p>
+ */
+public final class ShardingIndex {
+
+    private static final int[] NO_ITEMS = new int[0];
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final long NULL_MARK = 0x9e3779b97f4a7c15L;
+
+    private final List<String> executorNames;
+
+    private final Map<String, JobShards> jobShardsMap;
+
+    private final long contentHash;
+
+    private ShardingIndex(List<String> executorNames, Map<String, JobShards> jobShardsMap, long contentHash) {
+        this.executorNames = executorNames;
+        this.jobShardsMap = jobShardsMap;
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * 为executor列表建立索引，之后executor列表的修改不影响索引
+     */
+    public static ShardingIndex build(List<Executor> executorList) {
+        List<String> executorNames = new ArrayList<>(executorList == null ? 0 : executorList.size());
+        Map<String, Map<String, IntArrayBuilder>> builders = new HashMap<>();
+        long hash = FNV_OFFSET_BASIS;
+        if (executorList != null) {
+            for (Executor executor : executorList) {
+                String executorName = executor.getExecutorName();
+                executorNames.add(executorName);
+                hash = hash(hash, executorName);
+                hash = hash(hash, executor.getIp());
+                hash = hash(hash, executor.getTotalLoadLevel());
+                List<String> jobNameList = executor.getJobNameList();
+                if (jobNameList == null) {
+                    hash = hash(hash, NULL_MARK);
+                } else {
+                    hash = hash(hash, jobNameList.size());
+                    for (String jobName : jobNameList) {
+                        hash = hash(hash, jobName);
+                    }
+                }
+                List<Shard> shardList = executor.getShardList();
+                if (shardList == null) {
+                    hash = hash(hash, NULL_MARK);
+                    continue;
+                }
+                hash = hash(hash, shardList.size());
+                for (Shard shard : shardList) {
+                    String jobName = shard.getJobName();
+                    hash = hash(hash, jobName);
+                    hash = hash(hash, shard.getItem());
+                    hash = hash(hash, shard.getLoadLevel());
+                    Map<String, IntArrayBuilder> executorItems = builders.get(jobName);
+                    if (executorItems == null) {
+                        executorItems = new HashMap<>();
+                        builders.put(jobName, executorItems);
+                    }
+                    IntArrayBuilder items = executorItems.get(executorName);
+                    if (items == null) {
+                        items = new IntArrayBuilder();
+                        executorItems.put(executorName, items);
+                    }
+                    items.add(shard.getItem());
+                }
+            }
+        }
+        Map<String, JobShards> jobShardsMap = new HashMap<>(builders.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Map<String, IntArrayBuilder>> entry : builders.entrySet()) {
+            jobShardsMap.put(entry.getKey(), new JobShards(entry.getValue()));
+        }
+        return new ShardingIndex(executorNames, jobShardsMap, hash);
+    }
+
+    /**
+     * 整个分片结果的结构哈希，与序列化成JSON后的内容一一对应：executor及其shardList的顺序、ip、jobNameList、totalLoadLevel都参与计算
+     */
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * 与{@link com.vip.saturn.job.sharding.service.NamespaceShardingContentService#getShardingItems(List, String)}的结果一致：
+     * 每个executor都有一项，没有该作业分片的executor为空列表
+     *
+     * @return key为executorName，value为分片项
+     */
+    public Map<String, List<Integer>> getShardingItems(String jobName) {
+        JobShards jobShards = jobShardsMap.get(jobName);
+        Map<String, List<Integer>> shardingItems = new HashMap<>(executorNames.size() * 4 / 3 + 1);
+        for (String executorName : executorNames) {
+            int[] items = jobShards == null ? null : jobShards.items.get(executorName);
+            if (items == null) {
+                shardingItems.put(executorName, new ArrayList<Integer>(0));
+            } else {
+                List<Integer> list = new ArrayList<>(items.length);
+                for (int item : items) {
+                    list.add(item);
+                }
+                shardingItems.put(executorName, list);
+            }
+        }
+        return shardingItems;
+    }
+
+    /**
+     * 作业在两次分片结果中是否有executor的分片项集合不同，没有分片与分片为空视为相同
+     */
+    public boolean isJobShardsChanged(ShardingIndex other, String jobName) {
+        JobShards jobShards = jobShardsMap.get(jobName);
+        JobShards otherJobShards = other.jobShardsMap.get(jobName);
+        if (jobShards == null || otherJobShards == null) {
+            return jobShards != otherJobShards;
+        }
+        if (jobShards.hash != otherJobShards.hash || jobShards.sortedItems.size() != otherJobShards.sortedItems.size()) {
+            return true;
+        }
+        for (Map.Entry<String, int[]> entry : jobShards.sortedItems.entrySet()) {
+            if (!Arrays.equals(entry.getValue(), otherJobShards.sortedItems.get(entry.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long hash(long hash, String value) {
+        if (value == null) {
+            return hash(hash, NULL_MARK);
+        }
+        long h = hash(hash, value.length());
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    private static long hash(long hash, long value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 一个作业在各executor上的分片项
+     */
+    private static final class JobShards {
+
+        // 分片项按shardList中的顺序
+        private final Map<String, int[]> items;
+
+        // 去重排序后的分片项，用于比较
+        private final Map<String, int[]> sortedItems;
+
+        // 与executor顺序无关的结构哈希
+        private final long hash;
+
+        private JobShards(Map<String, IntArrayBuilder> builders) {
+            int capacity = builders.size() * 4 / 3 + 1;
+            items = new HashMap<>(capacity);
+            sortedItems = new HashMap<>(capacity);
+            long h = 0;
+            for (Map.Entry<String, IntArrayBuilder> entry : builders.entrySet()) {
+                int[] array = entry.getValue().toArray();
+                int[] sorted = sortedDistinct(array);
+                items.put(entry.getKey(), array);
+                sortedItems.put(entry.getKey(), sorted);
+                long executorHash = hash(FNV_OFFSET_BASIS, entry.getKey());
+                for (int item : sorted) {
+                    executorHash = hash(executorHash, item);
+                }
+                h += mix(executorHash);
+            }
+            hash = h;
+        }
+
+        private static int[] sortedDistinct(int[] array) {
+            int[] sorted = array.clone();
+            Arrays.sort(sorted);
+            int size = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[size - 1]) {
+                    sorted[size++] = sorted[i];
+                }
+            }
+            return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+        }
+    }
+
+    private static final class IntArrayBuilder {
+
+        private int[] values = new int[4];
+
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return size == 0 ? NO_ITEMS : Arrays.copyOf(values, size);
+        }
+    }
+}
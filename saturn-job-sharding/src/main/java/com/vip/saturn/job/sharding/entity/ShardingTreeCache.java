@@ -16,6 +16,8 @@ public class ShardingTreeCache {
 
     private Map<String, TreeCache> treeCacheMap = new HashMap<String, TreeCache>();
     private Map<TreeCache, List<TreeCacheListener>> treeCacheListenerMap = new HashMap<TreeCache, List<TreeCacheListener>>();
+    // 已初始化完成的TreeCache，其数据可以代替zk读取
+    private Set<TreeCache> initializedTreeCaches = new HashSet<TreeCache>();
 
     private String getKey(String path, int depth) {
         return path + depth;
@@ -47,6 +49,26 @@ public class ShardingTreeCache {
         }
     }
 
+    public void setTreeCacheInitialized(TreeCache treeCache, boolean initialized) {
+        synchronized (this) {
+            if(initialized) {
+                initializedTreeCaches.add(treeCache);
+            } else {
+                initializedTreeCaches.remove(treeCache);
+            }
+        }
+    }
+
+    /**
+     * 获取已初始化完成的TreeCache，不存在或者未初始化完成则返回null
+     */
+    public TreeCache getInitializedTreeCache(String path, int depth) {
+        synchronized (this) {
+            TreeCache treeCache = treeCacheMap.get(getKey(path, depth));
+            return treeCache != null && initializedTreeCaches.contains(treeCache) ? treeCache : null;
+        }
+    }
+
     public TreeCacheListener addTreeCacheListenerIfAbsent(String path, int depth, TreeCacheListener treeCacheListener) {
         synchronized (this) {
             TreeCacheListener treeCacheListenerOld = null;
@@ -83,6 +105,7 @@ public class ShardingTreeCache {
             TreeCache treeCache = treeCacheMap.get(key);
             if(treeCache != null) {
                 treeCacheListenerMap.remove(treeCache);
+                initializedTreeCaches.remove(treeCache);
                 treeCacheMap.remove(key);
                 treeCache.close();
                 logger.info("remove TreeCache success, path is {}, depth is {}", path, depth);
@@ -103,6 +126,7 @@ public class ShardingTreeCache {
                 iterator.remove();
             }
             treeCacheListenerMap.clear();
+            initializedTreeCaches.clear();
         }
     }
 
@@ -129,6 +129,15 @@ public class SaturnExecutorsNode {
 		return String.format("/%s/%s", $JOBS, jobName);
 	}
 
+    /**
+     * 获取$Jobs/xx/config结点完整路径
+     * @param jobName
+     * @return
+     */
+    public static String getJobConfigNodePath(String jobName) {
+    	return String.format("/%s/%s/%s", $JOBS, jobName, "config");
+    }
+
     /**
      * 获取$Jobs/xx/config/shardingTotalCount结点完整路径
      * @param jobName
@@ -228,6 +237,15 @@ public class SaturnExecutorsNode {
         return String.format("/%s/%s/execution", $JOBS, jobName);
     }
 
+    /**
+     * 获取$Jobs/xx/servers完整路径
+     * @param jobName
+     * @return
+     */
+    public static String getJobServersNodePath(String jobName) {
+        return String.format("/%s/%s/servers", $JOBS, jobName);
+    }
+
     /**
      * 获取$Jobs/xx/servers/yy完整路径
      * @param jobName
@@ -53,20 +53,20 @@ public class AddJobListenersService {
 	}
 
 	private void removeJobConfigPathTreeCache(String jobName) {
-		String path = SaturnExecutorsNode.$JOBSNODE_PATH + "/" + jobName + "/config";
+		String path = SaturnExecutorsNode.getJobConfigNodePath(jobName);
 		int depth = 1;
 		shardingTreeCacheService.removeTreeCache(path, depth);
 	}
 
 	private void removeJobServersPathTreeCache(String jobName) {
-		String path = SaturnExecutorsNode.$JOBSNODE_PATH + "/" + jobName + "/servers";
+		String path = SaturnExecutorsNode.getJobServersNodePath(jobName);
 		int depth = 2;
 		shardingTreeCacheService.removeTreeCache(path, depth);
 	}
 
 	private void addJobConfigPathListener(String jobName) {
 		try {
-			String path = SaturnExecutorsNode.$JOBSNODE_PATH + "/" + jobName + "/config";
+			String path = SaturnExecutorsNode.getJobConfigNodePath(jobName);
 			int depth = 1;
 			String fullPath = namespace + path;
 
@@ -91,7 +91,7 @@ public class AddJobListenersService {
 
 	private void addJobServersPathListener(String jobName) {
 		try {
-			String path = SaturnExecutorsNode.$JOBSNODE_PATH + "/" + jobName + "/servers";
+			String path = SaturnExecutorsNode.getJobServersNodePath(jobName);
 			int depth = 2;
 			try {
 				// create servers if not exists
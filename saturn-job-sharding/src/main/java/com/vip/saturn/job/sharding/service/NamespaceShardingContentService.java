@@ -10,20 +10,48 @@ import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
 import java.util.*;
 
 /**
+ * sharding/content的读写.
+ *
+ * <p>
+ * 读取时兼容JSON和二进制两种格式。写入默认仍为JSON：executor的ShardingService在读取necessary失败时也会读取sharding/content，
+ * 旧版本的executor和console只能解析JSON，所有executor和console都升级后才能通过VIP_SATURN_SHARDING_CONTENT_BINARY=true开启二进制格式.
+ * </p>
+ *
  * @author hebelala
  */
 public class NamespaceShardingContentService {
 	static Logger log = LoggerFactory.getLogger(NamespaceShardingContentService.class);
 
+    // 每段的最大长度，小于1M。 最大长度见NIOServerCnxn.readLength()
+    private static final int SLICE_LENGTH = 1024 * 1023;
+
+    private static final String NAME_VIP_SATURN_SHARDING_CONTENT_BINARY = "VIP_SATURN_SHARDING_CONTENT_BINARY";
+
     private CuratorFramework curatorFramework;
 
     private Gson gson = new Gson();
 
+    private final boolean binaryContent;
+
     public NamespaceShardingContentService(CuratorFramework curatorFramework) {
+        this(curatorFramework, Boolean.parseBoolean(System.getProperty(NAME_VIP_SATURN_SHARDING_CONTENT_BINARY,
+                System.getenv(NAME_VIP_SATURN_SHARDING_CONTENT_BINARY))));
+    }
+
+    /**
+     * @param binaryContent 是否以二进制格式写入sharding/content
+     */
+    public NamespaceShardingContentService(CuratorFramework curatorFramework, boolean binaryContent) {
         this.curatorFramework = curatorFramework;
+        this.binaryContent = binaryContent;
     }
 
     public void persistDirectly(List<Executor> executorList) throws Exception {
@@ -31,25 +59,49 @@ public class NamespaceShardingContentService {
         if(curatorFramework.checkExists().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH) == null) {
             curatorFramework.create().creatingParentsIfNeeded().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH);
         }
-        //删除sharding/content节点下的内容
         List<String> shardingContent = curatorFramework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH);
-        if(shardingContent != null && !shardingContent.isEmpty()) {
-            for(String shardingConentElement : shardingContent) {
-                curatorFramework.delete().forPath(SaturnExecutorsNode.getShardingContentElementNodePath(shardingConentElement));
-            }
-        }
 
         // 持久化新的内容
-        String shardingContentStr = toShardingContent(executorList);
-        log.info("Persisit sharding content: {}", shardingContentStr);
-        // 如果内容过大，分开节点存储。不能使用事务提交，因为即使使用事务、写多个节点，但是提交事务时，仍然会报长度过长的错误。
-        int sliceLength = 1024 * 1023; // 每段的最大长度，小于1M。 最大长度见NIOServerCnxn.readLength()
-        byte[] shardingContentBytes = shardingContentStr.getBytes("UTF-8");
+        byte[] shardingContentBytes;
+        if (binaryContent) {
+            shardingContentBytes = ShardingContentCodec.encode(executorList);
+            log.info("Persisit sharding content, executors: {}, bytes: {}", executorList.size(), shardingContentBytes.length);
+            if (log.isDebugEnabled()) {
+                log.debug("Persisit sharding content: {}", toShardingContent(executorList));
+            }
+        } else {
+            String shardingContentStr = toShardingContent(executorList);
+            log.info("Persisit sharding content: {}", shardingContentStr);
+            shardingContentBytes = shardingContentStr.getBytes("UTF-8");
+        }
         int length = shardingContentBytes.length;
-        int sliceCount = length / sliceLength + 1;
+        if (length <= SLICE_LENGTH) {
+            // 只有一段时在一个事务中写入并删除原来多余的分段，读取时不会读到新旧混合的内容
+            String elementPath = SaturnExecutorsNode.getShardingContentElementNodePath("0");
+            CuratorTransactionFinal curatorTransactionFinal;
+            if (shardingContent.contains("0")) {
+                curatorTransactionFinal = curatorFramework.inTransaction().setData().forPath(elementPath, shardingContentBytes).and();
+            } else {
+                curatorTransactionFinal = curatorFramework.inTransaction().create().forPath(elementPath, shardingContentBytes).and();
+            }
+            for (String shardingConentElement : shardingContent) {
+                if (!"0".equals(shardingConentElement)) {
+                    curatorTransactionFinal.delete().forPath(SaturnExecutorsNode.getShardingContentElementNodePath(shardingConentElement)).and();
+                }
+            }
+            curatorTransactionFinal.commit();
+            return;
+        }
+        //删除sharding/content节点下的内容
+        for(String shardingConentElement : shardingContent) {
+            curatorFramework.delete().forPath(SaturnExecutorsNode.getShardingContentElementNodePath(shardingConentElement));
+        }
+        // 如果内容过大，分开节点存储。不能使用事务提交，因为即使使用事务、写多个节点，但是提交事务时，仍然会报长度过长的错误。
+        // 分段写入期间读取可能失败，ShardingService读取失败时会重试
+        int sliceCount = length / SLICE_LENGTH + 1;
         for(int i=0; i<sliceCount; i++) {
-            int start = sliceLength * i;
-            int end = start + sliceLength;
+            int start = SLICE_LENGTH * i;
+            int end = start + SLICE_LENGTH;
             if(end > length) {
                 end = length;
             }
@@ -99,20 +151,26 @@ public class NamespaceShardingContentService {
 					return a.compareTo(b);
 				}
             });
-            List<Byte> dataByteList = new ArrayList<>();
+            List<byte[]> slices = new ArrayList<>(elementNodes.size());
             for(String elementNode : elementNodes) {
-                byte[] elementData = curatorFramework.getData().forPath(SaturnExecutorsNode.getShardingContentElementNodePath(elementNode));
-                for(int i=0; i<elementData.length; i++) {
-                    dataByteList.add(elementData[i]);//NOSONAR
-                }
+                slices.add(curatorFramework.getData().forPath(SaturnExecutorsNode.getShardingContentElementNodePath(elementNode)));
             }
-            byte[] dataArray = new byte[dataByteList.size()];
-            for(int i=0; i<dataByteList.size(); i++) {
-                dataArray[i] = dataByteList.get(i);
+            if(slices.isEmpty()) {
+                return executorList;
             }
-            List<Executor> tmp = gson.fromJson(new String(dataArray, "UTF-8"), new TypeToken<List<Executor>>(){}.getType());
-            if(tmp != null) {
-                executorList.addAll(tmp);
+            if(ShardingContentCodec.isBinary(slices.get(0))) {
+                executorList.addAll(ShardingContentCodec.decode(slices));
+            } else {
+                // 兼容原JSON格式，各分段依次读取，不拼接
+                List<InputStream> streams = new ArrayList<>(slices.size());
+                for(byte[] slice : slices) {
+                    streams.add(new ByteArrayInputStream(slice));
+                }
+                InputStreamReader reader = new InputStreamReader(new SequenceInputStream(Collections.enumeration(streams)), Charset.forName("UTF-8"));
+                List<Executor> tmp = gson.fromJson(reader, new TypeToken<List<Executor>>(){}.getType());
+                if(tmp != null) {
+                    executorList.addAll(tmp);
+                }
             }
         }
         return executorList;
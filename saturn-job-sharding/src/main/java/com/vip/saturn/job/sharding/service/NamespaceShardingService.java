@@ -16,13 +16,17 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import com.vip.saturn.job.integrate.service.ReportAlarmService;
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCache;
 import org.apache.curator.framework.recipes.leader.LeaderLatch;
 import org.apache.zookeeper.CreateMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vip.saturn.job.sharding.ShardingWorkerPool;
 import com.vip.saturn.job.sharding.entity.Executor;
 import com.vip.saturn.job.sharding.entity.Shard;
+import com.vip.saturn.job.sharding.entity.ShardingIndex;
 import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
 
 /**
@@ -34,6 +38,25 @@ public class NamespaceShardingService {
 
 	private static final int LOAD_LEVEL_DEFAULT = 1;
 
+	private static final String NAME_VIP_SATURN_SHARDING_COALESCE_MILLIS = "VIP_SATURN_SHARDING_COALESCE_MILLIS";
+
+	/**
+	 * 分片事件的合并窗口毫秒数，默认200，0表示每个事件单独分片
+	 */
+	private static final long VIP_SATURN_SHARDING_COALESCE_MILLIS = loadShardingCoalesceMillis();
+
+	private static long loadShardingCoalesceMillis() {
+		String coalesceMillisStr = System.getProperty(NAME_VIP_SATURN_SHARDING_COALESCE_MILLIS, System.getenv(NAME_VIP_SATURN_SHARDING_COALESCE_MILLIS));
+		if (coalesceMillisStr != null && !coalesceMillisStr.trim().isEmpty()) {
+			try {
+				return Long.parseLong(coalesceMillisStr.trim());
+			} catch (NumberFormatException e) {
+				log.error("the " + NAME_VIP_SATURN_SHARDING_COALESCE_MILLIS + " is not valid", e);
+			}
+		}
+		return 200L;
+	}
+
 	private CuratorFramework curatorFramework;
 
 	private AtomicInteger shardingCount;
@@ -50,20 +73,61 @@ public class NamespaceShardingService {
 
 	private ReportAlarmService reportAlarmService;
 
+	private ShardingTreeCacheService shardingTreeCacheService;
+
+	private ShardingWorkerPool shardingWorkerPool;
+
+	// 在共享线程池中区分域，不同zk集群可能有同名的域
+	private String nns;
+
+	private final long shardingCoalesceMillis;
+
+	// 等待合并的分片任务
+	private final List<AbstractAsyncShardingTask> pendingShardingTasks = new ArrayList<>();
+
 	private Object shutdownLock = new Object();
 
     public NamespaceShardingService(CuratorFramework curatorFramework, String hostValue, ReportAlarmService reportAlarmService) {
+    	this(curatorFramework, hostValue, reportAlarmService, null);
+    }
+
+	/**
+	 * @param shardingTreeCacheService 分片时从其中已初始化的TreeCache读取作业配置和executor信息，为null则直接读取zk
+	 */
+    public NamespaceShardingService(CuratorFramework curatorFramework, String hostValue, ReportAlarmService reportAlarmService, ShardingTreeCacheService shardingTreeCacheService) {
+    	this(curatorFramework, hostValue, reportAlarmService, shardingTreeCacheService, null, null);
+    }
+
+	/**
+	 * @param shardingWorkerPool 多个域共享的分片线程池，为null则使用自己的单线程池
+	 * @param nns zk集群名/域名，作为在shardingWorkerPool中的key，为null则使用域名
+	 */
+    public NamespaceShardingService(CuratorFramework curatorFramework, String hostValue, ReportAlarmService reportAlarmService, ShardingTreeCacheService shardingTreeCacheService, ShardingWorkerPool shardingWorkerPool, String nns) {
+    	this(curatorFramework, hostValue, reportAlarmService, shardingTreeCacheService, shardingWorkerPool, nns, VIP_SATURN_SHARDING_COALESCE_MILLIS);
+    }
+
+	/**
+	 * @param shardingCoalesceMillis 分片事件的合并窗口毫秒数，0表示每个事件单独分片
+	 */
+    public NamespaceShardingService(CuratorFramework curatorFramework, String hostValue, ReportAlarmService reportAlarmService, ShardingTreeCacheService shardingTreeCacheService, ShardingWorkerPool shardingWorkerPool, String nns, long shardingCoalesceMillis) {
     	this.curatorFramework = curatorFramework;
 		this.hostValue = hostValue;
 		this.reportAlarmService = reportAlarmService;
+		this.shardingTreeCacheService = shardingTreeCacheService;
+		this.shardingWorkerPool = shardingWorkerPool;
+		this.shardingCoalesceMillis = shardingCoalesceMillis;
+		this.namespace = curatorFramework.getNamespace();
+		this.nns = nns == null ? namespace : nns;
     	this.shardingCount = new AtomicInteger(0);
     	this.needAllSharding = new AtomicBoolean(false);
     	this.executorService = newSingleThreadExecutor();
-		this.namespace = curatorFramework.getNamespace();
 		this.namespaceShardingContentService = new NamespaceShardingContentService(curatorFramework);
     }
 
 	private ExecutorService newSingleThreadExecutor() {
+		if (shardingWorkerPool != null) {
+			return shardingWorkerPool.newSerialExecutor(nns);
+		}
     	return Executors.newSingleThreadExecutor(new ThreadFactory() {
     		@Override
     		public Thread newThread(Runnable r) {
@@ -84,108 +148,63 @@ public class NamespaceShardingService {
 			return null;
 		}
 
-		@Override
-		public void run() {
-			logStartInfo();
-			boolean isAllShardingTask = this instanceof ExecuteAllShardingTask;
-			try {
-				// 如果当前变为非leader，则直接返回
-				if(!isLeadership()) {
-					return;
-				}
-
-				// 如果需要全量分片，且当前线程不是全量分片线程，则直接返回，没必要做分片
-				if(needAllSharding.get() && !isAllShardingTask) {
-					log.info("the {} will be ignored, because there will be {}", this.getClass().getSimpleName(), ExecuteAllShardingTask.class.getSimpleName());
-					return;
-				}
+		/**
+		 * 是否从TreeCache读取作业配置、作业servers和executor信息，默认是；TreeCache未初始化完成时仍然读取zk
+		 */
+		protected boolean readFromTreeCache() {
+			return true;
+		}
 
-				List<String> allJobs = getAllJobs();
-				List<String> allEnableJobs = getAllEnableJobs(allJobs);
-				List<Executor> oldOnlineExecutorList = getLastOnlineExecutorList();
-				List<Executor> customLastOnlineExecutorList = customLastOnlineExecutorList();
-				List<Executor> lastOnlineExecutorList = customLastOnlineExecutorList == null ? copyOnlineExecutorList(oldOnlineExecutorList) : customLastOnlineExecutorList;
-				List<Shard> shardList = new ArrayList<>();
-				// 摘取
-				if(pick(allJobs, allEnableJobs, shardList, lastOnlineExecutorList)) {
-					// 放回
-					putBackBalancing(allEnableJobs, shardList, lastOnlineExecutorList);
-					// 如果当前变为非leader，则返回
-					if (!isLeadership()) {
-						return;
-					}
-					// 持久化分片结果
-					if(shardingContentIsChanged(oldOnlineExecutorList, lastOnlineExecutorList)) {
-						namespaceShardingContentService.persistDirectly(lastOnlineExecutorList);
-					}
-					// notify the shards-changed jobs of all enable jobs.
-					Map<String, Map<String, List<Integer>>> enabledAndShardsChangedJobShardContent = getEnabledAndShardsChangedJobShardContent(isAllShardingTask, allEnableJobs, oldOnlineExecutorList, lastOnlineExecutorList);
-					namespaceShardingContentService.persistJobsNecessaryInTransaction(enabledAndShardsChangedJobShardContent);
-					// sharding count ++
-					increaseShardingCount();
-				}
-			} catch (Throwable t) {
-				log.error(t.getMessage(), t);
-				if(!isAllShardingTask) { // 如果当前不是全量分片，则需要全量分片来拯救异常
-					needAllSharding.set(true);
-					shardingCount.incrementAndGet();
-					executorService.submit(new ExecuteAllShardingTask());
-				} else { // 如果当前是全量分片，则告警并关闭当前服务，重选leader来做事情
-					if(reportAlarmService != null) {
-						Map<String, String> alarmData = new HashMap<>();
-						alarmData.put("eventType", "SHARDING_ALLSHARDING_EXCEPTION");
-						alarmData.put("domain", namespace);
-						alarmData.put("hostValue", hostValue);
-						try {
-							reportAlarmService.reportWarningAlarm(alarmData);
-						} catch (Throwable t2) {
-							log.error(t2.getMessage(), t2);
-						}
-					}
-					try {
-						shutdown();
-					} catch (Throwable t3) {
-						log.error(t3.getMessage(), t3);
-					}
-				}
-			} finally {
-				if(isAllShardingTask) { // 如果是全量分片，不再进行全量分片
-					needAllSharding.set(false);
-				}
-				shardingCount.decrementAndGet();
+		protected TreeCache getTreeCache(String path, int depth) {
+			if (shardingTreeCacheService == null || !readFromTreeCache()) {
+				return null;
 			}
+			return shardingTreeCacheService.getInitializedTreeCache(path, depth);
 		}
 
-		private boolean shardingContentIsChanged(List<Executor> oldOnlineExecutorList, List<Executor> lastOnlineExecutorList) {
-			return !namespaceShardingContentService.toShardingContent(oldOnlineExecutorList).equals(namespaceShardingContentService.toShardingContent(lastOnlineExecutorList));
+		protected TreeCache getJobConfigTreeCache(String jobName) {
+			return getTreeCache(SaturnExecutorsNode.getJobConfigNodePath(jobName), 1);
 		}
 
-		private List<Executor> copyOnlineExecutorList(List<Executor> oldOnlineExecutorList) {
-			List<Executor> newOnlineExecutorList = new ArrayList<>();
-			for (Executor oldExecutor : oldOnlineExecutorList) {
-				Executor newExecutor = new Executor();
-				newExecutor.setTotalLoadLevel(oldExecutor.getTotalLoadLevel());
-				newExecutor.setIp(oldExecutor.getIp());
-				newExecutor.setExecutorName(oldExecutor.getExecutorName());
-				if (oldExecutor.getJobNameList() != null) {
-					newExecutor.setJobNameList(new ArrayList<String>());
-					for (String jobName : oldExecutor.getJobNameList()) {
-						newExecutor.getJobNameList().add(jobName);
-					}
-				}
-				if (oldExecutor.getShardList() != null) {
-					newExecutor.setShardList(new ArrayList<Shard>());
-					for (Shard oldShard : oldExecutor.getShardList()) {
-						Shard newShard = new Shard();
-						newShard.setItem(oldShard.getItem());
-						newShard.setJobName(oldShard.getJobName());
-						newShard.setLoadLevel(oldShard.getLoadLevel());
-						newExecutor.getShardList().add(newShard);
-					}
-				}
-				newOnlineExecutorList.add(newExecutor);
+		protected TreeCache getJobServersTreeCache(String jobName) {
+			return getTreeCache(SaturnExecutorsNode.getJobServersNodePath(jobName), 2);
+		}
+
+		protected TreeCache getExecutorsTreeCache() {
+			return getTreeCache(SaturnExecutorsNode.EXECUTORSNODE_PATH, 2);
+		}
+
+		/**
+		 * 获取结点数据，treeCache不为null时从其中获取，否则读取zk
+		 * @return 结点不存在则返回null
+		 */
+		protected byte[] getData(TreeCache treeCache, String nodePath) throws Exception {
+			if (treeCache != null) {
+				ChildData childData = treeCache.getCurrentData(nodePath);
+				return childData == null ? null : childData.getData();
 			}
-			return newOnlineExecutorList;
+			if (curatorFramework.checkExists().forPath(nodePath) != null) {
+				return curatorFramework.getData().forPath(nodePath);
+			}
+			return null;
+		}
+
+		protected boolean isExisted(TreeCache treeCache, String nodePath) throws Exception {
+			if (treeCache != null) {
+				return treeCache.getCurrentData(nodePath) != null;
+			}
+			return curatorFramework.checkExists().forPath(nodePath) != null;
+		}
+
+		@Override
+		public void run() {
+			runShardingTasks(Collections.<AbstractAsyncShardingTask>singletonList(this));
+		}
+
+		/**
+		 * 所在的分片轮次结束后调用，无论是否成功
+		 */
+		protected void afterSharding() {
 		}
 
 		/**
@@ -193,6 +212,7 @@ public class NamespaceShardingService {
 		 */
 		protected boolean fixJobNameList(List<Executor> lastOnlineExecutorList, String jobName) throws Exception {
 			boolean fixed = false;
+			TreeCache jobServersTreeCache = getJobServersTreeCache(jobName);
 			for(int i=0; i<lastOnlineExecutorList.size(); i++) {
 				Executor executor = lastOnlineExecutorList.get(i);
 				if (executor.getJobNameList() == null) {
@@ -200,7 +220,7 @@ public class NamespaceShardingService {
 				}
 				List<String> jobNameList = executor.getJobNameList();
 				String jobServersExecutorStatusNodePath = SaturnExecutorsNode.getJobServersExecutorStatusNodePath(jobName, executor.getExecutorName());
-				if (curatorFramework.checkExists().forPath(jobServersExecutorStatusNodePath) != null) {
+				if (isExisted(jobServersTreeCache, jobServersExecutorStatusNodePath)) {
 					if (!jobNameList.contains(jobName)) {
 						jobNameList.add(jobName);
 						fixed = true;
@@ -215,105 +235,11 @@ public class NamespaceShardingService {
 			return fixed;
 		}
 
-		private void increaseShardingCount() throws Exception {
-			Integer _shardingCount = 1;
-			if (null !=  curatorFramework.checkExists().forPath(SaturnExecutorsNode.SHARDING_COUNT_PATH)) {
-				byte[] shardingCountData = curatorFramework.getData().forPath(SaturnExecutorsNode.SHARDING_COUNT_PATH);
-				if(shardingCountData != null) {
-					try {
-						_shardingCount = Integer.parseInt(new String(shardingCountData, "UTF-8")) + 1;
-					} catch (NumberFormatException e) {
-						log.error(e.getMessage(), e);
-					}
-				}
-				curatorFramework.setData().forPath(SaturnExecutorsNode.SHARDING_COUNT_PATH, _shardingCount.toString().getBytes("UTF-8"));
-			} else {
-				curatorFramework.create().forPath(SaturnExecutorsNode.SHARDING_COUNT_PATH, _shardingCount.toString().getBytes("UTF-8"));
-			}
-		}
-
-		/**
-		 * Get the jobs, that are enabled, and whose shards are changed. Specially, return all enabled jobs when the current thread is all-shard-task<br/>
-		 * Return the jobs and their shardContent.
-		 */
-		private Map<String, Map<String, List<Integer>>> getEnabledAndShardsChangedJobShardContent(boolean isAllShardingTask, List<String> allEnableJobs, List<Executor> oldOnlineExecutorList, List<Executor> lastOnlineExecutorList) throws Exception {
-			Map<String, Map<String, List<Integer>>> jobShardContent = new HashMap<>();
-			if (isAllShardingTask) {
-				for (String enableJob : allEnableJobs) {
-					Map<String, List<Integer>> lastShardingItems = namespaceShardingContentService.getShardingItems(lastOnlineExecutorList, enableJob);
-					jobShardContent.put(enableJob, lastShardingItems);
-				}
-				return jobShardContent;
-			}
-			List<String> enableJobsPrior = notifyEnableJobsPrior();
-			for (String enableJob : allEnableJobs) {
-				Map<String, List<Integer>> lastShardingItems = namespaceShardingContentService.getShardingItems(lastOnlineExecutorList, enableJob);
-				// notify prior jobs that are in all enable jobs
-				if(enableJobsPrior != null && enableJobsPrior.contains(enableJob)) {
-					jobShardContent.put(enableJob, lastShardingItems);
-					continue;
-				}
-				Map<String, List<Integer>> oldShardingItems = namespaceShardingContentService.getShardingItems(oldOnlineExecutorList, enableJob);
-				// just compare executorName's shardList
-				boolean isChanged = false;
-				Iterator<Map.Entry<String, List<Integer>>> oldIterator = oldShardingItems.entrySet().iterator();
-				wl_loop:
-				while (oldIterator.hasNext()) {
-					Map.Entry<String, List<Integer>> next = oldIterator.next();
-					String executorName = next.getKey();
-					List<Integer> shards = next.getValue();
-					List<Integer> newShard = lastShardingItems.get(executorName);
-					if ((shards == null || shards.isEmpty()) && (newShard != null && !newShard.isEmpty())
-							|| (shards != null && !shards.isEmpty()) && (newShard == null || newShard.isEmpty())) { // NOSONAR
-						isChanged = true;
-						break;
-					}
-					if (shards != null && newShard != null) {
-						for (Integer shard : shards) {
-							if (!newShard.contains(shard)) {
-								isChanged = true;
-								break wl_loop;
-							}
-						}
-					}
-				}
-				if (!isChanged) {
-					Iterator<Map.Entry<String, List<Integer>>> newIterator = lastShardingItems.entrySet().iterator();
-					wl_loop2:
-					while (newIterator.hasNext()) {
-						Map.Entry<String, List<Integer>> next = newIterator.next();
-						String executorName = next.getKey();
-						List<Integer> shards = next.getValue();
-						List<Integer> oldShard = oldShardingItems.get(executorName);
-						if ((shards == null || shards.isEmpty()) && (oldShard != null && !oldShard.isEmpty())
-								|| (shards != null && !shards.isEmpty()) && (oldShard == null || oldShard.isEmpty())) { // NOSONAR
-							isChanged = true;
-							break;
-						}
-						if (shards != null && oldShard != null) {
-							for (Integer shard : shards) {
-								if (!oldShard.contains(shard)) {
-									isChanged = true;
-									break wl_loop2;
-								}
-							}
-						}
-					}
-				}
-				if (isChanged) {
-					jobShardContent.put(enableJob, lastShardingItems);
-				}
-			}
-			return jobShardContent;
-		}
-
 		protected boolean isLocalMode(String jobName) throws Exception {
 			String localNodePath = SaturnExecutorsNode.getJobConfigLocalModeNodePath(jobName);
-			if(curatorFramework.checkExists().forPath(localNodePath) != null) {
-				byte[] data = curatorFramework.getData().forPath(localNodePath);
-				if(data != null) {
-					return Boolean.valueOf(new String(data, "UTF-8"));
-				}
+			byte[] data = getData(getJobConfigTreeCache(jobName), localNodePath);
+			if(data != null) {
+				return Boolean.valueOf(new String(data, "UTF-8"));
 			}
 			return false;
 		}
@@ -321,14 +247,12 @@ public class NamespaceShardingService {
 		protected int getShardingTotalCount(String jobName) throws Exception {
 			int shardingTotalCount = 0;
 			String jobConfigShardingTotalCountNodePath = SaturnExecutorsNode.getJobConfigShardingTotalCountNodePath(jobName);
-			if(curatorFramework.checkExists().forPath(jobConfigShardingTotalCountNodePath) != null) {
-				byte[] shardingTotalCountData = curatorFramework.getData().forPath(jobConfigShardingTotalCountNodePath);
-				if (shardingTotalCountData != null) {
-					try {
-						shardingTotalCount = Integer.parseInt(new String(shardingTotalCountData, "UTF-8"));
-					} catch (NumberFormatException e) {
-						log.error(e.getMessage(), e);
-					}
+			byte[] shardingTotalCountData = getData(getJobConfigTreeCache(jobName), jobConfigShardingTotalCountNodePath);
+			if (shardingTotalCountData != null) {
+				try {
+					shardingTotalCount = Integer.parseInt(new String(shardingTotalCountData, "UTF-8"));
+				} catch (NumberFormatException e) {
+					log.error(e.getMessage(), e);
 				}
 			}
 			return shardingTotalCount;
@@ -338,11 +262,9 @@ public class NamespaceShardingService {
 			int loadLevel = LOAD_LEVEL_DEFAULT;
 			try {
 				String jobConfigLoadLevelNodePath = SaturnExecutorsNode.getJobConfigLoadLevelNodePath(jobName);
-				if (curatorFramework.checkExists().forPath(jobConfigLoadLevelNodePath) != null) {
-					byte[] loadLevelData = curatorFramework.getData().forPath(jobConfigLoadLevelNodePath);
-					if (loadLevelData != null) {
-						loadLevel = Integer.parseInt(new String(loadLevelData, "UTF-8"));
-					}
+				byte[] loadLevelData = getData(getJobConfigTreeCache(jobName), jobConfigLoadLevelNodePath);
+				if (loadLevelData != null) {
+					loadLevel = Integer.parseInt(new String(loadLevelData, "UTF-8"));
 				}
 			} catch (Exception e) {
 				log.error(e.getMessage(), e);
@@ -389,10 +311,11 @@ public class NamespaceShardingService {
 
 		private List<Executor> getNotDockerExecutors(List<Executor> lastOnlineExecutorList) throws Exception {
 			List<Executor> notDockerExecutors = new ArrayList<>();
+			TreeCache executorsTreeCache = getExecutorsTreeCache();
 			for(int i=0; i<lastOnlineExecutorList.size(); i++) {
 				Executor executor = lastOnlineExecutorList.get(i);
 				String executorName = executor.getExecutorName();
-				if(curatorFramework.checkExists().forPath(SaturnExecutorsNode.getExecutorTaskNodePath(executorName)) == null) {
+				if(!isExisted(executorsTreeCache, SaturnExecutorsNode.getExecutorTaskNodePath(executorName))) {
 					notDockerExecutors.add(executor);
 				}
 			}
@@ -526,11 +449,9 @@ public class NamespaceShardingService {
     	protected boolean useDispreferList(String jobName) {
 			try {
 				String jobConfigUseDispreferListNodePath = SaturnExecutorsNode.getJobConfigUseDispreferListNodePath(jobName);
-				if (curatorFramework.checkExists().forPath(jobConfigUseDispreferListNodePath) != null) {
-					byte[] useDispreferListData = curatorFramework.getData().forPath(jobConfigUseDispreferListNodePath);
-					if (useDispreferListData != null && !Boolean.valueOf(new String(useDispreferListData, "UTF-8"))) {
-						return false;
-					}
+				byte[] useDispreferListData = getData(getJobConfigTreeCache(jobName), jobConfigUseDispreferListNodePath);
+				if (useDispreferListData != null && !Boolean.valueOf(new String(useDispreferListData, "UTF-8"))) {
+					return false;
 				}
 				return true;
 			} catch (Exception e) {
@@ -605,11 +526,9 @@ public class NamespaceShardingService {
     		List<String> allEnableJob = new ArrayList<>();
 			for(int i=0; i<allJob.size(); i++) {
 				String job = allJob.get(i);
-				if(curatorFramework.checkExists().forPath(SaturnExecutorsNode.getJobConfigEnableNodePath(job)) != null) {
-					byte[] enableData = curatorFramework.getData().forPath(SaturnExecutorsNode.getJobConfigEnableNodePath(job));
-					if(enableData != null && Boolean.valueOf(new String(enableData, "UTF-8"))) {
-						allEnableJob.add(job);
-					}
+				byte[] enableData = getData(getJobConfigTreeCache(job), SaturnExecutorsNode.getJobConfigEnableNodePath(job));
+				if(enableData != null && Boolean.valueOf(new String(enableData, "UTF-8"))) {
+					allEnableJob.add(job);
 				}
 			}
 			return allEnableJob;
@@ -626,11 +545,9 @@ public class NamespaceShardingService {
     	}
 
 		protected boolean preferListIsConfigured(String jobName) throws Exception {
-			if(curatorFramework.checkExists().forPath(SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName)) != null) {
-				byte[] preferListData = curatorFramework.getData().forPath(SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName));
-				if(preferListData != null) {
-					return new String(preferListData, "UTF-8").trim().length() > 0;
-				}
+			byte[] preferListData = getData(getJobConfigTreeCache(jobName), SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName));
+			if(preferListData != null) {
+				return new String(preferListData, "UTF-8").trim().length() > 0;
 			}
 			return false;
 		}
@@ -640,16 +557,18 @@ public class NamespaceShardingService {
 		 */
     	protected List<String> getPreferListConfigured(String jobName) throws Exception {
 			List<String> preferList = new ArrayList<>();
-			if(curatorFramework.checkExists().forPath(SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName)) != null) {
-				byte[] preferListData = curatorFramework.getData().forPath(SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName));
-				if(preferListData != null) {
-					List<String> allExistsExecutors = getAllExistingExecutors();
-					String[] split = new String(preferListData, "UTF-8").split(",");
-					for(String tmp : split) {
-						String tmpTrim = tmp.trim();
-						if(!"".equals(tmpTrim)) {
-							fillRealPreferListIfIsDockerOrNot(preferList, tmpTrim, allExistsExecutors);
+			byte[] preferListData = getData(getJobConfigTreeCache(jobName), SaturnExecutorsNode.getJobConfigPreferListNodePath(jobName));
+			if(preferListData != null) {
+				String[] split = new String(preferListData, "UTF-8").split(",");
+				List<String> allExistsExecutors = null;
+				for(String tmp : split) {
+					String tmpTrim = tmp.trim();
+					if(!"".equals(tmpTrim)) {
+						// 只有配置了容器资源才需要获取全部executor
+						if(allExistsExecutors == null && tmpTrim.startsWith("@")) {
+							allExistsExecutors = getAllExistingExecutors();
 						}
+						fillRealPreferListIfIsDockerOrNot(preferList, tmpTrim, allExistsExecutors);
 					}
 				}
 			}
@@ -658,7 +577,13 @@ public class NamespaceShardingService {
 
 		private List<String> getAllExistingExecutors() throws Exception {
 			List<String> allExistsExecutors = new ArrayList<>();
-			if(curatorFramework.checkExists().forPath(SaturnExecutorsNode.getExecutorsNodePath()) != null) {
+			TreeCache executorsTreeCache = getExecutorsTreeCache();
+			if(executorsTreeCache != null) {
+				Map<String, ChildData> executors = executorsTreeCache.getCurrentChildren(SaturnExecutorsNode.getExecutorsNodePath());
+				if(executors != null) {
+					allExistsExecutors.addAll(executors.keySet());
+				}
+			} else if(curatorFramework.checkExists().forPath(SaturnExecutorsNode.getExecutorsNodePath()) != null) {
 				List<String> executors = curatorFramework.getChildren().forPath(SaturnExecutorsNode.getExecutorsNodePath());
 				if(executors != null) {
 					allExistsExecutors.addAll(executors);
@@ -678,14 +603,13 @@ public class NamespaceShardingService {
 				}
 			} else { // docker server, get the real executorList by task
 				String task = prefer.substring(1);
+				TreeCache executorsTreeCache = getExecutorsTreeCache();
 				for(int i=0; i<allExistsExecutors.size(); i++) {
 					String executor = allExistsExecutors.get(i);
-					if(curatorFramework.checkExists().forPath(SaturnExecutorsNode.getExecutorTaskNodePath(executor)) != null) {
-						byte[] taskData = curatorFramework.getData().forPath(SaturnExecutorsNode.getExecutorTaskNodePath(executor));
-						if(taskData != null && task.equals(new String(taskData, "UTF-8"))) {
-							if(!preferList.contains(executor)) {
-								preferList.add(executor);
-							}
+					byte[] taskData = getData(executorsTreeCache, SaturnExecutorsNode.getExecutorTaskNodePath(executor));
+					if(taskData != null && task.equals(new String(taskData, "UTF-8"))) {
+						if(!preferList.contains(executor)) {
+							preferList.add(executor);
 						}
 					}
 				}
@@ -755,6 +679,216 @@ public class NamespaceShardingService {
 
 	}
 
+	/**
+	 * 在同一份分片结果上依次执行各个任务的摘取、放回，只持久化一次，只通知分片有变化的作业。
+	 * 如果其中有全量分片任务，则只执行全量分片
+	 */
+	private void runShardingTasks(List<AbstractAsyncShardingTask> tasks) {
+		AbstractAsyncShardingTask allShardingTask = null;
+		for (AbstractAsyncShardingTask task : tasks) {
+			if (task instanceof ExecuteAllShardingTask) {
+				allShardingTask = task;
+				break;
+			}
+		}
+		boolean isAllShardingTask = allShardingTask != null;
+		List<AbstractAsyncShardingTask> runTasks = isAllShardingTask ? Collections.singletonList(allShardingTask) : tasks;
+		if (tasks.size() > 1) {
+			log.info("Coalesce {} sharding tasks into one round", tasks.size());
+		}
+		for (AbstractAsyncShardingTask task : runTasks) {
+			task.logStartInfo();
+		}
+		try {
+			// 如果当前变为非leader，则直接返回
+			if(!isLeadership()) {
+				return;
+			}
+
+			// 如果需要全量分片，且当前线程不是全量分片线程，则直接返回，没必要做分片
+			if(needAllSharding.get() && !isAllShardingTask) {
+				log.info("the {} sharding tasks will be ignored, because there will be {}", tasks.size(), ExecuteAllShardingTask.class.getSimpleName());
+				return;
+			}
+
+			AbstractAsyncShardingTask firstTask = runTasks.get(0);
+			List<String> allJobs = firstTask.getAllJobs();
+			List<String> allEnableJobs = firstTask.getAllEnableJobs(allJobs);
+			List<Executor> oldOnlineExecutorList = firstTask.getLastOnlineExecutorList();
+			// 原分片结果先建索引，之后可以直接在原列表上摘取、放回，不需要复制
+			ShardingIndex oldShardingIndex = ShardingIndex.build(oldOnlineExecutorList);
+			List<Executor> customLastOnlineExecutorList = firstTask.customLastOnlineExecutorList();
+			List<Executor> lastOnlineExecutorList = customLastOnlineExecutorList == null ? oldOnlineExecutorList : customLastOnlineExecutorList;
+			boolean picked = false;
+			List<String> enableJobsPrior = new ArrayList<>();
+			for (AbstractAsyncShardingTask task : runTasks) {
+				List<Shard> shardList = new ArrayList<>();
+				// 摘取
+				if(task.pick(allJobs, allEnableJobs, shardList, lastOnlineExecutorList)) {
+					// 放回
+					task.putBackBalancing(allEnableJobs, shardList, lastOnlineExecutorList);
+					picked = true;
+					List<String> notifyEnableJobsPrior = task.notifyEnableJobsPrior();
+					if (notifyEnableJobsPrior != null) {
+						enableJobsPrior.addAll(notifyEnableJobsPrior);
+					}
+				}
+			}
+			if(picked) {
+				// 如果当前变为非leader，则返回
+				if (!isLeadership()) {
+					return;
+				}
+				ShardingIndex lastShardingIndex = ShardingIndex.build(lastOnlineExecutorList);
+				// 持久化分片结果
+				if(lastShardingIndex.getContentHash() != oldShardingIndex.getContentHash()) {
+					namespaceShardingContentService.persistDirectly(lastOnlineExecutorList);
+				}
+				// notify the shards-changed jobs of all enable jobs.
+				Map<String, Map<String, List<Integer>>> enabledAndShardsChangedJobShardContent = getEnabledAndShardsChangedJobShardContent(isAllShardingTask, allEnableJobs, enableJobsPrior, oldShardingIndex, lastShardingIndex);
+				namespaceShardingContentService.persistJobsNecessaryInTransaction(enabledAndShardsChangedJobShardContent);
+				// sharding count ++
+				increaseShardingCount();
+			}
+		} catch (Throwable t) {
+			log.error(t.getMessage(), t);
+			if(!isAllShardingTask) { // 如果当前不是全量分片，则需要全量分片来拯救异常
+				submitAllShardingTask();
+			} else { // 如果当前是全量分片，则告警并关闭当前服务，重选leader来做事情
+				if(reportAlarmService != null) {
+					Map<String, String> alarmData = new HashMap<>();
+					alarmData.put("eventType", "SHARDING_ALLSHARDING_EXCEPTION");
+					alarmData.put("domain", namespace);
+					alarmData.put("hostValue", hostValue);
+					try {
+						reportAlarmService.reportWarningAlarm(alarmData);
+					} catch (Throwable t2) {
+						log.error(t2.getMessage(), t2);
+					}
+				}
+				try {
+					shutdown();
+				} catch (Throwable t3) {
+					log.error(t3.getMessage(), t3);
+				}
+			}
+		} finally {
+			for (AbstractAsyncShardingTask task : tasks) {
+				task.afterSharding();
+			}
+			if(isAllShardingTask) { // 如果是全量分片，不再进行全量分片
+				needAllSharding.set(false);
+			}
+			shardingCount.addAndGet(-tasks.size());
+		}
+	}
+
+	private void increaseShardingCount() throws Exception {
+		Integer _shardingCount = 1;
+		if (null !=  curatorFramework.checkExists().forPath(SaturnExecutorsNode.SHARDING_COUNT_PATH)) {
+			byte[] shardingCountData = curatorFramework.getData().forPath(SaturnExecutorsNode.SHARDING_COUNT_PATH);
+			if(shardingCountData != null) {
+				try {
+					_shardingCount = Integer.parseInt(new String(shardingCountData, "UTF-8")) + 1;
+				} catch (NumberFormatException e) {
+					log.error(e.getMessage(), e);
+				}
+			}
+			curatorFramework.setData().forPath(SaturnExecutorsNode.SHARDING_COUNT_PATH, _shardingCount.toString().getBytes("UTF-8"));
+		} else {
+			curatorFramework.create().creatingParentsIfNeeded().forPath(SaturnExecutorsNode.SHARDING_COUNT_PATH, _shardingCount.toString().getBytes("UTF-8"));
+		}
+	}
+
+	/**
+	 * Get the jobs, that are enabled, and whose shards are changed. Specially, return all enabled jobs when the current thread is all-shard-task<br/>
+	 * Return the jobs and their shardContent.
+	 */
+	private Map<String, Map<String, List<Integer>>> getEnabledAndShardsChangedJobShardContent(boolean isAllShardingTask, List<String> allEnableJobs, List<String> enableJobsPrior, ShardingIndex oldShardingIndex, ShardingIndex lastShardingIndex) throws Exception {
+		Map<String, Map<String, List<Integer>>> jobShardContent = new HashMap<>();
+		if (isAllShardingTask) {
+			for (String enableJob : allEnableJobs) {
+				jobShardContent.put(enableJob, lastShardingIndex.getShardingItems(enableJob));
+			}
+			return jobShardContent;
+		}
+		for (String enableJob : allEnableJobs) {
+			// notify prior jobs that are in all enable jobs, and the jobs whose shards are changed
+			if (enableJobsPrior != null && enableJobsPrior.contains(enableJob)
+					|| lastShardingIndex.isJobShardsChanged(oldShardingIndex, enableJob)) {
+				jobShardContent.put(enableJob, lastShardingIndex.getShardingItems(enableJob));
+			}
+		}
+		return jobShardContent;
+	}
+
+	/**
+	 * 提交分片任务。合并窗口大于0时，先放入待处理队列，窗口结束后队列中的任务合并为一轮分片
+	 */
+	private void submitShardingTask(AbstractAsyncShardingTask task) {
+		shardingCount.incrementAndGet();
+		if (shardingCoalesceMillis <= 0) {
+			executorService.submit(task);
+			return;
+		}
+		boolean first;
+		synchronized (pendingShardingTasks) {
+			first = pendingShardingTasks.isEmpty();
+			pendingShardingTasks.add(task);
+		}
+		if (first) {
+			if (shardingWorkerPool != null) {
+				// 共享线程池时由定时器在窗口结束后提交，等待期间不占用工作线程
+				shardingWorkerPool.schedule(executorService, new CoalescedShardingTask(0L), shardingCoalesceMillis);
+			} else {
+				executorService.submit(new CoalescedShardingTask(shardingCoalesceMillis));
+			}
+		}
+	}
+
+	private void submitAllShardingTask() {
+		needAllSharding.set(true);
+		submitShardingTask(new ExecuteAllShardingTask());
+	}
+
+	private void clearPendingShardingTasks() {
+		synchronized (pendingShardingTasks) {
+			pendingShardingTasks.clear();
+		}
+	}
+
+	/**
+	 * 等待合并窗口结束，取出待处理队列中的全部任务，执行一轮分片
+	 */
+	private class CoalescedShardingTask implements Runnable {
+
+		private long sleepMillis;
+
+		private CoalescedShardingTask(long sleepMillis) {
+			this.sleepMillis = sleepMillis;
+		}
+
+		@Override
+		public void run() {
+			if (sleepMillis > 0) {
+				try {
+					Thread.sleep(sleepMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			List<AbstractAsyncShardingTask> tasks;
+			synchronized (pendingShardingTasks) {
+				tasks = new ArrayList<>(pendingShardingTasks);
+				pendingShardingTasks.clear();
+			}
+			if (!tasks.isEmpty()) {
+				runShardingTasks(tasks);
+			}
+		}
+	}
+
     /**
      * 域下重排，移除已经存在所有executor，重新获取executors，重新获取作业shards
      */
@@ -781,6 +915,12 @@ public class NamespaceShardingService {
 			return true;
 		}
 
+		@Override
+		protected boolean readFromTreeCache() {
+			// 全量分片用于修正异常，直接读取zk
+			return false;
+		}
+
 		@Override
 		protected List<Executor> customLastOnlineExecutorList() throws Exception {
 			// 从$SaturnExecutors节点下，获取所有正在运行的Executor
@@ -833,9 +973,7 @@ public class NamespaceShardingService {
 			// 如果没有Executor在运行，则需要进行全量分片
 			if(lastOnlineExecutorList.isEmpty()) {
 				log.warn("There are no running executors, need all sharding");
-				needAllSharding.set(true);
-				shardingCount.incrementAndGet();
-				executorService.submit(new ExecuteAllShardingTask());
+				submitAllShardingTask();
 				return false;
 			}
 
@@ -1028,13 +1166,9 @@ public class NamespaceShardingService {
 		}
 
 		@Override
-        public void run() {
-            try {
-                super.run();
-            } finally {
-                deleteForceShardNode();
-            }
-        }
+		protected void afterSharding() {
+			deleteForceShardNode();
+		}
 
         private void deleteForceShardNode() {
             try {
@@ -1094,11 +1228,9 @@ public class NamespaceShardingService {
 			String ip = null;
 			try {
 				String executorIpNodePath = SaturnExecutorsNode.getExecutorIpNodePath(executorName);
-				if (curatorFramework.checkExists().forPath(SaturnExecutorsNode.getExecutorIpNodePath(executorName)) != null) {
-					byte[] ipBytes = curatorFramework.getData().forPath(executorIpNodePath);
-					if (ipBytes != null) {
-						ip = new String(ipBytes, "UTF-8");
-					}
+				byte[] ipBytes = getData(getExecutorsTreeCache(), executorIpNodePath);
+				if (ipBytes != null) {
+					ip = new String(ipBytes, "UTF-8");
 				}
 			} catch (Exception e) {
 				log.error(e.getMessage(), e);
@@ -1402,9 +1534,7 @@ public class NamespaceShardingService {
      */
 	public void asyncShardingWhenExecutorAll() throws Exception {
 		if(isLeadership()) {
-			needAllSharding.set(true);
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteAllShardingTask());
+			submitAllShardingTask();
 			try {
 				String shardAllAtOnce = SaturnExecutorsNode.getExecutorShardingNodePath("shardAllAtOnce");
 				if (curatorFramework.checkExists().forPath(shardAllAtOnce) != null) {
@@ -1423,8 +1553,7 @@ public class NamespaceShardingService {
      */
 	public void asyncShardingWhenExecutorOnline(String executorName, String ip) throws Exception {
 		if(isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteOnlineShardingTask(executorName, ip));
+			submitShardingTask(new ExecuteOnlineShardingTask(executorName, ip));
 		}
 	}
 
@@ -1435,8 +1564,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenExecutorOffline(String executorName) throws Exception {
 		if(isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteOfflineShardingTask(executorName));
+			submitShardingTask(new ExecuteOfflineShardingTask(executorName));
 		}
 	}
 
@@ -1447,8 +1575,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenJobEnable(String jobName) throws Exception {
 		if(isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteJobEnableShardingTask(jobName));
+			submitShardingTask(new ExecuteJobEnableShardingTask(jobName));
 		}
 	}
 
@@ -1459,8 +1586,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenJobDisable(String jobName) throws Exception {
 		if(isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteJobDisableShardingTask(jobName));
+			submitShardingTask(new ExecuteJobDisableShardingTask(jobName));
 		}
 	}
 
@@ -1469,8 +1595,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenJobForceShard(String jobName) throws Exception {
 		if (isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteJobForceShardShardingTask(jobName));
+			submitShardingTask(new ExecuteJobForceShardShardingTask(jobName));
 		}
 	}
 
@@ -1479,8 +1604,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenJobServerOnline(String jobName, String executorName) throws Exception {
 		if (isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteJobServerOnlineShardingTask(jobName, executorName));
+			submitShardingTask(new ExecuteJobServerOnlineShardingTask(jobName, executorName));
 		}
 	}
 
@@ -1489,8 +1613,7 @@ public class NamespaceShardingService {
 	 */
 	public void asyncShardingWhenJobServerOffline(String jobName, String executorName) throws Exception {
 		if (isLeadership()) {
-			shardingCount.incrementAndGet();
-			executorService.submit(new ExecuteJobServerOfflineShardingTask(jobName, executorName));
+			submitShardingTask(new ExecuteJobServerOfflineShardingTask(jobName, executorName));
 		}
 	}
 
@@ -1519,11 +1642,10 @@ public class NamespaceShardingService {
 					}
 					needAllSharding.set(false);
 					shardingCount.set(0);
+					clearPendingShardingTasks();
 					executorService = newSingleThreadExecutor();
 					// 提交全量分片线程
-					needAllSharding.set(true);
-					shardingCount.incrementAndGet();
-					executorService.submit(new ExecuteAllShardingTask());
+					submitAllShardingTask();
 					log.info("{}-{} become leadership", namespace, hostValue);
 				}
 			} catch (Exception e) {
@@ -1579,11 +1701,19 @@ public class NamespaceShardingService {
 			if (executorService != null) {
 				executorService.shutdownNow();
 			}
+			clearPendingShardingTasks();
 		}
 	}
 
 	public NamespaceShardingContentService getNamespaceShardingContentService() {
 		return namespaceShardingContentService;
 	}
+
+	/**
+	 * 已提交、还未执行完成的分片任务数
+	 */
+	int getShardingCount() {
+		return shardingCount.get();
+	}
 	
 }
@@ -0,0 +1,290 @@
+package com.vip.saturn.job.sharding.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.vip.saturn.job.sharding.entity.Executor;
+import com.vip.saturn.job.sharding.entity.Shard;
+
+/**
+ * sharding/content的二进制格式.
+ *
+ * <p>
+ * 格式：4字节头（0x00 'S' 'C' 版本号）+ 4字节未压缩长度 + deflate压缩的内容。内容为：
+ * 作业名表（作业数，每个作业名），executor数，每个executor的executorName、ip、totalLoadLevel、jobNameList（作业名表下标）、
+ * shardList（每个分片的作业名表下标、item、loadLevel）。整数使用varint编码，字符串为长度+UTF-8字节，长度和列表大小加1编码，0表示null.
+ * 原JSON格式以'['或者'n'开头，读取时按首字节区分.
+ * </p>
+ */
+public final class ShardingContentCodec {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte VERSION = 1;
+
+    private static final byte[] MAGIC = { 0x00, 'S', 'C', VERSION };
+
+    private static final int HEADER_LENGTH = MAGIC.length + 4;
+
+    private ShardingContentCodec() {
+    }
+
+    /**
+     * 数据是否为二进制格式，只需要第一个分段
+     */
+    public static boolean isBinary(byte[] firstSlice) {
+        return firstSlice != null && firstSlice.length >= HEADER_LENGTH && firstSlice[0] == MAGIC[0]
+                && firstSlice[1] == MAGIC[1] && firstSlice[2] == MAGIC[2];
+    }
+
+    public static byte[] encode(List<Executor> executorList) {
+        Map<String, Integer> jobIds = new HashMap<>();
+        List<String> jobNames = new ArrayList<>();
+        for (Executor executor : executorList) {
+            if (executor.getJobNameList() != null) {
+                for (String jobName : executor.getJobNameList()) {
+                    jobId(jobName, jobIds, jobNames);
+                }
+            }
+            if (executor.getShardList() != null) {
+                for (Shard shard : executor.getShardList()) {
+                    jobId(shard.getJobName(), jobIds, jobNames);
+                }
+            }
+        }
+        Output out = new Output();
+        out.writeVarInt(jobNames.size());
+        for (String jobName : jobNames) {
+            out.writeString(jobName);
+        }
+        out.writeVarInt(executorList.size());
+        for (Executor executor : executorList) {
+            out.writeString(executor.getExecutorName());
+            out.writeString(executor.getIp());
+            out.writeSignedVarInt(executor.getTotalLoadLevel());
+            List<String> jobNameList = executor.getJobNameList();
+            out.writeVarInt(jobNameList == null ? 0 : jobNameList.size() + 1);
+            if (jobNameList != null) {
+                for (String jobName : jobNameList) {
+                    out.writeVarInt(jobIds.get(jobName));
+                }
+            }
+            List<Shard> shardList = executor.getShardList();
+            out.writeVarInt(shardList == null ? 0 : shardList.size() + 1);
+            if (shardList != null) {
+                for (Shard shard : shardList) {
+                    out.writeVarInt(jobIds.get(shard.getJobName()));
+                    out.writeSignedVarInt(shard.getItem());
+                    out.writeSignedVarInt(shard.getLoadLevel());
+                }
+            }
+        }
+        return compress(out.buffer(), out.size());
+    }
+
+    private static int jobId(String jobName, Map<String, Integer> jobIds, List<String> jobNames) {
+        Integer id = jobIds.get(jobName);
+        if (id == null) {
+            id = jobNames.size();
+            jobIds.put(jobName, id);
+            jobNames.add(jobName);
+        }
+        return id;
+    }
+
+    private static byte[] compress(byte[] data, int length) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length / 4 + HEADER_LENGTH + 64);
+        out.write(MAGIC, 0, MAGIC.length);
+        out.write(length >>> 24);
+        out.write(length >>> 16);
+        out.write(length >>> 8);
+        out.write(length);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buf);
+                out.write(buf, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 按顺序解压各个分段，不需要先拼接成一个数组
+     *
+     * @param slices sharding/content下按序号排序的各分段数据，第一个分段以格式头开始
+     */
+    public static List<Executor> decode(List<byte[]> slices) {
+        byte[] first = slices.get(0);
+        if (!isBinary(first)) {
+            throw new IllegalArgumentException("not binary sharding content");
+        }
+        if (first[3] != VERSION) {
+            throw new IllegalArgumentException("unsupported sharding content version " + first[3]);
+        }
+        int length = ((first[4] & 0xff) << 24) | ((first[5] & 0xff) << 16) | ((first[6] & 0xff) << 8) | (first[7] & 0xff);
+        byte[] data = new byte[length];
+        Inflater inflater = new Inflater();
+        try {
+            int offset = 0;
+            for (int i = 0; i < slices.size(); i++) {
+                byte[] slice = slices.get(i);
+                int start = i == 0 ? HEADER_LENGTH : 0;
+                inflater.setInput(slice, start, slice.length - start);
+                while (offset < length && !inflater.needsInput()) {
+                    int n = inflater.inflate(data, offset, length - offset);
+                    if (n == 0 && (inflater.finished() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    offset += n;
+                }
+            }
+            if (offset != length) {
+                throw new IllegalArgumentException("sharding content is incomplete, expect " + length + " bytes but " + offset);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException(e);
+        } finally {
+            inflater.end();
+        }
+        return read(new Input(data));
+    }
+
+    private static List<Executor> read(Input in) {
+        int jobCount = in.readVarInt();
+        String[] jobNames = new String[jobCount];
+        for (int i = 0; i < jobCount; i++) {
+            jobNames[i] = in.readString();
+        }
+        int executorCount = in.readVarInt();
+        List<Executor> executorList = new ArrayList<>(executorCount);
+        for (int i = 0; i < executorCount; i++) {
+            Executor executor = new Executor();
+            executor.setExecutorName(in.readString());
+            executor.setIp(in.readString());
+            executor.setTotalLoadLevel(in.readSignedVarInt());
+            int jobNameCount = in.readVarInt() - 1;
+            if (jobNameCount >= 0) {
+                List<String> jobNameList = new ArrayList<>(jobNameCount);
+                for (int j = 0; j < jobNameCount; j++) {
+                    jobNameList.add(jobNames[in.readVarInt()]);
+                }
+                executor.setJobNameList(jobNameList);
+            }
+            int shardCount = in.readVarInt() - 1;
+            if (shardCount >= 0) {
+                List<Shard> shardList = new ArrayList<>(shardCount);
+                for (int j = 0; j < shardCount; j++) {
+                    Shard shard = new Shard();
+                    shard.setJobName(jobNames[in.readVarInt()]);
+                    shard.setItem(in.readSignedVarInt());
+                    shard.setLoadLevel(in.readSignedVarInt());
+                    shardList.add(shard);
+                }
+                executor.setShardList(shardList);
+            }
+            executorList.add(executor);
+        }
+        return executorList;
+    }
+
+    private static final class Output {
+
+        private byte[] buf = new byte[4096];
+
+        private int size;
+
+        private void ensure(int n) {
+            if (size + n > buf.length) {
+                byte[] newBuf = new byte[Math.max(buf.length << 1, size + n)];
+                System.arraycopy(buf, 0, newBuf, 0, size);
+                buf = newBuf;
+            }
+        }
+
+        private void writeVarInt(int value) {
+            ensure(5);
+            int v = value;
+            while ((v & ~0x7f) != 0) {
+                buf[size++] = (byte) ((v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        private void writeSignedVarInt(int value) {
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(UTF8);
+            writeVarInt(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private byte[] buffer() {
+            return buf;
+        }
+
+        private int size() {
+            return size;
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] buf;
+
+        private int pos;
+
+        private Input(byte[] buf) {
+            this.buf = buf;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            while (true) {
+                byte b = buf[pos++];
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+
+        private int readSignedVarInt() {
+            int v = readVarInt();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        private String readString() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(buf, pos, length, UTF8);
+            pos += length;
+            return value;
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package com.vip.saturn.job.sharding.service;
 
+import com.vip.saturn.job.sharding.ShardingWorkerPool;
 import com.vip.saturn.job.sharding.TreeCacheThreadFactory;
 import com.vip.saturn.job.sharding.entity.ShardingTreeCache;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
 import org.apache.curator.framework.recipes.cache.TreeCacheListener;
 import org.apache.curator.utils.CloseableExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Field;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author hebelala
@@ -19,15 +24,44 @@ public class ShardingTreeCacheService {
 
     private static final Logger logger = LoggerFactory.getLogger(ShardingTreeCacheService.class);
 
+    // TreeCache只在第一次加载完成时发布INITIALIZED事件，重连后需要重置isInitialized，刷新完成时才会再次发布
+    private static Field treeCacheIsInitializedField;
+    private static Field treeCacheOutstandingOpsField;
+
+    static {
+        try {
+            treeCacheIsInitializedField = TreeCache.class.getDeclaredField("isInitialized");
+            treeCacheIsInitializedField.setAccessible(true);
+            treeCacheOutstandingOpsField = TreeCache.class.getDeclaredField("outstandingOps");
+            treeCacheOutstandingOpsField.setAccessible(true);
+        } catch (Exception e) {
+            treeCacheIsInitializedField = null;
+            treeCacheOutstandingOpsField = null;
+            logger.warn("cannot access the fields of TreeCache, the TreeCache will not be used after reconnected", e);
+        }
+    }
+
     private String namespace;
     private CuratorFramework curatorFramework;
     private ShardingTreeCache shardingTreeCache;
     private ExecutorService executorService;
+    private ShardingWorkerPool treeCacheWorkerPool;
+    private String nns;
 
     public ShardingTreeCacheService(String namespace, CuratorFramework curatorFramework) {
+        this(namespace, curatorFramework, null, null);
+    }
+
+    /**
+     * @param treeCacheWorkerPool 多个域共享的TreeCache事件线程池，为null则使用自己的单线程池
+     * @param nns zk集群名/域名，作为在treeCacheWorkerPool中的key，为null则使用域名
+     */
+    public ShardingTreeCacheService(String namespace, CuratorFramework curatorFramework, ShardingWorkerPool treeCacheWorkerPool, String nns) {
         this.namespace = namespace;
         this.curatorFramework = curatorFramework;
         this.shardingTreeCache = new ShardingTreeCache();
+        this.treeCacheWorkerPool = treeCacheWorkerPool;
+        this.nns = nns == null ? namespace : nns;
     }
 
     public void addTreeCacheIfAbsent(String path, int depth) {
@@ -37,10 +71,12 @@ public class ShardingTreeCacheService {
                 TreeCache treeCache = TreeCache.newBuilder(curatorFramework, path)
                         .setExecutor(new CloseableExecutorService(executorService, false))
                         .setMaxDepth(depth).build();
+                treeCache.getListenable().addListener(new InitializedListener(treeCache));
                 treeCache.start();
                 TreeCache treeCacheOld = shardingTreeCache.putTreeCacheIfAbsent(path, depth, treeCache);
                 if (treeCacheOld != null) {
                     treeCache.close();
+                    shardingTreeCache.setTreeCacheInitialized(treeCache, false);
                 } else {
                     logger.info("create TreeCache, full path is {}, depth is {}", fullPath, depth);
                 }
@@ -58,12 +94,23 @@ public class ShardingTreeCacheService {
         }
     }
 
+    /**
+     * 获取已初始化完成的TreeCache，用于代替zk读取；不存在、未初始化完成或者连接中断时返回null
+     */
+    public TreeCache getInitializedTreeCache(String path, int depth) {
+        return shardingTreeCache.getInitializedTreeCache(path, depth);
+    }
+
     public void removeTreeCache(String path, int depth) {
         shardingTreeCache.removeTreeCache(path, depth);
     }
 
     public void start() {
-        executorService = Executors.newSingleThreadExecutor(new TreeCacheThreadFactory(namespace));
+        if (treeCacheWorkerPool != null) {
+            executorService = treeCacheWorkerPool.newSerialExecutor(nns);
+        } else {
+            executorService = Executors.newSingleThreadExecutor(new TreeCacheThreadFactory(namespace));
+        }
     }
 
     public void shutdown() {
@@ -73,4 +120,57 @@ public class ShardingTreeCacheService {
         }
     }
 
+    /**
+     * 初始化完成后才使用TreeCache的数据；连接中断期间数据可能过时，不使用，重连后等TreeCache刷新完成、再次发布INITIALIZED事件才使用。
+     * 会话过期时NamespaceShardingManager会重建全部TreeCache
+     */
+    private class InitializedListener implements TreeCacheListener {
+
+        private TreeCache treeCache;
+
+        private volatile boolean connected = true;
+
+        private InitializedListener(TreeCache treeCache) {
+            this.treeCache = treeCache;
+        }
+
+        @Override
+        public void childEvent(CuratorFramework client, TreeCacheEvent event) throws Exception {
+            TreeCacheEvent.Type type = event.getType();
+            if (type == TreeCacheEvent.Type.INITIALIZED) {
+                // 连接中断期间未完成的操作失败，也可能触发INITIALIZED，此时数据不完整
+                if (connected) {
+                    shardingTreeCache.setTreeCacheInitialized(treeCache, true);
+                }
+            } else if (type == TreeCacheEvent.Type.CONNECTION_RECONNECTED) {
+                connected = true;
+                if (resetInitialized(treeCache)) {
+                    shardingTreeCache.setTreeCacheInitialized(treeCache, true);
+                }
+            } else if (type == TreeCacheEvent.Type.CONNECTION_SUSPENDED || type == TreeCacheEvent.Type.CONNECTION_LOST) {
+                connected = false;
+                shardingTreeCache.setTreeCacheInitialized(treeCache, false);
+            }
+        }
+    }
+
+    /**
+     * 在CONNECTION_RECONNECTED事件中调用，重置TreeCache的isInitialized，重连时的刷新完成后TreeCache会再次发布INITIALIZED事件
+     * @return 刷新已经完成，不会再发布INITIALIZED事件，可以直接使用
+     */
+    public static boolean resetInitialized(TreeCache treeCache) {
+        if (treeCacheIsInitializedField == null) {
+            return false;
+        }
+        try {
+            AtomicBoolean isInitialized = (AtomicBoolean) treeCacheIsInitializedField.get(treeCache);
+            AtomicLong outstandingOps = (AtomicLong) treeCacheOutstandingOpsField.get(treeCache);
+            isInitialized.set(false);
+            return outstandingOps.get() == 0 && isInitialized.compareAndSet(false, true);
+        } catch (Exception e) {
+            logger.warn(e.getMessage(), e);
+            return false;
+        }
+    }
+
 }
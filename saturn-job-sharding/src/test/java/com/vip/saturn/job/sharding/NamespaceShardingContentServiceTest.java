@@ -5,13 +5,16 @@ import static org.assertj.core.api.Assertions.assertThat;
 import com.vip.saturn.job.sharding.entity.Executor;
 import com.vip.saturn.job.sharding.entity.Shard;
 import com.vip.saturn.job.sharding.service.NamespaceShardingContentService;
+import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
 import com.vip.saturn.job.utils.NestedZkUtils;
 import org.apache.curator.framework.CuratorFramework;
 import org.junit.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Created by xiaopeng.he on 2016/7/12.
@@ -63,4 +66,95 @@ public class NamespaceShardingContentServiceTest {
         assertThat(executorList1.size()).isEqualTo(executorList.size());
     }
 
+    @Test
+    public void testBinaryContentInSlices() throws Exception {
+        CuratorFramework framework = nestedZkUtils.createClient("namespace");
+        NamespaceShardingContentService namespaceShardingContentService = new NamespaceShardingContentService(framework, true);
+        // 随机作业名，压缩后仍然超过一个分段
+        Random random = new Random(1);
+        List<Executor> executorList = new ArrayList<>();
+        for(int i=0; i<20; i++) {
+            Executor executor = new Executor();
+            executor.setExecutorName("e" + i);
+            executor.setIp(i % 2 == 0 ? "ip" + i : null);
+            executor.setJobNameList(i % 3 == 0 ? null : Arrays.asList("job" + i));
+            List<Shard> shardList = new ArrayList<>();
+            for(int j=0; j<5000; j++) {
+                Shard shard = new Shard();
+                shard.setJobName(Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()));
+                shard.setItem(j);
+                shard.setLoadLevel(j % 7 - 3);
+                shardList.add(shard);
+            }
+            executor.setShardList(shardList);
+            executor.setTotalLoadLevel(-i);
+            executorList.add(executor);
+        }
+        namespaceShardingContentService.persistDirectly(executorList);
+        assertThat(framework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH).size()).isGreaterThan(1);
+        assertThat(namespaceShardingContentService.toShardingContent(namespaceShardingContentService.getExecutorList()))
+                .isEqualTo(namespaceShardingContentService.toShardingContent(executorList));
+
+        // 内容变少后，多余的分段被删除
+        List<Executor> smallList = executorList.subList(0, 1);
+        smallList.get(0).setShardList(smallList.get(0).getShardList().subList(0, 10));
+        namespaceShardingContentService.persistDirectly(smallList);
+        assertThat(framework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH)).containsOnly("0");
+        assertThat(namespaceShardingContentService.toShardingContent(namespaceShardingContentService.getExecutorList()))
+                .isEqualTo(namespaceShardingContentService.toShardingContent(smallList));
+    }
+
+    @Test
+    public void testReadJsonContent() throws Exception {
+        CuratorFramework framework = nestedZkUtils.createClient("namespace");
+        NamespaceShardingContentService namespaceShardingContentService = new NamespaceShardingContentService(framework, true);
+        List<Executor> executorList = new ArrayList<>();
+        Executor executor = new Executor();
+        executor.setExecutorName("执行器");
+        executor.setIp("ip");
+        Shard shard = new Shard();
+        shard.setJobName("job");
+        shard.setItem(1);
+        shard.setLoadLevel(2);
+        executor.setShardList(new ArrayList<>(Arrays.asList(shard)));
+        executor.setTotalLoadLevel(2);
+        executorList.add(executor);
+
+        // 原JSON格式，多字节字符跨分段
+        String json = namespaceShardingContentService.toShardingContent(executorList);
+        byte[] bytes = json.getBytes("UTF-8");
+        int split = json.indexOf("执行器") + 1;
+        framework.create().creatingParentsIfNeeded().forPath(SaturnExecutorsNode.getShardingContentElementNodePath("0"), Arrays.copyOfRange(bytes, 0, split));
+        framework.create().forPath(SaturnExecutorsNode.getShardingContentElementNodePath("1"), Arrays.copyOfRange(bytes, split, bytes.length));
+        assertThat(namespaceShardingContentService.toShardingContent(namespaceShardingContentService.getExecutorList())).isEqualTo(json);
+
+        // 覆盖为二进制格式
+        namespaceShardingContentService.persistDirectly(executorList);
+        assertThat(framework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH)).containsOnly("0");
+        assertThat(namespaceShardingContentService.toShardingContent(namespaceShardingContentService.getExecutorList())).isEqualTo(json);
+    }
+
+    @Test
+    public void testWriteJsonByDefault() throws Exception {
+        CuratorFramework framework = nestedZkUtils.createClient("namespace");
+        NamespaceShardingContentService namespaceShardingContentService = new NamespaceShardingContentService(framework);
+        List<Executor> executorList = new ArrayList<>();
+        Executor executor = new Executor();
+        executor.setExecutorName("e1");
+        Shard shard = new Shard();
+        shard.setJobName("job");
+        shard.setItem(1);
+        executor.setShardList(new ArrayList<>(Arrays.asList(shard)));
+        executorList.add(executor);
+
+        // 原来的二进制内容有两段，覆盖为一段JSON，旧版本的executor仍能解析
+        new NamespaceShardingContentService(framework, true).persistDirectly(executorList);
+        framework.create().forPath(SaturnExecutorsNode.getShardingContentElementNodePath("1"), new byte[] {1});
+        namespaceShardingContentService.persistDirectly(executorList);
+        assertThat(framework.getChildren().forPath(SaturnExecutorsNode.SHARDING_CONTENTNODE_PATH)).containsOnly("0");
+        String json = new String(framework.getData().forPath(SaturnExecutorsNode.getShardingContentElementNodePath("0")), "UTF-8");
+        assertThat(json).isEqualTo(namespaceShardingContentService.toShardingContent(executorList));
+        assertThat(namespaceShardingContentService.toShardingContent(namespaceShardingContentService.getExecutorList())).isEqualTo(json);
+    }
+
 }
@@ -0,0 +1,153 @@
+package com.vip.saturn.job.sharding;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorTransaction;
+import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+
+import com.vip.saturn.job.sharding.entity.Executor;
+import com.vip.saturn.job.sharding.entity.Shard;
+import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
+import com.vip.saturn.job.sharding.service.NamespaceShardingService;
+import com.vip.saturn.job.utils.NestedZkUtils;
+
+/**
+ * 100个作业、20个executor逐个重启（executor和全部作业servers先下线、再上线）时的分片轮数和总耗时：每个事件单独分片，与合并窗口内的事件合并分片的对比.
+ */
+public class ShardingCoalesceBenchmark {
+
+    private static final int JOBS = 100;
+
+    private static final int EXECUTORS = 20;
+
+    private static final int SHARDS_PER_JOB = 10;
+
+    private static final long RESTART_MILLIS = 100L;
+
+    public static void main(String[] args) throws Exception {
+        run(0L);
+        run(200L);
+    }
+
+    private static void run(long coalesceMillis) throws Exception {
+        NestedZkUtils nestedZkUtils = new NestedZkUtils();
+        nestedZkUtils.startServer();
+        try {
+            CuratorFramework client = nestedZkUtils.createClient("benchmark");
+            createNodes(client);
+            NamespaceShardingService namespaceShardingService = new NamespaceShardingService(client, "127.0.0.1", null, null, null, null, coalesceMillis);
+            namespaceShardingService.leaderElection();
+            waitShardingFinished(client, namespaceShardingService);
+
+            int startCount = getShardingCount(client);
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < EXECUTORS; i++) {
+                String executorName = "executor" + i;
+                String ipNodePath = SaturnExecutorsNode.getExecutorIpNodePath(executorName);
+                client.delete().forPath(ipNodePath);
+                namespaceShardingService.asyncShardingWhenExecutorOffline(executorName);
+                for (int j = 0; j < JOBS; j++) {
+                    namespaceShardingService.asyncShardingWhenJobServerOffline("job" + j, executorName);
+                }
+                Thread.sleep(RESTART_MILLIS);
+                client.create().forPath(ipNodePath, "127.0.0.1".getBytes("UTF-8"));
+                namespaceShardingService.asyncShardingWhenExecutorOnline(executorName, "127.0.0.1");
+                for (int j = 0; j < JOBS; j++) {
+                    namespaceShardingService.asyncShardingWhenJobServerOnline("job" + j, executorName);
+                }
+            }
+            waitShardingFinished(client, namespaceShardingService);
+            long millis = System.currentTimeMillis() - start;
+            int rounds = getShardingCount(client) - startCount;
+
+            System.out.println(String.format("coalesce %d ms: %d events, %d sharding rounds, %d ms, all items assigned once: %s",
+                    coalesceMillis, EXECUTORS * (JOBS + 1) * 2, rounds, millis, checkAllItemsAssignedOnce(namespaceShardingService)));
+            namespaceShardingService.shutdown();
+            client.close();
+        } finally {
+            nestedZkUtils.stopServer();
+        }
+    }
+
+    private static void createNodes(CuratorFramework client) throws Exception {
+        List<String[]> nodes = new ArrayList<>();
+        nodes.add(new String[] { SaturnExecutorsNode.$JOBSNODE_PATH, "" });
+        nodes.add(new String[] { SaturnExecutorsNode.$SATURNEXECUTORS_PATH, "" });
+        nodes.add(new String[] { SaturnExecutorsNode.EXECUTORSNODE_PATH, "" });
+        for (int i = 0; i < EXECUTORS; i++) {
+            String executorName = "executor" + i;
+            nodes.add(new String[] { SaturnExecutorsNode.getExecutorNodePath(executorName), "" });
+            nodes.add(new String[] { SaturnExecutorsNode.getExecutorIpNodePath(executorName), "127.0.0.1" });
+        }
+        for (int i = 0; i < JOBS; i++) {
+            String job = "job" + i;
+            nodes.add(new String[] { SaturnExecutorsNode.getJobNodePath(job), "" });
+            nodes.add(new String[] { SaturnExecutorsNode.getJobConfigNodePath(job), "" });
+            nodes.add(new String[] { SaturnExecutorsNode.getJobConfigEnableNodePath(job), "true" });
+            nodes.add(new String[] { SaturnExecutorsNode.getJobConfigShardingTotalCountNodePath(job), String.valueOf(SHARDS_PER_JOB) });
+            nodes.add(new String[] { SaturnExecutorsNode.getJobServersNodePath(job), "" });
+            for (int j = 0; j < EXECUTORS; j++) {
+                nodes.add(new String[] { SaturnExecutorsNode.getJobServersExecutorNodePath(job, "executor" + j), "" });
+                nodes.add(new String[] { SaturnExecutorsNode.getJobServersExecutorStatusNodePath(job, "executor" + j), "" });
+            }
+        }
+        for (int i = 0; i < nodes.size(); i += 500) {
+            CuratorTransaction transaction = client.inTransaction();
+            for (String[] node : nodes.subList(i, Math.min(i + 500, nodes.size()))) {
+                transaction = transaction.create().forPath(node[0], node[1].getBytes("UTF-8")).and();
+            }
+            ((CuratorTransactionFinal) transaction).commit();
+        }
+    }
+
+    /**
+     * 作业重排在全部已提交的任务之后执行，其forceShard结点被删除时，之前的任务都已完成
+     */
+    private static void waitShardingFinished(CuratorFramework client, NamespaceShardingService namespaceShardingService) throws Exception {
+        String forceShardNodePath = SaturnExecutorsNode.getJobConfigForceShardNodePath("job0");
+        client.create().forPath(forceShardNodePath);
+        namespaceShardingService.asyncShardingWhenJobForceShard("job0");
+        long deadline = System.currentTimeMillis() + 600000L;
+        while (client.checkExists().forPath(forceShardNodePath) != null) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("sharding timeout");
+            }
+            Thread.sleep(5L);
+        }
+    }
+
+    private static boolean checkAllItemsAssignedOnce(NamespaceShardingService namespaceShardingService) throws Exception {
+        Map<String, List<Integer>> items = new HashMap<>();
+        for (Executor executor : namespaceShardingService.getNamespaceShardingContentService().getExecutorList()) {
+            for (Shard shard : executor.getShardList()) {
+                List<Integer> list = items.get(shard.getJobName());
+                if (list == null) {
+                    list = new ArrayList<>();
+                    items.put(shard.getJobName(), list);
+                }
+                if (list.contains(shard.getItem())) {
+                    return false;
+                }
+                list.add(shard.getItem());
+            }
+        }
+        for (int i = 0; i < JOBS; i++) {
+            List<Integer> list = items.get("job" + i);
+            if (list == null || list.size() != SHARDS_PER_JOB) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getShardingCount(CuratorFramework client) throws Exception {
+        if (client.checkExists().forPath(SaturnExecutorsNode.SHARDING_COUNT_PATH) == null) {
+            return 0;
+        }
+        return Integer.parseInt(new String(client.getData().forPath(SaturnExecutorsNode.SHARDING_COUNT_PATH), "UTF-8"));
+    }
+}
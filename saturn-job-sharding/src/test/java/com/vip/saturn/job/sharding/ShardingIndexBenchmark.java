@@ -0,0 +1,169 @@
+package com.vip.saturn.job.sharding;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.vip.saturn.job.sharding.entity.Executor;
+import com.vip.saturn.job.sharding.entity.Shard;
+import com.vip.saturn.job.sharding.entity.ShardingIndex;
+import com.vip.saturn.job.sharding.service.NamespaceShardingContentService;
+
+/**
+ * 5000个作业、300个executor时，一次分片后计算分片结果是否变化、哪些作业的分片变化的耗时：
+ * 原来复制executor列表、两次序列化成JSON、每个作业两次遍历全部shardList并用List.contains比较，与使用ShardingIndex的对比.
+ */
+public class ShardingIndexBenchmark {
+
+    private static final int JOBS = 5000;
+
+    private static final int EXECUTORS = 300;
+
+    private static final int SHARDS_PER_JOB = 10;
+
+    private static final int MOVED_SHARDS = 200;
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        NamespaceShardingContentService namespaceShardingContentService = new NamespaceShardingContentService(null);
+        List<String> jobs = new ArrayList<>(JOBS);
+        for (int i = 0; i < JOBS; i++) {
+            jobs.add("job" + i);
+        }
+        Random random = new Random(1);
+        List<Executor> oldList = createExecutorList(jobs, random);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Executor> lastList = copy(oldList);
+            moveShards(lastList, random);
+
+            long start = System.nanoTime();
+            List<Executor> copied = copy(oldList);
+            boolean contentChanged = !namespaceShardingContentService.toShardingContent(oldList)
+                    .equals(namespaceShardingContentService.toShardingContent(lastList));
+            int legacyChangedJobs = 0;
+            for (String job : jobs) {
+                if (isChangedLegacy(namespaceShardingContentService.getShardingItems(copied, job),
+                        namespaceShardingContentService.getShardingItems(lastList, job))) {
+                    legacyChangedJobs++;
+                }
+            }
+            long legacyMillis = (System.nanoTime() - start) / 1000000;
+
+            start = System.nanoTime();
+            ShardingIndex oldIndex = ShardingIndex.build(oldList);
+            ShardingIndex lastIndex = ShardingIndex.build(lastList);
+            boolean indexContentChanged = oldIndex.getContentHash() != lastIndex.getContentHash();
+            int changedJobs = 0;
+            Map<String, Map<String, List<Integer>>> jobShardContent = new HashMap<>();
+            for (String job : jobs) {
+                if (lastIndex.isJobShardsChanged(oldIndex, job)) {
+                    jobShardContent.put(job, lastIndex.getShardingItems(job));
+                    changedJobs++;
+                }
+            }
+            long indexMillis = (System.nanoTime() - start) / 1000000;
+
+            System.out.println(String.format(
+                    "round %d, legacy %d ms (changed %s, %d jobs), index %d ms (changed %s, %d jobs)", round,
+                    legacyMillis, contentChanged, legacyChangedJobs, indexMillis, indexContentChanged, changedJobs));
+            oldList = lastList;
+        }
+    }
+
+    private static List<Executor> createExecutorList(List<String> jobs, Random random) {
+        List<Executor> executorList = new ArrayList<>(EXECUTORS);
+        for (int i = 0; i < EXECUTORS; i++) {
+            Executor executor = new Executor();
+            executor.setExecutorName("executor" + i);
+            executor.setIp("192.168.1." + i);
+            executor.setJobNameList(new ArrayList<>(jobs));
+            executor.setShardList(new ArrayList<Shard>());
+            executorList.add(executor);
+        }
+        for (String job : jobs) {
+            for (int item = 0; item < SHARDS_PER_JOB; item++) {
+                Shard shard = new Shard();
+                shard.setJobName(job);
+                shard.setItem(item);
+                shard.setLoadLevel(1);
+                Executor executor = executorList.get(random.nextInt(EXECUTORS));
+                executor.getShardList().add(shard);
+                executor.setTotalLoadLevel(executor.getTotalLoadLevel() + 1);
+            }
+        }
+        return executorList;
+    }
+
+    private static void moveShards(List<Executor> executorList, Random random) {
+        for (int i = 0; i < MOVED_SHARDS; i++) {
+            Executor from = executorList.get(random.nextInt(EXECUTORS));
+            if (from.getShardList().isEmpty()) {
+                continue;
+            }
+            Shard shard = from.getShardList().remove(random.nextInt(from.getShardList().size()));
+            from.setTotalLoadLevel(from.getTotalLoadLevel() - shard.getLoadLevel());
+            Executor to = executorList.get(random.nextInt(EXECUTORS));
+            to.getShardList().add(shard);
+            to.setTotalLoadLevel(to.getTotalLoadLevel() + shard.getLoadLevel());
+        }
+    }
+
+    /**
+     * 原NamespaceShardingService.copyOnlineExecutorList
+     */
+    private static List<Executor> copy(List<Executor> executorList) {
+        List<Executor> result = new ArrayList<>(executorList.size());
+        for (Executor oldExecutor : executorList) {
+            Executor newExecutor = new Executor();
+            newExecutor.setTotalLoadLevel(oldExecutor.getTotalLoadLevel());
+            newExecutor.setIp(oldExecutor.getIp());
+            newExecutor.setExecutorName(oldExecutor.getExecutorName());
+            newExecutor.setJobNameList(new ArrayList<>(oldExecutor.getJobNameList()));
+            List<Shard> shardList = new ArrayList<>(oldExecutor.getShardList().size());
+            for (Shard oldShard : oldExecutor.getShardList()) {
+                Shard newShard = new Shard();
+                newShard.setItem(oldShard.getItem());
+                newShard.setJobName(oldShard.getJobName());
+                newShard.setLoadLevel(oldShard.getLoadLevel());
+                shardList.add(newShard);
+            }
+            newExecutor.setShardList(shardList);
+            result.add(newExecutor);
+        }
+        return result;
+    }
+
+    /**
+     * 原NamespaceShardingService.getEnabledAndShardsChangedJobShardContent中的比较
+     */
+    private static boolean isChangedLegacy(Map<String, List<Integer>> oldShardingItems,
+            Map<String, List<Integer>> lastShardingItems) {
+        if (isAnyNotContained(oldShardingItems, lastShardingItems)) {
+            return true;
+        }
+        return isAnyNotContained(lastShardingItems, oldShardingItems);
+    }
+
+    private static boolean isAnyNotContained(Map<String, List<Integer>> from, Map<String, List<Integer>> to) {
+        for (Map.Entry<String, List<Integer>> next : from.entrySet()) {
+            List<Integer> shards = next.getValue();
+            List<Integer> other = to.get(next.getKey());
+            if ((shards == null || shards.isEmpty()) && (other != null && !other.isEmpty())
+                    || (shards != null && !shards.isEmpty()) && (other == null || other.isEmpty())) {
+                return true;
+            }
+            if (shards != null && other != null) {
+                for (Integer shard : shards) {
+                    if (!other.contains(shard)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,105 @@
+package com.vip.saturn.job.sharding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.vip.saturn.job.sharding.entity.Executor;
+import com.vip.saturn.job.sharding.entity.Shard;
+import com.vip.saturn.job.sharding.entity.ShardingIndex;
+import com.vip.saturn.job.sharding.service.NamespaceShardingContentService;
+
+public class ShardingIndexTest {
+
+    @Test
+    public void testGetShardingItems() throws Exception {
+        List<Executor> executorList = new ArrayList<>();
+        executorList.add(executor("e1", shard("job1", 2), shard("job2", 0), shard("job1", 0)));
+        executorList.add(executor("e2", shard("job1", 1)));
+        executorList.add(executor("e3"));
+
+        NamespaceShardingContentService namespaceShardingContentService = new NamespaceShardingContentService(null);
+        ShardingIndex shardingIndex = ShardingIndex.build(executorList);
+        for (String jobName : new String[] { "job1", "job2", "job3" }) {
+            assertThat(shardingIndex.getShardingItems(jobName))
+                    .isEqualTo(namespaceShardingContentService.getShardingItems(executorList, jobName));
+        }
+    }
+
+    @Test
+    public void testJobShardsChanged() {
+        List<Executor> oldList = new ArrayList<>();
+        oldList.add(executor("e1", shard("job1", 0), shard("job1", 1), shard("job2", 0)));
+        oldList.add(executor("e2", shard("job1", 2), shard("job2", 1)));
+        ShardingIndex oldIndex = ShardingIndex.build(oldList);
+
+        // 分片项和executor的顺序变化，以及没有分片的executor上线，都不算变化
+        List<Executor> reordered = new ArrayList<>();
+        reordered.add(executor("e3"));
+        reordered.add(executor("e2", shard("job2", 1), shard("job1", 2)));
+        reordered.add(executor("e1", shard("job2", 0), shard("job1", 1), shard("job1", 0)));
+        ShardingIndex reorderedIndex = ShardingIndex.build(reordered);
+        assertThat(reorderedIndex.isJobShardsChanged(oldIndex, "job1")).isFalse();
+        assertThat(reorderedIndex.isJobShardsChanged(oldIndex, "job2")).isFalse();
+        assertThat(reorderedIndex.getContentHash()).isNotEqualTo(oldIndex.getContentHash());
+
+        // job1的分片1转移到e2
+        List<Executor> moved = new ArrayList<>();
+        moved.add(executor("e1", shard("job1", 0), shard("job2", 0)));
+        moved.add(executor("e2", shard("job1", 2), shard("job2", 1), shard("job1", 1)));
+        ShardingIndex movedIndex = ShardingIndex.build(moved);
+        assertThat(movedIndex.isJobShardsChanged(oldIndex, "job1")).isTrue();
+        assertThat(movedIndex.isJobShardsChanged(oldIndex, "job2")).isFalse();
+
+        // job2的分片全部摘除
+        List<Executor> removed = new ArrayList<>();
+        removed.add(executor("e1", shard("job1", 0), shard("job1", 1)));
+        removed.add(executor("e2", shard("job1", 2)));
+        ShardingIndex removedIndex = ShardingIndex.build(removed);
+        assertThat(removedIndex.isJobShardsChanged(oldIndex, "job1")).isFalse();
+        assertThat(removedIndex.isJobShardsChanged(oldIndex, "job2")).isTrue();
+        assertThat(removedIndex.isJobShardsChanged(oldIndex, "job3")).isFalse();
+    }
+
+    @Test
+    public void testContentHash() {
+        List<Executor> executorList = new ArrayList<>();
+        executorList.add(executor("e1", shard("job1", 0), shard("job1", 1)));
+        executorList.add(executor("e2", shard("job1", 2)));
+        long contentHash = ShardingIndex.build(executorList).getContentHash();
+
+        List<Executor> sameList = new ArrayList<>();
+        sameList.add(executor("e1", shard("job1", 0), shard("job1", 1)));
+        sameList.add(executor("e2", shard("job1", 2)));
+        assertThat(ShardingIndex.build(sameList).getContentHash()).isEqualTo(contentHash);
+
+        sameList.get(1).getShardList().get(0).setLoadLevel(2);
+        assertThat(ShardingIndex.build(sameList).getContentHash()).isNotEqualTo(contentHash);
+
+        sameList.get(1).getShardList().get(0).setLoadLevel(1);
+        sameList.get(1).setJobNameList(Collections.singletonList("job1"));
+        assertThat(ShardingIndex.build(sameList).getContentHash()).isNotEqualTo(contentHash);
+    }
+
+    private static Executor executor(String executorName, Shard... shards) {
+        Executor executor = new Executor();
+        executor.setExecutorName(executorName);
+        executor.setIp("127.0.0.1");
+        List<Shard> shardList = new ArrayList<>();
+        Collections.addAll(shardList, shards);
+        executor.setShardList(shardList);
+        return executor;
+    }
+
+    private static Shard shard(String jobName, int item) {
+        Shard shard = new Shard();
+        shard.setJobName(jobName);
+        shard.setItem(item);
+        shard.setLoadLevel(1);
+        return shard;
+    }
+}
@@ -0,0 +1,154 @@
+package com.vip.saturn.job.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorTransaction;
+import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+
+import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
+import com.vip.saturn.job.sharding.service.NamespaceShardingService;
+import com.vip.saturn.job.sharding.service.ShardingTreeCacheService;
+import com.vip.saturn.job.utils.NestedZkUtils;
+
+/**
+ * 3000个作业、10个executor时，executor下线、上线后的分片耗时：分片时直接读取zk，与从TreeCache读取作业配置和executor信息的对比.
+ */
+public class ShardingTreeCacheBenchmark {
+
+    private static final String NAMESPACE = "benchmark";
+
+    private static final int JOBS = 3000;
+
+    private static final int EXECUTORS = 10;
+
+    private static final int SHARDS_PER_JOB = 10;
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        NestedZkUtils nestedZkUtils = new NestedZkUtils();
+        nestedZkUtils.startServer();
+        try {
+            CuratorFramework client = nestedZkUtils.createClient(NAMESPACE);
+            List<String> jobs = createNodes(client);
+
+            ShardingTreeCacheService shardingTreeCacheService = new ShardingTreeCacheService(NAMESPACE, client);
+            shardingTreeCacheService.start();
+            shardingTreeCacheService.addTreeCacheIfAbsent(SaturnExecutorsNode.EXECUTORSNODE_PATH, 2);
+            for (String job : jobs) {
+                shardingTreeCacheService.addTreeCacheIfAbsent(SaturnExecutorsNode.getJobConfigNodePath(job), 1);
+                shardingTreeCacheService.addTreeCacheIfAbsent(SaturnExecutorsNode.getJobServersNodePath(job), 2);
+            }
+            waitTreeCacheInitialized(shardingTreeCacheService, jobs);
+
+            run("zk", client, new NamespaceShardingService(client, "zk", null));
+            run("TreeCache", client, new NamespaceShardingService(client, "TreeCache", null, shardingTreeCacheService));
+
+            shardingTreeCacheService.shutdown();
+            client.close();
+        } finally {
+            nestedZkUtils.stopServer();
+        }
+    }
+
+    private static void run(String name, CuratorFramework client, NamespaceShardingService namespaceShardingService) throws Exception {
+        namespaceShardingService.leaderElection();
+        // 等待选举后的全量分片完成
+        waitShardingCount(client, getShardingCount(client) + 1, 60000L);
+        for (int round = 0; round < ROUNDS; round++) {
+            String executorName = "executor" + (round % EXECUTORS);
+            String ipNodePath = SaturnExecutorsNode.getExecutorIpNodePath(executorName);
+
+            client.delete().forPath(ipNodePath);
+            int count = getShardingCount(client);
+            long start = System.nanoTime();
+            namespaceShardingService.asyncShardingWhenExecutorOffline(executorName);
+            waitShardingCount(client, count + 1, 60000L);
+            long offlineMillis = (System.nanoTime() - start) / 1000000;
+
+            client.create().forPath(ipNodePath, "127.0.0.1".getBytes("UTF-8"));
+            count = getShardingCount(client);
+            start = System.nanoTime();
+            namespaceShardingService.asyncShardingWhenExecutorOnline(executorName, "127.0.0.1");
+            for (int i = 0; i < 10; i++) {
+                namespaceShardingService.asyncShardingWhenJobServerOnline("job" + i, executorName);
+            }
+            waitShardingCount(client, count + 11, 60000L);
+            long onlineMillis = (System.nanoTime() - start) / 1000000;
+
+            System.out.println(String.format("%s round %d, executor offline %d ms, executor and 10 job servers online %d ms",
+                    name, round, offlineMillis, onlineMillis));
+        }
+        namespaceShardingService.shutdown();
+        Thread.sleep(1000L);
+    }
+
+    private static List<String> createNodes(CuratorFramework client) throws Exception {
+        List<String> jobs = new ArrayList<>(JOBS);
+        List<String[]> nodes = new ArrayList<>();
+        nodes.add(new String[] { SaturnExecutorsNode.$JOBSNODE_PATH, "" });
+        nodes.add(new String[] { SaturnExecutorsNode.$SATURNEXECUTORS_PATH, "" });
+        nodes.add(new String[] { SaturnExecutorsNode.EXECUTORSNODE_PATH, "" });
+        for (int i = 0; i < EXECUTORS; i++) {
+            String executorName = "executor" + i;
+            nodes.add(new String[] { SaturnExecutorsNode.getExecutorNodePath(executorName), "" });
+            nodes.add(new String[] { SaturnExecutorsNode.getExecutorIpNodePath(executorName), "127.0.0.1" });
+        }
+        for (int i = 0; i < JOBS; i++) {
+            String job = "job" + i;
+            jobs.add(job);
+            nodes.add(new String[] { SaturnExecutorsNode.getJobNodePath(job), "" });
+            nodes.add(new String[] { SaturnExecutorsNode.getJobConfigNodePath(job), "" });
+            nodes.add(new String[] { SaturnExecutorsNode.getJobConfigEnableNodePath(job), "true" });
+            nodes.add(new String[] { SaturnExecutorsNode.getJobConfigShardingTotalCountNodePath(job), String.valueOf(SHARDS_PER_JOB) });
+            nodes.add(new String[] { SaturnExecutorsNode.getJobConfigLoadLevelNodePath(job), "1" });
+            nodes.add(new String[] { SaturnExecutorsNode.getJobConfigLocalModeNodePath(job), "false" });
+            nodes.add(new String[] { SaturnExecutorsNode.getJobConfigPreferListNodePath(job), "" });
+            nodes.add(new String[] { SaturnExecutorsNode.getJobConfigUseDispreferListNodePath(job), "true" });
+            nodes.add(new String[] { SaturnExecutorsNode.getJobServersNodePath(job), "" });
+            for (int j = 0; j < EXECUTORS; j++) {
+                nodes.add(new String[] { SaturnExecutorsNode.getJobServersExecutorNodePath(job, "executor" + j), "" });
+                nodes.add(new String[] { SaturnExecutorsNode.getJobServersExecutorStatusNodePath(job, "executor" + j), "" });
+            }
+        }
+        for (int i = 0; i < nodes.size(); i += 500) {
+            CuratorTransaction transaction = client.inTransaction();
+            for (String[] node : nodes.subList(i, Math.min(i + 500, nodes.size()))) {
+                transaction = transaction.create().forPath(node[0], node[1].getBytes("UTF-8")).and();
+            }
+            ((CuratorTransactionFinal) transaction).commit();
+        }
+        return jobs;
+    }
+
+    private static void waitTreeCacheInitialized(ShardingTreeCacheService shardingTreeCacheService, List<String> jobs) throws InterruptedException {
+        for (String job : jobs) {
+            while (shardingTreeCacheService.getInitializedTreeCache(SaturnExecutorsNode.getJobConfigNodePath(job), 1) == null
+                    || shardingTreeCacheService.getInitializedTreeCache(SaturnExecutorsNode.getJobServersNodePath(job), 2) == null) {
+                Thread.sleep(10L);
+            }
+        }
+        while (shardingTreeCacheService.getInitializedTreeCache(SaturnExecutorsNode.EXECUTORSNODE_PATH, 2) == null) {
+            Thread.sleep(10L);
+        }
+    }
+
+    private static int getShardingCount(CuratorFramework client) throws Exception {
+        if (client.checkExists().forPath(SaturnExecutorsNode.SHARDING_COUNT_PATH) == null) {
+            return 0;
+        }
+        return Integer.parseInt(new String(client.getData().forPath(SaturnExecutorsNode.SHARDING_COUNT_PATH), "UTF-8"));
+    }
+
+    private static void waitShardingCount(CuratorFramework client, int expected, long timeoutMillis) throws Exception {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (getShardingCount(client) < expected) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("sharding timeout, expected count " + expected);
+            }
+            Thread.sleep(5L);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.vip.saturn.job.sharding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vip.saturn.job.sharding.service.ShardingTreeCacheService;
+import com.vip.saturn.job.utils.NestedZkUtils;
+
+public class ShardingTreeCacheServiceTest {
+
+    private static final String PATH = "/$SaturnExecutors/executors";
+
+    private NestedZkUtils nestedZkUtils;
+
+    @Before
+    public void setUp() throws Exception {
+        nestedZkUtils = new NestedZkUtils();
+        nestedZkUtils.startServer();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if(nestedZkUtils != null) {
+            nestedZkUtils.stopServer();
+        }
+    }
+
+    @Test
+    public void testInitializedAfterReconnected() throws Exception {
+        CuratorFramework curatorFramework = nestedZkUtils.createClient("treeCacheTest");
+        curatorFramework.create().creatingParentsIfNeeded().forPath(PATH + "/executor1/ip", "127.0.0.1".getBytes("UTF-8"));
+        ShardingTreeCacheService shardingTreeCacheService = new ShardingTreeCacheService("treeCacheTest", curatorFramework);
+        shardingTreeCacheService.start();
+        try {
+            shardingTreeCacheService.addTreeCacheIfAbsent(PATH, 2);
+            TreeCache treeCache = waitInitialized(shardingTreeCacheService, true);
+            assertThat(treeCache.getCurrentData(PATH + "/executor1/ip")).isNotNull();
+
+            // 连接中断期间不使用TreeCache
+            nestedZkUtils.suspendServer();
+            waitInitialized(shardingTreeCacheService, false);
+
+            // 重连后刷新完成，再次发布INITIALIZED事件才使用
+            nestedZkUtils.restartServer();
+            treeCache = waitInitialized(shardingTreeCacheService, true);
+            assertThat(treeCache.getCurrentData(PATH + "/executor1/ip")).isNotNull();
+        } finally {
+            shardingTreeCacheService.shutdown();
+            curatorFramework.close();
+        }
+    }
+
+    private TreeCache waitInitialized(ShardingTreeCacheService shardingTreeCacheService, boolean initialized) throws InterruptedException {
+        for (int i = 0; i < 300; i++) {
+            TreeCache treeCache = shardingTreeCacheService.getInitializedTreeCache(PATH, 2);
+            if ((treeCache != null) == initialized) {
+                return treeCache;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("TreeCache is not " + (initialized ? "initialized" : "uninitialized"));
+    }
+}
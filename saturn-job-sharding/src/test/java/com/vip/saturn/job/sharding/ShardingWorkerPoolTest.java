@@ -0,0 +1,144 @@
+package com.vip.saturn.job.sharding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShardingWorkerPoolTest {
+
+    private ShardingWorkerPool shardingWorkerPool;
+
+    @Before
+    public void setUp() {
+        shardingWorkerPool = new ShardingWorkerPool("test", 2);
+    }
+
+    @After
+    public void tearDown() {
+        shardingWorkerPool.shutdown();
+    }
+
+    @Test
+    public void testSerialPerNamespace() throws Exception {
+        final int namespaces = 10;
+        final int tasks = 200;
+        List<ExecutorService> executors = new ArrayList<>();
+        final List<List<Integer>> results = new ArrayList<>();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        for (int i = 0; i < namespaces; i++) {
+            executors.add(shardingWorkerPool.newSerialExecutor("ns" + i));
+            results.add(Collections.synchronizedList(new ArrayList<Integer>()));
+        }
+        for (int j = 0; j < tasks; j++) {
+            for (int i = 0; i < namespaces; i++) {
+                final List<Integer> result = results.get(i);
+                final int value = j;
+                executors.get(i).submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        int current = running.incrementAndGet();
+                        synchronized (maxRunning) {
+                            maxRunning.set(Math.max(maxRunning.get(), current));
+                        }
+                        result.add(value);
+                        running.decrementAndGet();
+                    }
+                });
+            }
+        }
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+        for (List<Integer> result : results) {
+            assertThat(result).hasSize(tasks);
+            for (int j = 0; j < tasks; j++) {
+                assertThat(result.get(j)).isEqualTo(j);
+            }
+        }
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+        assertThat(shardingWorkerPool.getQueueDepths()).isEmpty();
+    }
+
+    @Test
+    public void testShutdownNow() throws Exception {
+        ExecutorService executor = shardingWorkerPool.newSerialExecutor("ns");
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    Thread.sleep(60000L);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        });
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(shardingWorkerPool.getQueueDepths().get("ns")).isEqualTo(1);
+
+        assertThat(executor.shutdownNow()).hasSize(1);
+        assertThat(interrupted.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(shardingWorkerPool.getQueueDepths()).isEmpty();
+
+        // 工作线程的中断标记已清除，其它域的任务正常执行
+        ExecutorService other = shardingWorkerPool.newSerialExecutor("other");
+        final CountDownLatch done = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            other.submit(new Runnable() {
+                @Override
+                public void run() {
+                    if (!Thread.currentThread().isInterrupted()) {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void testSchedule() throws Exception {
+        ExecutorService executor = shardingWorkerPool.newSerialExecutor("ns");
+        final CountDownLatch done = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        shardingWorkerPool.schedule(executor, new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        }, 100L);
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(100L);
+
+        final AtomicInteger count = new AtomicInteger();
+        shardingWorkerPool.schedule(executor, new Runnable() {
+            @Override
+            public void run() {
+                count.incrementAndGet();
+            }
+        }, 100L);
+        executor.shutdownNow();
+        Thread.sleep(300L);
+        assertThat(count.get()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,164 @@
+package com.vip.saturn.job.sharding.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vip.saturn.job.sharding.entity.Executor;
+import com.vip.saturn.job.sharding.entity.Shard;
+import com.vip.saturn.job.sharding.node.SaturnExecutorsNode;
+import com.vip.saturn.job.utils.NestedZkUtils;
+
+/**
+ * 合并窗口内提交的分片任务合并为一轮分片
+ */
+public class NamespaceShardingServiceCoalesceTest {
+
+    private static final int JOBS = 3;
+
+    private static final int EXECUTORS = 3;
+
+    private static final int SHARDS_PER_JOB = 4;
+
+    // 足够大，保证用例中连续提交的任务落在同一个窗口内
+    private static final long COALESCE_MILLIS = 1000L;
+
+    private NestedZkUtils nestedZkUtils;
+
+    private CuratorFramework client;
+
+    private NamespaceShardingService namespaceShardingService;
+
+    @Before
+    public void setUp() throws Exception {
+        nestedZkUtils = new NestedZkUtils();
+        nestedZkUtils.startServer();
+        client = nestedZkUtils.createClient("coalesceTest");
+        createNodes();
+        namespaceShardingService = new NamespaceShardingService(client, "127.0.0.1", null, null, null, null, COALESCE_MILLIS);
+        namespaceShardingService.leaderElection();
+        waitShardingFinished();
+        assertThat(getShardingCountNode()).isEqualTo(1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (namespaceShardingService != null) {
+            namespaceShardingService.shutdown();
+        }
+        if (client != null) {
+            client.close();
+        }
+        if (nestedZkUtils != null) {
+            nestedZkUtils.stopServer();
+        }
+    }
+
+    @Test
+    public void testCoalesceTasks() throws Exception {
+        // executor0下线，作业重排
+        client.delete().forPath(SaturnExecutorsNode.getExecutorIpNodePath("executor0"));
+        for (int i = 0; i < JOBS; i++) {
+            client.delete().forPath(SaturnExecutorsNode.getJobServersExecutorStatusNodePath("job" + i, "executor0"));
+        }
+        String forceShardNodePath = SaturnExecutorsNode.getJobConfigForceShardNodePath("job1");
+        client.create().forPath(forceShardNodePath);
+
+        namespaceShardingService.asyncShardingWhenExecutorOffline("executor0");
+        for (int i = 0; i < JOBS; i++) {
+            namespaceShardingService.asyncShardingWhenJobServerOffline("job" + i, "executor0");
+        }
+        namespaceShardingService.asyncShardingWhenJobForceShard("job1");
+        assertThat(namespaceShardingService.getShardingCount()).isEqualTo(JOBS + 2);
+        waitShardingFinished();
+
+        // 只分片一次，作业重排的afterSharding删除了forceShard结点
+        assertThat(getShardingCountNode()).isEqualTo(2);
+        assertThat(client.checkExists().forPath(forceShardNodePath)).isNull();
+        assertAllItemsAssignedOnce("executor1", "executor2");
+    }
+
+    @Test
+    public void testAllShardingSupersedesOtherTasks() throws Exception {
+        client.delete().forPath(SaturnExecutorsNode.getExecutorIpNodePath("executor0"));
+        String forceShardNodePath = SaturnExecutorsNode.getJobConfigForceShardNodePath("job1");
+        client.create().forPath(forceShardNodePath);
+
+        namespaceShardingService.asyncShardingWhenExecutorOffline("executor0");
+        namespaceShardingService.asyncShardingWhenJobForceShard("job1");
+        namespaceShardingService.asyncShardingWhenExecutorAll();
+        namespaceShardingService.asyncShardingWhenJobServerOffline("job0", "executor0");
+        assertThat(namespaceShardingService.getShardingCount()).isEqualTo(4);
+        waitShardingFinished();
+
+        // 只执行全量分片，被取代的任务的afterSharding仍然执行
+        assertThat(getShardingCountNode()).isEqualTo(2);
+        assertThat(client.checkExists().forPath(forceShardNodePath)).isNull();
+        assertAllItemsAssignedOnce("executor1", "executor2");
+
+        // 之后的任务正常分片
+        client.create().forPath(SaturnExecutorsNode.getExecutorIpNodePath("executor0"), "127.0.0.1".getBytes("UTF-8"));
+        namespaceShardingService.asyncShardingWhenExecutorOnline("executor0", "127.0.0.1");
+        for (int i = 0; i < JOBS; i++) {
+            namespaceShardingService.asyncShardingWhenJobServerOnline("job" + i, "executor0");
+        }
+        waitShardingFinished();
+        assertThat(getShardingCountNode()).isEqualTo(3);
+        assertAllItemsAssignedOnce("executor0", "executor1", "executor2");
+    }
+
+    private void createNodes() throws Exception {
+        client.create().creatingParentsIfNeeded().forPath(SaturnExecutorsNode.$JOBSNODE_PATH);
+        for (int i = 0; i < EXECUTORS; i++) {
+            client.create().creatingParentsIfNeeded().forPath(SaturnExecutorsNode.getExecutorIpNodePath("executor" + i), "127.0.0.1".getBytes("UTF-8"));
+        }
+        for (int i = 0; i < JOBS; i++) {
+            String job = "job" + i;
+            client.create().creatingParentsIfNeeded().forPath(SaturnExecutorsNode.getJobConfigEnableNodePath(job), "true".getBytes("UTF-8"));
+            client.create().forPath(SaturnExecutorsNode.getJobConfigShardingTotalCountNodePath(job), String.valueOf(SHARDS_PER_JOB).getBytes("UTF-8"));
+            for (int j = 0; j < EXECUTORS; j++) {
+                client.create().creatingParentsIfNeeded().forPath(SaturnExecutorsNode.getJobServersExecutorStatusNodePath(job, "executor" + j));
+            }
+        }
+    }
+
+    private void waitShardingFinished() throws InterruptedException {
+        for (int i = 0; i < 300; i++) {
+            if (namespaceShardingService.getShardingCount() == 0) {
+                return;
+            }
+            Thread.sleep(100L);
+        }
+        throw new AssertionError("sharding timeout");
+    }
+
+    private int getShardingCountNode() throws Exception {
+        return Integer.parseInt(new String(client.getData().forPath(SaturnExecutorsNode.SHARDING_COUNT_PATH), "UTF-8"));
+    }
+
+    private void assertAllItemsAssignedOnce(String... executorNames) throws Exception {
+        List<Executor> executorList = namespaceShardingService.getNamespaceShardingContentService().getExecutorList();
+        List<String> onlineExecutorNames = new ArrayList<>();
+        for (int i = 0; i < JOBS; i++) {
+            List<Integer> items = new ArrayList<>();
+            for (Executor executor : executorList) {
+                for (Shard shard : executor.getShardList()) {
+                    if (shard.getJobName().equals("job" + i)) {
+                        items.add(shard.getItem());
+                    }
+                }
+            }
+            assertThat(items).hasSize(SHARDS_PER_JOB).containsOnly(0, 1, 2, 3);
+        }
+        for (Executor executor : executorList) {
+            onlineExecutorNames.add(executor.getExecutorName());
+        }
+        assertThat(onlineExecutorNames).containsOnly(executorNames);
+    }
+}
@@ -31,6 +31,17 @@ public class NestedZkUtils {
         }
     }
 
+    /**
+     * 暂停服务，客户端连接中断，会话保留
+     */
+    public void suspendServer() throws IOException {
+        testingServer.stop();
+    }
+
+    public void restartServer() throws Exception {
+        testingServer.restart();
+    }
+
     public CuratorFramework createClient(String namespace) throws InterruptedException {
         CuratorFrameworkFactory.Builder builder = CuratorFrameworkFactory.builder();
         CuratorFramework curatorFramework = builder.connectString("localhost:" + port)